@@ -0,0 +1,80 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class provides synthetic blkparse *
+ *      output for the benchmarks, written by           *
+ *      {@link BlkparseGenerator} with its defaults.  A *
+ *      corpus of a given number of lines is always the *
+ *      same, and is cached in the temporary directory  *
+ *      so that it is only written once across runs.    *
+ ********************************************************/
+
+final class BlkparseCorpus {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private BlkparseCorpus ()
+    {
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing the corpus.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns a file holding the given number of lines of synthetic
+     * blkparse output, writing it first if it does not exist yet.
+     */
+    static Path file (
+            long numLines
+    )
+            throws IOException
+    {
+        Path path = Paths.get(
+                System.getProperty("java.io.tmpdir"),
+                "blkparse-generated-" + numLines + ".txt"
+        );
+
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        // Write to a temporary file first, so that an interrupted
+        // run never leaves a partial corpus behind.
+        Path partial = Paths.get(path + ".partial");
+
+        BlkparseGenerator blkparseGenerator = new BlkparseGenerator();
+
+        if (!blkparseGenerator.processInput(new String[] { Long.toString(numLines), partial.toString() })) {
+            throw new IOException("Could not generate the corpus");
+        }
+
+        blkparseGenerator.generate();
+
+        Files.move(partial, path);
+
+        return path;
+    }
+}
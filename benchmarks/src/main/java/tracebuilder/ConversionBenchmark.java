@@ -0,0 +1,134 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following benchmark measures end-to-end     *
+ *      conversion of synthetic blkparse output to CSV  *
+ *      by {@link BlkparseToCSV} in each of its modes.  *
+ *      Besides conversions per second, it reports the  *
+ *      input bytes and lines converted per second as   *
+ *      the "bytes" and "records" counters.             *
+ *                                                      *
+ *      The 50M line corpus takes about 4 GB in the     *
+ *      temporary directory; pass -p lines=1000,1000000 *
+ *      to leave it out.                                *
+ ********************************************************/
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+
+    /**
+     * Specifies the number of lines in the input.
+     */
+    @Param({ "1000", "1000000", "50000000" })
+    public long lines;
+
+
+    /**
+     * Specifies the conversion mode: the original line-by-line
+     * parser, the memory-mapped parser, or the parallel parser
+     * on every core.
+     */
+    @Param({ "legacy", "mapped", "parallel" })
+    public String mode;
+
+
+    /**
+     * Specifies the input file.
+     */
+    private Path input;
+
+
+    /**
+     * Specifies the output file.
+     */
+    private Path output;
+
+
+    /**
+     * Specifies the size of the input in bytes.
+     */
+    private long inputSize;
+
+
+    /**
+     * Counts the input converted, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long bytes;
+
+        public long records;
+    }
+
+
+    @Setup(Level.Trial)
+    public void setUp ()
+            throws IOException
+    {
+        input = BlkparseCorpus.file(lines);
+        inputSize = Files.size(input);
+        output = Files.createTempFile("conversion-benchmark", ".csv");
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown ()
+            throws IOException
+    {
+        Files.deleteIfExists(output);
+    }
+
+
+    @Benchmark
+    public void convert (
+            Counters counters
+    )
+            throws IOException
+    {
+        BlkparseToCSV blkparseToCSV = new BlkparseToCSV();
+
+        switch (mode) {
+
+            case "legacy":
+                blkparseToCSV.processInput(new String[] { input.toString(), output.toString() });
+                blkparseToCSV.parseToCSV();
+                break;
+
+            case "mapped":
+                blkparseToCSV.processInput(new String[] { input.toString(), output.toString() });
+                blkparseToCSV.parseToCSVMapped();
+                break;
+
+            default:
+                blkparseToCSV.processInput(new String[] {
+                        "-threads",
+                        Integer.toString(Runtime.getRuntime().availableProcessors()),
+                        input.toString(),
+                        output.toString()
+                });
+                blkparseToCSV.parseToCSVParallel();
+                break;
+        }
+
+        counters.bytes += inputSize;
+        counters.records += lines;
+    }
+}
@@ -0,0 +1,74 @@
+package tracebuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following benchmark measures the cost of    *
+ *      recording a latency into a                      *
+ *      {@link LatencyHistogram}, which Reader and      *
+ *      Writer do after every operation, alone and      *
+ *      together with the two nanoTime calls around it. *
+ ********************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LatencyHistogramBenchmark {
+
+
+    /**
+     * Specifies the number of distinct latencies cycled through.
+     */
+    private static final int NUM_LATENCIES = 1024;
+
+
+    /**
+     * Holds latencies spread from a microsecond to tens of milliseconds.
+     */
+    private final long[] latencies = new long[NUM_LATENCIES];
+
+
+    /**
+     * Specifies the latency used by the next invocation.
+     */
+    private int next;
+
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+
+    @Setup
+    public void setUp ()
+    {
+        SplittableRandom random = new SplittableRandom(42);
+
+        for (int i = 0; i < NUM_LATENCIES; i++) {
+            latencies[i] = (long) Math.exp(7 + random.nextDouble() * 10);
+        }
+    }
+
+
+    @Benchmark
+    public void record ()
+    {
+        next = (next + 1) & (NUM_LATENCIES - 1);
+        histogram.record(latencies[next]);
+    }
+
+
+    @Benchmark
+    public void timeAndRecord ()
+    {
+        long operationStart = System.nanoTime();
+        histogram.record(System.nanoTime() - operationStart);
+    }
+}
@@ -0,0 +1,147 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following benchmark measures the per-line   *
+ *      cost of tokenizing a line of blkparse output    *
+ *      with {@link BlkparseLine}, of writing it out as *
+ *      CSV, and of parsing it into a                   *
+ *      {@link TraceRecord}.                            *
+ ********************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineTokenizerBenchmark {
+
+
+    /**
+     * Specifies the number of distinct lines cycled through,
+     * so that branch prediction cannot learn a single line.
+     */
+    private static final int NUM_LINES = 1024;
+
+
+    /**
+     * Holds the lines, one after another.
+     */
+    private ByteBuffer input;
+
+
+    /**
+     * Specifies the start of each line in {@link #input}.
+     */
+    private int[] lineStart;
+
+
+    /**
+     * Specifies the end of each line in {@link #input}.
+     */
+    private int[] lineEnd;
+
+
+    /**
+     * Specifies the line used by the next invocation.
+     */
+    private int next;
+
+
+    private final BlkparseLine line = new BlkparseLine();
+
+    private final TraceRecord record = new TraceRecord();
+
+    private final ByteBuffer output = ByteBuffer.allocate(1024);
+
+
+    @Setup
+    public void setUp ()
+            throws IOException
+    {
+        byte[] text = Files.readAllBytes(
+                BlkparseCorpus.file(NUM_LINES)
+        );
+
+        lineStart = new int[NUM_LINES];
+        lineEnd = new int[NUM_LINES];
+
+        // Find where each line starts and ends.
+        int start = 0;
+
+        for (int i = 0; i < NUM_LINES; i++) {
+
+            int end = start;
+
+            while (text[end] != '\n') {
+                end++;
+            }
+
+            lineStart[i] = start;
+            lineEnd[i] = end;
+            start = end + 1;
+        }
+
+        input = ByteBuffer.wrap(text);
+    }
+
+
+    /**
+     * Moves on to the next line.
+     */
+    private int nextLine ()
+    {
+        next = (next + 1) & (NUM_LINES - 1);
+        return next;
+    }
+
+
+    @Benchmark
+    public int tokenize ()
+    {
+        int i = nextLine();
+
+        line.tokenize(input, lineStart[i], lineEnd[i]);
+
+        return line.numEntries();
+    }
+
+
+    @Benchmark
+    public int tokenizeAndWriteCSV ()
+    {
+        int i = nextLine();
+
+        line.tokenize(input, lineStart[i], lineEnd[i]);
+
+        output.clear();
+        line.writeCSV(output);
+
+        return output.position();
+    }
+
+
+    @Benchmark
+    public void tokenizeAndParse (
+            Blackhole blackhole
+    )
+    {
+        int i = nextLine();
+
+        line.tokenize(input, lineStart[i], lineEnd[i]);
+
+        blackhole.consume(record.set(line));
+        blackhole.consume(record.timestamp);
+    }
+}
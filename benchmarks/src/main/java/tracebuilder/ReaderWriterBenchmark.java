@@ -0,0 +1,111 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following benchmark measures the cost of    *
+ *      the operations of {@link Reader#readFile()} and *
+ *      {@link Writer#writeZeroes()} with no sleep      *
+ *      between them.  The "reads" and "writes"         *
+ *      counters report operations per second; their    *
+ *      inverse is the cost of a single operation.      *
+ ********************************************************/
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReaderWriterBenchmark {
+
+
+    /**
+     * Specifies the number of lines in the file read.
+     */
+    private static final long READ_LINES = 1000000;
+
+
+    /**
+     * Specifies the file read.
+     */
+    private Path input;
+
+
+    /**
+     * Specifies the file written.
+     */
+    private Path output;
+
+
+    /**
+     * Counts the operations done, reported per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+
+        public long reads;
+
+        public long writes;
+    }
+
+
+    @Setup(Level.Trial)
+    public void setUp ()
+            throws IOException
+    {
+        input = BlkparseCorpus.file(READ_LINES);
+        output = Files.createTempFile("writer-benchmark", ".txt");
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown ()
+            throws IOException
+    {
+        Files.deleteIfExists(output);
+    }
+
+
+    /**
+     * Reads the whole file, one line per read.
+     */
+    @Benchmark
+    public void readFile (
+            Counters counters
+    )
+            throws IOException, InterruptedException
+    {
+        Reader reader = new Reader();
+        reader.processInput(new String[] { "3600", "0", input.toString() });
+        reader.readFile();
+
+        counters.reads += reader.numReads();
+    }
+
+
+    /**
+     * Writes for one second, one line per write.
+     */
+    @Benchmark
+    public void writeZeroes (
+            Counters counters
+    )
+            throws IOException, InterruptedException
+    {
+        Writer writer = new Writer();
+        writer.processInput(new String[] { "1", "0", output.toString() });
+        writer.writeZeroes();
+
+        counters.writes += writer.numWrites();
+    }
+}
@@ -0,0 +1,59 @@
+package tracebuilder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following benchmark measures the cost of    *
+ *      drawing the offset of the next block from each  *
+ *      {@link WorkloadPattern}, which Reader and       *
+ *      Writer do before every operation, over 4K       *
+ *      blocks of a 1 TB span.                          *
+ ********************************************************/
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorkloadPatternBenchmark {
+
+
+    /**
+     * Specifies the number of bytes the pattern ranges over.
+     */
+    private static final long SPAN = 1L << 40;
+
+
+    @Param({
+            "sequential",
+            "uniform:42",
+            "zipf:0.99:42",
+            "hotcold:0.2:0.8:42",
+            "shift:1G:100000:42"
+    })
+    public String spec;
+
+
+    private WorkloadPattern pattern;
+
+
+    @Setup
+    public void setUp ()
+    {
+        pattern = WorkloadPattern.parse(spec);
+        pattern.start(SPAN, 4096);
+    }
+
+
+    @Benchmark
+    public long next ()
+    {
+        return pattern.next();
+    }
+}
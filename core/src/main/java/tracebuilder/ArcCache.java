@@ -0,0 +1,224 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class simulates an Adaptive       *
+ *      Replacement Cache (Megiddo and Modha, FAST      *
+ *      2003).  Cached blocks seen once recently are in *
+ *      T1 and those seen more than once are in T2,     *
+ *      each in LRU order, and the blocks most recently *
+ *      evicted from each are remembered, without data, *
+ *      in the ghost lists B1 and B2.  A hit in a ghost *
+ *      list moves the target size of T1 towards the    *
+ *      list that would have hit, so the cache adapts   *
+ *      between recency and frequency.  All four lists  *
+ *      share one {@link SlotList} of twice as many     *
+ *      slots as the cache holds blocks.                *
+ ********************************************************/
+
+final class ArcCache extends CachePolicy {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the list of cached blocks seen once recently.
+     */
+    private static final int T1 = 0;
+
+
+    /**
+     * Specifies the list of cached blocks seen more than once recently.
+     */
+    private static final int T2 = 1;
+
+
+    /**
+     * Specifies the list of blocks recently evicted from {@link #T1}.
+     */
+    private static final int B1 = 2;
+
+
+    /**
+     * Specifies the list of blocks recently evicted from {@link #T2}.
+     */
+    private static final int B2 = 3;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the block in each slot.
+     */
+    private final long[] blocks;
+
+
+    /**
+     * Specifies the slot of each cached or remembered block.
+     */
+    private final LongIntHashMap slots;
+
+
+    /**
+     * Specifies the four lists, each from most to least recently used.
+     */
+    private final SlotList lists;
+
+
+    /**
+     * Specifies the slots in no list.
+     */
+    private final int[] freeSlots;
+
+
+    /**
+     * Specifies the number of slots in {@link #freeSlots}.
+     */
+    private int numFree;
+
+
+    /**
+     * Specifies the target number of blocks in {@link #T1}.
+     */
+    private int target;
+
+
+
+    ArcCache (
+            int capacity
+    )
+    {
+        super("arc", capacity);
+
+        blocks = new long[2 * capacity];
+        slots = new LongIntHashMap(2 * capacity);
+        lists = new SlotList(2 * capacity, 4);
+        freeSlots = new int[2 * capacity];
+
+        for (int i = 0; i < 2 * capacity; i++) {
+            freeSlots[numFree++] = 2 * capacity - 1 - i;
+        }
+    }
+
+
+    @Override
+    boolean lookup (
+            long block
+    )
+    {
+        int slot = slots.get(block);
+
+        if (slot >= 0) {
+
+            int list = lists.listOf(slot);
+
+            // A cached block moves to the front of T2.
+            if (list == T1 || list == T2) {
+
+                lists.moveToFirst(T2, slot);
+                return true;
+            }
+
+            // A remembered block grows the target of its
+            // list's side, and is brought back into T2.
+            if (list == B1) {
+
+                int delta = Math.max(lists.size(B2) / lists.size(B1), 1);
+                target = Math.min(target + delta, capacity);
+
+            } else {
+
+                int delta = Math.max(lists.size(B1) / lists.size(B2), 1);
+                target = Math.max(target - delta, 0);
+            }
+
+            replace(list == B2);
+            lists.moveToFirst(T2, slot);
+
+            return false;
+        }
+
+        // Make room for a block seen for the first time.
+        int sizeL1 = lists.size(T1) + lists.size(B1);
+        int total = sizeL1 + lists.size(T2) + lists.size(B2);
+
+        if (sizeL1 == capacity) {
+
+            if (lists.size(T1) < capacity) {
+
+                forget(B1);
+                replace(false);
+
+            } else {
+
+                forget(T1);
+            }
+
+        } else if (total >= capacity) {
+
+            if (total == 2 * capacity) {
+                forget(B2);
+            }
+
+            replace(false);
+        }
+
+        slot = freeSlots[--numFree];
+        blocks[slot] = block;
+        slots.put(block, slot);
+        lists.addFirst(T1, slot);
+
+        return false;
+    }
+
+
+    /**
+     * Evicts the least recently used block of T1 into B1 if T1 is
+     * over its target, or of T2 into B2 otherwise.  A hit in B2
+     * also evicts from T1 when T1 is exactly at its target.
+     */
+    private void replace (
+            boolean hitInB2
+    )
+    {
+        int sizeT1 = lists.size(T1);
+
+        if (sizeT1 > 0 &&
+                (sizeT1 > target || (hitInB2 && sizeT1 == target) || lists.size(T2) == 0)) {
+
+            lists.moveToFirst(B1, lists.last(T1));
+
+        } else if (lists.size(T2) > 0) {
+
+            lists.moveToFirst(B2, lists.last(T2));
+        }
+    }
+
+
+    /**
+     * Forgets the least recently used block of the given list
+     * entirely, freeing its slot.
+     */
+    private void forget (
+            int list
+    )
+    {
+        int slot = lists.last(list);
+
+        lists.remove(slot);
+        slots.remove(blocks[slot]);
+        freeSlots[numFree++] = slot;
+    }
+}
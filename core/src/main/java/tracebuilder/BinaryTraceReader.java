@@ -0,0 +1,575 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class iterates over the records   *
+ *      of a binary trace written by                    *
+ *      {@link BinaryTraceWriter}.  The file is         *
+ *      memory-mapped and each field is read straight   *
+ *      out of the mapping, so reloading a trace does   *
+ *      no parsing and creates no objects per record.   *
+ *      A gzipped binary trace cannot be mapped, so it  *
+ *      is decompressed into a buffer a segment at a    *
+ *      time instead, and can only be read in order.    *
+ *                                                      *
+ *      Run on its own, it takes two space separated    *
+ *      inputs, a binary trace file name and a CSV      *
+ *      file name, and converts the former into the     *
+ *      latter in the same format as BlkparseToCSV.     *
+ ********************************************************/
+
+final class BinaryTraceReader implements TraceCursor {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of records mapped into memory at once,
+     * about a gigabyte's worth.
+     */
+    private static final int SEGMENT_RECORDS =
+            (1 << 30) / BinaryTraceWriter.RECORD_SIZE;
+
+
+    /**
+     * Specifies the number of records decompressed into
+     * the buffer at once from a gzipped trace.
+     */
+    private static final int STREAM_SEGMENT_RECORDS =
+            (1 << 20) / BinaryTraceWriter.RECORD_SIZE;
+
+
+    /**
+     * Specifies the mask selecting the minor device number.
+     */
+    private static final int MINOR_MASK =
+            (1 << BinaryTraceWriter.MINOR_BITS) - 1;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the channel of the binary trace file,
+     * or null if it is gzipped.
+     */
+    private final FileChannel channel;
+
+
+    /**
+     * Specifies the decompressed contents of a gzipped
+     * trace, or null if it is not gzipped.
+     */
+    private final ReadableByteChannel stream;
+
+
+    /**
+     * Specifies the number of records in the file,
+     * or -1 if it is gzipped and so not known.
+     */
+    private final long numRecords;
+
+
+    /**
+     * Specifies the currently mapped or decompressed segment of records.
+     */
+    private ByteBuffer segment;
+
+
+    /**
+     * Specifies the index of the first record in {@link #segment},
+     * or -1 if nothing has been mapped yet.
+     */
+    private long segmentFirstRecord = -1;
+
+
+    /**
+     * Specifies the number of records in {@link #segment}.
+     */
+    private int segmentRecords;
+
+
+    /**
+     * Specifies the index of the current record.
+     */
+    private long record = -1;
+
+
+    /**
+     * Specifies the byte index of the current record in {@link #segment}.
+     */
+    private int position;
+
+
+
+    /**
+     * Opens the given binary trace file, which may be gzipped, for reading.
+     * @throws IOException If the file is not a binary trace.
+     */
+    BinaryTraceReader (
+            String filename
+    )
+            throws IOException
+    {
+        if (Compression.isGzipped(filename)) {
+
+            channel = null;
+            stream = Channels.newChannel(Compression.openInput(filename));
+            numRecords = -1;
+
+            try {
+
+                // Check the header, then start with an empty segment.
+                segment = ByteBuffer.allocate(
+                        STREAM_SEGMENT_RECORDS * BinaryTraceWriter.RECORD_SIZE
+                ).order(ByteOrder.LITTLE_ENDIAN);
+
+                segment.limit(BinaryTraceWriter.HEADER_SIZE);
+                fill();
+
+                if (!isHeader(segment)) {
+
+                    throw new IOException(
+                            "Not a binary trace: " + filename
+                    );
+                }
+
+                segmentFirstRecord = 0;
+                segmentRecords = 0;
+
+            } catch (IOException exception) {
+
+                stream.close();
+                throw exception;
+            }
+
+            return;
+        }
+
+        stream = null;
+        channel = FileChannel.open(
+                Paths.get(filename),
+                StandardOpenOption.READ
+        );
+
+        try {
+
+            // Check the header.
+            MappedByteBuffer header = channel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    0,
+                    Math.min(channel.size(), BinaryTraceWriter.HEADER_SIZE)
+            );
+
+            header.order(ByteOrder.LITTLE_ENDIAN);
+
+            if (!isHeader(header)) {
+
+                throw new IOException(
+                        "Not a binary trace: " + filename
+                );
+            }
+
+            numRecords = (channel.size() - BinaryTraceWriter.HEADER_SIZE) /
+                    BinaryTraceWriter.RECORD_SIZE;
+
+        } catch (IOException exception) {
+
+            channel.close();
+            throw exception;
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *           Functions responsible for moving around.            *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns whether the given buffer holds the header of a binary trace.
+     */
+    private static boolean isHeader (
+            ByteBuffer header
+    )
+    {
+        return header.limit() >= BinaryTraceWriter.HEADER_SIZE &&
+                header.getInt(0) == BinaryTraceWriter.MAGIC &&
+                header.getInt(4) == BinaryTraceWriter.VERSION &&
+                header.getInt(8) == BinaryTraceWriter.RECORD_SIZE;
+    }
+
+
+    /**
+     * Returns the number of records in the file, or -1 if
+     * it is gzipped and so not known until the end.
+     */
+    long numRecords ()
+    {
+        return numRecords;
+    }
+
+
+    /**
+     * Moves to the next record.
+     * @return True if there is a next record, false otherwise.
+     */
+    @Override
+    public boolean next ()
+            throws IOException
+    {
+        if (stream != null) {
+            return nextDecompressed();
+        }
+
+        if (record + 1 >= numRecords) {
+            record = numRecords;
+            return false;
+        }
+
+        record++;
+
+        // Map the segment holding the record if needed.
+        if (record < segmentFirstRecord ||
+                record >= segmentFirstRecord + segmentRecords) {
+
+            mapSegment(record);
+        }
+
+        position = (int) (record - segmentFirstRecord) * BinaryTraceWriter.RECORD_SIZE;
+
+        return true;
+    }
+
+
+    /**
+     * Moves to the next record of a gzipped trace, decompressing
+     * the next segment once the current one is used up.
+     * @return True if there is a next record, false otherwise.
+     */
+    private boolean nextDecompressed ()
+            throws IOException
+    {
+        record++;
+
+        if (record == segmentFirstRecord + segmentRecords) {
+
+            segmentFirstRecord = record;
+            segment.clear();
+            fill();
+
+            segmentRecords = segment.limit() / BinaryTraceWriter.RECORD_SIZE;
+
+            if (segmentRecords == 0) {
+                return false;
+            }
+        }
+
+        position = (int) (record - segmentFirstRecord) * BinaryTraceWriter.RECORD_SIZE;
+
+        return true;
+    }
+
+
+    /**
+     * Decompresses into the segment until it is full or the trace
+     * ends, then flips it for reading.
+     */
+    private void fill ()
+            throws IOException
+    {
+        while (segment.hasRemaining() && stream.read(segment) >= 0) {
+            // Keep reading.
+        }
+
+        segment.flip();
+    }
+
+
+    /**
+     * Moves to just before the given record, so that the
+     * next call to {@link #next()} reads that record.
+     * Gzipped traces can only be read in order.
+     */
+    void seek (
+            long record
+    )
+    {
+        if (stream != null) {
+
+            throw new UnsupportedOperationException(
+                    "A gzipped binary trace can only be read in order"
+            );
+        }
+
+        this.record = Math.max(record, 0) - 1;
+    }
+
+
+    /**
+     * Maps the segment of records starting with the given record.
+     */
+    private void mapSegment (
+            long first
+    )
+            throws IOException
+    {
+        segmentRecords = (int) Math.min(
+                SEGMENT_RECORDS,
+                numRecords - first
+        );
+
+        segment = channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                BinaryTraceWriter.HEADER_SIZE + first * BinaryTraceWriter.RECORD_SIZE,
+                (long) segmentRecords * BinaryTraceWriter.RECORD_SIZE
+        ).order(ByteOrder.LITTLE_ENDIAN);
+        segmentFirstRecord = first;
+    }
+
+
+    /**
+     * Returns whether the given file, once decompressed if it
+     * is gzipped, starts with the magic number of the binary
+     * trace format.
+     */
+    static boolean isBinaryTrace (
+            String filename
+    )
+            throws IOException
+    {
+        try (
+                DataInputStream input = new DataInputStream(
+                        Compression.openInput(filename)
+                )
+        ) {
+
+            // The magic number is little-endian.
+            return Integer.reverseBytes(input.readInt()) == BinaryTraceWriter.MAGIC;
+
+        } catch (EOFException exception) {
+
+            return false;
+        }
+    }
+
+
+    /**
+     * Closes the binary trace file.
+     */
+    @Override
+    public void close ()
+            throws IOException
+    {
+        if (stream != null) {
+            stream.close();
+        } else {
+            channel.close();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *      Functions responsible for reading the current record.    *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the timestamp of the current record in nanoseconds.
+     */
+    @Override
+    public long timestamp ()
+    {
+        return segment.getLong(position + BinaryTraceWriter.TIMESTAMP_OFFSET);
+    }
+
+
+    /**
+     * Returns the offset of the current record in sectors.
+     */
+    @Override
+    public long offset ()
+    {
+        return segment.getLong(position + BinaryTraceWriter.OFFSET_OFFSET);
+    }
+
+
+    /**
+     * Returns the size of the current record in sectors.
+     */
+    @Override
+    public int size ()
+    {
+        return segment.getInt(position + BinaryTraceWriter.SIZE_OFFSET);
+    }
+
+
+    /**
+     * Returns the sequence number of the current record.
+     */
+    @Override
+    public long sequence ()
+    {
+        return Integer.toUnsignedLong(
+                segment.getInt(position + BinaryTraceWriter.SEQUENCE_OFFSET)
+        );
+    }
+
+
+    /**
+     * Returns the pid of the current record.
+     */
+    @Override
+    public int pid ()
+    {
+        return segment.getInt(position + BinaryTraceWriter.PID_OFFSET);
+    }
+
+
+    /**
+     * Returns the major device number of the current record.
+     */
+    @Override
+    public int major ()
+    {
+        return segment.getInt(position + BinaryTraceWriter.DEVICE_OFFSET) >>>
+                BinaryTraceWriter.MINOR_BITS;
+    }
+
+
+    /**
+     * Returns the minor device number of the current record.
+     */
+    @Override
+    public int minor ()
+    {
+        return segment.getInt(position + BinaryTraceWriter.DEVICE_OFFSET) & MINOR_MASK;
+    }
+
+
+    /**
+     * Returns the {@link Rwbs} flags of the current record.
+     */
+    @Override
+    public int rbws ()
+    {
+        return segment.get(position + BinaryTraceWriter.RBWS_OFFSET) & 0xFF;
+    }
+
+
+    /**
+     * Returns the action of the current record, e.g. 'Q'.
+     */
+    @Override
+    public byte action ()
+    {
+        return segment.get(position + BinaryTraceWriter.ACTION_OFFSET);
+    }
+
+
+
+    /**
+     * Converts a binary trace back into a CSV file in
+     * the format written by {@link BlkparseToCSV}.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        if (args.length != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a binary trace and CSV filename" +
+                            " to the command line!"
+            );
+
+            return;
+        }
+
+        try (
+                BinaryTraceReader reader = new BinaryTraceReader(
+                        args[0]
+                );
+
+                BufferedWriter bufferedWriter = new BufferedWriter(
+                        Channels.newWriter(
+                                Compression.openOutput(
+                                        args[1]
+                                ),
+                                StandardCharsets.US_ASCII
+                        )
+                )
+        ) {
+
+            // Reused for building each line.
+            StringBuilder line = new StringBuilder();
+
+            while (reader.next()) {
+
+                line.setLength(0);
+                appendLine(line, reader);
+
+                bufferedWriter.append(line);
+                bufferedWriter.newLine();
+            }
+        }
+    }
+
+
+    /**
+     * Appends the current event of the given cursor to the given
+     * line in the CSV format written by {@link BlkparseToCSV}.
+     */
+    static void appendLine (
+            StringBuilder line,
+            TraceCursor event
+    )
+    {
+        line.append(event.major()).append(',')
+                .append(event.minor()).append(',')
+                .append(event.sequence()).append(',')
+                .append(event.timestamp() / 1_000_000_000L).append('.');
+
+        // Pad the fraction out to nine digits.
+        String nanoseconds = Long.toString(event.timestamp() % 1_000_000_000L);
+
+        for (int i = nanoseconds.length(); i < 9; i++) {
+            line.append('0');
+        }
+
+        line.append(nanoseconds).append(',')
+                .append(event.pid()).append(',')
+                .append(Rwbs.decode(event.rbws())).append(',')
+                .append(event.offset()).append(',')
+                .append(event.size());
+    }
+}
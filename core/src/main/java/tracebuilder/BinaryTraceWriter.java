@@ -0,0 +1,184 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class writes I/O events in the    *
+ *      binary trace format, a compact alternative to   *
+ *      the CSV output of {@link BlkparseToCSV} which   *
+ *      {@link BinaryTraceReader} reloads without any   *
+ *      parsing.                                        *
+ *                                                      *
+ *      A file starts with a {@link #HEADER_SIZE} byte  *
+ *      header, followed by fixed-width little-endian   *
+ *      records of {@link #RECORD_SIZE} bytes:          *
+ *                                                      *
+ *          offset  type   field                        *
+ *               0  long   timestamp (nanoseconds)      *
+ *               8  long   offset (sectors)             *
+ *              16  int    size (sectors)               *
+ *              20  int    sequence (unsigned)          *
+ *              24  int    pid                          *
+ *              28  int    major << 20 | minor          *
+ *              32  byte   rbws ({@link Rwbs} flags)    *
+ *              33  byte   action (e.g. 'Q')            *
+ *              34  short  reserved                     *
+ ********************************************************/
+
+final class BinaryTraceWriter {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the magic number at the start of every
+     * binary trace, "BTRC" in little-endian order.
+     */
+    static final int MAGIC = 0x43525442;
+
+
+    /**
+     * Specifies the version of the binary trace format.
+     */
+    static final int VERSION = 1;
+
+
+    /**
+     * Specifies the size in bytes of the file header:
+     * magic, version, record size and a reserved int.
+     */
+    static final int HEADER_SIZE = 16;
+
+
+    /**
+     * Specifies the size in bytes of a single record.
+     */
+    static final int RECORD_SIZE = 36;
+
+
+    /**
+     * Specifies the offset of each field within a record.
+     */
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int OFFSET_OFFSET = 8;
+    static final int SIZE_OFFSET = 16;
+    static final int SEQUENCE_OFFSET = 20;
+    static final int PID_OFFSET = 24;
+    static final int DEVICE_OFFSET = 28;
+    static final int RBWS_OFFSET = 32;
+    static final int ACTION_OFFSET = 33;
+
+
+    /**
+     * Specifies the number of bits the major device
+     * number is shifted by, as in the kernel's MKDEV.
+     */
+    static final int MINOR_BITS = 20;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the output the records are written to.
+     */
+    private final ByteOutput output;
+
+
+    /**
+     * Used for holding the fields of each line written.
+     */
+    private final TraceRecord record = new TraceRecord();
+
+
+
+    /**
+     * Creates a writer which writes records to the given output.
+     */
+    BinaryTraceWriter (
+            ByteOutput output
+    )
+    {
+        this.output = output;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing out records.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes the file header.  This must be written exactly once,
+     * in front of the first record of a file.
+     */
+    void writeHeader ()
+            throws IOException
+    {
+        ByteBuffer buffer = output.reserve(HEADER_SIZE);
+
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(RECORD_SIZE);
+        buffer.putInt(0);
+    }
+
+
+    /**
+     * Writes the given line as a record if it is an I/O event.
+     * @return True if the line was written, false if it was skipped.
+     */
+    boolean write (
+            BlkparseLine line
+    )
+            throws IOException
+    {
+        // Summary lines, trailers and events without
+        // an offset and size have no record.
+        if (!record.set(line)) {
+            return false;
+        }
+
+        write(record);
+
+        return true;
+    }
+
+
+    /**
+     * Writes the given event as a single record.
+     */
+    void write (
+            TraceRecord record
+    )
+            throws IOException
+    {
+        ByteBuffer buffer = output.reserve(RECORD_SIZE);
+
+        buffer.putLong(record.timestamp);
+        buffer.putLong(record.offset);
+        buffer.putInt(record.size);
+        buffer.putInt((int) record.sequence);
+        buffer.putInt(record.pid);
+        buffer.putInt(record.major << MINOR_BITS | record.minor);
+        buffer.put((byte) record.rbws);
+        buffer.put(record.action);
+        buffer.putShort((short) 0);
+    }
+}
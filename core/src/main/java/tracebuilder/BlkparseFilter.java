@@ -0,0 +1,251 @@
+package tracebuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class selects which lines of      *
+ *      blkparse output are converted, by action, rbws, *
+ *      device, pid and process name.  Every option     *
+ *      holds a set of accepted values, and a line is   *
+ *      kept only if it matches every option given.     *
+ *                                                      *
+ *      The entries of a line are scanned only as far   *
+ *      as the options need, in the order they appear   *
+ *      in the line, so most rejected lines are dropped *
+ *      after their first few bytes.  Summary lines and *
+ *      trailers, which are not I/O events, are always  *
+ *      dropped.  Once built, a filter is only read, so *
+ *      it is shared between threads.                   *
+ ********************************************************/
+
+final class BlkparseFilter {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the accepted devices (e.g. 259,1), or null for any.
+     */
+    private byte[][] devices;
+
+
+    /**
+     * Specifies the accepted pids, sorted, or null for any.
+     */
+    private long[] pids;
+
+
+    /**
+     * Specifies the accepted actions (e.g. Q), or null for any.
+     */
+    private byte[][] actions;
+
+
+    /**
+     * Specifies which {@link Rwbs} flags are accepted,
+     * indexed by the flags, or null for any.
+     */
+    private boolean[] rbws;
+
+
+    /**
+     * Specifies the accepted process names, or null for any.
+     */
+    private byte[][] processes;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for building the filter.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Accepts lines of the given device, written major,minor.
+     */
+    void addDevice (
+            String device
+    )
+    {
+        devices = append(devices, device);
+    }
+
+
+    /**
+     * Accepts lines of the given pid.
+     */
+    void addPid (
+            long pid
+    )
+    {
+        pids = (pids == null) ? new long[1] : Arrays.copyOf(pids, pids.length + 1);
+        pids[pids.length - 1] = pid;
+
+        Arrays.sort(pids);
+    }
+
+
+    /**
+     * Accepts lines of the given action, e.g. Q, D or C.
+     */
+    void addAction (
+            String action
+    )
+    {
+        actions = append(actions, action);
+    }
+
+
+    /**
+     * Accepts lines of the given rbws, e.g. R, WS or FWFS.
+     * The rbws has to match exactly, so R does not accept RA.
+     */
+    void addRbws (
+            String text
+    )
+    {
+        if (rbws == null) {
+            rbws = new boolean[256];
+        }
+
+        rbws[Rwbs.encode(text)] = true;
+    }
+
+
+    /**
+     * Accepts lines of the given process name, without brackets.
+     */
+    void addProcess (
+            String process
+    )
+    {
+        processes = append(processes, process);
+    }
+
+
+    /**
+     * Returns the given values with the ASCII bytes
+     * of the given value appended.
+     */
+    private static byte[][] append (
+            byte[][] values,
+            String value
+    )
+    {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+
+        if (values == null) {
+            return new byte[][] { bytes };
+        }
+
+        values = Arrays.copyOf(values, values.length + 1);
+        values[values.length - 1] = bytes;
+
+        return values;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for filtering the input.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns whether the given line is kept.  The line must have been
+     * started with {@link BlkparseLine#reset}; it is scanned only as far
+     * as needed and is fully tokenized if it is kept.
+     */
+    boolean accept (
+            BlkparseLine line
+    )
+    {
+        // Check each option in the order its entry
+        // appears in the line.
+        if (devices != null) {
+
+            if (!line.tokenizeTo(BlkparseLine.DEVICE + 1) ||
+                    !matchesAny(line, BlkparseLine.DEVICE, devices)) {
+                return false;
+            }
+        }
+
+        if (pids != null) {
+
+            if (!line.tokenizeTo(BlkparseLine.PID + 1) ||
+                    Arrays.binarySearch(pids, line.parseLong(BlkparseLine.PID)) < 0) {
+                return false;
+            }
+        }
+
+        if (actions != null) {
+
+            if (!line.tokenizeTo(BlkparseLine.ACTION + 1) ||
+                    !matchesAny(line, BlkparseLine.ACTION, actions)) {
+                return false;
+            }
+        }
+
+        if (rbws != null) {
+
+            if (!line.tokenizeTo(BlkparseLine.RBWS + 1) ||
+                    !rbws[line.rbws()]) {
+                return false;
+            }
+        }
+
+        // Only I/O events are kept.
+        line.tokenizeTo(BlkparseLine.MAX_ENTRIES);
+
+        if (!line.hasEventShape()) {
+            return false;
+        }
+
+        if (processes != null) {
+
+            for (byte[] process : processes) {
+
+                if (line.processEquals(process)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns whether the given entry equals any of the given values.
+     */
+    private static boolean matchesAny (
+            BlkparseLine line,
+            int entry,
+            byte[][] values
+    )
+    {
+        for (byte[] value : values) {
+
+            if (line.entryEquals(entry, value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,1279 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class writes synthetic blkparse   *
+ *      output in the layout BlkparseToCSV expects:     *
+ *                                                      *
+ *      major,minor cpu sequence timestamp pid action   *
+ *          rbws offset + size [process]                *
+ *                                                      *
+ *      It takes the number of lines and an output file *
+ *      name, optionally preceded by options setting    *
+ *      the action, rbws and size mixes, the number of  *
+ *      processes, the distribution of offsets and      *
+ *      whether to end with blkparse's summary.  The    *
+ *      lines are generated in blocks on several        *
+ *      threads, and the output only depends on the     *
+ *      seed and options, not on the number of threads. *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class BlkparseGenerator {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [number of lines] [output filename]\n" +
+                    "\n   The first specifies the number of lines of blkparse" +
+                    "\n   output to generate, and the second specifies the file" +
+                    "\n   to write, or - to write to standard output.\n" +
+                    "\n   Options:" +
+                    "\n      -seed N        generate from seed N (default 42)" +
+                    "\n      -threads N     generate on N threads (default one per core)" +
+                    "\n      -actions MIX   weighted actions, e.g. Q=10,D=10,C=10,P=1,U=1" +
+                    "\n      -rbws MIX      weighted rbws, e.g. R=4,W=3,WS=3,FWFS=1" +
+                    "\n      -sizes MIX     weighted sizes in sectors, e.g. 8=8,256=1" +
+                    "\n      -pids N        spread events over N processes (default 16)" +
+                    "\n      -lba PATTERN   uniform, sequential or zipf offsets (default uniform)" +
+                    "\n      -theta T       exponent of the zipf offsets (default 0.99)" +
+                    "\n      -sectors N     size of the device in sectors (default 2^31)" +
+                    "\n      -device D      device of the events (default 259,1)" +
+                    "\n      -cpus N        spread events over N cpus (default 8)" +
+                    "\n      -rate N        events per second (default 200000)" +
+                    "\n      -trailer       end with blkparse's summary lines";
+
+    /**
+     * Specifies the file name standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the default action mix.  P and U lines are plugs
+     * and unplugs, which have no offset or size.
+     */
+    private static final String DEFAULT_ACTIONS = "Q=10,G=8,I=8,D=10,C=10,M=2,P=1,U=1";
+
+
+    /**
+     * Specifies the default rbws mix.
+     */
+    private static final String DEFAULT_RBWS = "R=4,RA=1,RS=1,W=3,WS=3,WM=1,FWFS=1";
+
+
+    /**
+     * Specifies the default size mix, in sectors.
+     */
+    private static final String DEFAULT_SIZES = "8=8,16=3,32=2,64=1,256=1";
+
+
+    /**
+     * Specifies the process names given out to the pids in turn.
+     */
+    private static final String[] PROCESS_NAMES = {
+            "java", "kworker/u16:", "jbd2/nvme0n1p1-8", "fio", "postgres", "systemd-journal"
+    };
+
+
+    /**
+     * Specifies the number of lines in each block generated
+     * by a single task.  The output only depends on this,
+     * never on the number of threads.
+     */
+    private static final int BLOCK_LINES = 64 * 1024;
+
+
+    /**
+     * Specifies the most bytes a single generated line can take.
+     */
+    private static final int MAX_LINE_LENGTH = 256;
+
+
+    /**
+     * Specifies how many blocks may be generated ahead of the block
+     * being written out, per thread.
+     */
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+
+    /**
+     * Specifies the number of sectors offsets are aligned to.
+     */
+    private static final int SECTOR_ALIGNMENT = 8;
+
+
+    /**
+     * Specifies the actions counted for the summary, in the order of
+     * {@link Block#totals}: queued, dispatched, requeued, completed
+     * and merged.
+     */
+    private static final byte[] SUMMARY_ACTIONS = { 'Q', 'D', 'R', 'C', 'M' };
+
+
+    /**
+     * Specifies the powers of ten that fit in a long, used
+     * to count the digits of a number.
+     */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of lines to generate.
+     */
+    private long numLines;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the seed the output is generated from.
+     */
+    private long seed = 42;
+
+
+    /**
+     * Specifies the number of threads generating lines.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Specifies the weighted actions.
+     */
+    private Mix actions = Mix.parse(DEFAULT_ACTIONS);
+
+
+    /**
+     * Specifies the weighted rbws values.
+     */
+    private Mix rbws = Mix.parse(DEFAULT_RBWS);
+
+
+    /**
+     * Specifies the weighted sizes in sectors.
+     */
+    private Mix sizes = Mix.parse(DEFAULT_SIZES);
+
+
+    /**
+     * Specifies the number of distinct processes.
+     */
+    private int numPids = 16;
+
+
+    /**
+     * Specifies how offsets are distributed: "uniform",
+     * "sequential" or "zipf".
+     */
+    private String lbaPattern = "uniform";
+
+
+    /**
+     * Specifies the exponent of zipf distributed offsets.
+     */
+    private double theta = 0.99;
+
+
+    /**
+     * Specifies the size of the device in sectors.
+     */
+    private long numSectors = 1L << 31;
+
+
+    /**
+     * Specifies the major device number.
+     */
+    private int major = 259;
+
+
+    /**
+     * Specifies the minor device number.
+     */
+    private int minor = 1;
+
+
+    /**
+     * Specifies the number of cpus.
+     */
+    private int numCpus = 8;
+
+
+    /**
+     * Specifies the number of events per second.
+     */
+    private long rate = 200000;
+
+
+    /**
+     * Specifies whether to end with blkparse's summary lines.
+     */
+    private boolean trailer;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the output is standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies the pid of each process.
+     */
+    private int[] pids;
+
+
+    /**
+     * Specifies the name of each process as bytes.
+     */
+    private byte[][] processes;
+
+
+    /**
+     * Specifies the device padded the way blkparse
+     * pads it, as bytes.
+     */
+    private byte[] deviceField;
+
+
+    /**
+     * Specifies the distribution of zipf offsets, or null
+     * if offsets are not zipf distributed.
+     */
+    private ZipfDistribution zipf;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options, number of lines and output file.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the number of lines and output file name.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+
+            if (option.equals("-trailer")) {
+
+                trailer = true;
+                index++;
+                continue;
+            }
+
+            // Every other option is followed by a value.
+            if (index + 1 == fields.length) {
+                return error(option + " expects a value!");
+            }
+
+            String value = fields[index + 1];
+
+            try {
+
+                switch (option) {
+
+                    case "-seed":
+                        seed = Long.parseLong(value);
+                        break;
+
+                    case "-threads":
+                        numThreads = Integer.parseInt(value);
+                        break;
+
+                    case "-actions":
+                        actions = Mix.parse(value);
+                        break;
+
+                    case "-rbws":
+                        rbws = Mix.parse(value);
+                        break;
+
+                    case "-sizes":
+                        sizes = Mix.parse(value);
+                        break;
+
+                    case "-pids":
+                        numPids = Integer.parseInt(value);
+                        break;
+
+                    case "-lba":
+                        lbaPattern = value;
+                        break;
+
+                    case "-theta":
+                        theta = Double.parseDouble(value);
+                        break;
+
+                    case "-sectors":
+                        numSectors = Long.parseLong(value);
+                        break;
+
+                    case "-device":
+                        int comma = value.indexOf(',');
+                        major = Integer.parseInt(value.substring(0, comma));
+                        minor = Integer.parseInt(value.substring(comma + 1));
+                        break;
+
+                    case "-cpus":
+                        numCpus = Integer.parseInt(value);
+                        break;
+
+                    case "-rate":
+                        rate = Long.parseLong(value);
+                        break;
+
+                    default:
+                        return error("Unknown option " + option + "!");
+                }
+
+            } catch (NumberFormatException | IndexOutOfBoundsException exception) {
+
+                return error(option + " has an invalid value " + value + "!");
+            }
+
+            index += 2;
+        }
+
+        // Check the values of the options.
+        if (actions == null || rbws == null || sizes == null) {
+            return error("A mix must look like NAME=WEIGHT,NAME=WEIGHT!");
+        }
+
+        if (!actions.hasSingleCharacterNames()) {
+            return error("Actions must be single characters, e.g. Q!");
+        }
+
+        if (!sizes.hasPositiveNumericNames()) {
+            return error("Sizes must be positive numbers of sectors!");
+        }
+
+        if (numThreads < 1 || numPids < 1 || numCpus < 1 || rate < 1 ||
+                major < 0 || minor < 0 || !(theta > 0) ||
+                numSectors < SECTOR_ALIGNMENT * (long) sizes.maxValue()) {
+            return error("Options must be positive, and the device larger than the largest size!");
+        }
+
+        if (!lbaPattern.equals("uniform") &&
+                !lbaPattern.equals("sequential") &&
+                !lbaPattern.equals("zipf")) {
+            return error("Unknown offset pattern " + lbaPattern + "!");
+        }
+
+        // Ensure that the number of lines and output
+        // file name are included.
+        if (fields.length - index != 2) {
+            return error("Did not provide a number of lines and output filename!");
+        }
+
+        try {
+
+            numLines = Long.parseLong(fields[index]);
+
+        } catch (NumberFormatException exception) {
+
+            numLines = -1;
+        }
+
+        if (numLines < 0) {
+            return error("Number of lines is not a non-negative integer!");
+        }
+
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the output.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+    /**
+     * Prints out the given error message followed by the usage message.
+     * @return False, so that it can be returned by
+     *          {@link #processInput(String[])}.
+     */
+    private static boolean error (
+            String message
+    )
+    {
+        System.out.println(
+                "ERROR: " + message
+        );
+
+        System.out.println(
+                USAGE_MESSAGE
+        );
+
+        return false;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for generating lines.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Picks the pids and process names, which only depend on
+     * the seed, and prepares the fields shared by every line.
+     */
+    private void createProcesses ()
+    {
+        SplittableRandom random = new SplittableRandom(
+                blockSeed(-1)
+        );
+
+        deviceField = String.format("%3d,%-3d", major, minor).getBytes(
+                StandardCharsets.US_ASCII
+        );
+
+        pids = new int[numPids];
+        processes = new byte[numPids][];
+
+        for (int i = 0; i < numPids; i++) {
+
+            pids[i] = 1000 + random.nextInt(60000);
+
+            String name = PROCESS_NAMES[i % PROCESS_NAMES.length];
+
+            // Number the kernel workers.
+            if (name.endsWith(":")) {
+                name += i;
+            }
+
+            processes[i] = name.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        if (lbaPattern.equals("zipf")) {
+            zipf = new ZipfDistribution(numSectors / SECTOR_ALIGNMENT, theta);
+        }
+    }
+
+
+    /**
+     * Returns the seed of the given block, mixing the block
+     * number into {@link #seed} so that neighbouring blocks
+     * draw unrelated numbers.
+     */
+    private long blockSeed (
+            long block
+    )
+    {
+        long z = seed ^ ((block + 1) * 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+
+    /**
+     * Generates the lines of the given block into the given block's
+     * buffer, counting the events for the summary as it goes.
+     */
+    private Block generateBlock (
+            long block,
+            Block output
+    )
+            throws IOException
+    {
+        SplittableRandom random = new SplittableRandom(
+                blockSeed(block)
+        );
+
+        // Each process reads and writes sequentially from
+        // its own random place within the block.
+        long[] cursors = null;
+
+        if (lbaPattern.equals("sequential")) {
+
+            cursors = new long[numPids];
+
+            for (int i = 0; i < numPids; i++) {
+                cursors[i] = alignedOffset(random);
+            }
+        }
+
+        // Spread the events evenly over time, with jitter.
+        long interval = Math.max(1_000_000_000L / rate, 1);
+
+        long firstLine = block * BLOCK_LINES;
+        long lastLine = Math.min(firstLine + BLOCK_LINES, numLines);
+
+        for (long line = firstLine; line < lastLine; line++) {
+
+            // Lines are written straight into the array backing
+            // the output buffer, which is far cheaper than putting
+            // each byte through the buffer.
+            ByteBuffer buffer = output.output.reserve(MAX_LINE_LENGTH);
+            byte[] bytes = buffer.array();
+            int position = buffer.arrayOffset() + buffer.position();
+            int lineStart = position;
+
+            byte action = actions.names[actions.pick(random)][0];
+            int process = random.nextInt(numPids);
+            int cpu = random.nextInt(numCpus);
+            long timestamp = line * interval + random.nextLong(interval);
+
+            // Device, cpu, sequence and timestamp.
+            position = put(bytes, position, deviceField);
+            bytes[position++] = ' ';
+            position = putNumber(bytes, position, cpu, 2, (byte) ' ');
+            bytes[position++] = ' ';
+            position = putNumber(bytes, position, line + 1, 8, (byte) ' ');
+            bytes[position++] = ' ';
+            position = putNumber(bytes, position, timestamp / 1_000_000_000L, 5, (byte) ' ');
+            bytes[position++] = '.';
+            position = putNumber(bytes, position, timestamp % 1_000_000_000L, 9, (byte) '0');
+            bytes[position++] = ' ';
+
+            // Completions happen in interrupt context.
+            position = putNumber(bytes, position, action == 'C' ? 0 : pids[process], 5, (byte) ' ');
+            bytes[position++] = ' ';
+            bytes[position++] = ' ';
+            bytes[position++] = action;
+            bytes[position++] = ' ';
+
+            // Plugs and unplugs have no offset or size.
+            if (action == 'P' || action == 'U') {
+
+                bytes[position++] = ' ';
+                bytes[position++] = ' ';
+                bytes[position++] = 'N';
+                bytes[position++] = ' ';
+                bytes[position++] = '[';
+                position = put(bytes, position, processes[process]);
+                bytes[position++] = ']';
+
+                if (action == 'U') {
+                    bytes[position++] = ' ';
+                    bytes[position++] = '1';
+                }
+
+                bytes[position++] = '\n';
+                buffer.position(buffer.position() + position - lineStart);
+                continue;
+            }
+
+            int rbwsIndex = rbws.pick(random);
+            byte[] rbwsName = rbws.names[rbwsIndex];
+            int size = sizes.values[sizes.pick(random)];
+
+            long offset;
+
+            if (cursors != null) {
+
+                offset = cursors[process];
+
+                if (offset + size > numSectors) {
+                    offset = 0;
+                }
+
+                cursors[process] = offset + size;
+            }
+
+            else if (zipf != null) {
+
+                // Scatter the ranks over the device, so that
+                // the hottest blocks are not all at its start.
+                offset = zipf.scatter(zipf.sample(random)) * SECTOR_ALIGNMENT;
+            }
+
+            else {
+
+                offset = alignedOffset(random);
+            }
+
+            if (offset + size > numSectors) {
+                offset = numSectors - size;
+            }
+
+            for (int i = rbwsName.length; i < 3; i++) {
+                bytes[position++] = ' ';
+            }
+
+            position = put(bytes, position, rbwsName);
+            bytes[position++] = ' ';
+            position = putNumber(bytes, position, offset, 1, (byte) ' ');
+            bytes[position++] = ' ';
+            bytes[position++] = '+';
+            bytes[position++] = ' ';
+            position = putNumber(bytes, position, size, 1, (byte) ' ');
+            bytes[position++] = ' ';
+            bytes[position++] = '[';
+
+            if (action == 'C') {
+                bytes[position++] = '0';
+            } else {
+                position = put(bytes, position, processes[process]);
+            }
+
+            bytes[position++] = ']';
+            bytes[position++] = '\n';
+            buffer.position(buffer.position() + position - lineStart);
+
+            output.count(action, rbws.write[rbwsIndex], size);
+        }
+
+        return output;
+    }
+
+
+    /**
+     * Returns a uniformly distributed offset aligned
+     * to {@link #SECTOR_ALIGNMENT}.
+     */
+    private long alignedOffset (
+            SplittableRandom random
+    )
+    {
+        return random.nextLong(numSectors / SECTOR_ALIGNMENT) * SECTOR_ALIGNMENT;
+    }
+
+
+    /**
+     * Copies the given bytes into the array at the given position.
+     * @return The position just past the bytes.
+     */
+    private static int put (
+            byte[] bytes,
+            int position,
+            byte[] source
+    )
+    {
+        System.arraycopy(source, 0, bytes, position, source.length);
+        return position + source.length;
+    }
+
+
+    /**
+     * Writes the given non-negative number into the array in decimal,
+     * padded on the left with the given byte to at least the given width.
+     * @return The position just past the number.
+     */
+    private static int putNumber (
+            byte[] bytes,
+            int position,
+            long number,
+            int width,
+            byte padding
+    )
+    {
+        // Count the digits.
+        int numDigits = 1;
+
+        while (numDigits < POWERS_OF_TEN.length && number >= POWERS_OF_TEN[numDigits]) {
+            numDigits++;
+        }
+
+        for (int i = numDigits; i < width; i++) {
+            bytes[position++] = padding;
+        }
+
+        // Write the digits from the last one backwards, switching
+        // to cheaper int division as soon as the rest fits.
+        int end = position + numDigits;
+        int digit = end;
+
+        while (number > Integer.MAX_VALUE) {
+            bytes[--digit] = (byte) ('0' + number % 10);
+            number /= 10;
+        }
+
+        int rest = (int) number;
+
+        do {
+            bytes[--digit] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+
+        return end;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing out to file.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Generates {@link #numLines} lines of blkparse output on
+     * {@link #numThreads} threads, and writes them out to
+     * {@link #outputFilename} in order.
+     */
+    void generate ()
+            throws IOException
+    {
+        createProcesses();
+
+        // Used for generating the blocks.
+        ForkJoinPool pool = new ForkJoinPool(
+                numThreads
+        );
+
+        try (
+                WritableByteChannel outputChannel = openOutput()
+        ) {
+
+            log.println(
+                    "GENERATING [" + numLines + "] lines on [" + numThreads + "] threads"
+            );
+
+            // The blocks not currently in use.
+            int maxBlocksInFlight = numThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+            BlockingQueue<Block> freeBlocks = new ArrayBlockingQueue<>(
+                    maxBlocksInFlight
+            );
+
+            for (int i = 0; i < maxBlocksInFlight; i++) {
+                freeBlocks.add(new Block());
+            }
+
+            // The blocks being generated, in order.
+            ArrayDeque<Future<Block>> blocksInFlight = new ArrayDeque<>();
+
+            // The events counted for the summary.
+            long[] totals = new long[Block.NUM_TOTALS];
+
+            long numBlocks = (numLines + BLOCK_LINES - 1) / BLOCK_LINES;
+
+            for (long block = 0; block < numBlocks; block++) {
+
+                // Write out the oldest block once too many
+                // blocks are in flight.
+                if (blocksInFlight.size() == maxBlocksInFlight) {
+                    writeBlock(blocksInFlight.poll(), outputChannel, freeBlocks, totals);
+                }
+
+                long blockNumber = block;
+                Block output = freeBlocks.poll();
+
+                blocksInFlight.add(
+                        pool.submit(
+                                () -> generateBlock(blockNumber, output)
+                        )
+                );
+            }
+
+            // Write out the remaining blocks.
+            while (!blocksInFlight.isEmpty()) {
+                writeBlock(blocksInFlight.poll(), outputChannel, freeBlocks, totals);
+            }
+
+            if (trailer) {
+                writeTrailer(outputChannel, totals);
+            }
+
+            log.println(
+                    "GENERATED [" + numLines + "] lines"
+            );
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+
+        } finally {
+
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Opens the output file for writing, or standard output
+     * if the output filename is {@link #STANDARD_STREAM}.
+     */
+    private WritableByteChannel openOutput ()
+            throws IOException
+    {
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            return new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+
+        log.println(
+                "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+        );
+
+        return FileChannel.open(
+                Paths.get(outputFilename),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        );
+    }
+
+
+    /**
+     * Waits for the given block to be generated, writes it out to the
+     * output channel, adds its counts to the totals, and returns it
+     * to the free blocks.
+     */
+    private static void writeBlock (
+            Future<Block> future,
+            WritableByteChannel outputChannel,
+            BlockingQueue<Block> freeBlocks,
+            long[] totals
+    )
+            throws IOException
+    {
+        Block block;
+
+        try {
+
+            block = future.get();
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while generating the output"
+            );
+
+        } catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+
+        // Write the block out.
+        ByteBuffer buffer = block.output.buffer();
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            outputChannel.write(buffer);
+        }
+
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] += block.totals[i];
+        }
+
+        // Reuse the block for a later block.
+        block.clear();
+        freeBlocks.add(block);
+    }
+
+
+    /**
+     * Writes out the summary blkparse prints once the trace ends.
+     */
+    private void writeTrailer (
+            WritableByteChannel outputChannel,
+            long[] totals
+    )
+            throws IOException
+    {
+        String device = major + "," + minor;
+
+        // The trace lasts roughly one interval per line.
+        double seconds = Math.max(numLines * Math.max(1_000_000_000L / rate, 1) / 1e9, 1e-9);
+
+        StringBuilder summary = new StringBuilder();
+
+        summary.append(String.format("\nTotal (%s):\n", device));
+        summary.append(summaryLine("Reads Queued:", "Writes Queued:", totals, 0));
+        summary.append(summaryLine("Read Dispatches:", "Write Dispatches:", totals, 1));
+        summary.append(String.format(
+                " %-16s%9d\t\t %-17s%9d\n",
+                "Reads Requeued:", totals[Block.total(2, false, false)],
+                "Writes Requeued:", totals[Block.total(2, true, false)]
+        ));
+        summary.append(summaryLine("Reads Completed:", "Writes Completed:", totals, 3));
+        summary.append(summaryLine("Read Merges:", "Write Merges:", totals, 4));
+        summary.append(String.format(
+                "\nThroughput (R/W): %dKiB/s / %dKiB/s\n",
+                (long) (totals[Block.total(3, false, true)] / 2 / seconds),
+                (long) (totals[Block.total(3, true, true)] / 2 / seconds)
+        ));
+        summary.append(String.format("Events (%s): %d entries\n", device, numLines));
+        summary.append("Skips: 0 forward (0 -   0.0%)\n");
+
+        ByteBuffer buffer = ByteBuffer.wrap(
+                summary.toString().getBytes(StandardCharsets.US_ASCII)
+        );
+
+        while (buffer.hasRemaining()) {
+            outputChannel.write(buffer);
+        }
+    }
+
+
+    /**
+     * Returns a line of the summary with the read and write counts and
+     * sizes of the summary action with the given index.
+     */
+    private static String summaryLine (
+            String readLabel,
+            String writeLabel,
+            long[] totals,
+            int action
+    )
+    {
+        return String.format(
+                " %-16s%9d,%9dKiB\t %-17s%9d,%9dKiB\n",
+                readLabel,
+                totals[Block.total(action, false, false)],
+                totals[Block.total(action, false, true)] / 2,
+                writeLabel,
+                totals[Block.total(action, true, false)],
+                totals[Block.total(action, true, true)] / 2
+        );
+    }
+
+
+    /**
+     * Generates the number of lines of blkparse output given on the
+     * command line and writes them out to the output file.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        BlkparseGenerator blkparseGenerator = new BlkparseGenerator();
+
+        if (blkparseGenerator.processInput(args)) {
+
+            // Time stamp the start of generation.
+            long start = System.nanoTime();
+
+            blkparseGenerator.generate();
+
+            blkparseGenerator.log.println(
+                    String.format(
+                            "TOOK [%.3f]s",
+                            (System.nanoTime() - start) / 1e9
+                    )
+            );
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Holds a list of names with weights, such as Q=10,C=10,
+     * and picks names at random in proportion to their weights.
+     */
+    private static final class Mix {
+
+
+        /**
+         * Specifies the names as bytes.
+         */
+        final byte[][] names;
+
+
+        /**
+         * Specifies the names as numbers, or 0 if not a number.
+         */
+        final int[] values;
+
+
+        /**
+         * Specifies whether each name is a write, for rbws names.
+         */
+        final boolean[] write;
+
+
+        /**
+         * Specifies the running total of the weights up to and
+         * including each name.
+         */
+        private final int[] cumulativeWeights;
+
+
+        private Mix (
+                String[] names,
+                int[] weights
+        )
+        {
+            this.names = new byte[names.length][];
+            this.values = new int[names.length];
+            this.write = new boolean[names.length];
+            this.cumulativeWeights = new int[names.length];
+
+            int total = 0;
+
+            for (int i = 0; i < names.length; i++) {
+
+                this.names[i] = names[i].getBytes(StandardCharsets.US_ASCII);
+                this.write[i] = (Rwbs.encode(names[i]) & Rwbs.WRITE) != 0;
+
+                try {
+                    this.values[i] = Integer.parseInt(names[i]);
+                } catch (NumberFormatException exception) {
+                    this.values[i] = 0;
+                }
+
+                total += weights[i];
+                cumulativeWeights[i] = total;
+            }
+        }
+
+
+        /**
+         * Parses a mix such as Q=10,C=10.
+         * @return The mix, or null if it is not valid.
+         */
+        static Mix parse (
+                String text
+        )
+        {
+            String[] entries = text.split(",");
+            String[] names = new String[entries.length];
+            int[] weights = new int[entries.length];
+
+            for (int i = 0; i < entries.length; i++) {
+
+                int equals = entries[i].indexOf('=');
+
+                if (equals < 1) {
+                    return null;
+                }
+
+                names[i] = entries[i].substring(0, equals);
+
+                try {
+                    weights[i] = Integer.parseInt(entries[i].substring(equals + 1));
+                } catch (NumberFormatException exception) {
+                    return null;
+                }
+
+                // Weights must be positive, and names must not
+                // break a line of blkparse output into more fields.
+                if (weights[i] < 1 || weights[i] > 1_000_000 ||
+                        names[i].length() > 16 || !names[i].matches("[\\x21-\\x7e]+")) {
+                    return null;
+                }
+            }
+
+            return new Mix(names, weights);
+        }
+
+
+        /**
+         * Returns the index of a name picked at random.
+         */
+        int pick (
+                SplittableRandom random
+        )
+        {
+            int target = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+
+            int index = 0;
+            while (cumulativeWeights[index] <= target) {
+                index++;
+            }
+
+            return index;
+        }
+
+
+        /**
+         * Returns whether every name is a single character.
+         */
+        boolean hasSingleCharacterNames ()
+        {
+            for (byte[] name : names) {
+                if (name.length != 1) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+
+        /**
+         * Returns whether every name is a positive number.
+         */
+        boolean hasPositiveNumericNames ()
+        {
+            for (int value : values) {
+                if (value < 1) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+
+        /**
+         * Returns the largest name as a number.
+         */
+        int maxValue ()
+        {
+            int max = 0;
+
+            for (int value : values) {
+                max = Math.max(max, value);
+            }
+
+            return max;
+        }
+    }
+
+
+    /**
+     * Holds the generated lines of a block along with the counts
+     * and sizes of the events summarized by the trailer.
+     */
+    private static final class Block {
+
+
+        /**
+         * Specifies the number of counts kept for the summary: a
+         * count and a number of sectors, for reads and for writes,
+         * for each of the {@link #SUMMARY_ACTIONS}.
+         */
+        static final int NUM_TOTALS = SUMMARY_ACTIONS.length * 4;
+
+
+        /**
+         * Holds the generated lines.
+         */
+        final ByteOutput output = new ByteOutput(
+                BLOCK_LINES * 80,
+                null
+        );
+
+
+        /**
+         * Holds the counts and sizes of the events.
+         */
+        final long[] totals = new long[NUM_TOTALS];
+
+
+        /**
+         * Returns the index into {@link #totals} of the given
+         * summary action, direction and measure.
+         */
+        static int total (
+                int action,
+                boolean write,
+                boolean sectors
+        )
+        {
+            return action * 4 + (write ? 2 : 0) + (sectors ? 1 : 0);
+        }
+
+
+        /**
+         * Counts an event if its action is summarized.
+         */
+        void count (
+                byte action,
+                boolean write,
+                int size
+        )
+        {
+            for (int i = 0; i < SUMMARY_ACTIONS.length; i++) {
+
+                if (SUMMARY_ACTIONS[i] == action) {
+
+                    totals[total(i, write, false)]++;
+                    totals[total(i, write, true)] += size;
+                    return;
+                }
+            }
+        }
+
+
+        /**
+         * Empties the block so that it can be reused.
+         */
+        void clear ()
+        {
+            output.clear();
+            Arrays.fill(totals, 0);
+        }
+    }
+}
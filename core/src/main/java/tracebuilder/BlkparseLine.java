@@ -0,0 +1,600 @@
+package tracebuilder;
+
+import java.nio.ByteBuffer;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class tokenizes a single line     *
+ *      of blkparse output directly from the ASCII      *
+ *      bytes held in a {@link ByteBuffer}.  Only the   *
+ *      boundaries of each entry are recorded, so no    *
+ *      Strings are created while scanning a line.      *
+ *      A single instance is reused for every line.     *
+ ********************************************************/
+
+final class BlkparseLine {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the maximum number of entries recorded per line.
+     *
+     * The output of blkparse has the following format, line-by-line:
+     *
+     *  major,minor cpu sequence timestamp pid action rbws offset + size [process_name]
+     *
+     * Entries past the process name are never needed.
+     */
+    static final int MAX_ENTRIES = 11;
+
+
+    /**
+     * Specifies the entry numbers kept in the CSV output
+     * and followed by a comma.
+     */
+    private static final int[] CSV_ENTRIES = { 0, 2, 3, 4, 6, 7 };
+
+
+    /**
+     * Specifies the entry number of the last entry kept
+     * in the CSV output, which is not followed by a comma.
+     */
+    private static final int LAST_CSV_ENTRY = 9;
+
+
+    /**
+     * Specifies the space character, which separates entries.
+     */
+    private static final byte SPACE = ' ';
+
+
+    /**
+     * Specifies the comma character, which separates CSV columns.
+     */
+    private static final byte COMMA = ',';
+
+
+    /**
+     * Specifies the entry number of each column of an I/O event.
+     */
+    static final int DEVICE = 0;
+    static final int CPU = 1;
+    static final int SEQUENCE = 2;
+    static final int TIMESTAMP = 3;
+    static final int PID = 4;
+    static final int ACTION = 5;
+    static final int RBWS = 6;
+    static final int OFFSET = 7;
+    static final int PLUS = 8;
+    static final int SIZE = 9;
+    static final int PROCESS = 10;
+
+
+    /**
+     * Specifies the number of digits after the decimal
+     * point of a timestamp in nanoseconds.
+     */
+    private static final int NANOSECOND_DIGITS = 9;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the buffer holding the current line.
+     */
+    private ByteBuffer buffer;
+
+
+    /**
+     * Specifies the absolute index at which each entry starts.
+     */
+    private final int[] entryStart = new int[MAX_ENTRIES];
+
+
+    /**
+     * Specifies the absolute index at which each entry ends (exclusive).
+     */
+    private final int[] entryEnd = new int[MAX_ENTRIES];
+
+
+    /**
+     * Specifies the number of entries found in the current line.
+     */
+    private int numEntries;
+
+
+    /**
+     * Specifies whether the last entry found was terminated
+     * by a space rather than by the end of the line.
+     */
+    private boolean lastEntryTerminated;
+
+
+    /**
+     * Specifies the absolute index at which scanning
+     * of the current line continues.
+     */
+    private int scanPosition;
+
+
+    /**
+     * Specifies the absolute index at which the current line ends.
+     */
+    private int lineEnd;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *             Functions responsible for tokenizing.             *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Records the boundaries of the entries in the line held
+     * between the absolute indices start (inclusive) and end
+     * (exclusive) of the given buffer.  The buffer's position
+     * and limit are left untouched.
+     */
+    void tokenize (
+            ByteBuffer buffer,
+            int start,
+            int end
+    )
+    {
+        reset(buffer, start, end);
+        tokenizeTo(MAX_ENTRIES);
+    }
+
+
+    /**
+     * Starts a new line held between the absolute indices start
+     * (inclusive) and end (exclusive) of the given buffer, without
+     * scanning any of it yet.  Entries are then found on demand by
+     * {@link #tokenizeTo}, so a line can be rejected after only its
+     * first few entries have been scanned.
+     */
+    void reset (
+            ByteBuffer buffer,
+            int start,
+            int end
+    )
+    {
+        this.buffer = buffer;
+        this.scanPosition = start;
+        this.lineEnd = end;
+        numEntries = 0;
+        lastEntryTerminated = false;
+    }
+
+
+    /**
+     * Continues scanning the current line until at least the given
+     * number of entries have been found, or the line ends.
+     * @return True if the line has at least that many entries.
+     */
+    boolean tokenizeTo (
+            int entries
+    )
+    {
+        ByteBuffer buffer = this.buffer;
+        int end = lineEnd;
+        int limit = Math.min(entries, MAX_ENTRIES);
+
+        // Scan the line for entries.
+        int i = scanPosition;
+        while (i < end && numEntries < limit) {
+
+            // Skip the spaces in front of the entry.
+            while (i < end && buffer.get(i) == SPACE) {
+                i++;
+            }
+
+            // Stop once the end of the line has been reached.
+            if (i == end) {
+                break;
+            }
+
+            // Any character besides space marks the
+            // beginning of an entry.
+            entryStart[numEntries] = i;
+
+            // The space character marks the end of an entry.
+            while (i < end && buffer.get(i) != SPACE) {
+                i++;
+            }
+
+            entryEnd[numEntries] = i;
+            lastEntryTerminated = (i < end);
+            numEntries++;
+        }
+
+        scanPosition = i;
+
+        return numEntries >= entries;
+    }
+
+
+    /**
+     * Returns the number of entries found in the current line.
+     */
+    int numEntries ()
+    {
+        return numEntries;
+    }
+
+
+    /**
+     * Returns whether the given entry was followed by a space.
+     * Only such entries are written out by {@link #writeCSV}, matching
+     * the original String based parser.
+     */
+    boolean isTerminated (
+            int entry
+    )
+    {
+        return entry < numEntries - 1 ||
+                (entry == numEntries - 1 && lastEntryTerminated);
+    }
+
+
+    /**
+     * Returns the absolute index at which the given entry starts.
+     */
+    int entryStart (
+            int entry
+    )
+    {
+        return entryStart[entry];
+    }
+
+
+    /**
+     * Returns the absolute index at which the given entry ends.
+     */
+    int entryEnd (
+            int entry
+    )
+    {
+        return entryEnd[entry];
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *       Functions responsible for reading typed columns.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns whether the current line is an I/O event, i.e.
+     *
+     *  major,minor cpu sequence timestamp pid action rbws offset + size ...
+     *
+     * rather than a summary line, a trailer, or an event such as a
+     * plug which has no offset and size.
+     */
+    boolean isEvent ()
+    {
+        return hasEventShape() &&
+                indexOf(DEVICE, COMMA) >= 0 &&
+                parseLong(SEQUENCE) >= 0 &&
+                parseTimestamp() >= 0 &&
+                parseLong(PID) >= 0 &&
+                parseLong(OFFSET) >= 0 &&
+                parseLong(SIZE) >= 0;
+    }
+
+
+    /**
+     * Returns whether the current line is shaped like an I/O event,
+     * i.e. has a size following a + entry, without parsing any of
+     * its numbers.  The line must have been fully tokenized.
+     */
+    boolean hasEventShape ()
+    {
+        return numEntries > SIZE &&
+                entryEnd[PLUS] - entryStart[PLUS] == 1 &&
+                buffer.get(entryStart[PLUS]) == '+';
+    }
+
+
+    /**
+     * Returns whether the given entry consists of exactly
+     * the given ASCII bytes.
+     */
+    boolean entryEquals (
+            int entry,
+            byte[] value
+    )
+    {
+        int start = entryStart[entry];
+
+        if (entryEnd[entry] - start != value.length) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length; i++) {
+
+            if (buffer.get(start + i) != value[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns whether the process name, the rest of the line from the
+     * process entry on without its surrounding brackets, consists of
+     * exactly the given ASCII bytes.  Process names may hold spaces.
+     */
+    boolean processEquals (
+            byte[] name
+    )
+    {
+        if (numEntries <= PROCESS) {
+            return false;
+        }
+
+        int start = entryStart[PROCESS];
+        int end = lineEnd;
+
+        // Ignore trailing spaces.
+        while (end > start && buffer.get(end - 1) == SPACE) {
+            end--;
+        }
+
+        // Strip the brackets.
+        if (buffer.get(start) == '[') {
+            start++;
+        }
+
+        if (end > start && buffer.get(end - 1) == ']') {
+            end--;
+        }
+
+        if (end - start != name.length) {
+            return false;
+        }
+
+        for (int i = 0; i < name.length; i++) {
+
+            if (buffer.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Returns the given entry parsed as a non-negative decimal
+     * number, or -1 if it is not one.
+     */
+    long parseLong (
+            int entry
+    )
+    {
+        return parseLong(entryStart[entry], entryEnd[entry]);
+    }
+
+
+    /**
+     * Returns the bytes between the absolute indices start (inclusive)
+     * and end (exclusive) parsed as a non-negative decimal number,
+     * or -1 if they are not one.
+     */
+    private long parseLong (
+            int start,
+            int end
+    )
+    {
+        // Guard against empty numbers and overflow.
+        if (start >= end || end - start > 18) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+
+            int digit = buffer.get(i) - '0';
+
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Returns the timestamp, written in seconds with up to nine digits
+     * after the decimal point, in nanoseconds, or -1 if it is malformed.
+     */
+    long parseTimestamp ()
+    {
+        int start = entryStart[TIMESTAMP];
+        int end = entryEnd[TIMESTAMP];
+        int point = indexOf(TIMESTAMP, (byte) '.');
+
+        // A timestamp without a decimal point is whole seconds.
+        if (point < 0) {
+
+            long seconds = parseLong(start, end);
+            return seconds < 0 ? -1 : seconds * 1_000_000_000L;
+        }
+
+        long seconds = parseLong(start, point);
+        long fraction = parseLong(point + 1, end);
+        int digits = end - point - 1;
+
+        if (seconds < 0 || fraction < 0 || digits > NANOSECOND_DIGITS) {
+            return -1;
+        }
+
+        // Scale the fraction up to nanoseconds.
+        for (int i = digits; i < NANOSECOND_DIGITS; i++) {
+            fraction *= 10;
+        }
+
+        return seconds * 1_000_000_000L + fraction;
+    }
+
+
+    /**
+     * Returns the major device number, or -1 if it is malformed.
+     */
+    int parseMajor ()
+    {
+        int comma = indexOf(DEVICE, COMMA);
+
+        return comma < 0 ? -1 : (int) parseLong(entryStart[DEVICE], comma);
+    }
+
+
+    /**
+     * Returns the minor device number, or -1 if it is malformed.
+     */
+    int parseMinor ()
+    {
+        int comma = indexOf(DEVICE, COMMA);
+
+        return comma < 0 ? -1 : (int) parseLong(comma + 1, entryEnd[DEVICE]);
+    }
+
+
+    /**
+     * Returns the first character of the action, e.g. Q or C.
+     */
+    byte action ()
+    {
+        return buffer.get(entryStart[ACTION]);
+    }
+
+
+    /**
+     * Returns the rbws column as {@link Rwbs} flags.
+     */
+    int rbws ()
+    {
+        return Rwbs.encode(buffer, entryStart[RBWS], entryEnd[RBWS]);
+    }
+
+
+    /**
+     * Returns the absolute index of the first occurrence of the
+     * given character in the given entry, or -1 if there is none.
+     */
+    private int indexOf (
+            int entry,
+            byte character
+    )
+    {
+        for (int i = entryStart[entry]; i < entryEnd[entry]; i++) {
+
+            if (buffer.get(i) == character) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing out to CSV.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns an upper bound on the number of bytes that
+     * {@link #writeCSV} writes for a line of the given length,
+     * excluding the line separator.
+     */
+    static int maxCSVLength (
+            int lineLength
+    )
+    {
+        // Every comma replaces at least one space.
+        return lineLength + 1;
+    }
+
+
+    /**
+     * Writes the current line to the given output buffer as
+     * a single CSV line, without the line separator:
+     *
+     *  major,minor,sequence,timestamp,pid,rbws,offset,size
+     *
+     * The output is byte-for-byte what the original String based
+     * parser produced for the same line, including for lines which
+     * are not I/O events.  The caller is responsible for ensuring
+     * the output buffer has {@link #maxCSVLength} bytes remaining.
+     */
+    void writeCSV (
+            ByteBuffer output
+    )
+    {
+        // Write the entries followed by a comma.
+        for (int entry : CSV_ENTRIES) {
+
+            if (isTerminated(entry)) {
+                writeEntry(entry, output);
+                output.put(COMMA);
+            }
+        }
+
+        // The last entry does not get a final comma,
+        // since nothing comes after it.
+        if (isTerminated(LAST_CSV_ENTRY)) {
+            writeEntry(LAST_CSV_ENTRY, output);
+        }
+    }
+
+
+    /**
+     * Copies the bytes of the given entry into the output buffer.
+     */
+    private void writeEntry (
+            int entry,
+            ByteBuffer output
+    )
+    {
+        int length = entryEnd[entry] - entryStart[entry];
+
+        output.put(
+                output.position(),
+                buffer,
+                entryStart[entry],
+                length
+        );
+
+        output.position(output.position() + length);
+    }
+}
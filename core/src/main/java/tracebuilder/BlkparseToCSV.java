@@ -0,0 +1,1752 @@
+/********************************************************
+ * Author: Madox Summermatter (madoxs)                  *
+ * Date: Fall 2018                                      *
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing      *
+ *      input and output file names.  The input         *
+ *      file name corresponds to a file containing the  *
+ *      output of a blkparse operation.  This class     *
+ *      parses the input file, filters in the           *
+ *      relevant entries, and outputs a CSV file.       *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class BlkparseToCSV {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [input filename] [output filename]\n" +
+                    "\n   The first specifies the blkparse output to read, and" +
+                    "\n   the second specifies the CSV file to write.  Either may" +
+                    "\n   be - to read from standard input or write to standard" +
+                    "\n   output, e.g. blkparse -i - | java BlkparseToCSV - trace.txt" +
+                    "\n   Gzipped input is decompressed, and output to a file name" +
+                    "\n   ending in .gz is gzipped on one thread per core.\n" +
+                    "\n   Options:" +
+                    "\n      -legacy    read the input line-by-line into Strings," +
+                    "\n                 rather than memory-mapping it and converting" +
+                    "\n                 it without creating any objects per line" +
+                    "\n      -threads N memory-map the input and convert it" +
+                    "\n                 on N threads, e.g. one per core" +
+                    "\n      -binary    write I/O events in the binary trace" +
+                    "\n                 format instead of CSV" +
+                    "\n      -index     with -binary, also write an index of the" +
+                    "\n                 trace to [output filename].idx for TraceQuery" +
+                    "\n      -follow    keep converting the input as blkparse appends" +
+                    "\n                 to it, until interrupted or idle, checkpointing" +
+                    "\n                 progress to [output filename].checkpoint so that" +
+                    "\n                 a restart resumes where it left off" +
+                    "\n      -checkpoint FILE   checkpoint to FILE instead (implies -follow)" +
+                    "\n      -idle S    stop following after S seconds without new" +
+                    "\n                 input (implies -follow)\n" +
+                    "\n   Filters (each may be repeated to accept several values):" +
+                    "\n      -action A  keep events of action A, e.g. Q, D or C" +
+                    "\n      -rbws R    keep events of rbws R, e.g. R, WS or FWFS" +
+                    "\n      -device D  keep events of device D, e.g. 259,1" +
+                    "\n      -pid P     keep events of pid P" +
+                    "\n      -process N keep events of process name N, e.g. java" +
+                    "\n      -events    keep only I/O events, dropping summary lines" +
+                    "\n   Any filter drops summary lines and trailers as well.";
+
+    /**
+     * Specifies the file name standing for standard input
+     * or standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+    /**
+     * Specifies whether to print out debugging messages.
+     */
+    private static final boolean DEBUG = false;
+
+
+    /**
+     * Specifies the number of bytes of the input mapped into
+     * memory at once by {@link #parseToCSVMapped()}.
+     */
+    private static final int MAP_WINDOW_SIZE = 256 * 1024 * 1024;
+
+
+    /**
+     * Specifies the size in bytes of the reusable output buffer.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 4 * 1024 * 1024;
+
+
+    /**
+     * Specifies the initial size in bytes of the input buffer used
+     * by {@link #parseToCSVStream()}.  This only ever grows if a
+     * single line is longer than this.
+     */
+    private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+
+
+    /**
+     * Specifies the number of bytes of the input converted by each
+     * task of {@link #parseToCSVParallel()}.
+     */
+    private static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+
+    /**
+     * Specifies the number of bytes mapped past the end of a chunk
+     * in order to find the end of its last line.  This only ever
+     * grows if a single line is longer than this.
+     */
+    private static final int LINE_OVERHANG = 64 * 1024;
+
+
+    /**
+     * Specifies how many chunks may be converted ahead of the chunk
+     * being written out, per thread.  This bounds the memory used by
+     * {@link #parseToCSVParallel()}.
+     */
+    private static final int CHUNKS_IN_FLIGHT_PER_THREAD = 2;
+
+
+    /**
+     * Specifies how long {@link #parseToCSVFollow()} waits for more
+     * input before looking again, in milliseconds.
+     */
+    private static final long FOLLOW_POLL_MILLIS = 100;
+
+
+    /**
+     * Specifies the least time between two checkpoints written by
+     * {@link #parseToCSVFollow()}, in nanoseconds.
+     */
+    private static final long CHECKPOINT_INTERVAL_NANOS = 1_000_000_000L;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the input {@link File}.
+     */
+    private String inputFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies whether to read the input line-by-line into Strings
+     * with {@link #parseToCSV()}, rather than memory-mapping it.
+     */
+    private boolean legacy;
+
+
+    /**
+     * Specifies the number of threads converting the input in
+     * parallel, or 0 to convert it on the calling thread.
+     */
+    private int numThreads;
+
+
+    /**
+     * Specifies whether to write the binary trace format
+     * rather than CSV.
+     */
+    private boolean binary;
+
+
+    /**
+     * Specifies whether to write a {@link TraceIndex} next
+     * to the binary trace once it is converted.
+     */
+    private boolean indexOutput;
+
+
+    /**
+     * Specifies which lines of the input are converted,
+     * or null to convert every line.
+     */
+    private BlkparseFilter filter;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies whether to keep converting the input as it grows.
+     */
+    private boolean follow;
+
+
+    /**
+     * Specifies the name of the checkpoint {@link File} of
+     * {@link #parseToCSVFollow()}, or null for the default.
+     */
+    private String checkpointFilename;
+
+
+    /**
+     * Specifies how many seconds without new input
+     * {@link #parseToCSVFollow()} waits before it stops,
+     * or 0 to wait until interrupted.
+     */
+    private int idleSeconds;
+
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order
+     * to retrieve the names of the input and output files.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the input and output file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            switch (fields[index]) {
+
+                case "-mapped":
+
+                    // Memory-mapping is the default.
+                    legacy = false;
+                    break;
+
+                case "-legacy":
+                    legacy = true;
+                    break;
+
+                case "-binary":
+                    binary = true;
+                    break;
+
+                case "-index":
+                    indexOutput = true;
+                    break;
+
+                case "-events":
+                    filter();
+                    break;
+
+                case "-action":
+                case "-rbws":
+                case "-device":
+                case "-pid":
+                case "-process":
+
+                    // The value follows the option.
+                    if (!addFilter(fields, index)) {
+                        return false;
+                    }
+
+                    index++;
+                    break;
+
+                case "-threads":
+
+                    // The number of threads follows the option.
+                    numThreads = parsePositiveOption(fields, index);
+
+                    if (numThreads < 0) {
+                        return false;
+                    }
+
+                    index++;
+                    break;
+
+                case "-follow":
+                    follow = true;
+                    break;
+
+                case "-checkpoint":
+
+                    // The checkpoint filename follows the option.
+                    if (index + 1 == fields.length) {
+
+                        System.out.println(
+                                "ERROR: -checkpoint expects a filename!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    checkpointFilename = fields[index + 1];
+                    follow = true;
+                    index++;
+                    break;
+
+                case "-idle":
+
+                    // The number of seconds follows the option.
+                    idleSeconds = parsePositiveOption(fields, index);
+
+                    if (idleSeconds < 0) {
+                        return false;
+                    }
+
+                    follow = true;
+                    index++;
+                    break;
+
+                default:
+
+                    // Print out an error message.
+                    System.out.println(
+                            "ERROR: Unknown option " + fields[index] + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            index++;
+        }
+
+        // Ensure that both an input and output file
+        // name is included.
+        if (fields.length - index != 2) {
+
+            // Print out an error message.
+            System.out.println(
+                    "ERROR: Did not provide an input and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Otherwise, the input filename is first,
+        // and the output filename is second.
+        inputFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Following needs a file to follow, and a checkpoint
+        // needs an output file to resume.
+        if (follow && (inputFilename.equals(STANDARD_STREAM) ||
+                outputFilename.equals(STANDARD_STREAM))) {
+
+            System.out.println(
+                    "ERROR: -follow needs an input and output file, not -!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // An index points into a complete, seekable binary trace.
+        if (indexOutput && (!binary || follow ||
+                outputFilename.equals(STANDARD_STREAM) ||
+                Compression.isGzipFilename(outputFilename))) {
+
+            System.out.println(
+                    "ERROR: -index needs -binary output to an uncompressed" +
+                            " file, without -follow!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // The legacy conversion only writes unfiltered CSV
+        // to an uncompressed file, on one thread.
+        if (legacy && (binary || filter != null || follow || numThreads > 0 ||
+                inputFilename.equals(STANDARD_STREAM) ||
+                outputFilename.equals(STANDARD_STREAM) ||
+                Compression.isGzipFilename(outputFilename))) {
+
+            System.out.println(
+                    "ERROR: -legacy cannot be combined with filters, -binary," +
+                            " -threads, -follow, - or .gz output!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        if (follow && checkpointFilename == null) {
+            checkpointFilename = outputFilename + ".checkpoint";
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+    /**
+     * Returns the filter, creating one which only keeps
+     * I/O events if there is none yet.
+     */
+    private BlkparseFilter filter ()
+    {
+        if (filter == null) {
+            filter = new BlkparseFilter();
+        }
+
+        return filter;
+    }
+
+
+    /**
+     * Adds the value following the filter option at the
+     * given index to the filter.
+     * @return True if the value is valid, false otherwise.
+     */
+    private boolean addFilter (
+            String[] fields,
+            int index
+    )
+    {
+        // Ensure that a value is included.
+        if (index + 1 == fields.length) {
+
+            System.out.println(
+                    "ERROR: " + fields[index] + " expects a value!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        String value = fields[index + 1];
+
+        switch (fields[index]) {
+
+            case "-action":
+                filter().addAction(value);
+                break;
+
+            case "-rbws":
+                filter().addRbws(value);
+                break;
+
+            case "-device":
+                filter().addDevice(value);
+                break;
+
+            case "-process":
+                filter().addProcess(value);
+                break;
+
+            default:
+
+                // Attempt to parse the pid.
+                try {
+
+                    filter().addPid(
+                            Long.parseLong(value)
+                    );
+
+                } catch (NumberFormatException exception) {
+
+                    System.out.println(
+                            "ERROR: -pid expects an integer!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Opens the output file for writing, or standard output
+     * if the output filename is {@link #STANDARD_STREAM}.
+     */
+    private WritableByteChannel openOutput ()
+            throws IOException
+    {
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            return new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+
+        log.println(
+                "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+        );
+
+        return Compression.openOutput(outputFilename);
+    }
+
+
+    /**
+     * Parses the value following the option at the given index
+     * as a positive integer.
+     * @return The value, or -1 if it is missing or not positive.
+     */
+    private static int parsePositiveOption (
+            String[] fields,
+            int index
+    )
+    {
+        try {
+
+            int value = Integer.parseInt(
+                    fields[index + 1]
+            );
+
+            if (value > 0) {
+                return value;
+            }
+
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException exception) {
+
+            // Fall through to the error message.
+        }
+
+        System.out.println(
+                "ERROR: " + fields[index] + " expects a positive integer!"
+        );
+
+        System.out.println(
+                USAGE_MESSAGE
+        );
+
+        return -1;
+    }
+
+
+    /**
+     * Parses the output of blkparse into a CSV file.
+     *
+     * The output of blkparse has the following format, line-by-line:
+     *
+     *  major,minor cpu sequence timestamp pid action rbws offset + size [process_name]
+     *
+     * The CSV file has the following format, line-by-line:
+     *
+     *  major,minor,sequence,timestamp,pid,rbws,offset,size
+     *
+     * Every kept entry becomes a substring, concatenated with a comma
+     * and encoded through a character set, so this allocates several
+     * objects per line.  It is only used with -legacy, for comparison
+     * with {@link #parseToCSVMapped()}, which is otherwise used instead.
+     * @throws IOException
+     */
+    void parseToCSV ()
+            throws IOException
+    {
+        try {
+
+            // Retrieve the input file.
+            File inputFile = new File(
+                    inputFilename
+            );
+
+            // Used for reading the contents of the input file.
+            BufferedReader bufferedReader = new BufferedReader(
+                    new FileReader(
+                            inputFile
+                    )
+            );
+
+            // Used for storing the current line of the file.
+            String readLine;
+
+            System.out.println(
+                    "READING in file: " + inputFile.getAbsolutePath()
+            );
+
+            // Create the output file.
+            File outputFile = new File(
+                    outputFilename
+            );
+
+            // Used to facilitate writing out to file.
+            FileOutputStream fileOutputStream = new FileOutputStream(
+                    outputFile
+            );
+
+            // Used for writing to output file.
+            BufferedWriter bufferedWriter = new BufferedWriter(
+                    new OutputStreamWriter(
+                            fileOutputStream
+                    )
+            );
+
+            System.out.println(
+                    "WRITING out to file: " + outputFile.getAbsolutePath()
+            );
+
+            // Continue reading while there are still more lines
+            // to read.
+            while ((readLine = bufferedReader.readLine()) != null) {
+
+                if (DEBUG) {
+                    System.out.println(
+                            readLine
+                    );
+                }
+
+                // Indices used to extract an entry.
+                int startIndex = 0;
+                int endIndex = 0;
+
+                // Specifies whether an entry as been found.
+                boolean foundEntry = false;
+
+                // Specifies which entry in the line has
+                // been extracted.
+                int entryNumber = 0;
+
+                // Scan the line for entries.
+                for (int i = 0; i < readLine.length(); i++) {
+
+                    // Check whether an entry has been found.
+                    if (foundEntry == false) {
+
+                        // Any character besides space marks
+                        // the beginning of an entry.
+                        if (readLine.charAt(i) != ' ') {
+
+                            // Set the starting index for the
+                            // entry.
+                            startIndex = i;
+
+                            // Set the found entry flag.
+                            foundEntry = true;
+                        }
+
+                        // Otherwise, an entry has been found.
+                    } else {
+
+                        // The space character marks the end
+                        // of an entry.
+                        if (readLine.charAt(i) == ' ') {
+
+                            // Set the ending index for the
+                            // entry.
+                            endIndex = i;
+
+                            // Unset the found entry flag.
+                            foundEntry = false;
+
+                            // Check whether the entry is
+                            // one we want to keep.
+                            if (entryNumber == 0 ||
+                                    entryNumber == 2 ||
+                                    entryNumber == 3 ||
+                                    entryNumber == 4 ||
+                                    entryNumber == 6 ||
+                                    entryNumber == 7) {
+
+                                if (DEBUG) {
+                                    System.out.println(
+                                            readLine.substring(
+                                                    startIndex,
+                                                    endIndex
+                                            )
+                                    );
+                                }
+
+                                // Write the entry out to
+                                // file, comma delimited.
+                                bufferedWriter.write(
+                                        readLine.substring(
+                                                startIndex,
+                                                endIndex
+                                        ) + ","
+                                );
+                            }
+
+                            // Check whether this is the last
+                            // entry we want to keep.
+                            else if (entryNumber == 9) {
+
+                                if (DEBUG) {
+                                    System.out.println(
+                                            readLine.substring(
+                                                    startIndex,
+                                                    endIndex
+                                            )
+                                    );
+                                }
+
+                                // The last entry does not get
+                                // a final comma, since nothing
+                                // comes after it.
+                                bufferedWriter.write(
+                                        readLine.substring(
+                                                startIndex,
+                                                endIndex
+                                        )
+                                );
+                            }
+
+                            // Don't forget to increment the
+                            // entry number.
+                            entryNumber++;
+                        }
+
+//                        else if (i == readLine.length() - 1) {
+//
+//                            System.out.println(
+//                                    readLine.substring(
+//                                            startIndex,
+//                                            i
+//                                    )
+//                            );
+//                        }
+
+                    }
+
+                }
+
+                // Add a new line to the output file.
+                bufferedWriter.newLine();
+
+            }
+
+            // Don't forget to close the buffered reader and writer.
+            bufferedReader.close();
+            bufferedWriter.close();
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Parses the output of blkparse into a CSV file, producing exactly
+     * the same output as {@link #parseToCSV()}.
+     *
+     * Rather than reading the input line-by-line into Strings, the
+     * input is memory-mapped in windows of {@link #MAP_WINDOW_SIZE}
+     * bytes and the entries of each line are copied as raw ASCII bytes
+     * into a reusable output buffer, which is flushed straight to the
+     * output file.  No objects are created per line.
+     *
+     * If {@link #binary} is set, I/O events are written in the binary
+     * trace format instead, and all other lines are skipped.
+     */
+    void parseToCSVMapped ()
+            throws IOException
+    {
+        try (
+                FileChannel inputChannel = FileChannel.open(
+                        Paths.get(inputFilename),
+                        StandardOpenOption.READ
+                );
+
+                WritableByteChannel outputChannel = openOutput()
+        ) {
+
+            log.println(
+                    "READING in file: " + new File(inputFilename).getAbsolutePath()
+            );
+
+            // Used for writing to output file.
+            ByteOutput output = new ByteOutput(
+                    OUTPUT_BUFFER_SIZE,
+                    outputChannel
+            );
+
+            // Used for converting each line of the input.
+            LineConverter converter = new LineConverter(
+                    output,
+                    binary,
+                    filter
+            );
+
+            converter.writeHeader();
+
+            // Convert the whole input.
+            convertMapped(
+                    inputChannel,
+                    converter
+            );
+
+            // Don't forget to write out the remaining output.
+            output.flush();
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Memory-maps the input in windows of {@link #MAP_WINDOW_SIZE}
+     * bytes and converts every line of it with the given converter.
+     */
+    private static void convertMapped (
+            FileChannel inputChannel,
+            LineConverter converter
+    )
+            throws IOException
+    {
+        // The number of bytes of the input.
+        long inputSize = inputChannel.size();
+
+        // The position of the first line not yet converted.
+        long position = 0;
+
+        // The number of bytes to map at once.  This only ever
+        // grows if a single line is longer than the window.
+        long windowSize = MAP_WINDOW_SIZE;
+
+        // Continue mapping windows while there is still
+        // more input to convert.
+        while (position < inputSize) {
+
+            // Map the next window of the input.
+            long mapSize = Math.min(
+                    windowSize,
+                    inputSize - position
+            );
+
+            MappedByteBuffer window = inputChannel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    position,
+                    mapSize
+            );
+
+            // Convert the complete lines held in the window.
+            int consumed = converter.convertLines(
+                    window,
+                    0,
+                    (int) mapSize,
+                    position + mapSize == inputSize
+            );
+
+            // A line did not fit into the window,
+            // so map a larger window next time.
+            if (consumed == 0) {
+
+                windowSize = Math.min(
+                        windowSize * 2,
+                        Integer.MAX_VALUE
+                );
+            }
+
+            position += consumed;
+        }
+    }
+
+
+    /**
+     * Parses the given blkparse output file into a new {@link TraceStore}
+     * holding every I/O event of the input, in order, so that other
+     * tools can work on typed columns instead of re-splitting the CSV.
+     * The input is memory-mapped as in {@link #parseToCSVMapped()}.
+     */
+    static TraceStore parseToStore (
+            String inputFilename
+    )
+            throws IOException
+    {
+        TraceStore store = new TraceStore();
+
+        try (
+                FileChannel inputChannel = FileChannel.open(
+                        Paths.get(inputFilename),
+                        StandardOpenOption.READ
+                )
+        ) {
+
+            convertMapped(
+                    inputChannel,
+                    new LineConverter(store)
+            );
+        }
+
+        return store;
+    }
+
+
+    /**
+     * Checks whether the given file is plain blkparse output, whose
+     * lines start with the device as "major,minor" followed by
+     * spaces, rather than a CSV, whose device is followed by a comma.
+     * Only regular files are checked, so that no pipe is read from.
+     * @return True if the file is blkparse output, false otherwise.
+     */
+    static boolean isBlkparseOutput (
+            String filename
+    )
+            throws IOException
+    {
+        Path path = Paths.get(filename);
+
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+
+        byte[] start = new byte[64];
+        int length;
+
+        try (
+                InputStream input = Files.newInputStream(path)
+        ) {
+
+            length = input.readNBytes(start, 0, start.length);
+        }
+
+        int index = 0;
+
+        while (index < length && start[index] == ' ') {
+            index++;
+        }
+
+        // The major number, a comma and the minor number.
+        int digits = 0;
+
+        while (index < length && Character.isDigit(start[index])) {
+            index++;
+            digits++;
+        }
+
+        if (digits == 0 || index == length || start[index++] != ',') {
+            return false;
+        }
+
+        digits = 0;
+
+        while (index < length && Character.isDigit(start[index])) {
+            index++;
+            digits++;
+        }
+
+        return digits > 0 && index < length && start[index] == ' ';
+    }
+
+
+    /**
+     * Parses the output of blkparse into a CSV file as it is read from
+     * standard input, producing exactly the same output as
+     * {@link #parseToCSV()}.  This lets blkparse be piped straight in,
+     * without its output ever being written to disk:
+     *
+     *  blktrace -d /dev/XXX -o - | blkparse -i - | java BlkparseToCSV - trace.txt
+     *
+     * Input is read into a buffer of {@link #STREAM_BUFFER_SIZE} bytes.
+     * The complete lines in the buffer are converted and written out as
+     * soon as they arrive, and the partial line at the end is kept for
+     * the next read, so memory use stays bounded.
+     *
+     * Gzipped input files are read the same way, decompressing them
+     * as they are read, since they cannot be memory-mapped.
+     *
+     * If {@link #binary} is set, I/O events are written in the binary
+     * trace format instead, and all other lines are skipped.
+     */
+    void parseToCSVStream ()
+            throws IOException
+    {
+        boolean standardInput = inputFilename.equals(STANDARD_STREAM);
+
+        try (
+                ReadableByteChannel inputChannel = Channels.newChannel(
+                        standardInput ?
+                                new FileInputStream(FileDescriptor.in) :
+                                Compression.openInput(inputFilename)
+                );
+
+                WritableByteChannel outputChannel = openOutput()
+        ) {
+
+            log.println(
+                    standardInput ?
+                            "READING from standard input" :
+                            "READING in file: " + new File(inputFilename).getAbsolutePath()
+            );
+
+            // Used for writing to output file.
+            ByteOutput output = new ByteOutput(
+                    OUTPUT_BUFFER_SIZE,
+                    outputChannel
+            );
+
+            // Used for converting each line of the input.
+            LineConverter converter = new LineConverter(
+                    output,
+                    binary,
+                    filter
+            );
+
+            converter.writeHeader();
+
+            // Holds the input that has not been converted yet.
+            ByteBuffer input = ByteBuffer.allocate(
+                    STREAM_BUFFER_SIZE
+            );
+
+            // Continue reading while there is still more input.
+            while (inputChannel.read(input) >= 0) {
+
+                // Convert the complete lines read so far.
+                int available = input.position();
+
+                int consumed = converter.convertLines(
+                        input,
+                        0,
+                        available,
+                        false
+                );
+
+                // Write them out right away.
+                output.flush();
+
+                // Move the partial line to the front of the buffer.
+                input.position(consumed);
+                input.limit(available);
+                input.compact();
+
+                // Grow the buffer if a single line fills it.
+                if (!input.hasRemaining()) {
+
+                    ByteBuffer grown = ByteBuffer.allocate(
+                            input.capacity() * 2
+                    );
+
+                    input.flip();
+                    grown.put(input);
+                    input = grown;
+                }
+            }
+
+            // Convert the final line, which has no newline.
+            converter.convertLines(
+                    input,
+                    0,
+                    input.position(),
+                    true
+            );
+
+            // Don't forget to write out the remaining output.
+            output.flush();
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Parses the output of blkparse into a CSV file while blkparse is
+     * still writing it, producing exactly the same output as
+     * {@link #parseToCSV()} once blkparse is done.  This lets the
+     * conversion overlap the tracing instead of following it.
+     *
+     * The bytes appended to the input since it was last read are read
+     * into a buffer of {@link #STREAM_BUFFER_SIZE} bytes, as in
+     * {@link #parseToCSVStream()}: the complete lines are converted and
+     * written out, and the partial line at the end, which blkparse may
+     * still be writing, is kept until its newline arrives.  Once no new
+     * input arrives for {@link #idleSeconds} seconds, the partial line
+     * is converted as the last line and following stops, but the
+     * checkpoint is left before it, so a restart converts it again.
+     *
+     * At most every second, the output is forced to disk and the number
+     * of input bytes converted and output bytes written are saved to
+     * {@link #checkpointFilename}.  If that file exists at the start,
+     * the output is cut back to the saved size and the input is read
+     * from the saved position, so that a restart neither repeats nor
+     * skips a line.
+     *
+     * If {@link #binary} is set, I/O events are written in the binary
+     * trace format instead, and all other lines are skipped.
+     */
+    void parseToCSVFollow ()
+            throws IOException
+    {
+        Path checkpoint = Paths.get(checkpointFilename);
+
+        try (
+                FileChannel inputChannel = FileChannel.open(
+                        Paths.get(inputFilename),
+                        StandardOpenOption.READ
+                );
+
+                FileChannel outputChannel = FileChannel.open(
+                        Paths.get(outputFilename),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE
+                );
+
+                // Closed first, to write out its last member.
+                WritableByteChannel compressedChannel = Compression.compress(
+                        outputFilename,
+                        outputChannel
+                )
+        ) {
+
+            if (Compression.isGzipped(inputFilename)) {
+
+                log.println(
+                        "ERROR: Cannot follow a gzipped file, since it" +
+                                " can only be read from the start!"
+                );
+
+                return;
+            }
+
+            log.println(
+                    "FOLLOWING file: " + new File(inputFilename).getAbsolutePath()
+            );
+
+            log.println(
+                    "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+            );
+
+            // Used for writing to output file.
+            ByteOutput output = new ByteOutput(
+                    OUTPUT_BUFFER_SIZE,
+                    compressedChannel
+            );
+
+            // Used for converting each line of the input.
+            LineConverter converter = new LineConverter(
+                    output,
+                    binary,
+                    filter
+            );
+
+            // The position in the input of the first line not yet
+            // converted, resumed from the checkpoint if there is one.
+            long inputPosition = 0;
+
+            if (Files.exists(checkpoint)) {
+
+                long[] saved = readCheckpoint(checkpoint);
+
+                if (saved == null ||
+                        saved[0] > inputChannel.size() ||
+                        saved[1] > outputChannel.size()) {
+
+                    log.println(
+                            "ERROR: Checkpoint " + checkpoint.toAbsolutePath() +
+                                    " does not match the input and output files!"
+                    );
+
+                    return;
+                }
+
+                inputPosition = saved[0];
+                outputChannel.truncate(saved[1]);
+
+                log.println(
+                        "RESUMING at byte [" + inputPosition + "] of the input" +
+                                " and byte [" + saved[1] + "] of the output"
+                );
+
+            } else {
+
+                outputChannel.truncate(0);
+                converter.writeHeader();
+                output.flush();
+            }
+
+            outputChannel.position(outputChannel.size());
+
+            // Holds the input that has not been converted yet.
+            ByteBuffer input = ByteBuffer.allocate(
+                    STREAM_BUFFER_SIZE
+            );
+
+            long lastInputTime = System.nanoTime();
+            long lastCheckpointTime = lastInputTime;
+            long checkpointedPosition = -1;
+
+            while (true) {
+
+                // Read whatever has been appended since the last read.
+                int read = inputChannel.read(
+                        input,
+                        inputPosition + input.position()
+                );
+
+                long now = System.nanoTime();
+
+                if (read > 0) {
+
+                    lastInputTime = now;
+
+                    // Convert the complete lines read so far.
+                    int available = input.position();
+
+                    int consumed = converter.convertLines(
+                            input,
+                            0,
+                            available,
+                            false
+                    );
+
+                    // Write them out right away.
+                    output.flush();
+                    inputPosition += consumed;
+
+                    // Move the partial line to the front of the buffer.
+                    input.position(consumed);
+                    input.limit(available);
+                    input.compact();
+
+                    // Grow the buffer if a single line fills it.
+                    if (!input.hasRemaining()) {
+
+                        ByteBuffer grown = ByteBuffer.allocate(
+                                input.capacity() * 2
+                        );
+
+                        input.flip();
+                        grown.put(input);
+                        input = grown;
+                    }
+
+                } else if (inputChannel.size() < inputPosition + input.position()) {
+
+                    log.println(
+                            "ERROR: " + new File(inputFilename).getAbsolutePath() +
+                                    " shrank while being followed!"
+                    );
+
+                    writeCheckpoint(checkpoint, compressedChannel, outputChannel, inputPosition);
+                    break;
+
+                } else if (idleSeconds > 0 &&
+                        now - lastInputTime >= idleSeconds * 1_000_000_000L) {
+
+                    // Checkpoint before the partial line, so that if
+                    // blkparse was not done after all, a restart
+                    // converts the line again once it is complete.
+                    writeCheckpoint(checkpoint, compressedChannel, outputChannel, inputPosition);
+
+                    // Blkparse is done, so the partial
+                    // line is the last line.
+                    converter.convertLines(
+                            input,
+                            0,
+                            input.position(),
+                            true
+                    );
+
+                    output.flush();
+                    inputPosition += input.position();
+                    input.clear();
+
+                    log.println(
+                            "STOPPED after [" + idleSeconds + "] seconds without new input"
+                    );
+
+                    break;
+                }
+
+                // Save the progress at most every interval, or when
+                // there is nothing to do but wait.
+                if (inputPosition != checkpointedPosition &&
+                        (read <= 0 || now - lastCheckpointTime >= CHECKPOINT_INTERVAL_NANOS)) {
+
+                    writeCheckpoint(checkpoint, compressedChannel, outputChannel, inputPosition);
+                    checkpointedPosition = inputPosition;
+                    lastCheckpointTime = now;
+                }
+
+                if (read <= 0) {
+
+                    try {
+
+                        Thread.sleep(FOLLOW_POLL_MILLIS);
+
+                    } catch (InterruptedException exception) {
+
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException(
+                                "Interrupted while following the input"
+                        );
+                    }
+                }
+            }
+
+            log.println(
+                    "CONVERTED [" + inputPosition + "] bytes of the input"
+            );
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Forces the output to disk, then saves the given input position
+     * and the size of the output to the given checkpoint file.  The
+     * file is replaced atomically, so it is never left half-written.
+     * Gzipped output is first finished off with a complete member,
+     * so that it can be cut back to the saved size.
+     */
+    private static void writeCheckpoint (
+            Path checkpoint,
+            WritableByteChannel compressedChannel,
+            FileChannel outputChannel,
+            long inputPosition
+    )
+            throws IOException
+    {
+        if (compressedChannel instanceof GzipBlockChannel) {
+            ((GzipBlockChannel) compressedChannel).flush();
+        }
+
+        outputChannel.force(false);
+
+        Path temporary = checkpoint.resolveSibling(
+                checkpoint.getFileName() + ".tmp"
+        );
+
+        Files.write(
+                temporary,
+                (inputPosition + " " + outputChannel.size() + "\n").getBytes()
+        );
+
+        Files.move(
+                temporary,
+                checkpoint,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+
+    /**
+     * Reads the input position and output size saved to the given
+     * checkpoint file.
+     * @return The input position followed by the output size,
+     *          or null if the file is not a checkpoint.
+     */
+    private static long[] readCheckpoint (
+            Path checkpoint
+    )
+            throws IOException
+    {
+        String[] fields = new String(Files.readAllBytes(checkpoint)).trim().split(" ");
+
+        try {
+
+            long[] saved = {
+                    Long.parseLong(fields[0]),
+                    Long.parseLong(fields[1])
+            };
+
+            return saved[0] >= 0 && saved[1] >= 0 ? saved : null;
+
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException exception) {
+
+            return null;
+        }
+    }
+
+
+    /**
+     * Parses the output of blkparse into a CSV file on
+     * {@link #numThreads} threads, producing exactly the same output
+     * as {@link #parseToCSV()}.
+     *
+     * The input is split into chunks of {@link #CHUNK_SIZE} bytes.  Each
+     * chunk is memory-mapped and converted by a {@link ForkJoinPool}
+     * task into its own output buffer, and the buffers are written out
+     * in the original order as they complete.  At most
+     * {@link #CHUNKS_IN_FLIGHT_PER_THREAD} chunks per thread are held
+     * in memory at once, and their buffers are reused.
+     *
+     * If {@link #binary} is set, I/O events are written in the binary
+     * trace format instead, and all other lines are skipped.
+     */
+    void parseToCSVParallel ()
+            throws IOException
+    {
+        // Used for converting the chunks.
+        ForkJoinPool pool = new ForkJoinPool(
+                numThreads
+        );
+
+        try (
+                FileChannel inputChannel = FileChannel.open(
+                        Paths.get(inputFilename),
+                        StandardOpenOption.READ
+                );
+
+                WritableByteChannel outputChannel = openOutput()
+        ) {
+
+            log.println(
+                    "READING in file: " + new File(inputFilename).getAbsolutePath()
+            );
+
+            log.println(
+                    "CONVERTING on [" + numThreads + "] threads"
+            );
+
+            // Write the header out in front of the first chunk.
+            ByteOutput header = new ByteOutput(
+                    BinaryTraceWriter.HEADER_SIZE,
+                    outputChannel
+            );
+
+            new LineConverter(header, binary, filter).writeHeader();
+            header.flush();
+
+            // The number of bytes of the input.
+            long inputSize = inputChannel.size();
+
+            // The output buffers not currently in use.
+            int maxChunksInFlight = numThreads * CHUNKS_IN_FLIGHT_PER_THREAD;
+            BlockingQueue<ByteOutput> freeOutputs = new ArrayBlockingQueue<>(
+                    maxChunksInFlight
+            );
+
+            for (int i = 0; i < maxChunksInFlight; i++) {
+                freeOutputs.add(
+                        new ByteOutput(CHUNK_SIZE + LINE_OVERHANG, null)
+                );
+            }
+
+            // The chunks being converted, in the original order.
+            ArrayDeque<Future<ByteOutput>> chunksInFlight = new ArrayDeque<>();
+
+            // Submit a task for every chunk of the input.
+            for (long from = 0; from < inputSize; from += CHUNK_SIZE) {
+
+                // Write out the oldest chunk once too many
+                // chunks are in flight.
+                if (chunksInFlight.size() == maxChunksInFlight) {
+                    writeChunk(chunksInFlight.poll(), outputChannel, freeOutputs);
+                }
+
+                long chunkStart = from;
+                long chunkEnd = Math.min(from + CHUNK_SIZE, inputSize);
+                ByteOutput output = freeOutputs.poll();
+
+                chunksInFlight.add(
+                        pool.submit(
+                                () -> convertChunk(
+                                        inputChannel,
+                                        chunkStart,
+                                        chunkEnd,
+                                        inputSize,
+                                        output
+                                )
+                        )
+                );
+            }
+
+            // Write out the remaining chunks.
+            while (!chunksInFlight.isEmpty()) {
+                writeChunk(chunksInFlight.poll(), outputChannel, freeOutputs);
+            }
+
+        } catch (IOException exception) {
+
+            exception.printStackTrace();
+
+        } finally {
+
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Waits for the given chunk to be converted, writes it out to the
+     * output channel, and returns its buffer to the free buffers.
+     */
+    private static void writeChunk (
+            Future<ByteOutput> chunk,
+            WritableByteChannel outputChannel,
+            BlockingQueue<ByteOutput> freeOutputs
+    )
+            throws IOException
+    {
+        ByteOutput output;
+
+        try {
+
+            output = chunk.get();
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while converting the input"
+            );
+
+        } catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+
+        // Write the chunk out.
+        ByteBuffer buffer = output.buffer();
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            outputChannel.write(buffer);
+        }
+
+        // Reuse the buffer for a later chunk.
+        output.clear();
+        freeOutputs.add(output);
+    }
+
+
+    /**
+     * Converts every line of the input that starts within the byte
+     * range from (inclusive) to end (exclusive) into the given output
+     * buffer.  A line which starts in the range but ends past it belongs
+     * to this chunk, so the chunks are converted independently while
+     * their outputs concatenate to the output of the whole input.
+     */
+    private ByteOutput convertChunk (
+            FileChannel inputChannel,
+            long from,
+            long to,
+            long inputSize,
+            ByteOutput output
+    )
+            throws IOException
+    {
+        // Used for converting each line of the chunk.
+        LineConverter converter = new LineConverter(
+                output,
+                binary,
+                filter
+        );
+
+        // Also map the byte in front of the chunk, to tell
+        // whether the chunk starts with a new line.
+        long mapStart = Math.max(from - 1, 0);
+
+        // Map past the end of the chunk to find the
+        // end of its last line.
+        long overhang = LINE_OVERHANG;
+
+        while (true) {
+
+            long mapEnd = Math.min(to + overhang, inputSize);
+
+            MappedByteBuffer window = inputChannel.map(
+                    FileChannel.MapMode.READ_ONLY,
+                    mapStart,
+                    mapEnd - mapStart
+            );
+
+            int length = (int) (mapEnd - mapStart);
+
+            // Find the start of the first line, which follows
+            // the first newline from the byte before the chunk.
+            int first = 0;
+
+            if (from > 0) {
+
+                while (first < length && window.get(first) != '\n') {
+                    first++;
+                }
+
+                // The line in front of the chunk is longer than
+                // the overhang, so map more of it.
+                if (first == length && mapEnd < inputSize) {
+                    overhang *= 2;
+                    continue;
+                }
+
+                first++;
+            }
+
+            // No line starts within the chunk.
+            if (mapStart + first >= to) {
+                return output;
+            }
+
+            // Find the end of the last line, which is the first
+            // newline from the last byte of the chunk.
+            int last = (int) (to - 1 - mapStart);
+
+            while (last < length && window.get(last) != '\n') {
+                last++;
+            }
+
+            // The last line ends within the mapped bytes.
+            if (last < length) {
+
+                converter.convertLines(window, first, last + 1, false);
+                return output;
+            }
+
+            // The last line ends the input.
+            if (mapEnd == inputSize) {
+
+                converter.convertLines(window, first, length, true);
+                return output;
+            }
+
+            // Otherwise, the last line is longer than the
+            // overhang, so map more of it.
+            overhang *= 2;
+        }
+    }
+
+
+    /**
+     * Parse, filter, and convert the input blkparse file
+     * into a CSV file.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        // Object for converting blkparse output to
+        // comma separated variable format.
+        BlkparseToCSV blkparseToCSV = new BlkparseToCSV();
+
+        // Retrieve the names of the input and output
+        // files.
+        if (!blkparseToCSV.processInput(args)) {
+            return;
+        }
+
+        // Convert the blkparse output to CSV.
+        if (blkparseToCSV.follow) {
+            blkparseToCSV.parseToCSVFollow();
+        } else if (blkparseToCSV.inputFilename.equals(STANDARD_STREAM) ||
+                !Files.isRegularFile(Paths.get(blkparseToCSV.inputFilename)) ||
+                Compression.isGzipped(blkparseToCSV.inputFilename)) {
+
+            if (blkparseToCSV.legacy) {
+
+                System.out.println(
+                        "ERROR: -legacy needs an uncompressed regular file as input!"
+                );
+
+                return;
+            }
+
+            // Pipes such as <(blkparse ...) cannot be mapped, and
+            // gzipped input must be decompressed as it is read.
+            blkparseToCSV.parseToCSVStream();
+        } else if (blkparseToCSV.numThreads > 0) {
+            blkparseToCSV.parseToCSVParallel();
+        } else if (blkparseToCSV.legacy) {
+            blkparseToCSV.parseToCSV();
+        } else {
+            blkparseToCSV.parseToCSVMapped();
+        }
+
+        // Index the trace now that it is complete.
+        if (blkparseToCSV.indexOutput) {
+
+            blkparseToCSV.log.println(
+                    "INDEXING out to file: " + new File(
+                            TraceIndex.filenameOf(blkparseToCSV.outputFilename)
+                    ).getAbsolutePath()
+            );
+
+            TraceIndex.build(
+                    blkparseToCSV.outputFilename,
+                    TraceIndex.DEFAULT_ZONE_RECORDS
+            );
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class wraps a reusable output     *
+ *      {@link ByteBuffer}.  When the buffer runs out   *
+ *      of room it is either flushed to a channel or,   *
+ *      if there is no channel, grown in place.         *
+ *      The buffer is little-endian, the byte order of  *
+ *      the binary trace format.                        *
+ ********************************************************/
+
+final class ByteOutput {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the buffer that output is written into.
+     */
+    private ByteBuffer buffer;
+
+
+    /**
+     * Specifies the channel the buffer is flushed to,
+     * or null if the buffer grows instead.
+     */
+    private final WritableByteChannel channel;
+
+
+
+    /**
+     * Creates an output buffer of the given capacity which
+     * is flushed to the given channel whenever it fills up.
+     * If the channel is null the buffer grows instead.
+     */
+    ByteOutput (
+            int capacity,
+            WritableByteChannel channel
+    )
+    {
+        this.buffer = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = channel;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for managing the buffer.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns a buffer with at least the given number of bytes
+     * remaining, flushing or growing the current buffer if needed.
+     * The returned buffer must not be held on to past the next call.
+     */
+    ByteBuffer reserve (
+            int numBytes
+    )
+            throws IOException
+    {
+        // Fast path: there is already enough room.
+        if (buffer.remaining() >= numBytes) {
+            return buffer;
+        }
+
+        // Make room by writing out what has been buffered.
+        if (channel != null) {
+            flush();
+        }
+
+        // Grow the buffer if there still is not enough room,
+        // e.g. for a single very long line.
+        if (buffer.remaining() < numBytes) {
+
+            ByteBuffer grown = ByteBuffer.allocate(
+                    Math.max(
+                            buffer.capacity() * 2,
+                            buffer.position() + numBytes
+                    )
+            ).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.flip();
+            grown.put(buffer);
+            buffer = grown;
+        }
+
+        return buffer;
+    }
+
+
+    /**
+     * Returns the buffer holding the output written so far.
+     * Only meaningful when there is no channel.
+     */
+    ByteBuffer buffer ()
+    {
+        return buffer;
+    }
+
+
+    /**
+     * Discards everything written so far, so that
+     * the buffer can be reused.
+     */
+    void clear ()
+    {
+        buffer.clear();
+    }
+
+
+    /**
+     * Writes everything buffered so far out to the channel.
+     */
+    void flush ()
+            throws IOException
+    {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+}
@@ -0,0 +1,183 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class is the base of the caches   *
+ *      simulated by {@link CacheSimulator}.  A cache   *
+ *      holds a fixed number of blocks, identified by   *
+ *      non-negative block numbers, and on each access  *
+ *      either hits or brings the block in, evicting    *
+ *      another if it is full.  Only which blocks are   *
+ *      cached is simulated, not their data, and every  *
+ *      cache keeps its blocks in flat primitive arrays *
+ *      so that an access allocates nothing.            *
+ ********************************************************/
+
+abstract class CachePolicy {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the names of the policies {@link #create} accepts.
+     */
+    static final String[] NAMES = { "lru", "fifo", "clock", "arc", "lfu" };
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the policy.
+     */
+    private final String name;
+
+
+    /**
+     * Specifies the number of blocks the cache holds.
+     */
+    final int capacity;
+
+
+    /**
+     * Specifies the number of accesses.
+     */
+    private long numAccesses;
+
+
+    /**
+     * Specifies the number of accesses which hit.
+     */
+    private long numHits;
+
+
+
+    CachePolicy (
+            String name,
+            int capacity
+    )
+    {
+        this.name = name;
+        this.capacity = capacity;
+    }
+
+
+    /**
+     * Creates an empty cache of the given policy holding the given
+     * number of blocks.
+     * @return The cache, or null if the policy is not one of {@link #NAMES}.
+     */
+    static CachePolicy create (
+            String name,
+            int capacity
+    )
+    {
+        switch (name) {
+
+            case "lru":
+                return new LruCache(capacity);
+
+            case "fifo":
+                return new FifoCache(capacity);
+
+            case "clock":
+                return new ClockCache(capacity);
+
+            case "arc":
+                return new ArcCache(capacity);
+
+            case "lfu":
+                return new LfuCache(capacity);
+
+            default:
+                return null;
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *           Functions responsible for the accesses.             *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Accesses each of the given number of blocks in turn,
+     * counting the hits.
+     */
+    final void access (
+            long[] blocks,
+            int numBlocks
+    )
+    {
+        long hits = 0;
+
+        for (int i = 0; i < numBlocks; i++) {
+
+            if (lookup(blocks[i])) {
+                hits++;
+            }
+        }
+
+        numAccesses += numBlocks;
+        numHits += hits;
+    }
+
+
+    /**
+     * Accesses the given block, bringing it into the cache on a miss.
+     * @return True if the block was already cached, false otherwise.
+     */
+    abstract boolean lookup (
+            long block
+    );
+
+
+    /**
+     * Returns the name of the policy.
+     */
+    final String name ()
+    {
+        return name;
+    }
+
+
+    /**
+     * Returns the number of accesses.
+     */
+    final long numAccesses ()
+    {
+        return numAccesses;
+    }
+
+
+    /**
+     * Returns the number of accesses which hit.
+     */
+    final long numHits ()
+    {
+        return numHits;
+    }
+
+
+    /**
+     * Returns the fraction of accesses which hit, or 0 if there are none.
+     */
+    final double hitRatio ()
+    {
+        return numAccesses == 0 ? 0 : (double) numHits / numAccesses;
+    }
+}
@@ -0,0 +1,555 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      trace and an output file name.  The trace is a  *
+ *      CSV written by BlkparseToCSV or a binary trace. *
+ *      Each read and write is split into the cache     *
+ *      blocks it covers, and every block is fed to     *
+ *      LRU, FIFO, CLOCK, ARC and LFU caches of each    *
+ *      of the requested sizes, all in one pass over    *
+ *      the trace.  The hit ratio of every cache is     *
+ *      written out as CSV, one line per cache.         *
+ *                                                      *
+ *      Blocks are handed to the caches in large        *
+ *      batches, and each cache works through a batch   *
+ *      on its own thread while the next batch is read. *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class CacheSimulator {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [output filename|-]\n" +
+                    "\n   The first specifies a CSV trace written by BlkparseToCSV" +
+                    "\n   or a binary trace, and the second specifies the CSV file" +
+                    "\n   the hit ratios are written to, one line per cache:\n" +
+                    "\n      policy,cache size (in bytes),cache size (in blocks),accesses,hits,hit ratio\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -block SIZE       cache block size (default 4K)" +
+                    "\n      -sizes S1,S2,...  cache sizes (default 1M,2M,4M,...,1G)" +
+                    "\n      -policies P1,...  any of lru,fifo,clock,arc,lfu (default all)" +
+                    "\n      -action A         simulate only events of action A, e.g. Q" +
+                    "\n                        (binary traces or blkparse output only)" +
+                    "\n      -threads N        simulate on N threads (default one per core)";
+
+
+    /**
+     * Specifies the filename standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the number of bytes in a sector, the unit
+     * of offsets and sizes in a trace.
+     */
+    private static final int SECTOR_SIZE = 512;
+
+
+    /**
+     * Specifies the number of blocks handed to the caches at once.
+     */
+    private static final int BATCH_BLOCKS = 1 << 16;
+
+
+    /**
+     * Specifies the most blocks a simulated cache may hold.
+     */
+    private static final long MAX_CAPACITY = 1 << 28;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the number of bytes in a cache block.
+     */
+    private long blockSize = 4096;
+
+
+    /**
+     * Specifies the cache sizes in bytes.
+     */
+    private long[] cacheSizes;
+
+
+    /**
+     * Specifies the policies simulated.
+     */
+    private String[] policies = CachePolicy.NAMES;
+
+
+    /**
+     * Specifies the only action simulated, or 0 to simulate every event.
+     */
+    private byte action;
+
+
+    /**
+     * Specifies the number of threads the caches are simulated on.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies every cache simulated, by policy and then size.
+     */
+    private final List<CachePolicy> caches = new ArrayList<>();
+
+
+    /**
+     * Specifies the blocks of the batch being filled.
+     */
+    private long[] batch = new long[BATCH_BLOCKS];
+
+
+    /**
+     * Specifies the blocks of the batch being simulated.
+     */
+    private long[] simulatedBatch = new long[BATCH_BLOCKS];
+
+
+    /**
+     * Specifies the simulation of the last batch by every cache.
+     */
+    private final List<Future<?>> simulations = new ArrayList<>();
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            switch (option) {
+
+                case "-block":
+
+                    blockSize = Writer.parseSize(value);
+                    valid = blockSize > 0;
+                    break;
+
+                case "-sizes":
+
+                    valid = parseSizes(value);
+                    break;
+
+                case "-policies":
+
+                    policies = value.split(",");
+                    valid = true;
+
+                    for (String policy : policies) {
+                        valid &= Arrays.asList(CachePolicy.NAMES).contains(policy);
+                    }
+
+                    break;
+
+                case "-action":
+
+                    action = value.length() == 1 ? (byte) value.charAt(0) : 0;
+                    valid = action != 0;
+                    break;
+
+                case "-threads":
+
+                    numThreads = (int) Math.min(Writer.parseCount(value), Integer.MAX_VALUE);
+                    valid = numThreads > 0;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // By default, double the cache size from 1M up to 1G.
+        if (cacheSizes == null) {
+
+            cacheSizes = new long[11];
+
+            for (int i = 0; i < cacheSizes.length; i++) {
+                cacheSizes[i] = (1L << 20) << i;
+            }
+        }
+
+        // Every cache must hold at least one block.
+        for (long cacheSize : cacheSizes) {
+
+            if (cacheSize < blockSize || cacheSize / blockSize > MAX_CAPACITY) {
+
+                System.out.println(
+                        "ERROR: Cache size " + cacheSize + " must be between one and " +
+                                MAX_CAPACITY + " blocks of " + blockSize + " bytes!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+        }
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+    /**
+     * Parses a comma separated list of cache sizes.
+     * @return True if every size is valid, false otherwise.
+     */
+    private boolean parseSizes (
+            String value
+    )
+    {
+        String[] sizes = value.split(",");
+        cacheSizes = new long[sizes.length];
+
+        for (int i = 0; i < sizes.length; i++) {
+
+            cacheSizes[i] = Writer.parseSize(sizes[i]);
+
+            if (cacheSizes[i] <= 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for simulating the caches.       *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Feeds every block read or written by {@link #traceFilename} to
+     * every cache, then writes out their hit ratios.
+     */
+    void simulate ()
+            throws IOException, InterruptedException
+    {
+        for (String policy : policies) {
+
+            for (long cacheSize : cacheSizes) {
+                caches.add(CachePolicy.create(policy, (int) (cacheSize / blockSize)));
+            }
+        }
+
+        log.println(
+                String.format(
+                        "SIMULATING [%d] caches of [%d] byte blocks on trace [%s]",
+                        caches.size(),
+                        blockSize,
+                        new File(traceFilename).getAbsolutePath()
+                )
+        );
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+        long numEvents = 0;
+        long numBlocks = 0;
+        long start = System.nanoTime();
+
+        try (
+                TraceCursor trace = TraceCursor.open(traceFilename)
+        ) {
+
+            int batchSize = 0;
+
+            while (trace.next()) {
+
+                // Skip events of other actions, and events
+                // which neither read nor write any data.
+                if ((action != 0 && trace.action() != action) ||
+                        trace.size() == 0 ||
+                        (trace.rbws() & (Rwbs.READ | Rwbs.WRITE)) == 0) {
+                    continue;
+                }
+
+                numEvents++;
+
+                // Every block the event covers is accessed in turn.
+                long startByte = trace.offset() * SECTOR_SIZE;
+                long endByte = startByte + (long) trace.size() * SECTOR_SIZE;
+
+                for (long block = startByte / blockSize; block <= (endByte - 1) / blockSize; block++) {
+
+                    batch[batchSize++] = block;
+
+                    if (batchSize == BATCH_BLOCKS) {
+
+                        simulateBatch(pool, batchSize);
+                        numBlocks += batchSize;
+                        batchSize = 0;
+                    }
+                }
+            }
+
+            simulateBatch(pool, batchSize);
+            numBlocks += batchSize;
+
+            awaitSimulations();
+
+        } finally {
+
+            pool.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.println(
+                String.format(
+                        "SIMULATED [%d] events, [%d] block accesses in [%.2f] seconds:" +
+                                " [%.0f] block accesses/s per cache",
+                        numEvents,
+                        numBlocks,
+                        seconds,
+                        numBlocks / seconds
+                )
+        );
+
+        writeHitRatios();
+    }
+
+
+    /**
+     * Waits for every cache to finish the last batch, then hands
+     * them the batch just filled, which they simulate while the
+     * next one is filled.
+     */
+    private void simulateBatch (
+            ForkJoinPool pool,
+            int batchSize
+    )
+            throws IOException, InterruptedException
+    {
+        awaitSimulations();
+
+        long[] blocks = batch;
+        batch = simulatedBatch;
+        simulatedBatch = blocks;
+
+        for (CachePolicy cache : caches) {
+
+            simulations.add(
+                    pool.submit(
+                            () -> cache.access(blocks, batchSize)
+                    )
+            );
+        }
+    }
+
+
+    /**
+     * Waits for every cache to finish the last batch.
+     */
+    private void awaitSimulations ()
+            throws IOException, InterruptedException
+    {
+        try {
+
+            for (Future<?> simulation : simulations) {
+                simulation.get();
+            }
+
+        } catch (ExecutionException exception) {
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+
+        simulations.clear();
+    }
+
+
+    /**
+     * Writes the hit ratio of every cache to {@link #outputFilename}.
+     */
+    private void writeHitRatios ()
+            throws IOException
+    {
+        PrintStream output;
+
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            output = System.out;
+
+        } else {
+
+            log.println(
+                    "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+            );
+
+            output = new PrintStream(
+                    new BufferedOutputStream(
+                            new FileOutputStream(outputFilename)
+                    )
+            );
+        }
+
+        for (CachePolicy cache : caches) {
+
+            output.println(
+                    String.format(
+                            "%s,%d,%d,%d,%d,%.6f",
+                            cache.name(),
+                            cache.capacity * blockSize,
+                            cache.capacity,
+                            cache.numAccesses(),
+                            cache.numHits(),
+                            cache.hitRatio()
+                    )
+            );
+        }
+
+        output.flush();
+
+        if (output != System.out) {
+            output.close();
+        }
+    }
+
+
+    /**
+     * Simulates the caches on the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException, InterruptedException
+    {
+        CacheSimulator cacheSimulator = new CacheSimulator();
+
+        if (cacheSimulator.processInput(args)) {
+            cacheSimulator.simulate();
+        }
+    }
+}
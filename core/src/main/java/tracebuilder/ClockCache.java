@@ -0,0 +1,99 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class simulates a CLOCK cache, an *
+ *      approximation of LRU kept by most operating     *
+ *      systems.  A hit only sets the block's reference *
+ *      bit.  To evict, a hand sweeps the slots round-  *
+ *      robin, clearing set bits, and evicts the first  *
+ *      block whose bit is already clear.               *
+ ********************************************************/
+
+final class ClockCache extends CachePolicy {
+
+
+    /**
+     * Specifies the block in each slot.
+     */
+    private final long[] blocks;
+
+
+    /**
+     * Specifies whether the block in each slot was used
+     * since the hand last passed it.
+     */
+    private final boolean[] referenced;
+
+
+    /**
+     * Specifies the slot of each cached block.
+     */
+    private final LongIntHashMap slots;
+
+
+    /**
+     * Specifies the number of slots used.
+     */
+    private int numUsed;
+
+
+    /**
+     * Specifies the next slot the hand looks at.
+     */
+    private int hand;
+
+
+
+    ClockCache (
+            int capacity
+    )
+    {
+        super("clock", capacity);
+
+        blocks = new long[capacity];
+        referenced = new boolean[capacity];
+        slots = new LongIntHashMap(capacity);
+    }
+
+
+    @Override
+    boolean lookup (
+            long block
+    )
+    {
+        int slot = slots.get(block);
+
+        if (slot >= 0) {
+
+            referenced[slot] = true;
+            return true;
+        }
+
+        // Take a free slot, or sweep to the first unreferenced one.
+        if (numUsed < capacity) {
+
+            slot = numUsed++;
+
+        } else {
+
+            while (referenced[hand]) {
+
+                referenced[hand] = false;
+                hand = hand + 1 == capacity ? 0 : hand + 1;
+            }
+
+            slot = hand;
+            hand = hand + 1 == capacity ? 0 : hand + 1;
+            slots.remove(blocks[slot]);
+        }
+
+        blocks[slot] = block;
+        referenced[slot] = false;
+        slots.put(block, slot);
+
+        return false;
+    }
+}
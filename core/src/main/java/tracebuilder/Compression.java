@@ -0,0 +1,171 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class opens trace and blkparse    *
+ *      files whether or not they are gzipped.  Input   *
+ *      is recognized as gzipped by its magic number,   *
+ *      whatever its name, and decompressed as it is    *
+ *      read.  Output is gzipped, by a                  *
+ *      {@link GzipBlockChannel} on one thread per      *
+ *      core, whenever its name ends in .gz.            *
+ ********************************************************/
+
+final class Compression {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the ending of the names of files written gzipped.
+     */
+    static final String GZIP_SUFFIX = ".gz";
+
+
+    /**
+     * Specifies the number of bytes decompressed at once.
+     */
+    private static final int INPUT_BUFFER_SIZE = 256 * 1024;
+
+
+    /**
+     * Specifies the compression level of gzipped output.  Traces are
+     * repetitive enough that the fastest level already shrinks them
+     * several times over.
+     */
+    private static final int LEVEL = Deflater.BEST_SPEED;
+
+
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private Compression ()
+    {
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *           Functions responsible for opening files.            *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns whether the given file starts with the gzip magic number.
+     */
+    static boolean isGzipped (
+            String filename
+    )
+            throws IOException
+    {
+        try (
+                InputStream input = new FileInputStream(filename)
+        ) {
+
+            return input.read() == 0x1f && input.read() == 0x8b;
+        }
+    }
+
+
+    /**
+     * Returns whether output to the given file name is gzipped.
+     */
+    static boolean isGzipFilename (
+            String filename
+    )
+    {
+        return filename.endsWith(GZIP_SUFFIX);
+    }
+
+
+    /**
+     * Opens the given file for reading, decompressing it if it is gzipped.
+     */
+    static InputStream openInput (
+            String filename
+    )
+            throws IOException
+    {
+        // Peek at the magic number through the stream itself, as
+        // a pipe cannot be opened twice to read it again.
+        InputStream input = new BufferedInputStream(
+                new FileInputStream(filename),
+                INPUT_BUFFER_SIZE
+        );
+
+        input.mark(2);
+        boolean gzipped = input.read() == 0x1f && input.read() == 0x8b;
+        input.reset();
+
+        if (gzipped) {
+
+            return new GZIPInputStream(
+                    input,
+                    INPUT_BUFFER_SIZE
+            );
+        }
+
+        return input;
+    }
+
+
+    /**
+     * Opens the given file for writing, creating or truncating it,
+     * and gzipping the output if its name ends in {@link #GZIP_SUFFIX}.
+     */
+    static WritableByteChannel openOutput (
+            String filename
+    )
+            throws IOException
+    {
+        return compress(
+                filename,
+                FileChannel.open(
+                        Paths.get(filename),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                )
+        );
+    }
+
+
+    /**
+     * Returns a channel gzipping its output into the given channel of
+     * the given file if the file's name ends in {@link #GZIP_SUFFIX},
+     * or the given channel itself otherwise.
+     */
+    static WritableByteChannel compress (
+            String filename,
+            WritableByteChannel channel
+    )
+    {
+        if (!isGzipFilename(filename)) {
+            return channel;
+        }
+
+        return new GzipBlockChannel(
+                channel,
+                Runtime.getRuntime().availableProcessors(),
+                LEVEL
+        );
+    }
+}
@@ -0,0 +1,349 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class streams the I/O events of   *
+ *      a CSV trace written by BlkparseToCSV, with the  *
+ *      columns                                         *
+ *                                                      *
+ *      major,minor,sequence,timestamp,pid,rbws,offset, *
+ *          size                                        *
+ *                                                      *
+ *      one line at a time.  Lines without all of the   *
+ *      columns, such as those converted from blkparse  *
+ *      summaries, are skipped.  The CSV has no action  *
+ *      column, so {@link #action()} is always 0.  A    *
+ *      gzipped CSV is decompressed as it is read.      *
+ ********************************************************/
+
+final class CsvTraceReader implements TraceCursor {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of columns of an I/O event.
+     */
+    private static final int NUM_COLUMNS = 8;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Used for reading the CSV line-by-line.
+     */
+    private final BufferedReader bufferedReader;
+
+
+    /**
+     * Specifies where each column of the current line starts,
+     * followed by the end of the line.
+     */
+    private final int[] columnStart = new int[NUM_COLUMNS + 1];
+
+
+    /**
+     * Holds the fields of the current event.
+     */
+    private int major;
+
+    private int minor;
+
+    private long sequence;
+
+    private long timestamp;
+
+    private int pid;
+
+    private int rbws;
+
+    private long offset;
+
+    private int size;
+
+
+
+    /**
+     * Opens the given CSV trace, which may be gzipped.
+     */
+    CsvTraceReader (
+            String filename
+    )
+            throws IOException
+    {
+        this(
+                Compression.openInput(filename)
+        );
+    }
+
+
+    /**
+     * Reads a CSV trace from the given stream, such as the
+     * standard output of BlkparseToCSV piped in.
+     */
+    CsvTraceReader (
+            InputStream input
+    )
+    {
+        bufferedReader = new BufferedReader(
+                new InputStreamReader(
+                        input,
+                        StandardCharsets.US_ASCII
+                ),
+                1 << 16
+        );
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for reading the events.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    @Override
+    public boolean next ()
+            throws IOException
+    {
+        String readLine;
+
+        while ((readLine = bufferedReader.readLine()) != null) {
+
+            if (parse(readLine)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Parses the given line into the fields of the current event.
+     * @return True if the line is an I/O event, false otherwise.
+     */
+    private boolean parse (
+            String line
+    )
+    {
+        // Find the columns.
+        int numColumns = 1;
+        columnStart[0] = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+
+            if (line.charAt(i) == ',') {
+
+                if (numColumns == NUM_COLUMNS) {
+                    return false;
+                }
+
+                columnStart[numColumns++] = i + 1;
+            }
+        }
+
+        if (numColumns != NUM_COLUMNS) {
+            return false;
+        }
+
+        columnStart[NUM_COLUMNS] = line.length() + 1;
+
+        major = (int) parseLong(line, 0);
+        minor = (int) parseLong(line, 1);
+        sequence = parseLong(line, 2);
+        timestamp = parseTimestamp(line);
+        pid = (int) parseLong(line, 4);
+        offset = parseLong(line, 6);
+        size = (int) parseLong(line, 7);
+
+        rbws = Rwbs.encode(
+                line.substring(columnStart[5], columnStart[6] - 1)
+        );
+
+        return major >= 0 && minor >= 0 && sequence >= 0 && timestamp >= 0 &&
+                pid >= 0 && offset >= 0 && size >= 0;
+    }
+
+
+    /**
+     * Parses the given column of the line as a non-negative number.
+     * @return The number, or -1 if the column is not one.
+     */
+    private long parseLong (
+            String line,
+            int column
+    )
+    {
+        int start = columnStart[column];
+        int end = columnStart[column + 1] - 1;
+
+        if (start == end || end - start > 18) {
+            return -1;
+        }
+
+        long value = 0;
+
+        for (int i = start; i < end; i++) {
+
+            char c = line.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Parses the timestamp column, e.g. 1.000123456, in nanoseconds.
+     * @return The timestamp, or -1 if the column is not one.
+     */
+    private long parseTimestamp (
+            String line
+    )
+    {
+        int start = columnStart[3];
+        int end = columnStart[4] - 1;
+
+        long seconds = 0;
+        long nanoseconds = 0;
+        int numFractionDigits = -1;
+
+        for (int i = start; i < end; i++) {
+
+            char c = line.charAt(i);
+
+            if (c == '.' && numFractionDigits < 0) {
+
+                numFractionDigits = 0;
+
+            } else if (c < '0' || c > '9' || i - start > 18) {
+
+                return -1;
+
+            } else if (numFractionDigits < 0) {
+
+                seconds = seconds * 10 + (c - '0');
+
+            } else if (numFractionDigits < 9) {
+
+                nanoseconds = nanoseconds * 10 + (c - '0');
+                numFractionDigits++;
+            }
+        }
+
+        if (start == end) {
+            return -1;
+        }
+
+        // Pad the fraction out to nine digits.
+        for (int i = Math.max(numFractionDigits, 0); i < 9; i++) {
+            nanoseconds *= 10;
+        }
+
+        return seconds * 1_000_000_000L + nanoseconds;
+    }
+
+
+    @Override
+    public void close ()
+            throws IOException
+    {
+        bufferedReader.close();
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for the current event.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    @Override
+    public int major ()
+    {
+        return major;
+    }
+
+
+    @Override
+    public int minor ()
+    {
+        return minor;
+    }
+
+
+    @Override
+    public long sequence ()
+    {
+        return sequence;
+    }
+
+
+    @Override
+    public long timestamp ()
+    {
+        return timestamp;
+    }
+
+
+    @Override
+    public int pid ()
+    {
+        return pid;
+    }
+
+
+    /**
+     * Returns 0, since the CSV does not record the action.
+     */
+    @Override
+    public byte action ()
+    {
+        return 0;
+    }
+
+
+    @Override
+    public int rbws ()
+    {
+        return rbws;
+    }
+
+
+    @Override
+    public long offset ()
+    {
+        return offset;
+    }
+
+
+    @Override
+    public int size ()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,81 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class simulates a cache which     *
+ *      evicts the block brought in longest ago,        *
+ *      however recently it was used.  The slots are    *
+ *      filled in order and then reused round-robin,    *
+ *      so the next slot is always the oldest.          *
+ ********************************************************/
+
+final class FifoCache extends CachePolicy {
+
+
+    /**
+     * Specifies the block in each slot.
+     */
+    private final long[] blocks;
+
+
+    /**
+     * Specifies the slot of each cached block.
+     */
+    private final LongIntHashMap slots;
+
+
+    /**
+     * Specifies the number of slots used.
+     */
+    private int numUsed;
+
+
+    /**
+     * Specifies the slot holding the oldest block once all are used.
+     */
+    private int oldest;
+
+
+
+    FifoCache (
+            int capacity
+    )
+    {
+        super("fifo", capacity);
+
+        blocks = new long[capacity];
+        slots = new LongIntHashMap(capacity);
+    }
+
+
+    @Override
+    boolean lookup (
+            long block
+    )
+    {
+        if (slots.get(block) >= 0) {
+            return true;
+        }
+
+        // Take a free slot, or the oldest one.
+        int slot;
+
+        if (numUsed < capacity) {
+
+            slot = numUsed++;
+
+        } else {
+
+            slot = oldest;
+            oldest = oldest + 1 == capacity ? 0 : oldest + 1;
+            slots.remove(blocks[slot]);
+        }
+
+        blocks[slot] = block;
+        slots.put(block, slot);
+
+        return false;
+    }
+}
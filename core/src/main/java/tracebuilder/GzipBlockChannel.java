@@ -0,0 +1,433 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class gzips everything written to *
+ *      it on a pool of threads, in the manner of pigz. *
+ *      The bytes are cut into blocks of                *
+ *      {@link #BLOCK_SIZE} bytes, each block is        *
+ *      compressed into a complete gzip member of its   *
+ *      own by a {@link ForkJoinPool} task, and the     *
+ *      members are written out to the underlying       *
+ *      channel in order.  Concatenated gzip members    *
+ *      are themselves a gzip file, which gunzip and    *
+ *      {@link java.util.zip.GZIPInputStream} read as   *
+ *      one stream.                                     *
+ *                                                      *
+ *      The thread writing to the channel only copies   *
+ *      bytes into the current block, so compression    *
+ *      does not hold up whatever produces the bytes.   *
+ *      At most {@link #BLOCKS_IN_FLIGHT_PER_THREAD}    *
+ *      blocks per thread are held at once, and their   *
+ *      buffers and Deflaters are reused.               *
+ ********************************************************/
+
+final class GzipBlockChannel implements WritableByteChannel {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of bytes compressed into each gzip member.
+     */
+    static final int BLOCK_SIZE = 1024 * 1024;
+
+
+    /**
+     * Specifies how many blocks may be compressed ahead of the
+     * block being written out, per thread.
+     */
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+
+    /**
+     * Specifies the header of every gzip member: the magic number,
+     * deflate, no flags, no time, no extra flags, and an unknown
+     * operating system.
+     */
+    private static final byte[] MEMBER_HEADER = {
+            0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the channel the members are written to.
+     */
+    private final WritableByteChannel channel;
+
+
+    /**
+     * Specifies the threads compressing the blocks.
+     */
+    private final ForkJoinPool pool;
+
+
+    /**
+     * Specifies every block, so that their Deflaters can be ended.
+     */
+    private final List<Block> blocks = new ArrayList<>();
+
+
+    /**
+     * Specifies the blocks not currently in use.
+     */
+    private final ArrayDeque<Block> freeBlocks = new ArrayDeque<>();
+
+
+    /**
+     * Specifies the blocks being compressed, in order.
+     */
+    private final ArrayDeque<Future<Block>> blocksInFlight = new ArrayDeque<>();
+
+
+    /**
+     * Specifies the most blocks compressed at once.
+     */
+    private final int maxBlocksInFlight;
+
+
+    /**
+     * Specifies the block being filled.
+     */
+    private Block current;
+
+
+    /**
+     * Specifies whether the channel is still open.
+     */
+    private boolean open = true;
+
+
+
+    /**
+     * Creates a channel gzipping everything written to it into the
+     * given channel on the given number of threads, at the given
+     * compression level from 1 (fastest) to 9 (smallest).
+     */
+    GzipBlockChannel (
+            WritableByteChannel channel,
+            int numThreads,
+            int level
+    )
+    {
+        this.channel = channel;
+        this.pool = new ForkJoinPool(numThreads);
+        this.maxBlocksInFlight = numThreads * BLOCKS_IN_FLIGHT_PER_THREAD;
+
+        // One more block than can be in flight is being filled.
+        for (int i = 0; i <= maxBlocksInFlight; i++) {
+
+            Block block = new Block(level);
+
+            blocks.add(block);
+            freeBlocks.add(block);
+        }
+
+        current = freeBlocks.poll();
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for writing the blocks.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Copies the given bytes into the current block, handing
+     * every block that fills up to be compressed.
+     * @return The number of bytes written, which is all of them.
+     */
+    @Override
+    public int write (
+            ByteBuffer source
+    )
+            throws IOException
+    {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+
+        int written = source.remaining();
+
+        while (source.hasRemaining()) {
+
+            int length = Math.min(
+                    source.remaining(),
+                    BLOCK_SIZE - current.length
+            );
+
+            source.get(current.input, current.length, length);
+            current.length += length;
+
+            if (current.length == BLOCK_SIZE) {
+                submit();
+            }
+        }
+
+        return written;
+    }
+
+
+    /**
+     * Compresses the current block, even if it is not full, and writes
+     * out every block written so far.  The underlying channel then ends
+     * with a complete gzip member, so it may be cut there.
+     */
+    void flush ()
+            throws IOException
+    {
+        submit();
+
+        while (!blocksInFlight.isEmpty()) {
+            writeOldest();
+        }
+    }
+
+
+    /**
+     * Hands the current block to be compressed, first writing
+     * out the oldest block if too many are in flight.
+     */
+    private void submit ()
+            throws IOException
+    {
+        if (current.length == 0) {
+            return;
+        }
+
+        if (blocksInFlight.size() == maxBlocksInFlight) {
+            writeOldest();
+        }
+
+        Block block = current;
+
+        blocksInFlight.add(
+                pool.submit(
+                        () -> block.compress()
+                )
+        );
+
+        current = freeBlocks.poll();
+    }
+
+
+    /**
+     * Waits for the oldest block in flight to be compressed, writes
+     * it out, and returns it to the free blocks.
+     */
+    private void writeOldest ()
+            throws IOException
+    {
+        Block block;
+
+        try {
+
+            block = blocksInFlight.poll().get();
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while compressing the output"
+            );
+
+        } catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+
+        ByteBuffer member = ByteBuffer.wrap(block.output, 0, block.outputLength);
+
+        while (member.hasRemaining()) {
+            channel.write(member);
+        }
+
+        block.length = 0;
+        freeBlocks.add(block);
+    }
+
+
+    @Override
+    public boolean isOpen ()
+    {
+        return open;
+    }
+
+
+    /**
+     * Writes out the remaining blocks and closes the underlying channel.
+     */
+    @Override
+    public void close ()
+            throws IOException
+    {
+        if (!open) {
+            return;
+        }
+
+        try {
+
+            flush();
+
+        } finally {
+
+            open = false;
+            pool.shutdownNow();
+
+            for (Block block : blocks) {
+                block.deflater.end();
+            }
+
+            channel.close();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Holds a block of bytes and the gzip member it compresses to.
+     */
+    private static final class Block {
+
+
+        /**
+         * Specifies the bytes of the block.
+         */
+        final byte[] input = new byte[BLOCK_SIZE];
+
+
+        /**
+         * Specifies the number of bytes in {@link #input}.
+         */
+        int length;
+
+
+        /**
+         * Holds the gzip member, grown if the block does not compress.
+         */
+        byte[] output = new byte[BLOCK_SIZE + BLOCK_SIZE / 8 + 64];
+
+
+        /**
+         * Specifies the number of bytes in {@link #output}.
+         */
+        int outputLength;
+
+
+        /**
+         * Used for compressing the block without a zlib wrapper.
+         */
+        final Deflater deflater;
+
+
+        /**
+         * Used for the checksum of the block.
+         */
+        final CRC32 crc = new CRC32();
+
+
+        Block (
+                int level
+        )
+        {
+            deflater = new Deflater(level, true);
+        }
+
+
+        /**
+         * Compresses the block into a complete gzip member.
+         */
+        Block compress ()
+        {
+            System.arraycopy(MEMBER_HEADER, 0, output, 0, MEMBER_HEADER.length);
+            outputLength = MEMBER_HEADER.length;
+
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+
+            while (!deflater.finished()) {
+
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+
+                outputLength += deflater.deflate(
+                        output,
+                        outputLength,
+                        output.length - outputLength
+                );
+            }
+
+            crc.reset();
+            crc.update(input, 0, length);
+
+            // The trailer is the checksum and length, little-endian.
+            if (outputLength + 8 > output.length) {
+                output = Arrays.copyOf(output, outputLength + 8);
+            }
+
+            putInt((int) crc.getValue());
+            putInt(length);
+
+            return this;
+        }
+
+
+        /**
+         * Appends the given int to the member, little-endian.
+         */
+        private void putInt (
+                int value
+        )
+        {
+            for (int i = 0; i < 4; i++) {
+                output[outputLength++] = (byte) (value >>> (8 * i));
+            }
+        }
+    }
+}
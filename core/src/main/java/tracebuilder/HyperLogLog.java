@@ -0,0 +1,139 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class estimates the number of    *
+ *      distinct longs added to it in a fixed amount of *
+ *      memory, with HyperLogLog (Flajolet et al.,      *
+ *      2007).  Each long is hashed, the top bits of    *
+ *      the hash pick a register, and the register      *
+ *      keeps the longest run of leading zeros seen in  *
+ *      the rest.  With 2^p registers the estimate is   *
+ *      within about 1.04 / sqrt(2^p) of the true count *
+ *      however many longs are added.  Small counts use *
+ *      linear counting over the empty registers, which *
+ *      is exact enough where HyperLogLog is not.       *
+ ********************************************************/
+
+final class HyperLogLog {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of hash bits picking a register.
+     */
+    private final int precision;
+
+
+    /**
+     * Specifies the longest run of leading zeros, plus one,
+     * seen by each register.
+     */
+    private final byte[] registers;
+
+
+
+    /**
+     * Creates a sketch with 2^precision registers, from 4 to 18.
+     */
+    HyperLogLog (
+            int precision
+    )
+    {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException(
+                    "Invalid precision " + precision
+            );
+        }
+
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *           Functions responsible for the estimate.             *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Adds the given long to the sketch.
+     */
+    void add (
+            long value
+    )
+    {
+        long hash = LongIntHashMap.hash(value);
+
+        int register = (int) (hash >>> (64 - precision));
+
+        // Set the lowest bit so that the rank is at most
+        // the number of remaining bits plus one.
+        long rest = (hash << precision) | (1L << (precision - 1));
+        int rank = Long.numberOfLeadingZeros(rest) + 1;
+
+        if (rank > registers[register]) {
+            registers[register] = (byte) rank;
+        }
+    }
+
+
+    /**
+     * Adds every long added to the given sketch, which must
+     * have the same precision, to this one.
+     */
+    void merge (
+            HyperLogLog other
+    )
+    {
+        for (int i = 0; i < registers.length; i++) {
+
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+
+    /**
+     * Returns the estimated number of distinct longs added.
+     */
+    long estimate ()
+    {
+        int numRegisters = registers.length;
+
+        double sum = 0;
+        int numEmpty = 0;
+
+        for (byte rank : registers) {
+
+            sum += 1.0 / (1L << rank);
+
+            if (rank == 0) {
+                numEmpty++;
+            }
+        }
+
+        double alpha = 0.7213 / (1 + 1.079 / numRegisters);
+        double estimate = alpha * numRegisters * numRegisters / sum;
+
+        // Below the range where HyperLogLog is biased, count
+        // how many registers are still empty instead.
+        if (estimate <= 2.5 * numRegisters && numEmpty > 0) {
+            estimate = numRegisters * Math.log((double) numRegisters / numEmpty);
+        }
+
+        return Math.round(estimate);
+    }
+}
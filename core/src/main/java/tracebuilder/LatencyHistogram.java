@@ -0,0 +1,298 @@
+package tracebuilder;
+
+import java.util.Arrays;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class counts latencies in         *
+ *      nanoseconds in log-bucketed buckets: every      *
+ *      power of two is split into 128 buckets, so a    *
+ *      latency is known to within 1% whether it is a   *
+ *      microsecond or a minute.  Recording is a few    *
+ *      arithmetic operations and an array increment,   *
+ *      with no allocation.  A histogram is not thread  *
+ *      safe; each thread records into its own, and     *
+ *      they are merged afterwards.                     *
+ ********************************************************/
+
+final class LatencyHistogram {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of bits of a latency kept exactly,
+     * below its highest bit.
+     */
+    private static final int SUB_BUCKET_BITS = 7;
+
+
+    /**
+     * Specifies the number of buckets each power of two is split into.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+
+    /**
+     * Specifies the number of buckets, enough for any positive long.
+     */
+    private static final int NUM_BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+
+    /**
+     * Specifies the percentiles reported by {@link #summary()}.
+     */
+    private static final double[] REPORTED_PERCENTILES = { 50, 90, 99, 99.9 };
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of latencies in each bucket.
+     */
+    private final long[] counts = new long[NUM_BUCKETS];
+
+
+    /**
+     * Specifies the number of latencies recorded.
+     */
+    private long count;
+
+
+    /**
+     * Specifies the sum of the latencies recorded.
+     */
+    private long sum;
+
+
+    /**
+     * Specifies the smallest latency recorded.
+     */
+    private long min = Long.MAX_VALUE;
+
+
+    /**
+     * Specifies the largest latency recorded.
+     */
+    private long max;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for recording latencies.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Records a latency in nanoseconds.  Negative latencies,
+     * which a clock going backwards can produce, count as 0.
+     */
+    void record (
+            long nanos
+    )
+    {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        counts[bucket(nanos)]++;
+        count++;
+        sum += nanos;
+
+        if (nanos < min) {
+            min = nanos;
+        }
+
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+
+    /**
+     * Adds every latency recorded by the given histogram to this one.
+     */
+    void merge (
+            LatencyHistogram other
+    )
+    {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+
+    /**
+     * Forgets every latency recorded, so that the
+     * histogram can be reused.
+     */
+    void reset ()
+    {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+
+    /**
+     * Returns the bucket of the given non-negative latency.
+     */
+    private static int bucket (
+            long nanos
+    )
+    {
+        // Latencies below 2 * SUB_BUCKETS have a bucket each.
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos | 1);
+
+        if (highestBit <= SUB_BUCKET_BITS) {
+            return (int) nanos;
+        }
+
+        // Otherwise keep the highest SUB_BUCKET_BITS + 1 bits.
+        int shift = highestBit - SUB_BUCKET_BITS;
+
+        return (shift + 1) * SUB_BUCKETS + (int) (nanos >>> shift) - SUB_BUCKETS;
+    }
+
+
+    /**
+     * Returns the largest latency that falls in the given bucket.
+     */
+    private static long highestInBucket (
+            int bucket
+    )
+    {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for reporting latencies.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the number of latencies recorded.
+     */
+    long count ()
+    {
+        return count;
+    }
+
+
+    /**
+     * Returns the largest latency recorded, or 0 if there are none.
+     */
+    long max ()
+    {
+        return max;
+    }
+
+
+    /**
+     * Returns the smallest latency recorded, or 0 if there are none.
+     */
+    long min ()
+    {
+        return count == 0 ? 0 : min;
+    }
+
+
+    /**
+     * Returns the mean latency, or 0 if there are none.
+     */
+    double mean ()
+    {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+
+    /**
+     * Returns the latency at the given percentile, e.g. 99.9, to
+     * within the width of its bucket, or 0 if there are none.
+     */
+    long valueAtPercentile (
+            double percentile
+    )
+    {
+        if (count == 0) {
+            return 0;
+        }
+
+        // The rank of the latency wanted, counting from 1.
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+
+            seen += counts[i];
+
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), max);
+            }
+        }
+
+        return max;
+    }
+
+
+    /**
+     * Returns the number of latencies recorded, their mean, the
+     * reported percentiles and the maximum, in microseconds.
+     */
+    String summary ()
+    {
+        StringBuilder summary = new StringBuilder(
+                String.format("[%d] operations, mean [%.1f]us", count, mean() / 1000)
+        );
+
+        for (double percentile : REPORTED_PERCENTILES) {
+
+            summary.append(
+                    String.format(
+                            ", p%s [%.1f]us",
+                            percentile == (long) percentile ?
+                                    Long.toString((long) percentile) : Double.toString(percentile),
+                            valueAtPercentile(percentile) / 1000.0
+                    )
+            );
+        }
+
+        summary.append(
+                String.format(", max [%.1f]us", max / 1000.0)
+        );
+
+        return summary.toString();
+    }
+}
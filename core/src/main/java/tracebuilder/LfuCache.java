@@ -0,0 +1,226 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class simulates a cache which     *
+ *      evicts the least frequently used block, and of  *
+ *      those the least recently used.  Counts start    *
+ *      over when a block is brought back in.  The      *
+ *      slots are kept in an indexed binary min-heap    *
+ *      ordered by count and then by last access, so    *
+ *      an access costs a logarithmic number of swaps.  *
+ ********************************************************/
+
+final class LfuCache extends CachePolicy {
+
+
+    /**
+     * Specifies the block in each slot.
+     */
+    private final long[] blocks;
+
+
+    /**
+     * Specifies the number of accesses to the block in each
+     * slot since it was brought in.
+     */
+    private final long[] frequency;
+
+
+    /**
+     * Specifies when the block in each slot was last accessed.
+     */
+    private final long[] lastAccess;
+
+
+    /**
+     * Specifies the slots in heap order.
+     */
+    private final int[] heap;
+
+
+    /**
+     * Specifies where each slot is in {@link #heap}.
+     */
+    private final int[] heapIndex;
+
+
+    /**
+     * Specifies the slot of each cached block.
+     */
+    private final LongIntHashMap slots;
+
+
+    /**
+     * Specifies the number of slots used.
+     */
+    private int numUsed;
+
+
+    /**
+     * Specifies the number of accesses so far.
+     */
+    private long clock;
+
+
+
+    LfuCache (
+            int capacity
+    )
+    {
+        super("lfu", capacity);
+
+        blocks = new long[capacity];
+        frequency = new long[capacity];
+        lastAccess = new long[capacity];
+        heap = new int[capacity];
+        heapIndex = new int[capacity];
+        slots = new LongIntHashMap(capacity);
+    }
+
+
+    @Override
+    boolean lookup (
+            long block
+    )
+    {
+        clock++;
+
+        int slot = slots.get(block);
+
+        // A hit can only move the block further from the root.
+        if (slot >= 0) {
+
+            frequency[slot]++;
+            lastAccess[slot] = clock;
+            siftDown(heapIndex[slot]);
+
+            return true;
+        }
+
+        if (numUsed < capacity) {
+
+            // Add a free slot at the bottom of the heap.
+            slot = numUsed++;
+            heap[slot] = slot;
+            heapIndex[slot] = slot;
+
+            fill(slot, block);
+            siftUp(slot);
+
+        } else {
+
+            // Reuse the slot at the root.
+            slot = heap[0];
+            slots.remove(blocks[slot]);
+
+            fill(slot, block);
+            siftDown(0);
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Puts the given block, accessed once, into the given slot.
+     */
+    private void fill (
+            int slot,
+            long block
+    )
+    {
+        blocks[slot] = block;
+        frequency[slot] = 1;
+        lastAccess[slot] = clock;
+        slots.put(block, slot);
+    }
+
+
+    /**
+     * Returns whether the first slot should be evicted before the second.
+     */
+    private boolean before (
+            int first,
+            int second
+    )
+    {
+        return frequency[first] < frequency[second] ||
+                (frequency[first] == frequency[second] && lastAccess[first] < lastAccess[second]);
+    }
+
+
+    /**
+     * Moves the slot at the given heap index up until its parent
+     * is to be evicted before it.
+     */
+    private void siftUp (
+            int index
+    )
+    {
+        int slot = heap[index];
+
+        while (index > 0) {
+
+            int parent = (index - 1) >>> 1;
+
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+
+            place(heap[parent], index);
+            index = parent;
+        }
+
+        place(slot, index);
+    }
+
+
+    /**
+     * Moves the slot at the given heap index down until
+     * it is to be evicted before its children.
+     */
+    private void siftDown (
+            int index
+    )
+    {
+        int slot = heap[index];
+
+        while (true) {
+
+            int child = 2 * index + 1;
+
+            if (child >= numUsed) {
+                break;
+            }
+
+            if (child + 1 < numUsed && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+
+            if (!before(heap[child], slot)) {
+                break;
+            }
+
+            place(heap[child], index);
+            index = child;
+        }
+
+        place(slot, index);
+    }
+
+
+    /**
+     * Puts the given slot at the given heap index.
+     */
+    private void place (
+            int slot,
+            int index
+    )
+    {
+        heap[index] = slot;
+        heapIndex[slot] = index;
+    }
+}
@@ -0,0 +1,259 @@
+package tracebuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class converts lines of blkparse  *
+ *      output held in a {@link ByteBuffer} into an     *
+ *      output buffer, either as CSV or as binary       *
+ *      trace records, or into a {@link TraceStore}.    *
+ *      Lines may first pass through a                  *
+ *      {@link BlkparseFilter}.  Every thread           *
+ *      converting input uses its own instance.         *
+ ********************************************************/
+
+final class LineConverter {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the line separator written after every CSV line,
+     * the same one written by {@link BufferedWriter#newLine()}.
+     */
+    private static final byte[] LINE_SEPARATOR =
+            System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+
+    /**
+     * Specifies whether to print out debugging messages.
+     */
+    private static final boolean DEBUG = false;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Used for scanning each line of the input.
+     */
+    private final BlkparseLine line = new BlkparseLine();
+
+
+    /**
+     * Specifies the output the lines are converted into.
+     */
+    private final ByteOutput output;
+
+
+    /**
+     * Used for writing binary records, or null to write CSV.
+     */
+    private final BinaryTraceWriter binaryWriter;
+
+
+    /**
+     * Specifies the store events are added to, or null
+     * to write them to {@link #output}.
+     */
+    private final TraceStore store;
+
+
+    /**
+     * Specifies which lines are converted, or null for every line.
+     */
+    private final BlkparseFilter filter;
+
+
+    /**
+     * Used for holding the fields of each event added to {@link #store}.
+     */
+    private final TraceRecord record = new TraceRecord();
+
+
+
+    /**
+     * Creates a converter which writes the lines accepted by the given
+     * filter, or every line if it is null, into the given output, as
+     * binary trace records if binary is set or as CSV otherwise.
+     */
+    LineConverter (
+            ByteOutput output,
+            boolean binary,
+            BlkparseFilter filter
+    )
+    {
+        this.output = output;
+        this.binaryWriter = binary ? new BinaryTraceWriter(output) : null;
+        this.store = null;
+        this.filter = filter;
+    }
+
+
+    /**
+     * Creates a converter which adds the I/O events
+     * to the given store.
+     */
+    LineConverter (
+            TraceStore store
+    )
+    {
+        this.output = null;
+        this.binaryWriter = null;
+        this.store = store;
+        this.filter = null;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for converting the input.       *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes whatever has to come before the first converted line,
+     * which is the file header for binary output and nothing for CSV.
+     */
+    void writeHeader ()
+            throws IOException
+    {
+        if (binaryWriter != null) {
+            binaryWriter.writeHeader();
+        }
+    }
+
+
+    /**
+     * Converts every complete line held between the absolute indices
+     * start (inclusive) and end (exclusive) of the input buffer.
+     *
+     * Lines end with a newline character, and a carriage return in
+     * front of the newline is ignored.  If endOfInput is set, a final
+     * line without a newline is converted as well.
+     *
+     * @return The number of bytes consumed, which always ends on a
+     *          line boundary.
+     */
+    int convertLines (
+            ByteBuffer input,
+            int start,
+            int end,
+            boolean endOfInput
+    )
+            throws IOException
+    {
+        // The index of the start of the current line.
+        int lineStart = start;
+
+        // Scan the input for the ends of lines.
+        for (int i = start; i < end; i++) {
+
+            if (input.get(i) == '\n') {
+
+                convertLine(input, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+
+        // Convert the final line if there is no more input.
+        if (endOfInput && lineStart < end) {
+
+            convertLine(input, lineStart, end);
+            lineStart = end;
+        }
+
+        return lineStart - start;
+    }
+
+
+    /**
+     * Converts the single line held between the absolute indices
+     * start (inclusive) and end (exclusive) of the input buffer.
+     *
+     * As CSV, every line produces exactly what
+     * {@link BlkparseToCSV#parseToCSV()} produces for it, followed by
+     * {@link #LINE_SEPARATOR}.  As binary or into a store, only I/O
+     * events produce a record and all other lines are skipped.
+     */
+    private void convertLine (
+            ByteBuffer input,
+            int start,
+            int end
+    )
+            throws IOException
+    {
+        // Ignore the carriage return of a Windows line ending.
+        if (end > start && input.get(end - 1) == '\r') {
+            end--;
+        }
+
+        if (DEBUG) {
+            byte[] bytes = new byte[end - start];
+            input.get(start, bytes);
+            System.err.println(
+                    new String(bytes, StandardCharsets.US_ASCII)
+            );
+        }
+
+        // Find the entries in the line, dropping it
+        // early if it is filtered out.
+        if (filter != null) {
+
+            line.reset(input, start, end);
+
+            if (!filter.accept(line)) {
+                return;
+            }
+
+        } else {
+
+            line.tokenize(input, start, end);
+        }
+
+        // Add the line to the store.
+        if (store != null) {
+
+            if (record.set(line)) {
+                store.add(record);
+            }
+
+            return;
+        }
+
+        // Write the line out as a binary record.
+        if (binaryWriter != null) {
+
+            binaryWriter.write(line);
+            return;
+        }
+
+        // Make sure there is room for the whole line.
+        ByteBuffer buffer = output.reserve(
+                BlkparseLine.maxCSVLength(end - start) + LINE_SEPARATOR.length
+        );
+
+        // Write the entries out, comma delimited.
+        line.writeCSV(buffer);
+
+        // Add a new line to the output file.
+        buffer.put(LINE_SEPARATOR);
+    }
+}
@@ -0,0 +1,250 @@
+package tracebuilder;
+
+import java.util.Arrays;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class maps non-negative long      *
+ *      keys to int values with open addressing and     *
+ *      linear probing.  Keys and values are kept in    *
+ *      two flat arrays, so looking up, adding and      *
+ *      removing a key creates no objects, and removal  *
+ *      shifts later keys back rather than leaving      *
+ *      tombstones.  The table is kept at most half     *
+ *      full, doubling when it would fill up further.   *
+ ********************************************************/
+
+final class LongIntHashMap {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the key marking an empty entry.
+     */
+    private static final long EMPTY = -1;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the key of each entry, or {@link #EMPTY}.
+     */
+    private long[] keys;
+
+
+    /**
+     * Specifies the value of each entry.
+     */
+    private int[] values;
+
+
+    /**
+     * Specifies the mask selecting an entry from a hash.
+     */
+    private int mask;
+
+
+    /**
+     * Specifies the number of keys in the map.
+     */
+    private int size;
+
+
+
+    /**
+     * Creates a map able to hold the given number of keys
+     * before it has to grow.
+     */
+    LongIntHashMap (
+            int maxKeys
+    )
+    {
+        int numEntries = Integer.highestOneBit(Math.max(maxKeys, 2) * 2 - 1) * 2;
+
+        keys = new long[numEntries];
+        values = new int[numEntries];
+        mask = numEntries - 1;
+
+        Arrays.fill(keys, EMPTY);
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *            Functions responsible for the entries.             *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the value of the given key, or -1 if it is not in the map.
+     */
+    int get (
+            long key
+    )
+    {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+
+            if (keys[i] == key) {
+                return values[i];
+            }
+
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+
+    /**
+     * Sets the value of the given key, adding it if it is not in the map.
+     */
+    void put (
+            long key,
+            int value
+    )
+    {
+        int i = slot(key);
+
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+
+        if (keys[i] == EMPTY) {
+
+            // Grow rather than fill up past half, and find
+            // the key's entry again in the larger table.
+            if (2 * (size + 1) > keys.length) {
+
+                grow();
+                put(key, value);
+                return;
+            }
+
+            size++;
+        }
+
+        keys[i] = key;
+        values[i] = value;
+    }
+
+
+    /**
+     * Doubles the number of entries, moving every key to its
+     * entry in the larger table.
+     */
+    private void grow ()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+
+        Arrays.fill(keys, EMPTY);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Removes the given key, if it is in the map.
+     */
+    void remove (
+            long key
+    )
+    {
+        int i = slot(key);
+
+        while (keys[i] != key) {
+
+            if (keys[i] == EMPTY) {
+                return;
+            }
+
+            i = (i + 1) & mask;
+        }
+
+        size--;
+
+        // Shift back each later key of the run which would no
+        // longer be found past the hole, until the run ends.
+        int hole = i;
+
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+
+            int home = slot(keys[j]);
+
+            // Move the key if its home is not between the hole
+            // and where it is, going around the table.
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+
+        keys[hole] = EMPTY;
+    }
+
+
+    /**
+     * Returns the number of keys in the map.
+     */
+    int size ()
+    {
+        return size;
+    }
+
+
+    /**
+     * Returns the entry the given key hashes to.
+     */
+    private int slot (
+            long key
+    )
+    {
+        return (int) hash(key) & mask;
+    }
+
+
+    /**
+     * Returns a hash of the given key with every bit depending on
+     * every bit of the key, so that sequential keys spread out.
+     * This is the finalizer of MurmurHash3.
+     */
+    static long hash (
+            long key
+    )
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+
+        return key;
+    }
+}
@@ -0,0 +1,84 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class simulates a cache which     *
+ *      evicts the least recently used block.  The      *
+ *      blocks are kept in one {@link SlotList} from    *
+ *      most to least recently used.                    *
+ ********************************************************/
+
+final class LruCache extends CachePolicy {
+
+
+    /**
+     * Specifies the block in each slot.
+     */
+    private final long[] blocks;
+
+
+    /**
+     * Specifies the slot of each cached block.
+     */
+    private final LongIntHashMap slots;
+
+
+    /**
+     * Specifies the slots from most to least recently used.
+     */
+    private final SlotList recency;
+
+
+    /**
+     * Specifies the number of slots used.
+     */
+    private int numUsed;
+
+
+
+    LruCache (
+            int capacity
+    )
+    {
+        super("lru", capacity);
+
+        blocks = new long[capacity];
+        slots = new LongIntHashMap(capacity);
+        recency = new SlotList(capacity, 1);
+    }
+
+
+    @Override
+    boolean lookup (
+            long block
+    )
+    {
+        int slot = slots.get(block);
+
+        if (slot >= 0) {
+
+            recency.moveToFirst(0, slot);
+            return true;
+        }
+
+        // Take a free slot, or the least recently used one.
+        if (numUsed < capacity) {
+
+            slot = numUsed++;
+
+        } else {
+
+            slot = recency.last(0);
+            recency.remove(slot);
+            slots.remove(blocks[slot]);
+        }
+
+        blocks[slot] = block;
+        slots.put(block, slot);
+        recency.addFirst(0, slot);
+
+        return false;
+    }
+}
@@ -0,0 +1,655 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      trace and an output file name.  It computes the *
+ *      miss ratio of an LRU cache of every size in one *
+ *      pass over the trace, from the stack distance of *
+ *      each block access: the number of distinct       *
+ *      blocks accessed since the last access to the    *
+ *      same block.  An LRU cache of at least that many *
+ *      blocks hits, and a smaller one misses.          *
+ *                                                      *
+ *      Each block's last access is marked in a Fenwick *
+ *      tree indexed by access time, so the distance is *
+ *      the number of marks after it, counted in        *
+ *      logarithmic time.  The tree is compacted down   *
+ *      to the live marks whenever it fills up, so it   *
+ *      only grows with the number of distinct blocks.  *
+ *      Accesses are counted by their exact distance,   *
+ *      so the curve is exact at every cache size.      *
+ *                                                      *
+ *      With a sampling rate, only blocks whose hash    *
+ *      falls below a threshold are tracked, and their  *
+ *      distances are scaled up by the inverse of the   *
+ *      rate (SHARDS, Waldspurger et al., FAST 2015),   *
+ *      which shrinks the memory and time needed by the *
+ *      same factor.                                    *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.util.Arrays;
+
+public class MissRatioCurve {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [output filename|-]\n" +
+                    "\n   The first specifies a CSV trace written by BlkparseToCSV" +
+                    "\n   or a binary trace, and the second specifies the CSV file" +
+                    "\n   the LRU miss ratio curve is written to, one line per cache size:\n" +
+                    "\n      cache size (in bytes),cache size (in blocks),miss ratio\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -block SIZE    cache block size (default 4K)" +
+                    "\n      -sample RATE   track only a RATE fraction of the blocks," +
+                    "\n                     e.g. 0.01, in that fraction of the memory" +
+                    "\n      -points N      cache sizes per doubling (default 8)" +
+                    "\n      -action A      use only events of action A, e.g. Q" +
+                    "\n                     (binary traces or blkparse output only)";
+
+
+    /**
+     * Specifies the filename standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the number of bytes in a sector, the unit
+     * of offsets and sizes in a trace.
+     */
+    private static final int SECTOR_SIZE = 512;
+
+
+    /**
+     * Specifies the number of hash values a block may
+     * fall on when sampling.
+     */
+    private static final long SAMPLING_MODULUS = 1 << 24;
+
+
+    /**
+     * Specifies the initial number of access times in the tree.
+     */
+    private static final int INITIAL_TIMES = 1 << 16;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the number of bytes in a cache block.
+     */
+    private long blockSize = 4096;
+
+
+    /**
+     * Specifies the fraction of blocks tracked.
+     */
+    private double samplingRate = 1;
+
+
+    /**
+     * Specifies the number of cache sizes per doubling in the output.
+     */
+    private int pointsPerDoubling = 8;
+
+
+    /**
+     * Specifies the only action used, or 0 to use every event.
+     */
+    private byte action;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies the hash values below which blocks are tracked.
+     */
+    private long samplingThreshold;
+
+
+    /**
+     * Specifies the access time of the last access to each tracked block.
+     */
+    private final LongIntHashMap lastAccess = new LongIntHashMap(INITIAL_TIMES);
+
+
+    /**
+     * Specifies the block last accessed at each access time,
+     * or -1 if it has been accessed since.
+     */
+    private long[] blockAt = new long[INITIAL_TIMES];
+
+
+    /**
+     * Specifies the Fenwick tree counting the live access
+     * times, indexed from 1.
+     */
+    private int[] tree = new int[INITIAL_TIMES + 1];
+
+
+    /**
+     * Specifies the next access time.
+     */
+    private int time;
+
+
+    /**
+     * Specifies the number of block accesses in the trace.
+     */
+    private long numAccesses;
+
+
+    /**
+     * Specifies the number of tracked block accesses.
+     */
+    private long numSampled;
+
+
+    /**
+     * Specifies the number of tracked accesses to blocks not seen before.
+     */
+    private long numColdMisses;
+
+
+    /**
+     * Specifies the number of tracked accesses to blocks seen before
+     * at each stack distance, in tracked blocks before scaling.
+     */
+    private long[] distanceCounts = new long[INITIAL_TIMES];
+
+
+    /**
+     * Specifies the largest stack distance before scaling.
+     */
+    private int maxDistance;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            switch (option) {
+
+                case "-block":
+
+                    blockSize = Writer.parseSize(value);
+                    valid = blockSize > 0;
+                    break;
+
+                case "-sample":
+
+                    try {
+                        samplingRate = Double.parseDouble(value);
+                    } catch (NumberFormatException exception) {
+                        samplingRate = -1;
+                    }
+
+                    valid = samplingRate * SAMPLING_MODULUS >= 1 && samplingRate <= 1;
+                    break;
+
+                case "-points":
+
+                    pointsPerDoubling = (int) Math.min(Writer.parseCount(value), 1024);
+                    valid = pointsPerDoubling > 0;
+                    break;
+
+                case "-action":
+
+                    action = value.length() == 1 ? (byte) value.charAt(0) : 0;
+                    valid = action != 0;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        samplingThreshold = Math.round(samplingRate * SAMPLING_MODULUS);
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *       Functions responsible for the stack distances.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Computes the stack distance of every block read or written
+     * by {@link #traceFilename}, then writes out the curve.
+     */
+    void compute ()
+            throws IOException
+    {
+        log.println(
+                String.format(
+                        "COMPUTING the miss ratio curve of [%d] byte blocks" +
+                                " sampled at [%s] on trace [%s]",
+                        blockSize,
+                        samplingRate,
+                        new File(traceFilename).getAbsolutePath()
+                )
+        );
+
+        Arrays.fill(blockAt, -1);
+
+        long start = System.nanoTime();
+
+        try (
+                TraceCursor trace = TraceCursor.open(traceFilename)
+        ) {
+
+            while (trace.next()) {
+
+                // Skip events of other actions, and events
+                // which neither read nor write any data.
+                if ((action != 0 && trace.action() != action) ||
+                        trace.size() == 0 ||
+                        (trace.rbws() & (Rwbs.READ | Rwbs.WRITE)) == 0) {
+                    continue;
+                }
+
+                // Every block the event covers is accessed in turn.
+                long startByte = trace.offset() * SECTOR_SIZE;
+                long endByte = startByte + (long) trace.size() * SECTOR_SIZE;
+
+                for (long block = startByte / blockSize; block <= (endByte - 1) / blockSize; block++) {
+                    access(block);
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.println(
+                String.format(
+                        "COMPUTED [%d] block accesses, [%d] sampled, to [%d] distinct" +
+                                " sampled blocks in [%.2f] seconds",
+                        numAccesses,
+                        numSampled,
+                        lastAccess.size(),
+                        seconds
+                )
+        );
+
+        writeCurve();
+    }
+
+
+    /**
+     * Records the stack distance of an access to the given
+     * block, if it is tracked.
+     */
+    private void access (
+            long block
+    )
+    {
+        numAccesses++;
+
+        if (samplingThreshold < SAMPLING_MODULUS &&
+                (LongIntHashMap.hash(block) & (SAMPLING_MODULUS - 1)) >= samplingThreshold) {
+            return;
+        }
+
+        numSampled++;
+
+        if (time == blockAt.length) {
+            compact();
+        }
+
+        int previous = lastAccess.get(block);
+
+        if (previous < 0) {
+
+            numColdMisses++;
+
+        } else {
+
+            // The live times after the previous access are the
+            // distinct blocks accessed since, and the block itself
+            // makes one more.
+            int distance = lastAccess.size() - prefixSum(previous) + 1;
+
+            if (distance >= distanceCounts.length) {
+                distanceCounts = Arrays.copyOf(
+                        distanceCounts,
+                        Math.max(distanceCounts.length * 2, distance + 1)
+                );
+            }
+
+            distanceCounts[distance]++;
+            maxDistance = Math.max(maxDistance, distance);
+
+            blockAt[previous] = -1;
+            add(previous, -1);
+        }
+
+        blockAt[time] = block;
+        add(time, 1);
+        lastAccess.put(block, time);
+
+        time++;
+    }
+
+
+    /**
+     * Renumbers the live access times from 0, in order, so that
+     * the tree has room for more.  The tree doubles if more than
+     * half of it is still live.
+     */
+    private void compact ()
+    {
+        int numLive = 0;
+
+        for (int i = 0; i < time; i++) {
+
+            if (blockAt[i] >= 0) {
+
+                blockAt[numLive] = blockAt[i];
+                lastAccess.put(blockAt[numLive], numLive);
+                numLive++;
+            }
+        }
+
+        if (2 * numLive > blockAt.length) {
+
+            blockAt = Arrays.copyOf(blockAt, blockAt.length * 2);
+            tree = new int[blockAt.length + 1];
+        }
+
+        Arrays.fill(blockAt, numLive, blockAt.length, -1);
+
+        // Rebuild the tree in linear time, each node
+        // adding itself into its parent.
+        Arrays.fill(tree, 0);
+
+        for (int i = 1; i <= numLive; i++) {
+            tree[i] = 1;
+        }
+
+        for (int i = 1; i < tree.length; i++) {
+
+            int parent = i + (i & -i);
+
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+
+        time = numLive;
+    }
+
+
+    /**
+     * Adds the given amount to the count at the given access time.
+     */
+    private void add (
+            int index,
+            int amount
+    )
+    {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += amount;
+        }
+    }
+
+
+    /**
+     * Returns the number of live access times up to and including
+     * the given one.
+     */
+    private int prefixSum (
+            int index
+    )
+    {
+        int sum = 0;
+
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+
+        return sum;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for writing the curve.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes the miss ratio of LRU caches from one block up to the
+     * largest stack distance to {@link #outputFilename}, with
+     * {@link #pointsPerDoubling} cache sizes per doubling.
+     */
+    private void writeCurve ()
+            throws IOException
+    {
+        PrintStream output;
+
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            output = System.out;
+
+        } else {
+
+            log.println(
+                    "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+            );
+
+            output = new PrintStream(
+                    new BufferedOutputStream(
+                            new FileOutputStream(outputFilename)
+                    )
+            );
+        }
+
+        // When sampling, the sampled accesses may stray from the
+        // expected fraction of all accesses.  As in SHARDS, the
+        // difference is counted as hits at the smallest distance,
+        // which makes the ratios out of the expected number.
+        double numCounted = numAccesses * samplingRate;
+
+        // The number of accesses at each distance or more.
+        long[] atLeast = new long[maxDistance + 2];
+
+        for (int distance = maxDistance; distance >= 0; distance--) {
+            atLeast[distance] = atLeast[distance + 1] + distanceCounts[distance];
+        }
+
+        // The smallest distance the current cache size misses
+        // on, which only grows with the cache size.
+        int firstMiss = 0;
+
+        long maxScaled = scale(maxDistance);
+        long previousBlocks = 0;
+
+        for (int i = 0; ; i++) {
+
+            long numBlocks = Math.round(Math.pow(2, (double) i / pointsPerDoubling));
+
+            if (numBlocks == previousBlocks) {
+                continue;
+            }
+
+            previousBlocks = numBlocks;
+
+            // A cache misses on every access whose scaled
+            // distance is larger than it.
+            while (firstMiss <= maxDistance && scale(firstMiss) <= numBlocks) {
+                firstMiss++;
+            }
+
+            double misses = numColdMisses + atLeast[firstMiss];
+
+            output.println(
+                    String.format(
+                            "%d,%d,%.6f",
+                            numBlocks * blockSize,
+                            numBlocks,
+                            numCounted == 0 ? 0 : Math.min(misses / numCounted, 1)
+                    )
+            );
+
+            if (numBlocks >= maxScaled) {
+                break;
+            }
+        }
+
+        output.flush();
+
+        if (output != System.out) {
+            output.close();
+        }
+    }
+
+
+    /**
+     * Returns the stack distance of all blocks which the given
+     * distance among the tracked blocks stands for.
+     */
+    private long scale (
+            long distance
+    )
+    {
+        return Math.round(distance / samplingRate);
+    }
+
+
+    /**
+     * Computes the miss ratio curve of the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        MissRatioCurve missRatioCurve = new MissRatioCurve();
+
+        if (missRatioCurve.processInput(args)) {
+            missRatioCurve.compute();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package tracebuilder;
+
+import com.sun.nio.file.ExtendedOpenOption;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class keeps the reads and writes  *
+ *      of Reader and Writer from being served by the   *
+ *      page cache, so that each one reaches the device *
+ *      and shows up in the trace, without a separate   *
+ *      process hogging memory.  Files can be opened    *
+ *      for direct I/O, which bypasses the cache        *
+ *      altogether; the clean pages of the cache can be *
+ *      dropped every so often, which needs root as     *
+ *      blktrace does; and the memory of the machine    *
+ *      can be read, to check whether a working set is  *
+ *      too small to miss in the cache.                 *
+ ********************************************************/
+
+final class PageCache {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the file which drops the clean page cache
+     * of the whole machine when 1 is written to it.
+     */
+    static final String DROP_CACHES = "/proc/sys/vm/drop_caches";
+
+
+    /**
+     * Specifies the file listing the memory of the machine.
+     */
+    private static final String MEMINFO = "/proc/meminfo";
+
+
+    /**
+     * Specifies the option opening a file for direct I/O.
+     */
+    static final OpenOption DIRECT = ExtendedOpenOption.DIRECT;
+
+
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private PageCache ()
+    {
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for avoiding the cache.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the alignment direct I/O to the given file needs of
+     * its offsets, sizes and buffers: the block size of the file
+     * system holding it, or of its directory if it does not exist.
+     */
+    static int directAlignment (
+            String filename
+    )
+            throws IOException
+    {
+        Path path = Paths.get(filename).toAbsolutePath();
+
+        if (!Files.exists(path)) {
+            path = path.getParent();
+        }
+
+        return (int) Files.getFileStore(path).getBlockSize();
+    }
+
+
+    /**
+     * Returns whether this process may drop the page cache,
+     * which takes root.
+     */
+    static boolean canDrop ()
+    {
+        return Files.isWritable(Paths.get(DROP_CACHES));
+    }
+
+
+    /**
+     * Drops the clean pages of the page cache, those of every
+     * process on the machine and not just this one.  Dirty pages
+     * are kept until they are written back.
+     * @throws IOException If the cache cannot be dropped,
+     *          e.g. when not running as root.
+     */
+    static void drop ()
+            throws IOException
+    {
+        Files.write(
+                Paths.get(DROP_CACHES),
+                "1\n".getBytes(StandardCharsets.US_ASCII),
+                StandardOpenOption.WRITE
+        );
+    }
+
+
+    /**
+     * Starts a daemon thread dropping the page cache every given
+     * number of seconds until it is interrupted.  If the cache cannot
+     * be dropped, the thread prints why and stops.
+     * @return The thread.
+     */
+    static Thread dropEvery (
+            long seconds
+    )
+    {
+        Thread thread = new Thread(
+                () -> {
+
+                    try {
+
+                        while (true) {
+
+                            Thread.sleep(seconds * 1000);
+                            drop();
+                        }
+
+                    } catch (InterruptedException exception) {
+
+                        // Asked to stop.
+
+                    } catch (IOException exception) {
+
+                        System.out.println(
+                                "ERROR: Could not drop the page cache through " +
+                                        DROP_CACHES + " (" + exception + "); run as root!"
+                        );
+                    }
+                },
+                "page-cache-dropper"
+        );
+
+        thread.setDaemon(true);
+        thread.start();
+
+        return thread;
+    }
+
+
+    /**
+     * Returns the number of bytes of memory of the machine,
+     * or -1 if it is not known.
+     */
+    static long totalMemory ()
+    {
+        try (
+                BufferedReader bufferedReader = new BufferedReader(
+                        new FileReader(MEMINFO)
+                )
+        ) {
+
+            String readLine;
+
+            // The line reads e.g. "MemTotal:  6158152 kB".
+            while ((readLine = bufferedReader.readLine()) != null) {
+
+                if (readLine.startsWith("MemTotal:")) {
+
+                    String[] fields = readLine.trim().split("\\s+");
+
+                    return Long.parseLong(fields[1]) * 1024;
+                }
+            }
+
+        } catch (IOException | RuntimeException exception) {
+
+            // Not Linux, or not readable.
+        }
+
+        return -1;
+    }
+}
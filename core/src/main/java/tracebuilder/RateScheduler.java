@@ -0,0 +1,332 @@
+package tracebuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class paces operations against    *
+ *      absolute deadlines measured with nanoTime.      *
+ *      Each deadline follows from the start of the     *
+ *      schedule and the arrival pattern alone, never   *
+ *      from when the previous operation finished, so   *
+ *      a slow operation does not push back the ones    *
+ *      after it: they are issued late, at once, until  *
+ *      the schedule is caught up.  Arrivals may be at  *
+ *      a fixed rate, Poisson, or bursts at a fixed     *
+ *      rate separated by idle periods.                 *
+ ********************************************************/
+
+final class RateScheduler {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} describing the schedules
+     * accepted by {@link #parse(String)}.
+     */
+    static final String SPEC_MESSAGE =
+            "N (N per second), poisson:N[:SEED] (Poisson arrivals averaging" +
+                    " N per second) or burst:N:ON:OFF (N per second for ON ms," +
+                    " then idle for OFF ms)";
+
+
+    /**
+     * Specifies how long before a deadline to stop parking the
+     * thread and spin instead, since parking overshoots by
+     * tens of microseconds.
+     */
+    private static final long SPIN_NANOS = 50_000;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the mean time between operations in nanoseconds.
+     */
+    private final double intervalNanos;
+
+
+    /**
+     * Specifies the random numbers drawing Poisson arrivals,
+     * or null for a fixed rate.
+     */
+    private final SplittableRandom random;
+
+
+    /**
+     * Specifies how long each burst lasts in nanoseconds,
+     * or 0 if there are no bursts.
+     */
+    private final long burstNanos;
+
+
+    /**
+     * Specifies how long to idle between bursts in nanoseconds.
+     */
+    private final long idleNanos;
+
+
+    /**
+     * Specifies the nanoTime the schedule started at.
+     */
+    private long startNanos;
+
+
+    /**
+     * Specifies the time of the next operation since the start,
+     * not counting idle periods between bursts.  Kept as a double
+     * so that rounding never accumulates into drift.
+     */
+    private double busyNanos;
+
+
+    /**
+     * Specifies the number of operations issued after their deadline.
+     */
+    private long numLate;
+
+
+    /**
+     * Specifies the most an operation was issued after its deadline.
+     */
+    private long maxLagNanos;
+
+
+
+    /**
+     * Creates a schedule of the given number of operations per
+     * second, drawn from the given random numbers if arrivals are
+     * Poisson, and in bursts if the burst length is positive.
+     */
+    private RateScheduler (
+            double rate,
+            SplittableRandom random,
+            long burstNanos,
+            long idleNanos
+    )
+    {
+        this.intervalNanos = 1e9 / rate;
+        this.random = random;
+        this.burstNanos = burstNanos;
+        this.idleNanos = idleNanos;
+    }
+
+
+    /**
+     * Creates a schedule of the given fixed number of operations per second.
+     */
+    static RateScheduler fixed (
+            double rate
+    )
+    {
+        return new RateScheduler(rate, null, 0, 0);
+    }
+
+
+    /**
+     * Creates a schedule of Poisson arrivals averaging the given number
+     * of operations per second, drawn from the given seed.
+     */
+    static RateScheduler poisson (
+            double rate,
+            long seed
+    )
+    {
+        return new RateScheduler(rate, new SplittableRandom(seed), 0, 0);
+    }
+
+
+    /**
+     * Creates a schedule of the given fixed number of operations per
+     * second during bursts of the given length, separated by idle
+     * periods of the given length.
+     */
+    static RateScheduler burst (
+            double rate,
+            long burstMillis,
+            long idleMillis
+    )
+    {
+        return new RateScheduler(rate, null, burstMillis * 1_000_000L, idleMillis * 1_000_000L);
+    }
+
+
+    /**
+     * Parses a schedule from the command line, as described by
+     * {@link #SPEC_MESSAGE}.
+     * @return The schedule, or null if it is not valid.
+     */
+    static RateScheduler parse (
+            String spec
+    )
+    {
+        String[] parts = spec.split(":");
+
+        try {
+
+            double rate = Double.parseDouble(parts[parts.length == 1 ? 0 : 1]);
+
+            if (!(rate > 0) || Double.isInfinite(rate)) {
+                return null;
+            }
+
+            if (parts.length == 1) {
+                return fixed(rate);
+            }
+
+            if (parts[0].equals("poisson") && parts.length <= 3) {
+
+                long seed = parts.length == 3 ?
+                        Long.parseLong(parts[2]) : new SplittableRandom().nextLong();
+
+                return poisson(rate, seed);
+            }
+
+            if (parts[0].equals("burst") && parts.length == 4) {
+
+                long burstMillis = Long.parseLong(parts[2]);
+                long idleMillis = Long.parseLong(parts[3]);
+
+                if (burstMillis > 0 && idleMillis >= 0) {
+                    return burst(rate, burstMillis, idleMillis);
+                }
+            }
+
+        } catch (NumberFormatException exception) {
+
+            return null;
+        }
+
+        return null;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for pacing operations.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Starts the schedule now, with the first operation due at once.
+     */
+    void start ()
+    {
+        startNanos = System.nanoTime();
+        busyNanos = 0;
+        numLate = 0;
+        maxLagNanos = 0;
+    }
+
+
+    /**
+     * Waits until the next operation is due, and returns at once if it
+     * is overdue.  Call this after each operation, the first of which
+     * is due as soon as the schedule {@link #start()}s.
+     * @return How late the operation is in nanoseconds, or 0 if on time.
+     */
+    long awaitNext ()
+    {
+        // Move on to the next arrival.
+        if (random == null) {
+            busyNanos += intervalNanos;
+        } else {
+            busyNanos += -Math.log(1 - random.nextDouble()) * intervalNanos;
+        }
+
+        long deadline = startNanos + (long) busyNanos;
+
+        // Insert the idle periods of the bursts gone by.
+        if (burstNanos > 0) {
+            deadline += (long) (busyNanos / burstNanos) * idleNanos;
+        }
+
+        long lag = awaitDeadline(deadline);
+
+        if (lag > 0) {
+            numLate++;
+            maxLagNanos = Math.max(maxLagNanos, lag);
+        }
+
+        return lag;
+    }
+
+
+    /**
+     * Waits until the given nanoTime, and returns at once if it
+     * has passed.  Parks until close to the deadline, then spins,
+     * which is far more precise.
+     * @return How long ago the deadline passed in nanoseconds,
+     *          or 0 if it was met.
+     */
+    static long awaitDeadline (
+            long deadline
+    )
+    {
+        long now = System.nanoTime();
+
+        if (now - deadline >= 0) {
+            return now - deadline;
+        }
+
+        while (deadline - now > SPIN_NANOS) {
+
+            LockSupport.parkNanos(deadline - now - SPIN_NANOS);
+            now = System.nanoTime();
+        }
+
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+
+        return 0;
+    }
+
+
+    /**
+     * Returns the number of operations issued after their deadline.
+     */
+    long numLate ()
+    {
+        return numLate;
+    }
+
+
+    /**
+     * Returns the most an operation was issued after its deadline,
+     * in nanoseconds.
+     */
+    long maxLagNanos ()
+    {
+        return maxLagNanos;
+    }
+
+
+    /**
+     * Returns a summary of how well the schedule was kept.
+     */
+    String summary ()
+    {
+        return String.format(
+                "SCHEDULE: [%d] operations late, by at most [%.3f]ms",
+                numLate,
+                maxLagNanos / 1e6
+        );
+    }
+}
@@ -0,0 +1,1099 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/********************************************************
+ * Author: Madox Summermatter (madoxs)                  *
+ * Date: Fall 2018                                      *
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes three space           *
+ *      separated inputs:                               *
+ *                                                      *
+ *          - reading duration in seconds               *
+ *          - number of seconds to sleep between reads  *
+ *          - input file name                           *
+ *                                                      *
+ *      It reads the input file numReads times,         *
+ *      sleeping for numSeconds between each read.      *
+ *                                                      *
+ *      With the -block option it instead reads whole   *
+ *      blocks at explicit offsets through a            *
+ *      FileChannel: sequentially, strided, from a      *
+ *      list of offsets, e.g. to miss in the cache at   *
+ *      chosen LBAs, or following any other             *
+ *      {@link WorkloadPattern}, e.g. Zipfian.          *
+ ********************************************************/
+
+public class Reader {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes three input arguments separated" +
+                    " by a space:\n" +
+                    "\n      [duration (in s)] [sleep interval (in ms)] [input filename]\n" +
+                    "\n   The first specifies the read duration in seconds, the second" +
+                    "\n   specifies the interval of time in milliseconds to sleep" +
+                    "\n   between read, and the third specifies the output" +
+                    "\n   filename.\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -block SIZE       read blocks of SIZE bytes, e.g. 4K or 1M" +
+                    "\n      -pattern P        sequential, strided, list, uniform[:SEED]," +
+                    "\n                        zipf:THETA[:SEED], hotcold:HOT:P[:SEED] or" +
+                    "\n                        shift:SIZE:N[:SEED] (default sequential)" +
+                    "\n      -offset BYTES     start reading at BYTES (default 0)" +
+                    "\n      -span BYTES       wrap around after BYTES (default to the end" +
+                    "\n                        of the file, required for devices)" +
+                    "\n      -stride BYTES     distance between strided reads" +
+                    "\n      -offsets FILE     file of offsets read in turn by the list" +
+                    "\n                        pattern, one per line" +
+                    "\n      -lba              -offset, -span, -stride and the -offsets file" +
+                    "\n                        are in 512 byte sectors, not bytes; -block" +
+                    "\n                        stays in bytes" +
+                    "\n      -direct           read with O_DIRECT, bypassing the page cache;" +
+                    "\n                        blocks and offsets must be file system blocks" +
+                    "\n      -dropcache S      drop the page cache every S seconds; this evicts" +
+                    "\n                        the cached pages of every process, and needs" +
+                    "\n                        root to write /proc/sys/vm/drop_caches" +
+                    "\n      -rate SPEC        issue reads on an open-loop schedule instead of" +
+                    "\n                        sleeping: N per second, poisson:N[:SEED]" +
+                    "\n                        or burst:N:ON:OFF with ON and OFF in ms" +
+                    "\n      -interval S       also report throughput and latency every S seconds" +
+                    "\n   Every option except -block, -rate and -interval implies block reads of 4K.";
+
+    /**
+     * Specifies the {@link String} containing timeout information.
+     */
+    private static final String TIMEOUT_MESSAGE =
+            "TIMEOUT: This program times out after 10 seconds of inactivity.";
+
+
+    /**
+     * Specifies the number of seconds before timeout.
+     */
+    private static final int TIMEOUT_DURATION_SECONDS = 10;
+
+
+    /**
+     * Specifies a {@link Duration} of {@link #TIMEOUT_DURATION_SECONDS}.
+     */
+    private static final Duration timeout = Duration.ofSeconds(
+            TIMEOUT_DURATION_SECONDS
+    );
+
+
+    /**
+     * Specifies whether to print out debugging messages.
+     */
+    private static final boolean DEBUG = false;
+
+
+    /**
+     * Specifies the block size used when an option
+     * implies block reads but -block is not given.
+     */
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+
+    /**
+     * Specifies the number of bytes in a sector, the unit
+     * of offsets given with -lba.
+     */
+    private static final int SECTOR_SIZE = 512;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of reads.
+     */
+    private long numReads;
+
+
+    /**
+     * Specifies the number of milliseconds to sleep
+     * between each read.
+     */
+    private int sleepInterval;
+
+
+    /**
+     * Specifies the name of the input {@link File}.
+     */
+    private String inputFilename;
+
+
+    /**
+     * Specifies the number of seconds to read.
+     */
+    private long duration;
+
+
+    /**
+     * Specifies the schedule reads are issued on, or null
+     * to sleep {@link #sleepInterval} between them.
+     */
+    private RateScheduler scheduler;
+
+
+    /**
+     * Specifies the latency of every read, measured from when it
+     * was due if there is a {@link #scheduler}.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+
+    /**
+     * Specifies the latency of every read since the last interval
+     * report, or null if there are no interval reports.
+     */
+    private LatencyHistogram intervalLatencies;
+
+
+    /**
+     * Specifies the number of nanoseconds between interval reports.
+     */
+    private long reportInterval;
+
+
+    /**
+     * Specifies the nanoTime the current interval started at.
+     */
+    private long intervalStart;
+
+
+    /**
+     * Specifies how late the current read was issued
+     * in nanoseconds, according to the {@link #scheduler}.
+     */
+    private long lag;
+
+
+    /**
+     * Specifies the number of bytes in each block read,
+     * or 0 to read line-by-line instead.
+     */
+    private int blockSize;
+
+
+    /**
+     * Specifies the order blocks are read in: "list", "strided"
+     * or a {@link WorkloadPattern} spec, e.g. "zipf:0.99".
+     */
+    private String pattern = "sequential";
+
+
+    /**
+     * Specifies the pattern parsed from {@link #pattern},
+     * or null for the list pattern.
+     */
+    private WorkloadPattern workload;
+
+
+    /**
+     * Specifies the offset of the first block read in bytes.
+     */
+    private long startOffset;
+
+
+    /**
+     * Specifies the number of bytes read from {@link #startOffset}
+     * before wrapping around, or 0 for the rest of the file.
+     */
+    private long span;
+
+
+    /**
+     * Specifies the distance in bytes between strided reads.
+     */
+    private long stride;
+
+
+    /**
+     * Specifies the name of the file listing the offsets
+     * read by the list pattern.
+     */
+    private String offsetsFilename;
+
+
+    /**
+     * Specifies whether offsets are given in sectors rather than bytes.
+     */
+    private boolean lba;
+
+
+    /**
+     * Specifies whether to read with direct I/O, bypassing the page cache.
+     */
+    private boolean direct;
+
+
+    /**
+     * Specifies the number of seconds between drops of the
+     * page cache, or 0 to leave it alone.
+     */
+    private long dropInterval;
+
+
+    /**
+     * Specifies the number of bytes read so far.
+     */
+    private long numBytesRead;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order
+     * to retrieve the names of the input and output files.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the three arguments.
+        int index = 0;
+        boolean blockOptions = false;
+        while (index < fields.length && fields[index].matches("-[a-z]+")) {
+
+            String option = fields[index];
+
+            if (option.equals("-rate")) {
+
+                scheduler = index + 1 < fields.length ?
+                        RateScheduler.parse(fields[index + 1]) : null;
+
+                if (scheduler == null) {
+
+                    System.out.println(
+                            "ERROR: -rate expects " + RateScheduler.SPEC_MESSAGE + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+
+                index += 2;
+                continue;
+            }
+
+            if (option.equals("-interval")) {
+
+                long seconds = index + 1 < fields.length ?
+                        Writer.parseCount(fields[index + 1]) : -1;
+
+                if (seconds < 1) {
+
+                    System.out.println(
+                            "ERROR: -interval expects a positive number of seconds!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+
+                intervalLatencies = new LatencyHistogram();
+                reportInterval = seconds * 1_000_000_000L;
+
+                index += 2;
+                continue;
+            }
+
+            blockOptions = true;
+
+            if (option.equals("-lba")) {
+
+                lba = true;
+                index++;
+                continue;
+            }
+
+            if (option.equals("-direct")) {
+
+                direct = true;
+                index++;
+                continue;
+            }
+
+            // Every other option is followed by a value.
+            if (index + 1 == fields.length) {
+
+                System.out.println(
+                        "ERROR: " + option + " expects a value!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            String value = fields[index + 1];
+
+            switch (option) {
+
+                case "-pattern":
+                    pattern = value;
+                    break;
+
+                case "-offsets":
+                    offsetsFilename = value;
+                    break;
+
+                case "-dropcache":
+
+                    dropInterval = Writer.parseCount(value);
+
+                    if (dropInterval < 1) {
+
+                        System.out.println(
+                                "ERROR: -dropcache expects a positive number of seconds!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    // Only root may drop the cache of the whole machine.
+                    if (!PageCache.canDrop()) {
+
+                        System.out.println(
+                                "ERROR: -dropcache needs to write " + PageCache.DROP_CACHES +
+                                        ", which drops the page cache of every process; run as root!"
+                        );
+
+                        return false;
+                    }
+
+                    break;
+
+                case "-block":
+                case "-offset":
+                case "-span":
+                case "-stride":
+
+                    long size = Writer.parseSize(value);
+
+                    if (size < 0 || (size == 0 && !option.equals("-offset")) ||
+                            (option.equals("-block") && size > Integer.MAX_VALUE / 2)) {
+
+                        System.out.println(
+                                "ERROR: " + option + " expects a positive size!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    if (option.equals("-block")) {
+                        blockSize = (int) size;
+                    } else if (option.equals("-offset")) {
+                        startOffset = size;
+                    } else if (option.equals("-span")) {
+                        span = size;
+                    } else {
+                        stride = size;
+                    }
+
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            index += 2;
+        }
+
+        // Every option but the rate implies block reads.
+        if (blockOptions && blockSize == 0) {
+            blockSize = DEFAULT_BLOCK_SIZE;
+        }
+
+        // Offsets and lengths given as LBAs are in sectors.
+        if (lba) {
+
+            if (Math.max(startOffset, Math.max(span, stride)) > Long.MAX_VALUE / SECTOR_SIZE) {
+
+                System.out.println(
+                        "ERROR: -lba sectors are too large!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            startOffset *= SECTOR_SIZE;
+            span *= SECTOR_SIZE;
+            stride *= SECTOR_SIZE;
+        }
+
+        // Check that the pattern has what it needs.
+        String problem = null;
+
+        if (!pattern.equals("list")) {
+            workload = WorkloadPattern.parse(
+                    pattern.equals("strided") && stride > 0 ? "strided:" + stride : pattern
+            );
+        }
+
+        if (pattern.equals("strided") && stride == 0) {
+            problem = "The strided pattern needs -stride!";
+        } else if (!pattern.equals("list") && workload == null) {
+            problem = "Unknown pattern " + pattern + "! Expected list or " +
+                    WorkloadPattern.SPEC_MESSAGE + ".";
+        } else if (pattern.equals("list") && offsetsFilename == null) {
+            problem = "The list pattern needs -offsets!";
+        } else if (span > 0 && span < blockSize) {
+            problem = "The span must be at least one block!";
+        }
+
+        if (problem != null) {
+
+            System.out.println(
+                    "ERROR: " + problem
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        fields = Arrays.copyOfRange(fields, index, fields.length);
+
+        // Check that all expected fields are included.
+        if (fields.length != 3) {
+
+            // Print out an error message.
+            System.out.println(
+                    "ERROR: Did not provide correct number of arguments!"
+            );
+
+            // Print out usage message.
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        /*
+         *  Otherwise, the reading duration is first,
+         *  the sleep interval is second,
+         *  and the output filename is third.
+         */
+
+        // Attempt to parse the reading duration.
+        try {
+
+            // Compute the duration in milliseconds.
+            duration = Long.parseLong(
+                    fields[0]
+            ) * 1000;
+
+            // Check whether the reading duration is positive.
+            if (duration < 0) {
+
+                System.out.println(
+                        "ERROR: First argument is negative!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+        } catch (NumberFormatException exception) {
+
+            System.out.println(
+                    "ERROR: First argument is non-integer value!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Attempt to parse the sleep interval.
+        try {
+
+            // Parse the sleep interval.
+            sleepInterval = Integer.parseInt(
+                    fields[1]
+            );
+
+            // Check whether the sleep interval is negative.
+            if (sleepInterval < 0) {
+
+                System.out.println(
+                        "ERROR: Second argument is negative!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+        } catch (NumberFormatException exception) {
+
+            System.out.println(
+                    "ERROR: Second argument is non-double value!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Retrieve the input filename.
+        inputFilename = fields[2];
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing out to file.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes {@link #numReads} 0's to {@link #inputFilename}.
+     */
+    void readFile ()
+            throws IOException, InterruptedException
+    {
+        // Retrieve the input file.
+        File inputFile = new File(
+                inputFilename
+        );
+
+        // Used for reading the contents of the input file.
+        BufferedReader bufferedReader = new BufferedReader(
+                new FileReader(
+                        inputFile
+                )
+        );
+
+        System.out.println(
+                String.format(
+                        "READING file [%s] with [%d]ms of sleep between reads for [%d] seconds",
+                        inputFile.getAbsolutePath(),
+                        sleepInterval,
+                        duration / 1000
+                )
+        );
+
+        // Keep track of number of reads.
+        numReads = 0;
+        numBytesRead = 0;
+
+        // Used for storing the current line of the file.
+        String readLine;
+
+        // Time stamp the start of the reading process.
+        long start = System.currentTimeMillis();
+        startTiming();
+
+        long operationStart = System.nanoTime();
+
+        // Continue reading while there are still more lines
+        // to read.
+        while (((readLine = bufferedReader.readLine()) != null)
+                && ((System.currentTimeMillis() - start) < duration)) {
+
+            recordLatency(operationStart);
+
+            if (DEBUG) {
+
+                System.out.println(
+                        readLine
+                );
+            }
+
+            // Keep track of the number of reads.
+            numReads += 1;
+            numBytesRead += readLine.length() + 1;
+
+            // Wait until the next read is due.
+            pace();
+            operationStart = System.nanoTime();
+        }
+
+        // Time stamp the end of the reading process.
+        long end = System.currentTimeMillis();
+
+        // Output the read time.
+        System.out.println(
+                String.format(
+                        "READ [%d] times for [%.2f] seconds:",
+                        numReads,
+                        (end - start) / 1000.0
+                )
+        );
+
+        // Don't forget to close the buffered reader.
+        bufferedReader.close();
+    }
+
+
+
+    /**
+     * Reads {@link #blockSize} byte blocks from {@link #inputFilename}
+     * with positional reads into a reused direct buffer, following
+     * {@link #pattern}, with {@link #sleepInterval} milliseconds between
+     * reads for {@link #duration} seconds.  Every pattern but the list
+     * reads from {@link #startOffset} up to {@link #span} bytes past it;
+     * list reads go through the listed offsets over and over.
+     */
+    void readBlocks ()
+            throws IOException, InterruptedException
+    {
+        // The offsets read in turn by the list pattern.
+        long[] offsets = pattern.equals("list") ? readOffsets() : null;
+
+        if (offsets != null && offsets.length == 0) {
+
+            System.out.println(
+                    "ERROR: No offsets in " + offsetsFilename + "!"
+            );
+
+            return;
+        }
+
+        // Listed offsets are read as they are, the
+        // others from the start of the span.
+        WorkloadPattern blocks = offsets == null ?
+                workload : WorkloadPattern.list(offsets);
+        long base = offsets == null ? startOffset : 0;
+
+        // Direct reads must be whole file system blocks.
+        if (direct && !isDirectAligned(blocks)) {
+            return;
+        }
+
+        try (
+                FileChannel channel = direct ?
+                        FileChannel.open(
+                                Paths.get(inputFilename),
+                                StandardOpenOption.READ,
+                                PageCache.DIRECT
+                        ) :
+                        FileChannel.open(
+                                Paths.get(inputFilename),
+                                StandardOpenOption.READ
+                        )
+        ) {
+
+            // Read up to the end of the file unless told otherwise.
+            // Devices report a size of 0, so they need a span.
+            long end = span > 0 ?
+                    startOffset + span : channel.size();
+
+            if (offsets == null && end - startOffset < blockSize) {
+
+                System.out.println(
+                        "ERROR: Less than one block to read; pass -span for devices!"
+                );
+
+                return;
+            }
+
+            System.out.println(
+                    String.format(
+                            "READING [%d] byte blocks %s from file [%s] with [%d]ms of sleep between reads for [%d] seconds",
+                            blockSize,
+                            pattern,
+                            new File(inputFilename).getAbsolutePath(),
+                            sleepInterval,
+                            duration / 1000
+                    )
+            );
+
+            // Without help, a working set that fits in memory
+            // is soon read from the page cache instead.
+            long workingSet = offsets == null ?
+                    end - startOffset : (long) offsets.length * blockSize;
+            long memory = PageCache.totalMemory();
+
+            if (!direct && dropInterval == 0 && workingSet <= memory) {
+
+                System.out.println(
+                        String.format(
+                                "WARNING: The [%d] bytes read fit in the [%d] bytes of memory," +
+                                        " so reads may hit in the page cache;" +
+                                        " pass -direct, -dropcache S or a larger -span!",
+                                workingSet,
+                                memory
+                        )
+                );
+            }
+
+            ByteBuffer block = Writer.alignedBuffer(blockSize);
+
+            blocks.start(end - startOffset, blockSize);
+
+            numReads = 0;
+            numBytesRead = 0;
+
+            Thread dropper = dropInterval > 0 ?
+                    PageCache.dropEvery(dropInterval) : null;
+
+            // Time stamp the start of the reading process.
+            long start = System.nanoTime();
+            startTiming();
+            long deadline = start + duration * 1_000_000L;
+
+            try {
+
+                while (System.nanoTime() - deadline < 0) {
+
+                    long position = base + blocks.next();
+
+                    // Read the whole block at its offset, stopping
+                    // early at the end of the file.  A short direct
+                    // read only happens there, and reading on from an
+                    // unaligned offset would fail.
+                    long operationStart = System.nanoTime();
+                    block.clear();
+
+                    while (block.hasRemaining()) {
+
+                        if (channel.read(block, position + block.position()) < 0 || direct) {
+                            break;
+                        }
+                    }
+
+                    recordLatency(operationStart);
+
+                    numReads += 1;
+                    numBytesRead += block.position();
+
+                    // Wait until the next read is due.
+                    pace();
+                }
+
+            } finally {
+
+                // Stop dropping the page cache even if an operation failed.
+                if (dropper != null) {
+                    dropper.interrupt();
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.println(
+                    String.format(
+                            "READ [%d] times for [%.2f] seconds: [%.2f] MB/s, [%.0f] reads/s",
+                            numReads,
+                            seconds,
+                            numBytesRead / seconds / 1000000.0,
+                            numReads / seconds
+                    )
+            );
+        }
+    }
+
+
+    /**
+     * Returns the latencies of the reads done so far.
+     */
+    LatencyHistogram latencies ()
+    {
+        return latencies;
+    }
+
+
+    /**
+     * Starts the schedule of {@link #scheduler}, if there is one,
+     * and the latency histograms.
+     */
+    private void startTiming ()
+    {
+        if (scheduler != null) {
+            scheduler.start();
+        }
+
+        latencies.reset();
+        lag = 0;
+
+        if (intervalLatencies != null) {
+
+            intervalLatencies.reset();
+            intervalStart = System.nanoTime();
+        }
+    }
+
+
+    /**
+     * Records the latency of the read started at the given nanoTime,
+     * printing an interval report if one is due.
+     */
+    private void recordLatency (
+            long operationStart
+    )
+    {
+        long now = System.nanoTime();
+        long latency = now - operationStart + lag;
+
+        latencies.record(latency);
+
+        if (intervalLatencies != null) {
+
+            intervalLatencies.record(latency);
+
+            if (now - intervalStart >= reportInterval) {
+
+                System.out.println(
+                        String.format(
+                                "INTERVAL: [%.0f] reads/s, ",
+                                intervalLatencies.count() / ((now - intervalStart) / 1e9)
+                        ) + intervalLatencies.summary()
+                );
+
+                intervalLatencies.reset();
+                intervalStart = now;
+            }
+        }
+    }
+
+
+    /**
+     * Waits until the next read is due: on the schedule of
+     * {@link #scheduler} if there is one, or after sleeping
+     * {@link #sleepInterval} milliseconds otherwise.
+     */
+    private void pace ()
+            throws InterruptedException
+    {
+        if (scheduler != null) {
+            lag = scheduler.awaitNext();
+        } else if (sleepInterval > 0) {
+            TimeUnit.MILLISECONDS.sleep(sleepInterval);
+        }
+    }
+
+
+    /**
+     * Reads {@link #inputFilename} block by block if a block
+     * size was given, or line-by-line otherwise.
+     */
+    void read ()
+            throws IOException, InterruptedException
+    {
+        if (blockSize > 0) {
+            readBlocks();
+        } else {
+            readFile();
+        }
+        System.out.println(
+                "LATENCY: " + latencies.summary()
+        );
+
+        // Report how well the schedule was kept.
+        if (scheduler != null) {
+            System.out.println(
+                    scheduler.summary()
+            );
+        }
+    }
+
+
+    /**
+     * Checks that the block size and every offset the given pattern
+     * reads are multiples of the alignment direct I/O to
+     * {@link #inputFilename} needs, printing an error if not.
+     * @return True if they all are, false otherwise.
+     */
+    private boolean isDirectAligned (
+            WorkloadPattern blocks
+    )
+            throws IOException
+    {
+        long alignment = PageCache.directAlignment(inputFilename);
+        boolean aligned = blockSize % alignment == 0 &&
+                startOffset % alignment == 0 &&
+                blocks.isAligned(alignment) &&
+                Writer.BUFFER_ALIGNMENT % alignment == 0;
+
+        if (!aligned) {
+
+            System.out.println(
+                    "ERROR: -direct needs the block size and offsets to be" +
+                            " multiples of the [" + alignment + "] byte file system block!"
+            );
+        }
+
+        return aligned;
+    }
+
+
+    /**
+     * Reads the offsets listed in {@link #offsetsFilename}, one per
+     * line, skipping blank lines and lines starting with #.
+     * @return The offsets in bytes.
+     */
+    private long[] readOffsets ()
+            throws IOException
+    {
+        long[] offsets = new long[1024];
+        int numOffsets = 0;
+
+        try (
+                BufferedReader bufferedReader = new BufferedReader(
+                        new FileReader(offsetsFilename)
+                )
+        ) {
+
+            String readLine;
+
+            while ((readLine = bufferedReader.readLine()) != null) {
+
+                readLine = readLine.trim();
+
+                if (readLine.isEmpty() || readLine.startsWith("#")) {
+                    continue;
+                }
+
+                long offset = Writer.parseSize(readLine);
+
+                if (offset < 0) {
+                    throw new IOException(
+                            "Invalid offset " + readLine + " in " + offsetsFilename
+                    );
+                }
+
+                if (numOffsets == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, numOffsets * 2);
+                }
+
+                offsets[numOffsets++] = lba ? offset * SECTOR_SIZE : offset;
+            }
+        }
+
+        return Arrays.copyOf(offsets, numOffsets);
+    }
+
+
+    /**
+     * Returns the number of reads done by the last {@link #readFile()}
+     * or {@link #readBlocks()}.
+     */
+    long numReads ()
+    {
+        return numReads;
+    }
+
+
+
+    /**
+     * Returns the number of bytes read by the last {@link #readFile()}
+     * or {@link #readBlocks()}.
+     */
+    long numBytesRead ()
+    {
+        return numBytesRead;
+    }
+
+
+
+    /**
+     * Reads the file {@link #inputFilename} for {@link #duration}
+     * seconds with {@link #sleepInterval} milliseconds between each read.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException, InterruptedException
+    {
+        // Object for reading a file.
+        Reader reader = new Reader();
+
+        // Try to process the input.
+        if (reader.processInput(args)) {
+            System.out.println(
+                    String.format(
+                            "read duration: [%d]s\n" +
+                                    "sleep interval [%d]ms\n" +
+                                    "filename: [%s]",
+                            reader.duration / 1000,
+                            reader.sleepInterval,
+                            reader.inputFilename
+                    )
+            );
+
+            // Read the file according to the given specifications.
+            reader.read();
+        }
+    }
+}
@@ -0,0 +1,749 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      binary trace and an output file name.  It joins *
+ *      the queue (Q), dispatch (D) and complete (C)    *
+ *      events of each I/O into one line giving the     *
+ *      time it waited to be dispatched, the time the   *
+ *      device took to serve it, and the two together.  *
+ *                                                      *
+ *      An I/O is found by its device and first sector. *
+ *      A back merge (M) of an I/O into the request     *
+ *      ending where it starts, or a front merge (F)    *
+ *      into the request starting where it ends, folds  *
+ *      it into that request, which grows to cover it.  *
+ *      A requeue (R) sends a request back to be        *
+ *      dispatched again, and its service time counts   *
+ *      from the last dispatch.                         *
+ *                                                      *
+ *      I/Os in flight are kept in a fixed number of    *
+ *      slots of primitive arrays, found through        *
+ *      {@link LongIntHashMap}s, so memory is bounded   *
+ *      whatever the length of the trace.  If every     *
+ *      slot is taken, the I/O queued longest ago is    *
+ *      abandoned to make room.                         *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class RequestLifecycle {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [output filename|-]\n" +
+                    "\n   The first specifies a binary trace written by BlkparseToCSV" +
+                    "\n   -binary, which keeps the action of each event, ideally sorted" +
+                    "\n   by TraceSorter, or blkparse output itself.  The second" +
+                    "\n   specifies the CSV file written," +
+                    "\n   one line per completed I/O:\n" +
+                    "\n      major,minor,offset,size,rbws,pid,queue timestamp," +
+                    "\n      queue time (ns),service time (ns),latency (ns),merges,requeues\n" +
+                    "\n   The queue time and latency are -1 if the I/O was queued before" +
+                    "\n   the trace started.\n" +
+                    "\n   Options:" +
+                    "\n      -inflight N    most I/Os tracked at once (default 65536)";
+
+
+    /**
+     * Specifies the filename standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the list of the slots holding I/Os in flight,
+     * from the most recently queued to the least.
+     */
+    private static final int IN_FLIGHT = 0;
+
+
+    /**
+     * Specifies the list of the free slots.
+     */
+    private static final int FREE = 1;
+
+
+    /**
+     * Specifies the number of bits of a key holding the sector.
+     * The bits above them hold the device.
+     */
+    private static final int SECTOR_BITS = 44;
+
+
+    /**
+     * Specifies the most devices told apart in a key.
+     */
+    private static final int MAX_DEVICES = 1 << (63 - SECTOR_BITS);
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the number of slots, the most I/Os tracked at once.
+     */
+    private int numSlots = 1 << 16;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies the small number standing for each device in a key.
+     */
+    private final LongIntHashMap deviceIndices = new LongIntHashMap(16);
+
+
+    /**
+     * Specifies the slot of the I/O starting at each key, and of
+     * the I/O ending at each key, for back merges.
+     */
+    private LongIntHashMap starts;
+
+    private LongIntHashMap ends;
+
+
+    /**
+     * Keeps the slots in flight in the order they were queued,
+     * and the free slots.
+     */
+    private SlotList slots;
+
+
+    /**
+     * Specifies the I/O held by each slot: the device key bits, the
+     * first sector, the size, the pid and rbws of the queue event,
+     * the queue and last dispatch times (-1 if not seen), and the
+     * number of merges and requeues.
+     */
+    private long[] deviceKeys;
+
+    private long[] startSectors;
+
+    private int[] sizes;
+
+    private int[] majors;
+
+    private int[] minors;
+
+    private int[] pids;
+
+    private int[] rbwses;
+
+    private long[] queueTimes;
+
+    private long[] dispatchTimes;
+
+    private int[] merges;
+
+    private int[] requeues;
+
+
+    /**
+     * Specifies the queue, service and total times of every I/O.
+     */
+    private final LatencyHistogram queueLatencies = new LatencyHistogram();
+
+    private final LatencyHistogram serviceLatencies = new LatencyHistogram();
+
+    private final LatencyHistogram totalLatencies = new LatencyHistogram();
+
+
+    /**
+     * Count the I/Os completed and merged, the requeues, the I/Os
+     * abandoned to make room, and the events whose I/O was not found.
+     */
+    private long numCompleted;
+
+    private long numMerged;
+
+    private long numRequeued;
+
+    private long numAbandoned;
+
+    private long numUnmatched;
+
+
+    /**
+     * Used for building each line of the output.
+     */
+    private final StringBuilder line = new StringBuilder();
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            switch (option) {
+
+                case "-inflight":
+
+                    numSlots = (int) Math.min(Writer.parseCount(value), 1 << 26);
+                    valid = numSlots > 0;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for joining the events.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Joins the events of every I/O of {@link #traceFilename}
+     * and writes one line per I/O to {@link #outputFilename}.
+     */
+    void join ()
+            throws IOException
+    {
+        // The CSV trace format has no action column.
+        if (!BinaryTraceReader.isBinaryTrace(traceFilename) &&
+                !BlkparseToCSV.isBlkparseOutput(traceFilename)) {
+
+            System.out.println(
+                    "ERROR: " + traceFilename + " is neither a binary trace nor" +
+                            " blkparse output! Convert it with BlkparseToCSV -binary."
+            );
+
+            return;
+        }
+
+        allocateSlots();
+
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+        } else {
+
+            log.println(
+                    "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+            );
+        }
+
+        long start = System.nanoTime();
+
+        try (
+                TraceCursor trace = TraceCursor.open(traceFilename);
+
+                BufferedWriter output = new BufferedWriter(
+                        outputFilename.equals(STANDARD_STREAM) ?
+                                new OutputStreamWriter(System.out, StandardCharsets.US_ASCII) :
+                                Channels.newWriter(
+                                        Compression.openOutput(outputFilename),
+                                        StandardCharsets.US_ASCII
+                                ),
+                        1 << 16
+                )
+        ) {
+
+            while (trace.next()) {
+                handle(trace, output);
+            }
+        }
+
+        log.println(
+                String.format(
+                        "JOINED [%d] I/Os with [%d] merges and [%d] requeues in [%.2f] seconds;" +
+                                " [%d] still in flight, [%d] abandoned, [%d] events unmatched",
+                        numCompleted,
+                        numMerged,
+                        numRequeued,
+                        (System.nanoTime() - start) / 1e9,
+                        slots.size(IN_FLIGHT),
+                        numAbandoned,
+                        numUnmatched
+                )
+        );
+
+        log.println(
+                "QUEUE TIME: " + queueLatencies.summary()
+        );
+
+        log.println(
+                "SERVICE TIME: " + serviceLatencies.summary()
+        );
+
+        log.println(
+                "LATENCY: " + totalLatencies.summary()
+        );
+    }
+
+
+    /**
+     * Creates the slots and the maps finding them.
+     */
+    private void allocateSlots ()
+    {
+        starts = new LongIntHashMap(numSlots);
+        ends = new LongIntHashMap(numSlots);
+        slots = new SlotList(numSlots, 2);
+
+        deviceKeys = new long[numSlots];
+        startSectors = new long[numSlots];
+        sizes = new int[numSlots];
+        majors = new int[numSlots];
+        minors = new int[numSlots];
+        pids = new int[numSlots];
+        rbwses = new int[numSlots];
+        queueTimes = new long[numSlots];
+        dispatchTimes = new long[numSlots];
+        merges = new int[numSlots];
+        requeues = new int[numSlots];
+
+        for (int slot = 0; slot < numSlots; slot++) {
+            slots.addFirst(FREE, slot);
+        }
+    }
+
+
+    /**
+     * Applies the current event of the given trace to its I/O,
+     * writing the I/O out if the event completes it.
+     */
+    private void handle (
+            TraceCursor event,
+            BufferedWriter output
+    )
+            throws IOException
+    {
+        long sector = event.offset();
+
+        if (sector < 0 || sector >= 1L << SECTOR_BITS) {
+            return;
+        }
+
+        long deviceKey = deviceKey(event.major(), event.minor());
+
+        if (deviceKey < 0) {
+            return;
+        }
+
+        int slot = starts.get(deviceKey | sector);
+
+        switch (event.action()) {
+
+            case 'Q':
+
+                // Another I/O at the same place must have been lost.
+                if (slot >= 0) {
+
+                    numAbandoned++;
+                    release(slot);
+                }
+
+                slot = allocate(event, deviceKey);
+                queueTimes[slot] = event.timestamp();
+                break;
+
+            case 'M':
+            case 'F':
+
+                if (slot < 0) {
+
+                    numUnmatched++;
+                    break;
+                }
+
+                merge(slot, event.action() == 'M');
+                break;
+
+            case 'D':
+
+                // An I/O queued before the trace started
+                // is only known from its dispatch.
+                if (slot < 0) {
+
+                    slot = allocate(event, deviceKey);
+                    queueTimes[slot] = -1;
+                }
+
+                dispatchTimes[slot] = event.timestamp();
+                break;
+
+            case 'R':
+
+                if (slot < 0) {
+
+                    numUnmatched++;
+                    break;
+                }
+
+                requeues[slot]++;
+                dispatchTimes[slot] = -1;
+                numRequeued++;
+                break;
+
+            case 'C':
+
+                if (slot < 0 || dispatchTimes[slot] < 0) {
+
+                    numUnmatched++;
+
+                    if (slot >= 0) {
+                        release(slot);
+                    }
+
+                    break;
+                }
+
+                complete(slot, event.timestamp(), output);
+                release(slot);
+                break;
+        }
+    }
+
+
+    /**
+     * Returns the bits of a key standing for the given device,
+     * or -1 if there are too many devices to tell apart.
+     */
+    private long deviceKey (
+            int major,
+            int minor
+    )
+    {
+        long device = (long) major << 32 | (minor & 0xFFFFFFFFL);
+        int index = deviceIndices.get(device);
+
+        if (index < 0) {
+
+            if (deviceIndices.size() == MAX_DEVICES) {
+                return -1;
+            }
+
+            index = deviceIndices.size();
+            deviceIndices.put(device, index);
+        }
+
+        return (long) index << SECTOR_BITS;
+    }
+
+
+    /**
+     * Takes a slot for the I/O of the given event, abandoning the
+     * I/O queued longest ago if there is no free slot.
+     * @return The slot.
+     */
+    private int allocate (
+            TraceCursor event,
+            long deviceKey
+    )
+    {
+        int slot = slots.last(FREE);
+
+        if (slot < 0) {
+
+            numAbandoned++;
+            slot = slots.last(IN_FLIGHT);
+            release(slot);
+        }
+
+        slots.moveToFirst(IN_FLIGHT, slot);
+
+        deviceKeys[slot] = deviceKey;
+        startSectors[slot] = event.offset();
+        sizes[slot] = event.size();
+        majors[slot] = event.major();
+        minors[slot] = event.minor();
+        pids[slot] = event.pid();
+        rbwses[slot] = event.rbws();
+        dispatchTimes[slot] = -1;
+        merges[slot] = 0;
+        requeues[slot] = 0;
+
+        starts.put(deviceKey | startSectors[slot], slot);
+        ends.put(deviceKey | endSector(slot), slot);
+
+        return slot;
+    }
+
+
+    /**
+     * Frees the given slot and forgets where its I/O is.
+     */
+    private void release (
+            int slot
+    )
+    {
+        starts.remove(deviceKeys[slot] | startSectors[slot]);
+
+        // Another I/O may end at the same sector and have taken its place.
+        long endKey = deviceKeys[slot] | endSector(slot);
+
+        if (ends.get(endKey) == slot) {
+            ends.remove(endKey);
+        }
+
+        slots.moveToFirst(FREE, slot);
+    }
+
+
+    /**
+     * Returns the sector after the I/O in the given slot.
+     */
+    private long endSector (
+            int slot
+    )
+    {
+        return startSectors[slot] + sizes[slot];
+    }
+
+
+    /**
+     * Folds the queued I/O in the given slot into the request it was
+     * merged with: the request ending where the I/O starts for a back
+     * merge, or the one starting where it ends for a front merge.
+     */
+    private void merge (
+            int slot,
+            boolean back
+    )
+    {
+        long deviceKey = deviceKeys[slot];
+        long startSector = startSectors[slot];
+        int size = sizes[slot];
+        int mergedMerges = merges[slot];
+
+        release(slot);
+
+        int request = back ?
+                ends.get(deviceKey | startSector) :
+                starts.get(deviceKey | (startSector + size));
+
+        if (request < 0 || dispatchTimes[request] >= 0) {
+
+            numUnmatched++;
+            return;
+        }
+
+        // Move the request to cover the merged I/O.
+        if (back) {
+
+            ends.remove(deviceKey | endSector(request));
+            sizes[request] += size;
+
+        } else {
+
+            starts.remove(deviceKey | startSectors[request]);
+            startSectors[request] = startSector;
+            sizes[request] += size;
+            starts.put(deviceKey | startSector, request);
+        }
+
+        ends.put(deviceKey | endSector(request), request);
+
+        merges[request] += mergedMerges + 1;
+        numMerged++;
+    }
+
+
+    /**
+     * Records the times of the I/O in the given slot, completed
+     * at the given time, and writes it out.
+     */
+    private void complete (
+            int slot,
+            long completeTime,
+            BufferedWriter output
+    )
+            throws IOException
+    {
+        long queueTime = queueTimes[slot];
+        long dispatchTime = dispatchTimes[slot];
+        long serviceLatency = completeTime - dispatchTime;
+        long queueLatency = queueTime < 0 ? -1 : dispatchTime - queueTime;
+        long totalLatency = queueTime < 0 ? -1 : completeTime - queueTime;
+
+        serviceLatencies.record(serviceLatency);
+
+        if (queueTime >= 0) {
+
+            queueLatencies.record(queueLatency);
+            totalLatencies.record(totalLatency);
+        }
+
+        numCompleted++;
+
+        line.setLength(0);
+
+        line.append(majors[slot]).append(',')
+                .append(minors[slot]).append(',')
+                .append(startSectors[slot]).append(',')
+                .append(sizes[slot]).append(',')
+                .append(Rwbs.decode(rbwses[slot])).append(',')
+                .append(pids[slot]).append(',');
+
+        appendSeconds(queueTime < 0 ? dispatchTime : queueTime);
+
+        line.append(',')
+                .append(queueLatency).append(',')
+                .append(serviceLatency).append(',')
+                .append(totalLatency).append(',')
+                .append(merges[slot]).append(',')
+                .append(requeues[slot]);
+
+        output.append(line);
+        output.newLine();
+    }
+
+
+    /**
+     * Appends the given number of nanoseconds to the line
+     * in seconds, as blkparse writes timestamps.
+     */
+    private void appendSeconds (
+            long nanos
+    )
+    {
+        line.append(nanos / 1_000_000_000L).append('.');
+
+        // Pad the fraction out to nine digits.
+        long fraction = nanos % 1_000_000_000L;
+
+        for (long digit = 100_000_000L; digit > 1 && fraction < digit; digit /= 10) {
+            line.append('0');
+        }
+
+        line.append(fraction);
+    }
+
+
+    /**
+     * Joins the events of the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        RequestLifecycle requestLifecycle = new RequestLifecycle();
+
+        if (requestLifecycle.processInput(args)) {
+            requestLifecycle.join();
+        }
+    }
+}
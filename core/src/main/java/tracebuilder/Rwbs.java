@@ -0,0 +1,242 @@
+package tracebuilder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class converts the rbws column    *
+ *      of blkparse output (e.g. R, WS, FWFS) to and    *
+ *      from a single byte of flags, so that it can be  *
+ *      stored and compared without any Strings.        *
+ *                                                      *
+ *      blkparse writes the column as an optional F     *
+ *      (preflush), then one of D (discard), W (write), *
+ *      R (read) or N (none), followed by any of F      *
+ *      (force unit access), A (read ahead), S (sync)   *
+ *      and M (metadata), in that order.                *
+ ********************************************************/
+
+final class Rwbs {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the flag for a preflush (leading F).
+     */
+    static final int PREFLUSH = 0x01;
+
+
+    /**
+     * Specifies the flag for a write (W).
+     */
+    static final int WRITE = 0x02;
+
+
+    /**
+     * Specifies the flag for a read (R).
+     */
+    static final int READ = 0x04;
+
+
+    /**
+     * Specifies the flag for a discard (D).
+     */
+    static final int DISCARD = 0x08;
+
+
+    /**
+     * Specifies the flag for force unit access (trailing F).
+     */
+    static final int FUA = 0x10;
+
+
+    /**
+     * Specifies the flag for a read ahead (A).
+     */
+    static final int AHEAD = 0x20;
+
+
+    /**
+     * Specifies the flag for a synchronous request (S).
+     */
+    static final int SYNC = 0x40;
+
+
+    /**
+     * Specifies the flag for a metadata request (M).
+     */
+    static final int META = 0x80;
+
+
+    /**
+     * Specifies the text of every combination of flags,
+     * indexed by the flags.
+     */
+    private static final String[] NAMES = new String[256];
+
+    static {
+
+        for (int flags = 0; flags < NAMES.length; flags++) {
+
+            StringBuilder name = new StringBuilder();
+
+            if ((flags & PREFLUSH) != 0) {
+                name.append('F');
+            }
+
+            if ((flags & DISCARD) != 0) {
+                name.append('D');
+            } else if ((flags & WRITE) != 0) {
+                name.append('W');
+            } else if ((flags & READ) != 0) {
+                name.append('R');
+            } else {
+                name.append('N');
+            }
+
+            if ((flags & FUA) != 0) {
+                name.append('F');
+            }
+
+            if ((flags & AHEAD) != 0) {
+                name.append('A');
+            }
+
+            if ((flags & SYNC) != 0) {
+                name.append('S');
+            }
+
+            if ((flags & META) != 0) {
+                name.append('M');
+            }
+
+            NAMES[flags] = name.toString();
+        }
+    }
+
+
+    /**
+     * Not meant to be instantiated.
+     */
+    private Rwbs ()
+    {
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for converting the flags.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the flags of the rbws column held between the absolute
+     * indices start (inclusive) and end (exclusive) of the buffer.
+     * Characters which blkparse never writes are ignored.
+     */
+    static int encode (
+            ByteBuffer buffer,
+            int start,
+            int end
+    )
+    {
+        int flags = 0;
+        int i = start;
+
+        // A leading F followed by the operation is a preflush.
+        if (end - i > 1 && buffer.get(i) == 'F') {
+            flags |= PREFLUSH;
+            i++;
+        }
+
+        // Next comes the operation.
+        if (i < end) {
+
+            switch (buffer.get(i)) {
+
+                case 'D':
+                    flags |= DISCARD;
+                    break;
+
+                case 'W':
+                    flags |= WRITE;
+                    break;
+
+                case 'R':
+                    flags |= READ;
+                    break;
+
+                default:
+                    break;
+            }
+
+            i++;
+        }
+
+        // Then any of the modifiers.
+        for (; i < end; i++) {
+
+            switch (buffer.get(i)) {
+
+                case 'F':
+                    flags |= FUA;
+                    break;
+
+                case 'A':
+                    flags |= AHEAD;
+                    break;
+
+                case 'S':
+                    flags |= SYNC;
+                    break;
+
+                case 'M':
+                    flags |= META;
+                    break;
+
+                default:
+                    break;
+            }
+        }
+
+        return flags;
+    }
+
+
+    /**
+     * Returns the flags of the given rbws text.
+     */
+    static int encode (
+            String text
+    )
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(
+                text.getBytes(StandardCharsets.US_ASCII)
+        );
+
+        return encode(buffer, 0, buffer.limit());
+    }
+
+
+    /**
+     * Returns the rbws text blkparse writes for the given flags.
+     * The returned Strings are shared, so this does not allocate.
+     */
+    static String decode (
+            int flags
+    )
+    {
+        return NAMES[flags & 0xFF];
+    }
+}
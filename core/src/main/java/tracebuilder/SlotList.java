@@ -0,0 +1,183 @@
+package tracebuilder;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class keeps numbered slots in     *
+ *      one or more doubly linked lists, with the links *
+ *      stored in int arrays indexed by slot rather     *
+ *      than in node objects.  A slot is in at most one *
+ *      list at a time, and adding, removing and moving *
+ *      a slot are constant time and allocate nothing.  *
+ *      Each list is a ring through a sentinel slot     *
+ *      past the last real one, so that the first is    *
+ *      the next of the sentinel and the last is the    *
+ *      previous.                                       *
+ ********************************************************/
+
+final class SlotList {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of real slots.
+     */
+    private final int numSlots;
+
+
+    /**
+     * Specifies the slot after each slot, towards the last.
+     */
+    private final int[] next;
+
+
+    /**
+     * Specifies the slot before each slot, towards the first.
+     */
+    private final int[] previous;
+
+
+    /**
+     * Specifies the list each slot is in, or -1 if none.
+     */
+    private final byte[] list;
+
+
+    /**
+     * Specifies the number of slots in each list.
+     */
+    private final int[] sizes;
+
+
+
+    /**
+     * Creates the given number of empty lists of slots numbered
+     * from 0 up to the given number of slots.
+     */
+    SlotList (
+            int numSlots,
+            int numLists
+    )
+    {
+        this.numSlots = numSlots;
+
+        next = new int[numSlots + numLists];
+        previous = new int[numSlots + numLists];
+        list = new byte[numSlots];
+        sizes = new int[numLists];
+
+        for (int i = 0; i < numSlots; i++) {
+            list[i] = -1;
+        }
+
+        // Every sentinel starts out linked to itself.
+        for (int i = numSlots; i < numSlots + numLists; i++) {
+            next[i] = i;
+            previous[i] = i;
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *             Functions responsible for the lists.              *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Adds the given slot, which must not be in a list,
+     * to the front of the given list.
+     */
+    void addFirst (
+            int listIndex,
+            int slot
+    )
+    {
+        int sentinel = numSlots + listIndex;
+        int first = next[sentinel];
+
+        next[slot] = first;
+        previous[slot] = sentinel;
+        previous[first] = slot;
+        next[sentinel] = slot;
+
+        list[slot] = (byte) listIndex;
+        sizes[listIndex]++;
+    }
+
+
+    /**
+     * Removes the given slot from its list.
+     */
+    void remove (
+            int slot
+    )
+    {
+        next[previous[slot]] = next[slot];
+        previous[next[slot]] = previous[slot];
+
+        sizes[list[slot]]--;
+        list[slot] = -1;
+    }
+
+
+    /**
+     * Moves the given slot from its list, if any,
+     * to the front of the given list.
+     */
+    void moveToFirst (
+            int listIndex,
+            int slot
+    )
+    {
+        if (list[slot] >= 0) {
+            remove(slot);
+        }
+
+        addFirst(listIndex, slot);
+    }
+
+
+    /**
+     * Returns the last slot of the given list, or -1 if it is empty.
+     */
+    int last (
+            int listIndex
+    )
+    {
+        int slot = previous[numSlots + listIndex];
+
+        return slot == numSlots + listIndex ? -1 : slot;
+    }
+
+
+    /**
+     * Returns the list the given slot is in, or -1 if none.
+     */
+    int listOf (
+            int slot
+    )
+    {
+        return list[slot];
+    }
+
+
+    /**
+     * Returns the number of slots in the given list.
+     */
+    int size (
+            int listIndex
+    )
+    {
+        return sizes[listIndex];
+    }
+}
@@ -0,0 +1,117 @@
+package tracebuilder;
+
+import java.io.IOException;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following interface iterates over the I/O   *
+ *      events of a trace one at a time, exposing the   *
+ *      fields of the current event as primitives.      *
+ *      Tools built on top of it work the same whether  *
+ *      the events come from a {@link TraceStore} in    *
+ *      memory or a {@link BinaryTraceReader} on disk.  *
+ ********************************************************/
+
+interface TraceCursor extends AutoCloseable {
+
+
+    /**
+     * Opens the given trace file, which may be in the binary
+     * trace format, the CSV format written by BlkparseToCSV, or
+     * plain blkparse output.  Blkparse output is parsed into a
+     * {@link TraceStore} first, which keeps the action of every
+     * event that the CSV drops, at the cost of holding the whole
+     * trace in memory.
+     */
+    static TraceCursor open (
+            String filename
+    )
+            throws IOException
+    {
+        if (BinaryTraceReader.isBinaryTrace(filename)) {
+            return new BinaryTraceReader(filename);
+        }
+
+        if (BlkparseToCSV.isBlkparseOutput(filename)) {
+            return BlkparseToCSV.parseToStore(filename).cursor();
+        }
+
+        return new CsvTraceReader(filename);
+    }
+
+
+    /**
+     * Moves to the next event.
+     * @return True if there is a next event, false otherwise.
+     */
+    boolean next ()
+            throws IOException;
+
+
+    /**
+     * Returns the major device number of the current event.
+     */
+    int major ();
+
+
+    /**
+     * Returns the minor device number of the current event.
+     */
+    int minor ();
+
+
+    /**
+     * Returns the sequence number of the current event.
+     */
+    long sequence ();
+
+
+    /**
+     * Returns the timestamp of the current event in nanoseconds.
+     */
+    long timestamp ();
+
+
+    /**
+     * Returns the pid of the current event.
+     */
+    int pid ();
+
+
+    /**
+     * Returns the action of the current event, e.g. 'Q'.
+     */
+    byte action ();
+
+
+    /**
+     * Returns the {@link Rwbs} flags of the current event.
+     */
+    int rbws ();
+
+
+    /**
+     * Returns the offset of the current event in sectors.
+     */
+    long offset ();
+
+
+    /**
+     * Returns the size of the current event in sectors.
+     */
+    int size ();
+
+
+    /**
+     * Releases the file the cursor reads from, if any.  A cursor
+     * over a {@link TraceStore} holds no file, so by default
+     * closing it does nothing.
+     */
+    @Override
+    default void close ()
+            throws IOException
+    {
+    }
+}
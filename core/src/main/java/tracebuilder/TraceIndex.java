@@ -0,0 +1,393 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class is a sparse index of a      *
+ *      binary trace, kept in a sidecar file named      *
+ *      after the trace with {@link #SUFFIX} appended.  *
+ *      The records are cut into zones of a fixed       *
+ *      number of records, and for each zone the index  *
+ *      keeps the smallest and largest timestamp, the   *
+ *      smallest offset, and the largest end of any     *
+ *      event in it.  A query for a time or offset      *
+ *      range only reads the zones whose bounds         *
+ *      overlap it, and as records are fixed-width,     *
+ *      finds each zone in the trace by arithmetic.     *
+ *                                                      *
+ *      The index is written little-endian, with a      *
+ *      {@link #HEADER_SIZE} byte header followed by    *
+ *      one {@link #ENTRY_SIZE} byte entry per zone:    *
+ *                                                      *
+ *          offset  type   field                        *
+ *               0  long   smallest timestamp           *
+ *               8  long   largest timestamp            *
+ *              16  long   smallest offset (sectors)    *
+ *              24  long   largest end (sectors)        *
+ ********************************************************/
+
+final class TraceIndex {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the ending appended to the trace file name.
+     */
+    static final String SUFFIX = ".idx";
+
+
+    /**
+     * Specifies the number of records in each zone unless
+     * told otherwise.
+     */
+    static final int DEFAULT_ZONE_RECORDS = 4096;
+
+
+    /**
+     * Specifies the magic number at the start of every
+     * index, "BTIX" in little-endian order.
+     */
+    private static final int MAGIC = 0x58495442;
+
+
+    /**
+     * Specifies the version of the index format.
+     */
+    private static final int VERSION = 1;
+
+
+    /**
+     * Specifies the size in bytes of the header: magic, version,
+     * records per zone, a reserved int, and the number of records
+     * in the trace when it was indexed.
+     */
+    private static final int HEADER_SIZE = 24;
+
+
+    /**
+     * Specifies the size in bytes of each entry.
+     */
+    private static final int ENTRY_SIZE = 32;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of records in each zone but the last.
+     */
+    private final int zoneRecords;
+
+
+    /**
+     * Specifies the number of records in the trace.
+     */
+    private final long numRecords;
+
+
+    /**
+     * Specifies the bounds of each zone.
+     */
+    private final long[] minTimestamps;
+
+    private final long[] maxTimestamps;
+
+    private final long[] minOffsets;
+
+    private final long[] maxEnds;
+
+
+
+    /**
+     * Creates an empty index of the given number of records.
+     */
+    private TraceIndex (
+            int zoneRecords,
+            long numRecords
+    )
+    {
+        int numZones = (int) ((numRecords + zoneRecords - 1) / zoneRecords);
+
+        this.zoneRecords = zoneRecords;
+        this.numRecords = numRecords;
+        this.minTimestamps = new long[numZones];
+        this.maxTimestamps = new long[numZones];
+        this.minOffsets = new long[numZones];
+        this.maxEnds = new long[numZones];
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for building the index.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the name of the index of the given trace.
+     */
+    static String filenameOf (
+            String traceFilename
+    )
+    {
+        return traceFilename + SUFFIX;
+    }
+
+
+    /**
+     * Indexes the given binary trace, which must not be gzipped, in
+     * zones of the given number of records, and writes the index
+     * next to it.
+     */
+    static void build (
+            String traceFilename,
+            int zoneRecords
+    )
+            throws IOException
+    {
+        TraceIndex index;
+
+        try (
+                BinaryTraceReader trace = new BinaryTraceReader(traceFilename)
+        ) {
+
+            if (trace.numRecords() < 0) {
+
+                throw new IOException(
+                        "A gzipped trace cannot be indexed: " + traceFilename
+                );
+            }
+
+            index = new TraceIndex(zoneRecords, trace.numRecords());
+
+            for (long record = 0; trace.next(); record++) {
+
+                int zone = (int) (record / zoneRecords);
+
+                if (record % zoneRecords == 0) {
+
+                    index.minTimestamps[zone] = Long.MAX_VALUE;
+                    index.maxTimestamps[zone] = Long.MIN_VALUE;
+                    index.minOffsets[zone] = Long.MAX_VALUE;
+                    index.maxEnds[zone] = Long.MIN_VALUE;
+                }
+
+                index.minTimestamps[zone] = Math.min(index.minTimestamps[zone], trace.timestamp());
+                index.maxTimestamps[zone] = Math.max(index.maxTimestamps[zone], trace.timestamp());
+                index.minOffsets[zone] = Math.min(index.minOffsets[zone], trace.offset());
+                index.maxEnds[zone] = Math.max(index.maxEnds[zone], end(trace));
+            }
+        }
+
+        index.write(filenameOf(traceFilename));
+    }
+
+
+    /**
+     * Returns the sector after the last one of the current event of
+     * the given cursor.  Events without a size cover their offset.
+     */
+    static long end (
+            TraceCursor event
+    )
+    {
+        return event.offset() + Math.max(event.size(), 1);
+    }
+
+
+    /**
+     * Writes the index to the given file.
+     */
+    private void write (
+            String filename
+    )
+            throws IOException
+    {
+        try (
+                FileChannel channel = FileChannel.open(
+                        Paths.get(filename),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING
+                )
+        ) {
+
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(zoneRecords);
+            buffer.putInt(0);
+            buffer.putLong(numRecords);
+
+            for (int zone = 0; zone < numZones(); zone++) {
+
+                if (buffer.remaining() < ENTRY_SIZE) {
+                    writeFully(channel, buffer);
+                }
+
+                buffer.putLong(minTimestamps[zone]);
+                buffer.putLong(maxTimestamps[zone]);
+                buffer.putLong(minOffsets[zone]);
+                buffer.putLong(maxEnds[zone]);
+            }
+
+            writeFully(channel, buffer);
+        }
+    }
+
+
+    /**
+     * Writes out everything in the given buffer, then clears it.
+     */
+    private static void writeFully (
+            FileChannel channel,
+            ByteBuffer buffer
+    )
+            throws IOException
+    {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        buffer.clear();
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for reading the index.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Loads the index of the given binary trace.
+     * @return The index, or null if there is none or the trace
+     *          has changed length since it was indexed.
+     */
+    static TraceIndex load (
+            String traceFilename,
+            long numRecords
+    )
+            throws IOException
+    {
+        String filename = filenameOf(traceFilename);
+
+        if (!Files.exists(Paths.get(filename))) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(
+                Files.readAllBytes(Paths.get(filename))
+        ).order(ByteOrder.LITTLE_ENDIAN);
+
+        if (buffer.limit() < HEADER_SIZE ||
+                buffer.getInt(0) != MAGIC ||
+                buffer.getInt(4) != VERSION) {
+
+            throw new IOException(
+                    "Not a trace index: " + filename
+            );
+        }
+
+        int zoneRecords = buffer.getInt(8);
+
+        if (buffer.getLong(16) != numRecords || zoneRecords <= 0) {
+            return null;
+        }
+
+        TraceIndex index = new TraceIndex(zoneRecords, numRecords);
+
+        if (buffer.limit() != HEADER_SIZE + (long) index.numZones() * ENTRY_SIZE) {
+            return null;
+        }
+
+        buffer.position(HEADER_SIZE);
+
+        for (int zone = 0; zone < index.numZones(); zone++) {
+
+            index.minTimestamps[zone] = buffer.getLong();
+            index.maxTimestamps[zone] = buffer.getLong();
+            index.minOffsets[zone] = buffer.getLong();
+            index.maxEnds[zone] = buffer.getLong();
+        }
+
+        return index;
+    }
+
+
+    /**
+     * Returns the number of zones.
+     */
+    int numZones ()
+    {
+        return minTimestamps.length;
+    }
+
+
+    /**
+     * Returns the first record of the given zone.
+     */
+    long firstRecord (
+            int zone
+    )
+    {
+        return (long) zone * zoneRecords;
+    }
+
+
+    /**
+     * Returns the number of records in the given zone.
+     */
+    int numRecords (
+            int zone
+    )
+    {
+        return (int) Math.min(zoneRecords, numRecords - firstRecord(zone));
+    }
+
+
+    /**
+     * Returns whether the given zone may hold an event from the given
+     * start time up to the end time, which is also an event covering a
+     * sector from the given start sector up to the end sector.
+     */
+    boolean overlaps (
+            int zone,
+            long startTimestamp,
+            long endTimestamp,
+            long startSector,
+            long endSector
+    )
+    {
+        return minTimestamps[zone] < endTimestamp &&
+                maxTimestamps[zone] >= startTimestamp &&
+                minOffsets[zone] < endSector &&
+                maxEnds[zone] > startSector;
+    }
+}
@@ -0,0 +1,414 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      binary trace and an output file name.  It       *
+ *      extracts the events of the trace within a time  *
+ *      range and an offset range into a CSV file in    *
+ *      the format written by BlkparseToCSV.            *
+ *                                                      *
+ *      Rather than scanning the whole trace, it reads  *
+ *      the {@link TraceIndex} next to it and only      *
+ *      reads the zones of records which may hold a     *
+ *      matching event.  A trace without an index, or   *
+ *      whose index is out of date, is indexed first.   *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class TraceQuery {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [output filename|-]\n" +
+                    "\n   The first specifies a binary trace, indexed by" +
+                    "\n   BlkparseToCSV -index or else indexed first, and the second" +
+                    "\n   specifies the CSV file the matching events are written to.\n" +
+                    "\n   Options (sectors may end in K, M or G):" +
+                    "\n      -time S,E      keep events from S up to E seconds," +
+                    "\n                     e.g. 12.3,12.9" +
+                    "\n      -lba S,E       keep events covering any sector from" +
+                    "\n                     S up to E, e.g. 1M,2M" +
+                    "\n      -action A      keep events of action A, e.g. Q" +
+                    "\n      -zone N        records per zone if the trace needs" +
+                    "\n                     indexing (default " + TraceIndex.DEFAULT_ZONE_RECORDS + ")";
+
+
+    /**
+     * Specifies the filename standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the range of timestamps kept, in nanoseconds,
+     * from the start up to but not including the end.
+     */
+    private long startTimestamp = Long.MIN_VALUE;
+
+    private long endTimestamp = Long.MAX_VALUE;
+
+
+    /**
+     * Specifies the range of sectors kept, from the start
+     * up to but not including the end.
+     */
+    private long startSector = Long.MIN_VALUE;
+
+    private long endSector = Long.MAX_VALUE;
+
+
+    /**
+     * Specifies the only action kept, or 0 to keep every event.
+     */
+    private byte action;
+
+
+    /**
+     * Specifies the number of records in each zone of a new index.
+     */
+    private int zoneRecords = TraceIndex.DEFAULT_ZONE_RECORDS;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            String[] range = value.split(",", -1);
+            boolean valid;
+
+            switch (option) {
+
+                case "-time":
+
+                    try {
+                        startTimestamp = Math.round(Double.parseDouble(range[0]) * 1e9);
+                        endTimestamp = Math.round(Double.parseDouble(range[1]) * 1e9);
+                        valid = range.length == 2 && startTimestamp < endTimestamp;
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+                        valid = false;
+                    }
+
+                    break;
+
+                case "-lba":
+
+                    startSector = range.length == 2 ? Writer.parseSize(range[0]) : -1;
+                    endSector = range.length == 2 ? Writer.parseSize(range[1]) : -1;
+                    valid = startSector >= 0 && startSector < endSector;
+                    break;
+
+                case "-action":
+
+                    action = value.length() == 1 ? (byte) value.charAt(0) : 0;
+                    valid = action != 0;
+                    break;
+
+                case "-zone":
+
+                    zoneRecords = (int) Math.min(Writer.parseCount(value), 1 << 30);
+                    valid = zoneRecords > 0;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Only the records of an uncompressed binary trace can be
+        // found by arithmetic and seeked to.
+        String problem;
+
+        try {
+
+            if (!BinaryTraceReader.isBinaryTrace(traceFilename)) {
+                problem = traceFilename + " is not a binary trace!" +
+                        " Convert it with BlkparseToCSV -binary.";
+            } else if (Compression.isGzipped(traceFilename)) {
+                problem = "A gzipped trace cannot be indexed or seeked!" +
+                        " Decompress it first.";
+            } else {
+                problem = null;
+            }
+
+        } catch (IOException exception) {
+
+            problem = "Could not read " + traceFilename + " (" + exception + ")!";
+        }
+
+        if (problem != null) {
+
+            System.out.println(
+                    "ERROR: " + problem
+            );
+
+            return false;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for querying the trace.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes every event of {@link #traceFilename} within the time
+     * and sector ranges to {@link #outputFilename}, reading only the
+     * zones the index says may hold one.
+     */
+    void query ()
+            throws IOException
+    {
+        try (
+                BinaryTraceReader trace = new BinaryTraceReader(traceFilename)
+        ) {
+
+            TraceIndex index = TraceIndex.load(traceFilename, trace.numRecords());
+
+            if (index == null) {
+
+                log.println(
+                        "INDEXING trace: " + new File(traceFilename).getAbsolutePath()
+                );
+
+                TraceIndex.build(traceFilename, zoneRecords);
+                index = TraceIndex.load(traceFilename, trace.numRecords());
+            }
+
+            if (outputFilename.equals(STANDARD_STREAM)) {
+
+                log.println(
+                        "WRITING out to standard output"
+                );
+
+            } else {
+
+                log.println(
+                        "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+                );
+            }
+
+            long start = System.nanoTime();
+            int numZonesRead = 0;
+            long numRecordsRead = 0;
+            long numMatches = 0;
+
+            try (
+                    BufferedWriter bufferedWriter = new BufferedWriter(
+                            outputFilename.equals(STANDARD_STREAM) ?
+                                    new OutputStreamWriter(System.out, StandardCharsets.US_ASCII) :
+                                    Channels.newWriter(
+                                            Compression.openOutput(outputFilename),
+                                            StandardCharsets.US_ASCII
+                                    )
+                    )
+            ) {
+
+                // Reused for building each line.
+                StringBuilder line = new StringBuilder();
+
+                // The record after the last one read, so that
+                // neighbouring zones are read without seeking.
+                long nextRecord = 0;
+
+                for (int zone = 0; zone < index.numZones(); zone++) {
+
+                    if (!index.overlaps(zone, startTimestamp, endTimestamp, startSector, endSector)) {
+                        continue;
+                    }
+
+                    if (index.firstRecord(zone) != nextRecord) {
+                        trace.seek(index.firstRecord(zone));
+                    }
+
+                    int numRecords = index.numRecords(zone);
+
+                    for (int i = 0; i < numRecords && trace.next(); i++) {
+
+                        if (matches(trace)) {
+
+                            line.setLength(0);
+                            BinaryTraceReader.appendLine(line, trace);
+
+                            bufferedWriter.append(line);
+                            bufferedWriter.newLine();
+
+                            numMatches++;
+                        }
+                    }
+
+                    numZonesRead++;
+                    numRecordsRead += numRecords;
+                    nextRecord = index.firstRecord(zone) + numRecords;
+                }
+            }
+
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            log.println(
+                    String.format(
+                            "QUERIED [%d] of [%d] zones, reading [%d] of [%d] records," +
+                                    " and found [%d] events in [%.1f] milliseconds",
+                            numZonesRead,
+                            index.numZones(),
+                            numRecordsRead,
+                            trace.numRecords(),
+                            numMatches,
+                            millis
+                    )
+            );
+        }
+    }
+
+
+    /**
+     * Returns whether the current event of the given cursor
+     * is within the time and sector ranges.
+     */
+    private boolean matches (
+            TraceCursor event
+    )
+    {
+        return event.timestamp() >= startTimestamp &&
+                event.timestamp() < endTimestamp &&
+                event.offset() < endSector &&
+                TraceIndex.end(event) > startSector &&
+                (action == 0 || event.action() == action);
+    }
+
+
+    /**
+     * Queries the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        TraceQuery traceQuery = new TraceQuery();
+
+        if (traceQuery.processInput(args)) {
+            traceQuery.query();
+        }
+    }
+}
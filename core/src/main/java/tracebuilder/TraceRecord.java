@@ -0,0 +1,129 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class holds the typed fields of   *
+ *      a single I/O event.  It is meant to be reused   *
+ *      from one event to the next, so that moving      *
+ *      events around creates no objects.               *
+ ********************************************************/
+
+package tracebuilder;
+
+final class TraceRecord {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the major device number.
+     */
+    int major;
+
+
+    /**
+     * Specifies the minor device number.
+     */
+    int minor;
+
+
+    /**
+     * Specifies the sequence number.
+     */
+    long sequence;
+
+
+    /**
+     * Specifies the timestamp in nanoseconds.
+     */
+    long timestamp;
+
+
+    /**
+     * Specifies the pid of the process issuing the event.
+     */
+    int pid;
+
+
+    /**
+     * Specifies the action, e.g. 'Q'.
+     */
+    byte action;
+
+
+    /**
+     * Specifies the {@link Rwbs} flags.
+     */
+    int rbws;
+
+
+    /**
+     * Specifies the offset in sectors.
+     */
+    long offset;
+
+
+    /**
+     * Specifies the size in sectors.
+     */
+    int size;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for filling the record.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Fills the record from the given line of blkparse output.
+     * @return True if the line is an I/O event, false if it is not,
+     *          in which case the record is left untouched.
+     */
+    boolean set (
+            BlkparseLine line
+    )
+    {
+        if (!line.isEvent()) {
+            return false;
+        }
+
+        major = line.parseMajor();
+        minor = line.parseMinor();
+        sequence = line.parseLong(BlkparseLine.SEQUENCE);
+        timestamp = line.parseTimestamp();
+        pid = (int) line.parseLong(BlkparseLine.PID);
+        action = line.action();
+        rbws = line.rbws();
+        offset = line.parseLong(BlkparseLine.OFFSET);
+        size = (int) line.parseLong(BlkparseLine.SIZE);
+
+        return true;
+    }
+
+
+    /**
+     * Fills the record from the current event of the given cursor.
+     */
+    void set (
+            TraceCursor cursor
+    )
+    {
+        major = cursor.major();
+        minor = cursor.minor();
+        sequence = cursor.sequence();
+        timestamp = cursor.timestamp();
+        pid = cursor.pid();
+        action = cursor.action();
+        rbws = cursor.rbws();
+        offset = cursor.offset();
+        size = cursor.size();
+    }
+}
@@ -0,0 +1,763 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      trace and a target file name.  The trace is a   *
+ *      CSV written by BlkparseToCSV or a binary trace, *
+ *      and the target is a file or device.  It reads   *
+ *      the trace one event at a time and issues each   *
+ *      recorded read and write at its recorded offset  *
+ *      and size against the target, as fast as         *
+ *      possible, in real time, or sped up or slowed    *
+ *      down.  Events are issued by a pool of worker    *
+ *      threads, so that as many may be in flight as    *
+ *      when they were recorded, and it reports how far *
+ *      the replay drifted from the recorded timing.    *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TraceReplayer {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [target filename]\n" +
+                    "\n   The first specifies a CSV trace written by BlkparseToCSV" +
+                    "\n   or a binary trace, and the second specifies the file or" +
+                    "\n   device to replay its reads and writes against.  Every event" +
+                    "\n   of the trace is replayed, so convert blkparse output with" +
+                    "\n   -action Q (or D) to replay each I/O once.\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -speed X      replay X times faster than recorded (default 1," +
+                    "\n                    real time), e.g. 10 or 0.5" +
+                    "\n      -afap         replay as fast as possible" +
+                    "\n      -threads N    issue events on N threads (default 32)" +
+                    "\n      -action A     replay only events of action A, e.g. Q" +
+                    "\n                    (binary traces or blkparse output only)" +
+                    "\n      -span BYTES   wrap events around so that they all end within" +
+                    "\n                    BYTES, e.g. the size of a file smaller than the" +
+                    "\n                    traced disk; every event must fit in BYTES" +
+                    "\n      -readonly     replay writes as reads of the same blocks" +
+                    "\n   WARNING: writes overwrite the target.";
+
+
+    /**
+     * Specifies the number of bytes in a sector, the unit
+     * of offsets and sizes in a trace.
+     */
+    private static final int SECTOR_SIZE = 512;
+
+
+    /**
+     * Specifies how many events may wait for a worker, per worker.
+     */
+    private static final int EVENTS_IN_FLIGHT_PER_THREAD = 4;
+
+
+    /**
+     * Specifies how long to wait on a queue of events before
+     * checking whether a worker has failed, in milliseconds.
+     */
+    private static final long WORKER_CHECK_MILLIS = 100;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the target {@link File} or device.
+     */
+    private String targetFilename;
+
+
+    /**
+     * Specifies how many times faster than recorded to replay,
+     * or 0 to replay as fast as possible.
+     */
+    private double speed = 1;
+
+
+    /**
+     * Specifies the number of worker threads.
+     */
+    private int numThreads = 32;
+
+
+    /**
+     * Specifies the only action replayed, or 0 to replay every event.
+     */
+    private byte action;
+
+
+    /**
+     * Specifies the number of bytes offsets wrap around
+     * after, or 0 to never wrap.
+     */
+    private long span;
+
+
+    /**
+     * Specifies whether writes are replayed as reads.
+     */
+    private boolean readOnly;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and target file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length && fields[index].startsWith("-")) {
+
+            String option = fields[index];
+
+            if (option.equals("-afap")) {
+
+                speed = 0;
+                index++;
+                continue;
+            }
+
+            if (option.equals("-readonly")) {
+
+                readOnly = true;
+                index++;
+                continue;
+            }
+
+            // Every other option is followed by a value.
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            switch (option) {
+
+                case "-speed":
+
+                    try {
+                        speed = Double.parseDouble(value);
+                    } catch (NumberFormatException exception) {
+                        speed = -1;
+                    }
+
+                    valid = speed > 0 && !Double.isInfinite(speed);
+                    break;
+
+                case "-threads":
+
+                    numThreads = (int) Math.min(Writer.parseCount(value), Integer.MAX_VALUE);
+                    valid = numThreads > 0;
+                    break;
+
+                case "-action":
+
+                    action = value.length() == 1 ? (byte) value.charAt(0) : 0;
+                    valid = action != 0;
+                    break;
+
+                case "-span":
+
+                    span = Writer.parseSize(value);
+                    valid = span >= SECTOR_SIZE;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and target file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and target filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        targetFilename = fields[index + 1];
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for replaying the trace.       *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Replays every read and write of {@link #traceFilename} against
+     * {@link #targetFilename}, then reports the throughput, the
+     * latencies and how far the replay drifted from the trace.
+     */
+    void replay ()
+            throws IOException, InterruptedException
+    {
+        // Open the target for writing only if it will be written.
+        FileChannel target = readOnly ?
+                FileChannel.open(
+                        Paths.get(targetFilename),
+                        StandardOpenOption.READ
+                ) :
+                FileChannel.open(
+                        Paths.get(targetFilename),
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE
+                );
+
+        ExecutorService pool = Executors.newFixedThreadPool(
+                numThreads
+        );
+
+        try (
+                TraceCursor trace = TraceCursor.open(traceFilename);
+                FileChannel channel = target
+        ) {
+
+            System.out.println(
+                    String.format(
+                            "REPLAYING trace [%s] against [%s] %s on [%d] threads",
+                            new File(traceFilename).getAbsolutePath(),
+                            new File(targetFilename).getAbsolutePath(),
+                            speed == 0 ? "as fast as possible" : "at [" + speed + "]x speed",
+                            numThreads
+                    )
+            );
+
+            // The events waiting for a worker, and the
+            // event holders not currently in use.
+            int maxEventsInFlight = numThreads * EVENTS_IN_FLIGHT_PER_THREAD;
+
+            BlockingQueue<Event> pending = new ArrayBlockingQueue<>(maxEventsInFlight + numThreads);
+            BlockingQueue<Event> free = new ArrayBlockingQueue<>(maxEventsInFlight);
+
+            for (int i = 0; i < maxEventsInFlight; i++) {
+                free.add(new Event());
+            }
+
+            // Start the workers.
+            List<ReplayWorker> workers = new ArrayList<>();
+            List<Future<?>> results = new ArrayList<>();
+
+            for (int i = 0; i < numThreads; i++) {
+
+                ReplayWorker worker = new ReplayWorker(channel, pending, free);
+
+                workers.add(worker);
+                results.add(
+                        pool.submit(
+                                () -> {
+                                    worker.run();
+                                    return null;
+                                }
+                        )
+                );
+            }
+
+            // Hand out the events on schedule.
+            long numSkipped = 0;
+            long firstTimestamp = -1;
+            long lastTimestamp = 0;
+            long start = System.nanoTime();
+            long spanSectors = span / SECTOR_SIZE;
+
+            while (trace.next()) {
+
+                // Skip events of other actions, and events
+                // which neither read nor write any data.
+                int rbws = trace.rbws();
+                boolean write = (rbws & Rwbs.WRITE) != 0;
+
+                if ((action != 0 && trace.action() != action) ||
+                        trace.size() == 0 ||
+                        (rbws & (Rwbs.READ | Rwbs.WRITE)) == 0) {
+
+                    numSkipped++;
+                    continue;
+                }
+
+                if (span > 0 && trace.size() > spanSectors) {
+                    throw new IOException(
+                            "An event of " + trace.size() * SECTOR_SIZE +
+                                    " bytes does not fit in the span of " + span + " bytes"
+                    );
+                }
+
+                if (firstTimestamp < 0) {
+                    firstTimestamp = trace.timestamp();
+                    start = System.nanoTime();
+                }
+
+                lastTimestamp = trace.timestamp();
+
+                // The event is due at its recorded time since the first
+                // event, scaled by the speed.
+                long deadline = speed == 0 ?
+                        System.nanoTime() :
+                        start + (long) ((lastTimestamp - firstTimestamp) / speed);
+
+                RateScheduler.awaitDeadline(deadline);
+
+                // Wait for an event holder if every one is in flight.
+                Event event = take(free, results);
+
+                // Wrap the start of the event so that all of it
+                // ends within the span.
+                long offset = span > 0 ?
+                        trace.offset() % (spanSectors - trace.size() + 1) : trace.offset();
+
+                event.offset = offset * SECTOR_SIZE;
+                event.size = trace.size() * SECTOR_SIZE;
+                event.write = write && !readOnly;
+                event.deadline = deadline;
+
+                put(pending, event, results);
+            }
+
+            // Tell every worker to stop once the events run out.
+            for (int i = 0; i < numThreads; i++) {
+                put(pending, Event.END, results);
+            }
+
+            for (Future<?> result : results) {
+                awaitWorker(result);
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double recordedSeconds = firstTimestamp < 0 ?
+                    0 : (lastTimestamp - firstTimestamp) / 1e9;
+
+            printReport(workers, numSkipped, seconds, recordedSeconds);
+
+        } finally {
+
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Takes an event from the given queue, waiting if it is empty.
+     * @throws IOException If a worker fails while waiting, so that
+     *          a failed replay does not wait forever.
+     */
+    private static Event take (
+            BlockingQueue<Event> queue,
+            List<Future<?>> results
+    )
+            throws IOException, InterruptedException
+    {
+        Event event;
+
+        while ((event = queue.poll(WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+            checkWorkers(results);
+        }
+
+        return event;
+    }
+
+
+    /**
+     * Puts an event into the given queue, waiting if it is full.
+     * @throws IOException If a worker fails while waiting, so that
+     *          a failed replay does not wait forever.
+     */
+    private static void put (
+            BlockingQueue<Event> queue,
+            Event event,
+            List<Future<?>> results
+    )
+            throws IOException, InterruptedException
+    {
+        while (!queue.offer(event, WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            checkWorkers(results);
+        }
+    }
+
+
+    /**
+     * Throws the exception of any worker which has failed.
+     */
+    private static void checkWorkers (
+            List<Future<?>> results
+    )
+            throws IOException, InterruptedException
+    {
+        for (Future<?> result : results) {
+
+            if (result.isDone()) {
+                awaitWorker(result);
+            }
+        }
+    }
+
+
+    /**
+     * Waits for the given worker to finish.
+     * @throws IOException If the worker failed.
+     */
+    private static void awaitWorker (
+            Future<?> result
+    )
+            throws IOException, InterruptedException
+    {
+        try {
+
+            result.get();
+
+        } catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+    }
+
+
+    /**
+     * Prints the number of events replayed, the throughput, the
+     * latencies, and the drift from the recorded timing.
+     */
+    private void printReport (
+            List<ReplayWorker> workers,
+            long numSkipped,
+            double seconds,
+            double recordedSeconds
+    )
+    {
+        // Add up what every worker did.
+        LatencyHistogram readLatencies = new LatencyHistogram();
+        LatencyHistogram writeLatencies = new LatencyHistogram();
+        LatencyHistogram drift = new LatencyHistogram();
+        long numBytes = 0;
+
+        for (ReplayWorker worker : workers) {
+
+            readLatencies.merge(worker.readLatencies);
+            writeLatencies.merge(worker.writeLatencies);
+            drift.merge(worker.drift);
+            numBytes += worker.numBytes;
+        }
+
+        long numEvents = readLatencies.count() + writeLatencies.count();
+
+        System.out.println(
+                String.format(
+                        "REPLAYED [%d] reads and [%d] writes, skipping [%d] events," +
+                                " in [%.2f] seconds: [%.2f] MB/s, [%.0f] operations/s",
+                        readLatencies.count(),
+                        writeLatencies.count(),
+                        numSkipped,
+                        seconds,
+                        numBytes / seconds / 1000000.0,
+                        numEvents / seconds
+                )
+        );
+
+        if (readLatencies.count() > 0) {
+
+            System.out.println(
+                    "READ LATENCY: " + readLatencies.summary()
+            );
+        }
+
+        if (writeLatencies.count() > 0) {
+
+            System.out.println(
+                    "WRITE LATENCY: " + writeLatencies.summary()
+            );
+        }
+
+        if (speed > 0) {
+
+            System.out.println(
+                    String.format(
+                            "DRIFT: replay took [%.2f] seconds for [%.2f] recorded seconds at [%s]x;" +
+                                    " issued late by ",
+                            seconds,
+                            recordedSeconds,
+                            speed
+                    ) + drift.summary()
+            );
+        }
+    }
+
+
+    /**
+     * Replays the trace given on the command line against the target.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException, InterruptedException
+    {
+        TraceReplayer traceReplayer = new TraceReplayer();
+
+        if (traceReplayer.processInput(args)) {
+            traceReplayer.replay();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Holds a read or write waiting to be issued.  Holders are
+     * reused, so replaying allocates nothing per event.
+     */
+    private static final class Event {
+
+
+        /**
+         * Specifies the holder telling a worker to stop.
+         */
+        static final Event END = new Event();
+
+
+        /**
+         * Specifies the offset in bytes.
+         */
+        long offset;
+
+
+        /**
+         * Specifies the size in bytes.
+         */
+        int size;
+
+
+        /**
+         * Specifies whether this is a write rather than a read.
+         */
+        boolean write;
+
+
+        /**
+         * Specifies the nanoTime the event is due at.
+         */
+        long deadline;
+    }
+
+
+    /**
+     * Issues the events handed to it one at a time, recording
+     * their latencies and how late they were issued.
+     */
+    private static final class ReplayWorker {
+
+
+        /**
+         * Specifies the target.
+         */
+        private final FileChannel channel;
+
+
+        /**
+         * Specifies the events waiting to be issued.
+         */
+        private final BlockingQueue<Event> pending;
+
+
+        /**
+         * Specifies where issued events are returned.
+         */
+        private final BlockingQueue<Event> free;
+
+
+        /**
+         * Holds the data read or written, grown to the largest event.
+         */
+        private ByteBuffer buffer = Writer.alignedBuffer(64 * 1024);
+
+
+        /**
+         * Specifies the latency of every read.
+         */
+        final LatencyHistogram readLatencies = new LatencyHistogram();
+
+
+        /**
+         * Specifies the latency of every write.
+         */
+        final LatencyHistogram writeLatencies = new LatencyHistogram();
+
+
+        /**
+         * Specifies how late every event was issued.
+         */
+        final LatencyHistogram drift = new LatencyHistogram();
+
+
+        /**
+         * Specifies the number of bytes read and written.
+         */
+        long numBytes;
+
+
+        ReplayWorker (
+                FileChannel channel,
+                BlockingQueue<Event> pending,
+                BlockingQueue<Event> free
+        )
+        {
+            this.channel = channel;
+            this.pending = pending;
+            this.free = free;
+        }
+
+
+        /**
+         * Issues events until told to stop.
+         */
+        void run ()
+                throws IOException, InterruptedException
+        {
+            while (true) {
+
+                Event event = pending.take();
+
+                if (event == Event.END) {
+                    return;
+                }
+
+                long offset = event.offset;
+                int size = event.size;
+                boolean write = event.write;
+
+                long operationStart = System.nanoTime();
+                drift.record(operationStart - event.deadline);
+
+                free.put(event);
+
+                if (buffer.capacity() < size) {
+                    buffer = Writer.alignedBuffer(size);
+                }
+
+                buffer.clear().limit(size);
+
+                // Issue the whole read or write, stopping a
+                // read early at the end of the target.
+                while (buffer.hasRemaining()) {
+
+                    int done = write ?
+                            channel.write(buffer, offset + buffer.position()) :
+                            channel.read(buffer, offset + buffer.position());
+
+                    if (done < 0) {
+                        break;
+                    }
+                }
+
+                long latency = System.nanoTime() - operationStart;
+
+                if (write) {
+                    writeLatencies.record(latency);
+                } else {
+                    readLatencies.record(latency);
+                }
+
+                numBytes += buffer.position();
+            }
+        }
+    }
+}
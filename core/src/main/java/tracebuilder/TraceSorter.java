@@ -0,0 +1,1077 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      trace and an output file name.  It sorts the    *
+ *      events of the trace by timestamp, and events    *
+ *      with the same timestamp by sequence number,     *
+ *      keeping events with the same of both in their   *
+ *      original order.  blkparse merges the events of  *
+ *      each CPU, so its output is not always in order. *
+ *                                                      *
+ *      Traces larger than the memory budget are sorted *
+ *      externally: the events are read into runs that  *
+ *      fit in the budget, each run is sorted and       *
+ *      spilled to a temporary binary trace on a pool   *
+ *      of threads while the next is read, and the      *
+ *      runs are then merged through a heap of their    *
+ *      next events.  A trace fitting in one run is     *
+ *      sorted in memory and never spilled.             *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class TraceSorter {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename] [output filename|-]\n" +
+                    "\n   The first specifies a CSV trace written by BlkparseToCSV" +
+                    "\n   or a binary trace, and the second specifies the file the" +
+                    "\n   trace is written to in order of timestamp, then sequence.\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -memory SIZE   memory used for sorting (default 256M);" +
+                    "\n                     larger traces are spilled to disk in runs" +
+                    "\n      -threads N     threads sorting runs (default one per core)" +
+                    "\n      -tmp DIR       directory of the runs (default that of" +
+                    "\n                     the output file)" +
+                    "\n      -binary        write the binary trace format instead of CSV";
+
+
+    /**
+     * Specifies the filename standing for standard output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the bytes of memory each event in a run takes: the
+     * record itself, its timestamp and sequence number, and its
+     * place in the sorted order and in the scratch order.
+     */
+    private static final int BYTES_PER_EVENT = BinaryTraceWriter.RECORD_SIZE + 8 + 8 + 4 + 4;
+
+
+    /**
+     * Specifies the fewest events in a run, however small the budget.
+     */
+    private static final int MIN_RUN_EVENTS = 1024;
+
+
+    /**
+     * Specifies the most runs merged at once.  More runs than this
+     * are first merged into longer runs, to bound the open files.
+     */
+    private static final int MAX_MERGE_WIDTH = 128;
+
+
+    /**
+     * Specifies the size in bytes of the buffer of each file written.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1024 * 1024;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the bytes of memory the runs may take in all.
+     */
+    private long memoryBudget = 256L * 1024 * 1024;
+
+
+    /**
+     * Specifies the number of threads sorting and spilling runs.
+     */
+    private int numThreads = Runtime.getRuntime().availableProcessors();
+
+
+    /**
+     * Specifies the directory the runs are spilled to,
+     * or null for that of the output file.
+     */
+    private String tempDirectory;
+
+
+    /**
+     * Specifies whether to write the binary trace format
+     * rather than CSV.
+     */
+    private boolean binary;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the trace is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies the spilled runs, in the order they were read.
+     */
+    private final List<Path> runFiles = new ArrayList<>();
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            // Flags have no value.
+            if (option.equals("-binary")) {
+
+                binary = true;
+                index++;
+                continue;
+            }
+
+            switch (option) {
+
+                case "-memory":
+
+                    memoryBudget = Writer.parseSize(value);
+                    valid = memoryBudget > 0;
+                    break;
+
+                case "-threads":
+
+                    numThreads = (int) Math.min(Writer.parseCount(value), 1024);
+                    valid = numThreads > 0;
+                    break;
+
+                case "-tmp":
+
+                    tempDirectory = value;
+                    valid = new File(value).isDirectory();
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the trace.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Spill next to the output unless told otherwise.
+        if (tempDirectory == null) {
+
+            File parent = new File(outputFilename).getAbsoluteFile().getParentFile();
+
+            tempDirectory = outputFilename.equals(STANDARD_STREAM) || parent == null ?
+                    System.getProperty("java.io.tmpdir") :
+                    parent.getPath();
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for sorting the trace.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Sorts {@link #traceFilename} into {@link #outputFilename},
+     * spilling runs to {@link #tempDirectory} if it does not fit
+     * in {@link #memoryBudget}.
+     */
+    void sort ()
+            throws IOException
+    {
+        // One run more than there are threads is being filled, and
+        // the records of a run must fit in a single buffer.
+        long budgetEvents = memoryBudget / (numThreads + 1) / BYTES_PER_EVENT;
+        int runEvents = (int) Math.max(
+                Math.min(budgetEvents, Integer.MAX_VALUE / BinaryTraceWriter.RECORD_SIZE),
+                MIN_RUN_EVENTS
+        );
+
+        log.println(
+                String.format(
+                        "SORTING trace [%s] in runs of [%d] events on [%d] threads",
+                        new File(traceFilename).getAbsolutePath(),
+                        runEvents,
+                        numThreads
+                )
+        );
+
+        long start = System.nanoTime();
+        long numEvents = 0;
+
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+
+        try (
+                TraceCursor trace = TraceCursor.open(traceFilename)
+        ) {
+
+            ArrayDeque<Run> freeRuns = new ArrayDeque<>();
+            ArrayDeque<Future<Run>> runsInFlight = new ArrayDeque<>();
+
+            freeRuns.add(new Run(runEvents));
+
+            boolean more = true;
+
+            while (more) {
+
+                Run run = freeRuns.poll();
+
+                run.clear();
+
+                while (!run.isFull() && (more = trace.next())) {
+                    run.add(trace);
+                }
+
+                numEvents += run.numEvents;
+
+                // A trace fitting in one run needs no spilling.
+                if (!more && runFiles.isEmpty()) {
+
+                    run.sort();
+                    writeOutput(run);
+                    break;
+                }
+
+                if (run.numEvents > 0) {
+
+                    Path runFile = Files.createTempFile(
+                            Paths.get(tempDirectory),
+                            "trace-run-",
+                            ".bin"
+                    );
+
+                    runFiles.add(runFile);
+
+                    runsInFlight.add(
+                            pool.submit(
+                                    () -> run.sortAndSpill(runFile)
+                            )
+                    );
+                }
+
+                // Make a new run until there is one per thread,
+                // then wait for the oldest to be spilled.
+                if (more) {
+
+                    if (runsInFlight.size() <= numThreads) {
+                        freeRuns.add(new Run(runEvents));
+                    } else {
+                        freeRuns.add(await(runsInFlight.poll()));
+                    }
+                }
+            }
+
+            while (!runsInFlight.isEmpty()) {
+                await(runsInFlight.poll());
+            }
+
+            if (!runFiles.isEmpty()) {
+
+                log.println(
+                        String.format(
+                                "SPILLED [%d] events in [%d] runs in [%.2f] seconds",
+                                numEvents,
+                                runFiles.size(),
+                                (System.nanoTime() - start) / 1e9
+                        )
+                );
+
+                mergeRuns();
+            }
+
+        } finally {
+
+            pool.shutdownNow();
+
+            for (Path runFile : runFiles) {
+                Files.deleteIfExists(runFile);
+            }
+        }
+
+        log.println(
+                String.format(
+                        "SORTED [%d] events in [%.2f] seconds",
+                        numEvents,
+                        (System.nanoTime() - start) / 1e9
+                )
+        );
+    }
+
+
+    /**
+     * Waits for the given run to be sorted and spilled.
+     * @return The run, so that it can be refilled.
+     */
+    private static Run await (
+            Future<Run> future
+    )
+            throws IOException
+    {
+        try {
+
+            return future.get();
+
+        } catch (InterruptedException exception) {
+
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while sorting runs"
+            );
+
+        } catch (ExecutionException exception) {
+
+            if (exception.getCause() instanceof IOException) {
+                throw (IOException) exception.getCause();
+            }
+
+            throw new IOException(
+                    exception.getCause()
+            );
+        }
+    }
+
+
+    /**
+     * Merges the spilled runs into the output, first merging them
+     * into longer runs while there are too many to merge at once.
+     */
+    private void mergeRuns ()
+            throws IOException
+    {
+        int next = 0;
+
+        while (runFiles.size() - next > MAX_MERGE_WIDTH) {
+
+            Path runFile = Files.createTempFile(
+                    Paths.get(tempDirectory),
+                    "trace-run-",
+                    ".bin"
+            );
+
+            runFiles.add(runFile);
+
+            try (
+                    SortedOutput output = new SortedOutput(
+                            FileChannel.open(runFile, StandardOpenOption.WRITE),
+                            true
+                    )
+            ) {
+
+                merge(runFiles.subList(next, next + MAX_MERGE_WIDTH), output);
+            }
+
+            // The merged runs are no longer needed.
+            for (int i = next; i < next + MAX_MERGE_WIDTH; i++) {
+                Files.delete(runFiles.get(i));
+            }
+
+            next += MAX_MERGE_WIDTH;
+        }
+
+        try (
+                SortedOutput output = openOutput()
+        ) {
+
+            merge(runFiles.subList(next, runFiles.size()), output);
+        }
+    }
+
+
+    /**
+     * Merges the given sorted runs into the given output.  Events
+     * with the same key are taken from the earliest run first, so
+     * that the sort is stable.
+     */
+    private static void merge (
+            List<Path> runs,
+            SortedOutput output
+    )
+            throws IOException
+    {
+        BinaryTraceReader[] readers = new BinaryTraceReader[runs.size()];
+
+        // A min-heap of the readers with events left.
+        int[] heap = new int[runs.size()];
+        int heapSize = 0;
+
+        try {
+
+            for (int i = 0; i < readers.length; i++) {
+
+                readers[i] = new BinaryTraceReader(runs.get(i).toString());
+
+                if (readers[i].next()) {
+                    heap[heapSize++] = i;
+                }
+            }
+
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(heap, heapSize, i, readers);
+            }
+
+            while (heapSize > 0) {
+
+                BinaryTraceReader smallest = readers[heap[0]];
+
+                output.write(smallest);
+
+                // Replace the root with the next event of its run,
+                // or with the last reader if the run is done.
+                if (!smallest.next()) {
+                    heap[0] = heap[--heapSize];
+                }
+
+                siftDown(heap, heapSize, 0, readers);
+            }
+
+        } finally {
+
+            for (BinaryTraceReader reader : readers) {
+
+                if (reader != null) {
+                    reader.close();
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Moves the reader at the given place of the heap
+     * down until neither of its children is smaller.
+     */
+    private static void siftDown (
+            int[] heap,
+            int heapSize,
+            int index,
+            BinaryTraceReader[] readers
+    )
+    {
+        while (true) {
+
+            int smallest = index;
+
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+
+                if (isBefore(heap[child], heap[smallest], readers)) {
+                    smallest = child;
+                }
+            }
+
+            if (smallest == index) {
+                return;
+            }
+
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+
+            index = smallest;
+        }
+    }
+
+
+    /**
+     * Returns whether the next event of the first given run comes
+     * before that of the second, ties going to the earlier run.
+     */
+    private static boolean isBefore (
+            int first,
+            int second,
+            BinaryTraceReader[] readers
+    )
+    {
+        int order = compare(
+                readers[first].timestamp(),
+                readers[first].sequence(),
+                readers[second].timestamp(),
+                readers[second].sequence()
+        );
+
+        return order < 0 || (order == 0 && first < second);
+    }
+
+
+    /**
+     * Compares two events by timestamp, then sequence number.
+     */
+    private static int compare (
+            long firstTimestamp,
+            long firstSequence,
+            long secondTimestamp,
+            long secondSequence
+    )
+    {
+        if (firstTimestamp != secondTimestamp) {
+            return Long.compare(firstTimestamp, secondTimestamp);
+        }
+
+        return Long.compare(firstSequence, secondSequence);
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing the output.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Opens {@link #outputFilename}, or standard output.
+     */
+    private SortedOutput openOutput ()
+            throws IOException
+    {
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            return new SortedOutput(
+                    Channels.newChannel(System.out),
+                    binary
+            );
+        }
+
+        log.println(
+                "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+        );
+
+        return new SortedOutput(
+                Compression.openOutput(outputFilename),
+                binary
+        );
+    }
+
+
+    /**
+     * Writes the events of the given sorted run to the output.
+     */
+    private void writeOutput (
+            Run run
+    )
+            throws IOException
+    {
+        try (
+                SortedOutput output = openOutput()
+        ) {
+
+            while (run.next()) {
+                output.write(run);
+            }
+        }
+    }
+
+
+    /**
+     * Sorts the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        TraceSorter traceSorter = new TraceSorter();
+
+        if (traceSorter.processInput(args)) {
+            traceSorter.sort();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes events to a channel, either as a binary trace
+     * or in the CSV format written by BlkparseToCSV.
+     */
+    private static final class SortedOutput implements AutoCloseable {
+
+
+        /**
+         * Specifies the channel written to.
+         */
+        private final WritableByteChannel channel;
+
+
+        /**
+         * Used for writing binary records, or null when writing CSV.
+         */
+        private final ByteOutput byteOutput;
+
+        private final BinaryTraceWriter binaryWriter;
+
+        private final TraceRecord record = new TraceRecord();
+
+
+        /**
+         * Used for writing CSV lines, or null when writing binary records.
+         */
+        private final BufferedWriter csvWriter;
+
+        private final StringBuilder line = new StringBuilder();
+
+
+        SortedOutput (
+                WritableByteChannel channel,
+                boolean binary
+        )
+                throws IOException
+        {
+            this.channel = channel;
+
+            if (binary) {
+
+                byteOutput = new ByteOutput(OUTPUT_BUFFER_SIZE, channel);
+                binaryWriter = new BinaryTraceWriter(byteOutput);
+                binaryWriter.writeHeader();
+                csvWriter = null;
+
+            } else {
+
+                byteOutput = null;
+                binaryWriter = null;
+                csvWriter = new BufferedWriter(
+                        Channels.newWriter(channel, StandardCharsets.US_ASCII),
+                        OUTPUT_BUFFER_SIZE
+                );
+            }
+        }
+
+
+        /**
+         * Writes the current event of the given cursor.
+         */
+        void write (
+                TraceCursor event
+        )
+                throws IOException
+        {
+            if (binaryWriter != null) {
+
+                record.set(event);
+                binaryWriter.write(record);
+
+            } else {
+
+                line.setLength(0);
+                BinaryTraceReader.appendLine(line, event);
+
+                csvWriter.append(line);
+                csvWriter.newLine();
+            }
+        }
+
+
+        /**
+         * Writes out whatever is buffered and closes the channel.
+         */
+        @Override
+        public void close ()
+                throws IOException
+        {
+            if (byteOutput != null) {
+
+                byteOutput.flush();
+                channel.close();
+
+            } else {
+
+                csvWriter.close();
+            }
+        }
+    }
+
+
+    /**
+     * Holds a run of events in memory as binary records, sorts them
+     * by reordering their indices, and iterates over them in order.
+     */
+    private static final class Run implements TraceCursor {
+
+
+        /**
+         * Holds the records, in the order they were read.
+         */
+        private final ByteOutput records;
+
+        private final BinaryTraceWriter writer;
+
+        private final TraceRecord record = new TraceRecord();
+
+
+        /**
+         * Specifies the sort key of each record.
+         */
+        private final long[] timestamps;
+
+        private final long[] sequences;
+
+
+        /**
+         * Specifies the indices of the records in sorted order,
+         * and room for merging them.
+         */
+        private int[] order;
+
+        private int[] scratch;
+
+
+        /**
+         * Specifies the number of records in the run.
+         */
+        int numEvents;
+
+
+        /**
+         * Specifies the place in {@link #order} of the current
+         * event, and the byte index of its record.
+         */
+        private int current;
+
+        private int position;
+
+
+        Run (
+                int maxEvents
+        )
+        {
+            records = new ByteOutput(maxEvents * BinaryTraceWriter.RECORD_SIZE, null);
+            writer = new BinaryTraceWriter(records);
+            timestamps = new long[maxEvents];
+            sequences = new long[maxEvents];
+            order = new int[maxEvents];
+            scratch = new int[maxEvents];
+        }
+
+
+        /**
+         * Empties the run so that it can be filled again.
+         */
+        void clear ()
+        {
+            records.clear();
+            numEvents = 0;
+        }
+
+
+        /**
+         * Returns whether the run has no room for another event.
+         */
+        boolean isFull ()
+        {
+            return numEvents == timestamps.length;
+        }
+
+
+        /**
+         * Adds the current event of the given cursor to the run.
+         */
+        void add (
+                TraceCursor event
+        )
+                throws IOException
+        {
+            record.set(event);
+            writer.write(record);
+
+            // Sequence numbers are kept to 32 bits in a binary
+            // trace, so they are compared as they will be merged.
+            timestamps[numEvents] = event.timestamp();
+            sequences[numEvents] = Integer.toUnsignedLong((int) event.sequence());
+            numEvents++;
+        }
+
+
+        /**
+         * Sorts the events with a bottom-up merge sort, which is stable
+         * and needs no more memory than the scratch order, then moves
+         * to just before the first.
+         */
+        void sort ()
+        {
+            for (int i = 0; i < numEvents; i++) {
+                order[i] = i;
+            }
+
+            for (int width = 1; width < numEvents; width *= 2) {
+
+                for (int low = 0; low < numEvents; low += 2 * width) {
+
+                    int middle = Math.min(low + width, numEvents);
+                    int high = Math.min(low + 2 * width, numEvents);
+                    int left = low;
+                    int right = middle;
+
+                    for (int i = low; i < high; i++) {
+
+                        // Take from the right only when it is strictly
+                        // smaller, so that equal events keep their order.
+                        if (left < middle && (right == high ||
+                                compare(timestamps[order[left]], sequences[order[left]],
+                                        timestamps[order[right]], sequences[order[right]]) <= 0)) {
+
+                            scratch[i] = order[left++];
+
+                        } else {
+
+                            scratch[i] = order[right++];
+                        }
+                    }
+                }
+
+                int[] swap = order;
+                order = scratch;
+                scratch = swap;
+            }
+
+            current = -1;
+        }
+
+
+        /**
+         * Sorts the run and writes it to the given file as a binary trace.
+         * @return The run, so that it can be refilled.
+         */
+        Run sortAndSpill (
+                Path file
+        )
+                throws IOException
+        {
+            sort();
+
+            try (
+                    SortedOutput output = new SortedOutput(
+                            FileChannel.open(file, StandardOpenOption.WRITE),
+                            true
+                    )
+            ) {
+
+                while (next()) {
+                    output.write(this);
+                }
+            }
+
+            return this;
+        }
+
+
+        @Override
+        public boolean next ()
+        {
+            if (current + 1 >= numEvents) {
+                return false;
+            }
+
+            current++;
+            position = order[current] * BinaryTraceWriter.RECORD_SIZE;
+
+            return true;
+        }
+
+
+        /**
+         * Returns the buffer holding the records.
+         */
+        private ByteBuffer buffer ()
+        {
+            return records.buffer();
+        }
+
+
+        @Override
+        public long timestamp ()
+        {
+            return buffer().getLong(position + BinaryTraceWriter.TIMESTAMP_OFFSET);
+        }
+
+
+        @Override
+        public long offset ()
+        {
+            return buffer().getLong(position + BinaryTraceWriter.OFFSET_OFFSET);
+        }
+
+
+        @Override
+        public int size ()
+        {
+            return buffer().getInt(position + BinaryTraceWriter.SIZE_OFFSET);
+        }
+
+
+        @Override
+        public long sequence ()
+        {
+            return Integer.toUnsignedLong(
+                    buffer().getInt(position + BinaryTraceWriter.SEQUENCE_OFFSET)
+            );
+        }
+
+
+        @Override
+        public int pid ()
+        {
+            return buffer().getInt(position + BinaryTraceWriter.PID_OFFSET);
+        }
+
+
+        @Override
+        public int major ()
+        {
+            return buffer().getInt(position + BinaryTraceWriter.DEVICE_OFFSET) >>>
+                    BinaryTraceWriter.MINOR_BITS;
+        }
+
+
+        @Override
+        public int minor ()
+        {
+            return buffer().getInt(position + BinaryTraceWriter.DEVICE_OFFSET) &
+                    ((1 << BinaryTraceWriter.MINOR_BITS) - 1);
+        }
+
+
+        @Override
+        public int rbws ()
+        {
+            return buffer().get(position + BinaryTraceWriter.RBWS_OFFSET) & 0xFF;
+        }
+
+
+        @Override
+        public byte action ()
+        {
+            return buffer().get(position + BinaryTraceWriter.ACTION_OFFSET);
+        }
+    }
+}
@@ -0,0 +1,825 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes an input of two       *
+ *      Strings from the command line representing a    *
+ *      trace and an output file name.  It summarizes   *
+ *      the trace in one pass, for the whole trace and  *
+ *      for each device, pid and rbws: the IOPS and     *
+ *      bandwidth on average and in the busiest         *
+ *      interval, the read/write mix, the distribution  *
+ *      of request sizes, the fraction of sequential    *
+ *      requests, and the working set size.             *
+ *                                                      *
+ *      Nothing is buffered: each group keeps a few     *
+ *      counters and a {@link HyperLogLog} of the       *
+ *      blocks it touched, so memory depends only on    *
+ *      the number of groups, not the number of events. *
+ *      The trace may be piped in on standard input     *
+ *      while BlkparseToCSV converts it, e.g.           *
+ *                                                      *
+ *      java BlkparseToCSV clean.txt - | tee trace.csv  *
+ *          | java TraceStats - stats.csv               *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public class TraceStats {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [trace filename|-] [output filename|-]\n" +
+                    "\n   The first specifies a CSV trace written by BlkparseToCSV" +
+                    "\n   or a binary trace, or - for a CSV trace on standard input," +
+                    "\n   and the second specifies the CSV file the statistics are" +
+                    "\n   written to, one line per statistic:\n" +
+                    "\n      grouping,group,statistic,value\n" +
+                    "\n   where the grouping is all, device, pid or rbws.\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -interval S    seconds per IOPS interval (default 1)" +
+                    "\n      -block SIZE    block size of the working set (default 4K)" +
+                    "\n      -action A      use only events of action A, e.g. Q" +
+                    "\n                     (binary traces or blkparse output only)" +
+                    "\n      -series FILE   also write the IOPS and bandwidth of the" +
+                    "\n                     whole trace in every interval to FILE:\n" +
+                    "\n      time (in seconds),IOPS,read bytes/s,write bytes/s";
+
+
+    /**
+     * Specifies the filename standing for standard input or output.
+     */
+    private static final String STANDARD_STREAM = "-";
+
+
+    /**
+     * Specifies the number of bytes in a sector, the unit
+     * of offsets and sizes in a trace.
+     */
+    private static final int SECTOR_SIZE = 512;
+
+
+    /**
+     * Specifies the precision of the working set sketches, whose
+     * 2^14 registers estimate within about 0.8%.
+     */
+    private static final int SKETCH_PRECISION = 14;
+
+
+    /**
+     * Specifies the number of size buckets, one per power of two.
+     */
+    private static final int NUM_SIZE_BUCKETS = 64;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the name of the trace {@link File}.
+     */
+    private String traceFilename;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the name of the {@link File} the IOPS and bandwidth
+     * of each interval are written to, or null to not write them.
+     */
+    private String seriesFilename;
+
+
+    /**
+     * Specifies the number of nanoseconds in an interval.
+     */
+    private long intervalNanos = 1_000_000_000L;
+
+
+    /**
+     * Specifies the number of bytes in a working set block.
+     */
+    private long blockSize = 4096;
+
+
+    /**
+     * Specifies the only action used, or 0 to use every event.
+     */
+    private byte action;
+
+
+    /**
+     * Specifies where status messages are printed.  This is
+     * standard error when the CSV is written to standard output.
+     */
+    private PrintStream log = System.out;
+
+
+    /**
+     * Specifies where the IOPS and bandwidth of each interval
+     * are written, or null to not write them.
+     */
+    private PrintStream series;
+
+
+    /**
+     * Specifies the timestamp of the first event, from
+     * which intervals are counted.
+     */
+    private long startTimestamp = -1;
+
+
+    /**
+     * Holds the statistics of the whole trace.
+     */
+    private final Group all = new Group(0);
+
+
+    /**
+     * Hold the statistics of each device, pid and rbws.
+     */
+    private final Grouping devices = new Grouping("device");
+
+    private final Grouping pids = new Grouping("pid");
+
+    private final Grouping rbwses = new Grouping("rbws");
+
+
+    /**
+     * Holds the groups of the current event.
+     */
+    private final Group[] groups = new Group[4];
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the options and the trace and output file names.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the file names.
+        int index = 0;
+        while (index < fields.length &&
+                fields[index].startsWith("-") &&
+                !fields[index].equals(STANDARD_STREAM)) {
+
+            String option = fields[index];
+            String value = index + 1 < fields.length ? fields[index + 1] : "";
+            boolean valid;
+
+            switch (option) {
+
+                case "-interval":
+
+                    try {
+                        intervalNanos = Math.round(Double.parseDouble(value) * 1e9);
+                    } catch (NumberFormatException exception) {
+                        intervalNanos = 0;
+                    }
+
+                    valid = intervalNanos > 0;
+                    break;
+
+                case "-block":
+
+                    blockSize = Writer.parseSize(value);
+                    valid = blockSize > 0;
+                    break;
+
+                case "-action":
+
+                    action = value.length() == 1 ? (byte) value.charAt(0) : 0;
+                    valid = action != 0;
+                    break;
+
+                case "-series":
+
+                    seriesFilename = value;
+                    valid = !value.isEmpty() && !value.equals(STANDARD_STREAM);
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            if (!valid) {
+
+                System.out.println(
+                        "ERROR: " + option + " has an invalid value " + value + "!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+            index += 2;
+        }
+
+        // Ensure that both a trace and output file name is included.
+        if (fields.length - index != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a trace and output filename" +
+                            " to the command line!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        traceFilename = fields[index];
+        outputFilename = fields[index + 1];
+
+        // Keep status messages out of the CSV.
+        if (outputFilename.equals(STANDARD_STREAM)) {
+            log = System.err;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for gathering statistics.        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Gathers the statistics of every event of {@link #traceFilename},
+     * then writes them out.
+     */
+    void summarize ()
+            throws IOException
+    {
+        log.println(
+                "SUMMARIZING trace: " + (traceFilename.equals(STANDARD_STREAM) ?
+                        "standard input" : new File(traceFilename).getAbsolutePath())
+        );
+
+        if (seriesFilename != null) {
+
+            log.println(
+                    "WRITING series out to file: " + new File(seriesFilename).getAbsolutePath()
+            );
+
+            series = new PrintStream(
+                    new BufferedOutputStream(
+                            new FileOutputStream(seriesFilename)
+                    )
+            );
+        }
+
+        long start = System.nanoTime();
+
+        try (
+                TraceCursor trace = traceFilename.equals(STANDARD_STREAM) ?
+                        new CsvTraceReader(System.in) :
+                        TraceCursor.open(traceFilename)
+        ) {
+
+            while (trace.next()) {
+
+                if (action == 0 || trace.action() == action) {
+                    record(trace);
+                }
+            }
+        }
+
+        // Close the last interval of every group.
+        if (series != null) {
+
+            writeInterval(all);
+            series.close();
+        }
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        log.println(
+                String.format(
+                        "SUMMARIZED [%d] events of [%d] devices, [%d] pids and [%d] rbws" +
+                                " in [%.2f] seconds",
+                        all.events,
+                        devices.groups.size(),
+                        pids.groups.size(),
+                        rbwses.groups.size(),
+                        seconds
+                )
+        );
+
+        writeStatistics();
+    }
+
+
+    /**
+     * Adds the current event of the given trace to the whole
+     * trace and to its device, pid and rbws.
+     */
+    private void record (
+            TraceCursor trace
+    )
+    {
+        if (startTimestamp < 0) {
+            startTimestamp = trace.timestamp();
+        }
+
+        long device = ((long) trace.major() << 32) | (trace.minor() & 0xFFFFFFFFL);
+        long interval = Math.max(trace.timestamp() - startTimestamp, 0) / intervalNanos;
+
+        // Write out the intervals of the whole trace this
+        // event ends, including any without events.
+        if (series != null) {
+
+            while (interval > all.interval) {
+
+                writeInterval(all);
+                all.closeInterval();
+                all.interval++;
+            }
+        }
+
+        groups[0] = all;
+        groups[1] = devices.get(device);
+        groups[2] = pids.get(trace.pid());
+        groups[3] = rbwses.get(trace.rbws());
+
+        for (Group group : groups) {
+            group.record(interval, device, trace.rbws(), trace.offset(), trace.size());
+        }
+
+        // Every block the event covers belongs to the working set.
+        if (trace.size() > 0) {
+
+            long startByte = trace.offset() * SECTOR_SIZE;
+            long endByte = startByte + (long) trace.size() * SECTOR_SIZE;
+
+            for (long block = startByte / blockSize; block <= (endByte - 1) / blockSize; block++) {
+
+                // Blocks of different devices are told apart by
+                // mixing in a hash of the device.
+                long key = block ^ LongIntHashMap.hash(device);
+
+                for (Group group : groups) {
+                    group.blocks.add(key);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Writes out the IOPS and bandwidth of the current
+     * interval of the given group.
+     */
+    private void writeInterval (
+            Group group
+    )
+    {
+        double seconds = intervalNanos / 1e9;
+
+        series.println(
+                String.format(
+                        "%.3f,%.1f,%.1f,%.1f",
+                        seconds * group.interval,
+                        group.intervalEvents / seconds,
+                        group.intervalReadBytes / seconds,
+                        group.intervalWriteBytes / seconds
+                )
+        );
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *        Functions responsible for writing the statistics.      *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Writes the statistics of the whole trace and of every
+     * device, pid and rbws to {@link #outputFilename}.
+     */
+    private void writeStatistics ()
+            throws IOException
+    {
+        PrintStream output;
+
+        if (outputFilename.equals(STANDARD_STREAM)) {
+
+            log.println(
+                    "WRITING out to standard output"
+            );
+
+            output = System.out;
+
+        } else {
+
+            log.println(
+                    "WRITING out to file: " + new File(outputFilename).getAbsolutePath()
+            );
+
+            output = new PrintStream(
+                    new BufferedOutputStream(
+                            new FileOutputStream(outputFilename)
+                    )
+            );
+        }
+
+        // Averages are over the whole trace, so the IOPS and
+        // bandwidth of the groups add up to those of the trace.
+        double seconds = (all.interval + 1) * (intervalNanos / 1e9);
+
+        writeGroup(output, "all", "all", all, seconds);
+
+        for (Grouping grouping : new Grouping[] { devices, pids, rbwses }) {
+
+            grouping.groups.sort(
+                    Comparator.comparingLong(group -> group.key)
+            );
+
+            for (Group group : grouping.groups) {
+                writeGroup(output, grouping.name, label(grouping, group.key), group, seconds);
+            }
+        }
+
+        output.flush();
+
+        if (output != System.out) {
+            output.close();
+        }
+    }
+
+
+    /**
+     * Returns the text naming the group with the given key.
+     */
+    private String label (
+            Grouping grouping,
+            long key
+    )
+    {
+        if (grouping == devices) {
+            return (key >>> 32) + ":" + (int) key;
+        }
+
+        if (grouping == rbwses) {
+            return Rwbs.decode((int) key);
+        }
+
+        return Long.toString(key);
+    }
+
+
+    /**
+     * Writes out the statistics of the given group over
+     * the given number of seconds.
+     */
+    private void writeGroup (
+            PrintStream output,
+            String grouping,
+            String label,
+            Group group,
+            double seconds
+    )
+    {
+        String prefix = grouping + "," + label + ",";
+        double intervalSeconds = intervalNanos / 1e9;
+        long bytes = group.readBytes + group.writeBytes;
+        long uniqueBlocks = group.blocks.estimate();
+
+        group.closeInterval();
+
+        output.println(prefix + "events," + group.events);
+        output.println(prefix + "reads," + group.reads);
+        output.println(prefix + "writes," + group.writes);
+        output.println(prefix + "read fraction," + ratio(group.reads, group.reads + group.writes));
+        output.println(prefix + "read bytes," + group.readBytes);
+        output.println(prefix + "write bytes," + group.writeBytes);
+        output.println(prefix + "mean IOPS," + format(group.events / seconds));
+        output.println(prefix + "peak IOPS," + format(group.peakEvents / intervalSeconds));
+        output.println(prefix + "mean bytes/s," + format(bytes / seconds));
+        output.println(prefix + "peak bytes/s," + format(group.peakBytes / intervalSeconds));
+        output.println(prefix + "mean size," + format(group.events == 0 ? 0 : (double) bytes / group.events));
+        output.println(prefix + "sequential fraction," + ratio(group.sequential, group.events));
+        output.println(prefix + "unique blocks," + uniqueBlocks);
+        output.println(prefix + "working set bytes," + uniqueBlocks * blockSize);
+
+        // Each size bucket holds the requests larger than half of
+        // its size, up to its size.
+        for (int i = 0; i < NUM_SIZE_BUCKETS; i++) {
+
+            if (group.sizeCounts[i] > 0) {
+                output.println(prefix + "size up to " + (1L << i) + "," + group.sizeCounts[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Returns the given ratio to six places, or 0 if it has no denominator.
+     */
+    private static String ratio (
+            long numerator,
+            long denominator
+    )
+    {
+        return String.format("%.6f", denominator == 0 ? 0 : (double) numerator / denominator);
+    }
+
+
+    /**
+     * Returns the given rate to one place.
+     */
+    private static String format (
+            double value
+    )
+    {
+        return String.format("%.1f", value);
+    }
+
+
+    /**
+     * Summarizes the trace given on the command line.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException
+    {
+        TraceStats traceStats = new TraceStats();
+
+        if (traceStats.processInput(args)) {
+            traceStats.summarize();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Holds the groups of one grouping, e.g. one per pid, found by key
+     * without creating any objects once every group exists.
+     */
+    private static final class Grouping {
+
+
+        /**
+         * Specifies the name of the grouping in the output.
+         */
+        final String name;
+
+
+        /**
+         * Specifies the index in {@link #groups} of each key.
+         */
+        final LongIntHashMap indices = new LongIntHashMap(64);
+
+
+        /**
+         * Specifies the groups, in the order they were found.
+         */
+        final List<Group> groups = new ArrayList<>();
+
+
+        Grouping (
+                String name
+        )
+        {
+            this.name = name;
+        }
+
+
+        /**
+         * Returns the group of the given key, creating it if it is new.
+         */
+        Group get (
+                long key
+        )
+        {
+            int index = indices.get(key);
+
+            if (index < 0) {
+
+                index = groups.size();
+                groups.add(new Group(key));
+                indices.put(key, index);
+            }
+
+            return groups.get(index);
+        }
+    }
+
+
+    /**
+     * Holds the running statistics of a group of events.
+     */
+    private static final class Group {
+
+
+        /**
+         * Specifies the key of the group.
+         */
+        final long key;
+
+
+        /**
+         * Specifies the number of events, and those reading or writing.
+         */
+        long events;
+
+        long reads;
+
+        long writes;
+
+
+        /**
+         * Specifies the number of bytes read and written.
+         */
+        long readBytes;
+
+        long writeBytes;
+
+
+        /**
+         * Specifies the number of events starting where the last
+         * event of the group on the same device ended.
+         */
+        long sequential;
+
+
+        /**
+         * Specifies the number of events of each size, by the power
+         * of two in bytes the size is at most.
+         */
+        final long[] sizeCounts = new long[NUM_SIZE_BUCKETS];
+
+
+        /**
+         * Specifies the blocks touched, for the working set size.
+         */
+        final HyperLogLog blocks = new HyperLogLog(SKETCH_PRECISION);
+
+
+        /**
+         * Specifies the device and the sector after the end
+         * of the last event, or -1 before the first.
+         */
+        long lastDevice = -1;
+
+        long lastEnd = -1;
+
+
+        /**
+         * Specifies the current interval, and the events
+         * and bytes of the group in it.
+         */
+        long interval;
+
+        long intervalEvents;
+
+        long intervalReadBytes;
+
+        long intervalWriteBytes;
+
+
+        /**
+         * Specifies the most events and bytes in any interval.
+         */
+        long peakEvents;
+
+        long peakBytes;
+
+
+        Group (
+                long key
+        )
+        {
+            this.key = key;
+        }
+
+
+        /**
+         * Adds an event in the given interval to the group.
+         */
+        void record (
+                long eventInterval,
+                long device,
+                int rbws,
+                long offset,
+                int size
+        )
+        {
+            // Events slightly out of order count toward
+            // the interval already under way.
+            if (eventInterval > interval) {
+
+                closeInterval();
+                interval = eventInterval;
+            }
+
+            long bytes = (long) size * SECTOR_SIZE;
+
+            events++;
+            intervalEvents++;
+
+            if ((rbws & Rwbs.READ) != 0) {
+
+                reads++;
+                readBytes += bytes;
+                intervalReadBytes += bytes;
+
+            } else if ((rbws & Rwbs.WRITE) != 0) {
+
+                writes++;
+                writeBytes += bytes;
+                intervalWriteBytes += bytes;
+            }
+
+            if (device == lastDevice && offset == lastEnd) {
+                sequential++;
+            }
+
+            lastDevice = device;
+            lastEnd = offset + size;
+
+            sizeCounts[bytes <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(bytes - 1)]++;
+        }
+
+
+        /**
+         * Counts the current interval toward the peaks, and starts
+         * the next one empty.
+         */
+        void closeInterval ()
+        {
+            peakEvents = Math.max(peakEvents, intervalEvents);
+            peakBytes = Math.max(peakBytes, intervalReadBytes + intervalWriteBytes);
+
+            intervalEvents = 0;
+            intervalReadBytes = 0;
+            intervalWriteBytes = 0;
+        }    }
+}
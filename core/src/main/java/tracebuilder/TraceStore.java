@@ -0,0 +1,516 @@
+package tracebuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class holds the I/O events of a   *
+ *      trace in memory as a struct of arrays: one      *
+ *      primitive column per field, rather than one     *
+ *      object per event.  Each column grows in chunks  *
+ *      of {@link #CHUNK_SIZE} events, so adding events *
+ *      never copies the events already stored.  An     *
+ *      event takes {@link #BYTES_PER_EVENT} bytes, so  *
+ *      a million events fit in about 34 MB.            *
+ ********************************************************/
+
+final class TraceStore {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of bits of an event index
+     * which select the event within a chunk.
+     */
+    private static final int CHUNK_BITS = 16;
+
+
+    /**
+     * Specifies the number of events per chunk.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+
+    /**
+     * Specifies the mask selecting the event within a chunk.
+     */
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+
+    /**
+     * Specifies the number of bytes each event takes
+     * across all of the columns.
+     */
+    static final int BYTES_PER_EVENT = 4 + 4 + 8 + 4 + 1 + 1 + 8 + 4;
+
+
+    /**
+     * Specifies the number of bits the major device
+     * number is shifted by, as in the kernel's MKDEV.
+     */
+    private static final int MINOR_BITS = 20;
+
+
+    /**
+     * Specifies the mask selecting the minor device number.
+     */
+    private static final int MINOR_MASK = (1 << MINOR_BITS) - 1;
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the device column, major << 20 | minor.
+     */
+    private int[][] device = new int[0][];
+
+
+    /**
+     * Specifies the sequence column, stored unsigned.
+     */
+    private int[][] sequence = new int[0][];
+
+
+    /**
+     * Specifies the timestamp column in nanoseconds.
+     */
+    private long[][] timestamp = new long[0][];
+
+
+    /**
+     * Specifies the pid column.
+     */
+    private int[][] pid = new int[0][];
+
+
+    /**
+     * Specifies the action column.
+     */
+    private byte[][] action = new byte[0][];
+
+
+    /**
+     * Specifies the {@link Rwbs} flags column.
+     */
+    private byte[][] rbws = new byte[0][];
+
+
+    /**
+     * Specifies the offset column in sectors.
+     */
+    private long[][] offset = new long[0][];
+
+
+    /**
+     * Specifies the size column in sectors.
+     */
+    private int[][] size = new int[0][];
+
+
+    /**
+     * Specifies the number of events stored.
+     */
+    private long numEvents;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *            Functions responsible for adding events.           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Appends the given event to the end of the store.
+     */
+    void add (
+            TraceRecord record
+    )
+    {
+        int chunk = (int) (numEvents >>> CHUNK_BITS);
+        int index = (int) (numEvents & CHUNK_MASK);
+
+        // Start a new chunk once the last one is full.
+        if (chunk == device.length) {
+            addChunk();
+        }
+
+        device[chunk][index] = record.major << MINOR_BITS | record.minor;
+        sequence[chunk][index] = (int) record.sequence;
+        timestamp[chunk][index] = record.timestamp;
+        pid[chunk][index] = record.pid;
+        action[chunk][index] = record.action;
+        rbws[chunk][index] = (byte) record.rbws;
+        offset[chunk][index] = record.offset;
+        size[chunk][index] = record.size;
+
+        numEvents++;
+    }
+
+
+    /**
+     * Appends every remaining event of the given cursor.
+     */
+    void addAll (
+            TraceCursor cursor
+    )
+            throws IOException
+    {
+        TraceRecord record = new TraceRecord();
+
+        while (cursor.next()) {
+
+            record.set(cursor);
+            add(record);
+        }
+    }
+
+
+    /**
+     * Adds an empty chunk to the end of every column.
+     */
+    private void addChunk ()
+    {
+        int chunks = device.length + 1;
+
+        device = Arrays.copyOf(device, chunks);
+        sequence = Arrays.copyOf(sequence, chunks);
+        timestamp = Arrays.copyOf(timestamp, chunks);
+        pid = Arrays.copyOf(pid, chunks);
+        action = Arrays.copyOf(action, chunks);
+        rbws = Arrays.copyOf(rbws, chunks);
+        offset = Arrays.copyOf(offset, chunks);
+        size = Arrays.copyOf(size, chunks);
+
+        device[chunks - 1] = new int[CHUNK_SIZE];
+        sequence[chunks - 1] = new int[CHUNK_SIZE];
+        timestamp[chunks - 1] = new long[CHUNK_SIZE];
+        pid[chunks - 1] = new int[CHUNK_SIZE];
+        action[chunks - 1] = new byte[CHUNK_SIZE];
+        rbws[chunks - 1] = new byte[CHUNK_SIZE];
+        offset[chunks - 1] = new long[CHUNK_SIZE];
+        size[chunks - 1] = new int[CHUNK_SIZE];
+    }
+
+
+    /**
+     * Removes every event, keeping the chunks for reuse.
+     */
+    void clear ()
+    {
+        numEvents = 0;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *           Functions responsible for reading events.           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the number of events stored.
+     */
+    long size ()
+    {
+        return numEvents;
+    }
+
+
+    /**
+     * Returns the number of bytes held by the columns,
+     * including the unused end of the last chunk.
+     */
+    long footprint ()
+    {
+        long bytes = 0;
+
+        for (int chunk = 0; chunk < device.length; chunk++) {
+
+            bytes += 4L * device[chunk].length + 4L * sequence[chunk].length +
+                    8L * timestamp[chunk].length + 4L * pid[chunk].length +
+                    action[chunk].length + rbws[chunk].length +
+                    8L * offset[chunk].length + 4L * size[chunk].length;
+        }
+
+        return bytes;
+    }
+
+
+    /**
+     * Returns the major device number of the given event.
+     */
+    int major (
+            long event
+    )
+    {
+        return device[chunk(event)][index(event)] >>> MINOR_BITS;
+    }
+
+
+    /**
+     * Returns the minor device number of the given event.
+     */
+    int minor (
+            long event
+    )
+    {
+        return device[chunk(event)][index(event)] & MINOR_MASK;
+    }
+
+
+    /**
+     * Returns the sequence number of the given event.
+     */
+    long sequence (
+            long event
+    )
+    {
+        return Integer.toUnsignedLong(sequence[chunk(event)][index(event)]);
+    }
+
+
+    /**
+     * Returns the timestamp of the given event in nanoseconds.
+     */
+    long timestamp (
+            long event
+    )
+    {
+        return timestamp[chunk(event)][index(event)];
+    }
+
+
+    /**
+     * Returns the pid of the given event.
+     */
+    int pid (
+            long event
+    )
+    {
+        return pid[chunk(event)][index(event)];
+    }
+
+
+    /**
+     * Returns the action of the given event, e.g. 'Q'.
+     */
+    byte action (
+            long event
+    )
+    {
+        return action[chunk(event)][index(event)];
+    }
+
+
+    /**
+     * Returns the {@link Rwbs} flags of the given event.
+     */
+    int rbws (
+            long event
+    )
+    {
+        return rbws[chunk(event)][index(event)] & 0xFF;
+    }
+
+
+    /**
+     * Returns the offset of the given event in sectors.
+     */
+    long offset (
+            long event
+    )
+    {
+        return offset[chunk(event)][index(event)];
+    }
+
+
+    /**
+     * Returns the size of the given event in sectors.
+     */
+    int size (
+            long event
+    )
+    {
+        return size[chunk(event)][index(event)];
+    }
+
+
+    /**
+     * Fills the given record with the given event.
+     */
+    void get (
+            long event,
+            TraceRecord record
+    )
+    {
+        record.major = major(event);
+        record.minor = minor(event);
+        record.sequence = sequence(event);
+        record.timestamp = timestamp(event);
+        record.pid = pid(event);
+        record.action = action(event);
+        record.rbws = rbws(event);
+        record.offset = offset(event);
+        record.size = size(event);
+    }
+
+
+    /**
+     * Returns a new cursor positioned before the first event.
+     */
+    Cursor cursor ()
+    {
+        return new Cursor();
+    }
+
+
+    /**
+     * Returns the chunk holding the given event.
+     */
+    private static int chunk (
+            long event
+    )
+    {
+        return (int) (event >>> CHUNK_BITS);
+    }
+
+
+    /**
+     * Returns the index of the given event within its chunk.
+     */
+    private static int index (
+            long event
+    )
+    {
+        return (int) (event & CHUNK_MASK);
+    }
+
+
+
+    /**
+     * Iterates over the events of the store in the order they were added.
+     */
+    final class Cursor implements TraceCursor {
+
+
+        /**
+         * Specifies the index of the current event.
+         */
+        private long event = -1;
+
+
+        @Override
+        public boolean next ()
+        {
+            if (event + 1 >= numEvents) {
+                event = numEvents;
+                return false;
+            }
+
+            event++;
+            return true;
+        }
+
+
+        /**
+         * Returns the index of the current event.
+         */
+        long event ()
+        {
+            return event;
+        }
+
+
+        /**
+         * Moves to just before the given event, so that the
+         * next call to {@link #next()} reads that event.
+         */
+        void seek (
+                long event
+        )
+        {
+            this.event = Math.max(event, 0) - 1;
+        }
+
+
+        @Override
+        public int major ()
+        {
+            return TraceStore.this.major(event);
+        }
+
+
+        @Override
+        public int minor ()
+        {
+            return TraceStore.this.minor(event);
+        }
+
+
+        @Override
+        public long sequence ()
+        {
+            return TraceStore.this.sequence(event);
+        }
+
+
+        @Override
+        public long timestamp ()
+        {
+            return TraceStore.this.timestamp(event);
+        }
+
+
+        @Override
+        public int pid ()
+        {
+            return TraceStore.this.pid(event);
+        }
+
+
+        @Override
+        public byte action ()
+        {
+            return TraceStore.this.action(event);
+        }
+
+
+        @Override
+        public int rbws ()
+        {
+            return TraceStore.this.rbws(event);
+        }
+
+
+        @Override
+        public long offset ()
+        {
+            return TraceStore.this.offset(event);
+        }
+
+
+        @Override
+        public int size ()
+        {
+            return TraceStore.this.size(event);
+        }
+    }
+}
@@ -0,0 +1,534 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes two space separated   *
+ *      inputs:                                         *
+ *                                                      *
+ *          - duration in seconds                       *
+ *          - workload file name                        *
+ *                                                      *
+ *      Each line of the workload file describes a      *
+ *      {@link Reader} or {@link Writer} worker by the  *
+ *      arguments it would take on the command line,    *
+ *      without the duration, e.g.                      *
+ *                                                      *
+ *          4 writer -block 64K -fdatasync 16 0 w%d.bin *
+ *          reader -block 4K -pattern strided           *
+ *              -stride 1M 2 data.bin                   *
+ *                                                      *
+ *      An optional leading count repeats a worker,     *
+ *      with %d in its arguments replaced by the copy   *
+ *      number so that copies can use separate files.   *
+ *      All workers run at once on their own threads,   *
+ *      start together, and their throughput and        *
+ *      latencies are added up once they finish.        *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class WorkloadDriver {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes two input arguments separated" +
+                    " by a space:\n" +
+                    "\n      [duration (in s)] [workload filename]\n" +
+                    "\n   The first specifies how long every worker runs in seconds," +
+                    "\n   and the second specifies a file with one worker per line:\n" +
+                    "\n      [count] reader [reader options] [sleep interval (in ms)] [input filename]" +
+                    "\n      [count] writer [writer options] [sleep interval (in ms)] [output filename]\n" +
+                    "\n   The count is optional and defaults to 1; %d in the arguments" +
+                    "\n   is replaced by the copy number, from 0.  Blank lines and" +
+                    "\n   lines starting with # are skipped.";
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of seconds every worker runs.
+     */
+    private String duration;
+
+
+    /**
+     * Specifies the name of the workload {@link File}.
+     */
+    private String workloadFilename;
+
+
+    /**
+     * Specifies the workers, in the order they are listed.
+     */
+    private final List<Worker> workers = new ArrayList<>();
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order to
+     * retrieve the duration and the workers of the workload file.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+            throws IOException
+    {
+        // Check that all expected fields are included.
+        if (fields.length != 2) {
+
+            System.out.println(
+                    "ERROR: Did not provide a duration and workload filename!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // The duration is passed on to every worker,
+        // which checks it.
+        duration = fields[0];
+        workloadFilename = fields[1];
+
+        try (
+                BufferedReader bufferedReader = new BufferedReader(
+                        new FileReader(workloadFilename)
+                )
+        ) {
+
+            String readLine;
+            int lineNumber = 0;
+
+            while ((readLine = bufferedReader.readLine()) != null) {
+
+                lineNumber++;
+                readLine = readLine.trim();
+
+                if (readLine.isEmpty() || readLine.startsWith("#")) {
+                    continue;
+                }
+
+                if (!addWorkers(readLine.split("\\s+"))) {
+
+                    System.out.println(
+                            "ERROR: Invalid worker on line " + lineNumber +
+                                    " of " + workloadFilename + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+            }
+        }
+
+        if (workers.isEmpty()) {
+
+            System.out.println(
+                    "ERROR: No workers in " + workloadFilename + "!"
+            );
+
+            return false;
+        }
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+    /**
+     * Adds the workers described by the given line of the workload file.
+     * @return True if the line is valid, false otherwise.
+     */
+    private boolean addWorkers (
+            String[] tokens
+    )
+    {
+        // The count is optional.
+        int index = 0;
+        int count = 1;
+
+        if (tokens[0].matches("[0-9]{1,6}")) {
+
+            count = Integer.parseInt(tokens[0]);
+            index++;
+        }
+
+        if (count < 1 || index == tokens.length) {
+            return false;
+        }
+
+        String kind = tokens[index++];
+
+        // A sleep interval and filename must follow.
+        if ((!kind.equals("reader") && !kind.equals("writer")) ||
+                tokens.length - index < 2) {
+            return false;
+        }
+
+        for (int copy = 0; copy < count; copy++) {
+
+            // The arguments of the worker, with the duration in
+            // front of the sleep interval and filename.
+            List<String> arguments = new ArrayList<>();
+
+            for (int i = index; i < tokens.length; i++) {
+
+                if (i == tokens.length - 2) {
+                    arguments.add(duration);
+                }
+
+                arguments.add(tokens[i].replace("%d", Integer.toString(copy)));
+            }
+
+            Worker worker = new Worker(kind, String.join(" ", arguments));
+            String[] fields = arguments.toArray(new String[0]);
+
+            if (kind.equals("reader")) {
+
+                worker.reader = new Reader();
+
+                if (!worker.reader.processInput(fields)) {
+                    return false;
+                }
+
+            } else {
+
+                worker.writer = new Writer();
+
+                if (!worker.writer.processInput(fields)) {
+                    return false;
+                }
+            }
+
+            workers.add(worker);
+        }
+
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for running the workers.       *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Runs every worker on its own thread, releasing them all at
+     * once, waits for them to finish and reports their throughput.
+     */
+    void run ()
+            throws InterruptedException
+    {
+        // Every worker blocks for as long as it runs, so each needs
+        // its own thread for them all to run at once.
+        ExecutorService pool = Executors.newFixedThreadPool(
+                workers.size()
+        );
+
+        // Counted down by each worker once it is ready, and by
+        // this thread to start them all together.
+        CountDownLatch ready = new CountDownLatch(workers.size());
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> results = new ArrayList<>();
+
+        for (Worker worker : workers) {
+
+            results.add(
+                    pool.submit(
+                            () -> {
+
+                                // Preallocating is not part of the run.
+                                boolean prepared;
+
+                                try {
+                                    prepared = worker.prepare();
+                                } finally {
+                                    ready.countDown();
+                                }
+
+                                start.await();
+
+                                if (!prepared) {
+                                    throw new IOException(
+                                            "Could not prepare the worker"
+                                    );
+                                }
+
+                                worker.run();
+                                return null;
+                            }
+                    )
+            );
+        }
+
+        ready.await();
+
+        System.out.println(
+                "STARTING [" + workers.size() + "] workers"
+        );
+
+        long startTime = System.nanoTime();
+        start.countDown();
+
+        // Wait for every worker to finish.
+        int numFailed = 0;
+
+        for (int i = 0; i < results.size(); i++) {
+
+            try {
+
+                results.get(i).get();
+
+            } catch (ExecutionException exception) {
+
+                System.out.println(
+                        "ERROR: Worker [" + workers.get(i).arguments + "] failed!"
+                );
+
+                exception.getCause().printStackTrace();
+                numFailed++;
+            }
+        }
+
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        pool.shutdown();
+
+        printReport(seconds, numFailed);
+    }
+
+
+    /**
+     * Prints the operations and bytes of every worker,
+     * followed by their total throughput.
+     */
+    private void printReport (
+            double seconds,
+            int numFailed
+    )
+    {
+        long totalOperations = 0;
+        long totalBytes = 0;
+
+        // The latencies of every reader and of every writer.
+        LatencyHistogram readLatencies = new LatencyHistogram();
+        LatencyHistogram writeLatencies = new LatencyHistogram();
+
+        System.out.println(
+                String.format(
+                        "%-6s %12s %14s %10s  %s",
+                        "WORKER", "OPERATIONS", "BYTES", "MB/s", "ARGUMENTS"
+                )
+        );
+
+        for (Worker worker : workers) {
+
+            long operations = worker.numOperations();
+            long bytes = worker.numBytes();
+
+            System.out.println(
+                    String.format(
+                            "%-6s %12d %14d %10.2f  %s",
+                            worker.kind,
+                            operations,
+                            bytes,
+                            bytes / seconds / 1000000.0,
+                            worker.arguments
+                    )
+            );
+
+            totalOperations += operations;
+            totalBytes += bytes;
+
+            if (worker.reader != null) {
+                readLatencies.merge(worker.reader.latencies());
+            } else {
+                writeLatencies.merge(worker.writer.latencies());
+            }
+        }
+
+        System.out.println(
+                String.format(
+                        "TOTAL: [%d] operations, [%d] bytes in [%.2f] seconds:" +
+                                " [%.2f] MB/s, [%.0f] operations/s",
+                        totalOperations,
+                        totalBytes,
+                        seconds,
+                        totalBytes / seconds / 1000000.0,
+                        totalOperations / seconds
+                )
+        );
+
+        if (readLatencies.count() > 0) {
+
+            System.out.println(
+                    "READ LATENCY: " + readLatencies.summary()
+            );
+        }
+
+        if (writeLatencies.count() > 0) {
+
+            System.out.println(
+                    "WRITE LATENCY: " + writeLatencies.summary()
+            );
+        }
+
+        if (numFailed > 0) {
+
+            System.out.println(
+                    "FAILED: [" + numFailed + "] workers"
+            );
+        }
+    }
+
+
+    /**
+     * Runs the workers of the workload file given on the
+     * command line for the given number of seconds.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException, InterruptedException
+    {
+        WorkloadDriver workloadDriver = new WorkloadDriver();
+
+        if (workloadDriver.processInput(args)) {
+            workloadDriver.run();
+        }
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Holds a single {@link Reader} or {@link Writer} worker.
+     */
+    private static final class Worker {
+
+
+        /**
+         * Specifies whether this is a "reader" or a "writer".
+         */
+        final String kind;
+
+
+        /**
+         * Specifies the arguments the worker was created with.
+         */
+        final String arguments;
+
+
+        /**
+         * Specifies the reader, or null if this is a writer.
+         */
+        Reader reader;
+
+
+        /**
+         * Specifies the writer, or null if this is a reader.
+         */
+        Writer writer;
+
+
+        Worker (
+                String kind,
+                String arguments
+        )
+        {
+            this.kind = kind;
+            this.arguments = arguments;
+        }
+
+
+        /**
+         * Does whatever setup the worker needs before it is timed.
+         * @return True if the worker is ready to run, false otherwise.
+         */
+        boolean prepare ()
+                throws IOException
+        {
+            return reader != null || writer.prepare();
+        }
+
+
+        /**
+         * Reads or writes until the duration is up.
+         */
+        void run ()
+                throws IOException, InterruptedException
+        {
+            if (reader != null) {
+                reader.read();
+            } else {
+                writer.write();
+            }
+        }
+
+
+        /**
+         * Returns the number of reads or writes done.
+         */
+        long numOperations ()
+        {
+            return reader != null ? reader.numReads() : writer.numWrites();
+        }
+
+
+        /**
+         * Returns the number of bytes read or written.
+         */
+        long numBytes ()
+        {
+            return reader != null ? reader.numBytesRead() : writer.numBytesWritten();
+        }
+    }
+}
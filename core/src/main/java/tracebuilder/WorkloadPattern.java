@@ -0,0 +1,592 @@
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class is the base of the access   *
+ *      patterns Reader and Writer issue their blocks   *
+ *      in.  A pattern is parsed from the command line, *
+ *      then started over a span of a file cut into     *
+ *      blocks, after which each call to {@link #next}  *
+ *      returns the offset of the next block from the   *
+ *      start of the span.  Blocks may be visited in    *
+ *      order, at a stride, uniformly at random, from a *
+ *      Zipf distribution, mostly within a hot region,  *
+ *      or uniformly within a working set which moves   *
+ *      along the span every so often.  Drawing an      *
+ *      offset allocates nothing and takes tens of      *
+ *      nanoseconds, so that it never limits how fast   *
+ *      blocks can be issued.                           *
+ ********************************************************/
+
+package tracebuilder;
+
+import java.util.SplittableRandom;
+
+abstract class WorkloadPattern {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} describing the patterns
+     * accepted by {@link #parse(String)}.
+     */
+    static final String SPEC_MESSAGE =
+            "sequential, strided:STRIDE, uniform[:SEED], zipf:THETA[:SEED]" +
+                    " (e.g. zipf:0.99), hotcold:HOT:P[:SEED] (a fraction P of" +
+                    " the blocks issued fall in the first fraction HOT of the" +
+                    " span, e.g. hotcold:0.2:0.8) or shift:SIZE:N[:SEED]" +
+                    " (uniform within SIZE bytes, moving on by SIZE every N blocks)";
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of bytes in each block.
+     */
+    int blockSize;
+
+
+    /**
+     * Specifies the number of bytes the pattern ranges over.
+     */
+    long span;
+
+
+    /**
+     * Specifies the number of whole blocks in the span.
+     */
+    long numBlocks;
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for creating patterns.         *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Parses a pattern from the command line, as described by
+     * {@link #SPEC_MESSAGE}.
+     * @return The pattern, or null if it is not valid.
+     */
+    static WorkloadPattern parse (
+            String spec
+    )
+    {
+        String[] parts = spec.split(":");
+
+        try {
+
+            switch (parts[0]) {
+
+                case "sequential":
+
+                    return parts.length == 1 ?
+                            new Sequential(0) : null;
+
+                case "strided":
+
+                    long stride = parts.length == 2 ?
+                            Writer.parseSize(parts[1]) : -1;
+
+                    return stride > 0 ?
+                            new Sequential(stride) : null;
+
+                case "uniform":
+
+                    return parts.length <= 2 ?
+                            new Uniform(seed(parts, 1)) : null;
+
+                case "zipf":
+
+                    double theta = Double.parseDouble(parts[1]);
+
+                    return parts.length <= 3 && theta > 0 && !Double.isInfinite(theta) ?
+                            new Zipf(theta, seed(parts, 2)) : null;
+
+                case "hotcold":
+
+                    double hotFraction = Double.parseDouble(parts[1]);
+                    double hotProbability = Double.parseDouble(parts[2]);
+
+                    return parts.length <= 4 &&
+                            hotFraction > 0 && hotFraction < 1 &&
+                            hotProbability >= 0 && hotProbability <= 1 ?
+                            new HotCold(hotFraction, hotProbability, seed(parts, 3)) : null;
+
+                case "shift":
+
+                    long windowSize = Writer.parseSize(parts[1]);
+                    long shiftInterval = Writer.parseCount(parts[2]);
+
+                    return parts.length <= 4 && windowSize > 0 && shiftInterval > 0 ?
+                            new Shift(windowSize, shiftInterval, seed(parts, 3)) : null;
+
+                default:
+
+                    return null;
+            }
+
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException exception) {
+
+            return null;
+        }
+    }
+
+
+    /**
+     * Returns the seed at the given index of the parts of a
+     * spec, or a random seed if it is not given.
+     */
+    private static long seed (
+            String[] parts,
+            int index
+    )
+    {
+        return parts.length > index ?
+                Long.parseLong(parts[index]) : new SplittableRandom().nextLong();
+    }
+
+
+    /**
+     * Creates a pattern going through the given offsets in turn,
+     * over and over, which are taken as they are rather than from
+     * the start of the span.
+     */
+    static WorkloadPattern list (
+            long[] offsets
+    )
+    {
+        return new OffsetList(offsets);
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *          Functions responsible for drawing offsets.           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Starts the pattern over the given number of bytes, cut into
+     * blocks of the given size, with the first block next.  The
+     * span must hold at least one block.
+     */
+    void start (
+            long span,
+            int blockSize
+    )
+    {
+        if (blockSize < 1 || span < blockSize) {
+            throw new IllegalArgumentException(
+                    "A workload pattern needs a span of at least one block"
+            );
+        }
+
+        this.span = span;
+        this.blockSize = blockSize;
+        this.numBlocks = span / blockSize;
+    }
+
+
+    /**
+     * Returns the offset in bytes of the next block from the start
+     * of the span.  The whole block always fits within the span.
+     */
+    abstract long next ();
+
+
+    /**
+     * Returns whether the blocks are issued in order, each
+     * following the last, so that a file written this way
+     * does not need to be preallocated.
+     */
+    boolean isSequential ()
+    {
+        return false;
+    }
+
+
+    /**
+     * Returns whether every offset drawn is a multiple of the given
+     * alignment, as direct I/O needs, provided the block size is.
+     */
+    boolean isAligned (
+            long alignment
+    )
+    {
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                         Helper Classes                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Issues blocks in order, each a stride after the last,
+     * wrapping around when the next would not fit in the span.
+     */
+    private static final class Sequential extends WorkloadPattern {
+
+
+        /**
+         * Specifies the distance between consecutive blocks,
+         * or 0 for the block size.
+         */
+        private final long stride;
+
+
+        /**
+         * Specifies the offset of the next block.
+         */
+        private long position;
+
+
+        Sequential (
+                long stride
+        )
+        {
+            this.stride = stride;
+        }
+
+
+        @Override
+        void start (
+                long span,
+                int blockSize
+        )
+        {
+            super.start(span, blockSize);
+            position = 0;
+        }
+
+
+        @Override
+        long next ()
+        {
+            long offset = position;
+
+            position += stride > 0 ? stride : blockSize;
+
+            if (position + blockSize > span) {
+                position = 0;
+            }
+
+            return offset;
+        }
+
+
+        @Override
+        boolean isSequential ()
+        {
+            return stride == 0;
+        }
+
+
+        @Override
+        boolean isAligned (
+                long alignment
+        )
+        {
+            return stride % alignment == 0;
+        }
+    }
+
+
+    /**
+     * Issues every block with the same probability.
+     */
+    private static final class Uniform extends WorkloadPattern {
+
+
+        private final SplittableRandom random;
+
+
+        Uniform (
+                long seed
+        )
+        {
+            this.random = new SplittableRandom(seed);
+        }
+
+
+        @Override
+        long next ()
+        {
+            return random.nextLong(numBlocks) * blockSize;
+        }
+    }
+
+
+    /**
+     * Issues blocks from a Zipf distribution with the given exponent.
+     * The ranks are scattered over the span by a fixed permutation,
+     * so that the most popular blocks are not all next to each other.
+     */
+    private static final class Zipf extends WorkloadPattern {
+
+
+        private final double theta;
+
+
+        private final SplittableRandom random;
+
+
+        private ZipfDistribution zipf;
+
+
+        Zipf (
+                double theta,
+                long seed
+        )
+        {
+            this.theta = theta;
+            this.random = new SplittableRandom(seed);
+        }
+
+
+        @Override
+        void start (
+                long span,
+                int blockSize
+        )
+        {
+            super.start(span, blockSize);
+
+            zipf = new ZipfDistribution(numBlocks, theta);
+        }
+
+
+        @Override
+        long next ()
+        {
+            return zipf.scatter(zipf.sample(random)) * blockSize;
+        }
+    }
+
+
+    /**
+     * Issues a given fraction of the blocks from the first given
+     * fraction of the span, and the rest from the remainder, each
+     * uniformly.
+     */
+    private static final class HotCold extends WorkloadPattern {
+
+
+        private final double hotFraction;
+
+
+        private final double hotProbability;
+
+
+        private final SplittableRandom random;
+
+
+        /**
+         * Specifies the number of blocks in the hot region.
+         */
+        private long numHotBlocks;
+
+
+        HotCold (
+                double hotFraction,
+                double hotProbability,
+                long seed
+        )
+        {
+            this.hotFraction = hotFraction;
+            this.hotProbability = hotProbability;
+            this.random = new SplittableRandom(seed);
+        }
+
+
+        @Override
+        void start (
+                long span,
+                int blockSize
+        )
+        {
+            super.start(span, blockSize);
+
+            numHotBlocks = Math.max(Math.round(numBlocks * hotFraction), 1);
+        }
+
+
+        @Override
+        long next ()
+        {
+            long block;
+
+            if (numHotBlocks == numBlocks || random.nextDouble() < hotProbability) {
+                block = random.nextLong(numHotBlocks);
+            } else {
+                block = numHotBlocks + random.nextLong(numBlocks - numHotBlocks);
+            }
+
+            return block * blockSize;
+        }
+    }
+
+
+    /**
+     * Issues blocks uniformly from a working set of the given size,
+     * which moves on to the next blocks of the span after every given
+     * number of blocks issued, wrapping around at the end.
+     */
+    private static final class Shift extends WorkloadPattern {
+
+
+        private final long windowSize;
+
+
+        private final long shiftInterval;
+
+
+        private final SplittableRandom random;
+
+
+        /**
+         * Specifies the number of blocks in the working set.
+         */
+        private long numWindowBlocks;
+
+
+        /**
+         * Specifies the first block of the working set.
+         */
+        private long windowStart;
+
+
+        /**
+         * Specifies the number of blocks left to issue
+         * before the working set moves on.
+         */
+        private long remaining;
+
+
+        Shift (
+                long windowSize,
+                long shiftInterval,
+                long seed
+        )
+        {
+            this.windowSize = windowSize;
+            this.shiftInterval = shiftInterval;
+            this.random = new SplittableRandom(seed);
+        }
+
+
+        @Override
+        void start (
+                long span,
+                int blockSize
+        )
+        {
+            super.start(span, blockSize);
+
+            numWindowBlocks = Math.min(Math.max(windowSize / blockSize, 1), numBlocks);
+            windowStart = 0;
+            remaining = shiftInterval;
+        }
+
+
+        @Override
+        long next ()
+        {
+            if (remaining == 0) {
+
+                windowStart = (windowStart + numWindowBlocks) % numBlocks;
+                remaining = shiftInterval;
+            }
+
+            remaining--;
+
+            long block = windowStart + random.nextLong(numWindowBlocks);
+
+            return (block < numBlocks ? block : block - numBlocks) * blockSize;
+        }
+    }
+
+
+    /**
+     * Issues the given offsets in turn, over and over.
+     */
+    private static final class OffsetList extends WorkloadPattern {
+
+
+        private final long[] offsets;
+
+
+        /**
+         * Specifies the index of the next offset.
+         */
+        private int next;
+
+
+        OffsetList (
+                long[] offsets
+        )
+        {
+            this.offsets = offsets;
+        }
+
+
+        @Override
+        void start (
+                long span,
+                int blockSize
+        )
+        {
+            this.span = span;
+            this.blockSize = blockSize;
+            next = 0;
+        }
+
+
+        @Override
+        long next ()
+        {
+            long offset = offsets[next];
+
+            next = next + 1 == offsets.length ? 0 : next + 1;
+
+            return offset;
+        }
+
+
+        @Override
+        boolean isAligned (
+                long alignment
+        )
+        {
+            for (long offset : offsets) {
+
+                if (offset % alignment != 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
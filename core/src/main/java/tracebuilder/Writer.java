@@ -0,0 +1,1186 @@
+package tracebuilder;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/********************************************************
+ * Author: Madox Summermatter (madoxs)                  *
+ * Date: Fall 2018                                      *
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class takes three space           *
+ *      separated inputs:                               *
+ *                                                      *
+ *          - writing duration in seconds               *
+ *          - number of seconds to sleep between writes *
+ *          - output file name                          *
+ *                                                      *
+ *      It writes 0's to the output file for duration   *
+ *      seconds, sleeping for numSeconds between each   *
+ *      write.                                          *
+ *                                                      *
+ *      With the -block option it instead writes whole  *
+ *      blocks at block-aligned offsets through a       *
+ *      FileChannel, optionally syncing them, so that   *
+ *      every write reaches the device and shows up in  *
+ *      the trace.  The blocks are written in order by  *
+ *      default, or following any other                 *
+ *      {@link WorkloadPattern}, e.g. Zipfian, over a   *
+ *      preallocated span of the file.                  *
+ ********************************************************/
+
+public class Writer {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                           Constants                           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the {@link String} containing usage information.
+     */
+    private static final String USAGE_MESSAGE =
+            "USAGE:\n   This program takes three input arguments separated" +
+                    " by a space, optionally preceded by options:\n" +
+                    "\n      [options] [duration (in s)] [sleep interval (in ms)] [output filename]\n" +
+                    "\n   The first specifies the write duration in seconds, the second" +
+                    "\n   specifies the interval of time in milliseconds to sleep" +
+                    "\n   between writes, and the third specifies the output" +
+                    "\n   filename.\n" +
+                    "\n   Options (sizes may end in K, M or G):" +
+                    "\n      -block SIZE     write blocks of SIZE bytes, e.g. 4K or 1M" +
+                    "\n      -offset BYTES   start writing at BYTES, a multiple of the" +
+                    "\n                      block size (default 0)" +
+                    "\n      -span BYTES     wrap around after BYTES (default 1G, and" +
+                    "\n                      required by every pattern but sequential)" +
+                    "\n      -pattern P      sequential, strided:STRIDE, uniform[:SEED]," +
+                    "\n                      zipf:THETA[:SEED], hotcold:HOT:P[:SEED] or" +
+                    "\n                      shift:SIZE:N[:SEED] (default sequential); the" +
+                    "\n                      span is preallocated for all but sequential" +
+                    "\n      -fsync N        fsync after every N writes" +
+                    "\n      -fdatasync N    fdatasync after every N writes" +
+                    "\n      -dsync          open the file with O_DSYNC" +
+                    "\n      -sync           open the file with O_SYNC" +
+                    "\n      -direct         open the file with O_DIRECT, bypassing the" +
+                    "\n                      page cache; blocks must be file system blocks" +
+                    "\n      -dropcache S    drop the page cache every S seconds; this evicts" +
+                    "\n                      the cached pages of every process, and needs" +
+                    "\n                      root to write /proc/sys/vm/drop_caches" +
+                    "\n      -rate SPEC      issue writes on an open-loop schedule instead" +
+                    "\n                      of sleeping: N per second, poisson:N[:SEED]" +
+                    "\n                      or burst:N:ON:OFF with ON and OFF in ms" +
+                    "\n      -interval S     also report throughput and latency every" +
+                    "\n                      S seconds" +
+                    "\n   Every option except -block, -rate and -interval implies block writes of 4K.";
+
+    /**
+     * Specifies the {@link String} containing timeout information.
+     */
+    private static final String TIMEOUT_MESSAGE =
+            "TIMEOUT: This program times out after 10 seconds of inactivity.";
+
+
+    /**
+     * Specifies the number of seconds before timeout.
+     */
+    private static final int TIMEOUT_DURATION_SECONDS = 10;
+
+
+    /**
+     * Specifies a {@link Duration} of {@link #TIMEOUT_DURATION_SECONDS}.
+     */
+    private static final Duration timeout = Duration.ofSeconds(
+            TIMEOUT_DURATION_SECONDS
+    );
+
+
+    /**
+     * Specifies the block size used when an option
+     * implies block writes but -block is not given.
+     */
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+
+
+    /**
+     * Specifies the number of bytes written before wrapping
+     * around to {@link #startOffset} by default.
+     */
+    private static final long DEFAULT_SPAN = 1L << 30;
+
+
+    /**
+     * Specifies the alignment of the write buffer in memory, which
+     * direct I/O requires to be at least the logical block size.
+     */
+    static final int BUFFER_ALIGNMENT = 4096;
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of writes.
+     */
+    private long numWrites;
+
+
+    /**
+     * Specifies the number of milliseconds to sleep
+     * between each write.
+     */
+    private int sleepInterval;
+
+
+    /**
+     * Specifies the name of the output {@link File}.
+     */
+    private String outputFilename;
+
+
+    /**
+     * Specifies the number of seconds to write.
+     */
+    private long duration;
+
+
+    /**
+     * Specifies the schedule writes are issued on, or null
+     * to sleep {@link #sleepInterval} between them.
+     */
+    private RateScheduler scheduler;
+
+
+    /**
+     * Specifies the latency of every write, measured from when it
+     * was due if there is a {@link #scheduler}.
+     */
+    private final LatencyHistogram latencies = new LatencyHistogram();
+
+
+    /**
+     * Specifies the latency of every write since the last interval
+     * report, or null if there are no interval reports.
+     */
+    private LatencyHistogram intervalLatencies;
+
+
+    /**
+     * Specifies the number of nanoseconds between interval reports.
+     */
+    private long reportInterval;
+
+
+    /**
+     * Specifies the nanoTime the current interval started at.
+     */
+    private long intervalStart;
+
+
+    /**
+     * Specifies how late the current write was issued
+     * in nanoseconds, according to the {@link #scheduler}.
+     */
+    private long lag;
+
+
+    /**
+     * Specifies the number of bytes in each block write,
+     * or 0 to write 0's line-by-line instead.
+     */
+    private int blockSize;
+
+
+    /**
+     * Specifies the offset of the first block write in bytes.
+     */
+    private long startOffset;
+
+
+    /**
+     * Specifies the number of bytes written from
+     * {@link #startOffset} before wrapping around.
+     */
+    private long span = DEFAULT_SPAN;
+
+
+    /**
+     * Specifies the order blocks are written in.
+     */
+    private WorkloadPattern workload = WorkloadPattern.parse("sequential");
+
+
+    /**
+     * Specifies whether the span was given rather than defaulted,
+     * as a pattern writing out of order fills all of it.
+     */
+    private boolean spanGiven;
+
+
+    /**
+     * Specifies the number of seconds between drops of the
+     * page cache, or 0 to leave it alone.
+     */
+    private long dropInterval;
+
+
+    /**
+     * Specifies whether {@link #prepare()} has checked the
+     * output file and preallocated it if needed.
+     */
+    private boolean prepared;
+
+
+    /**
+     * Specifies the number of block writes between each
+     * sync, or 0 to never sync.
+     */
+    private long syncInterval;
+
+
+    /**
+     * Specifies whether syncs also flush the file's metadata,
+     * i.e. fsync rather than fdatasync.
+     */
+    private boolean syncMetadata;
+
+
+    /**
+     * Specifies the extra options the output file is
+     * opened with, e.g. {@link StandardOpenOption#DSYNC}.
+     */
+    private final List<OpenOption> openOptions = new ArrayList<>();
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for parsing the input.          *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Processes the input from the command line in order
+     * to retrieve the names of the input and output files.
+     * @return True if the input processed successfully,
+     *          false otherwise.
+     */
+    boolean processInput (
+            String[] fields
+    )
+    {
+        // Options come before the three arguments.
+        int index = 0;
+        boolean blockOptions = false;
+        while (index < fields.length && fields[index].matches("-[a-z]+")) {
+
+            String option = fields[index];
+
+            if (option.equals("-rate")) {
+
+                scheduler = index + 1 < fields.length ?
+                        RateScheduler.parse(fields[index + 1]) : null;
+
+                if (scheduler == null) {
+
+                    System.out.println(
+                            "ERROR: -rate expects " + RateScheduler.SPEC_MESSAGE + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+
+                index += 2;
+                continue;
+            }
+
+            if (option.equals("-interval")) {
+
+                long seconds = index + 1 < fields.length ?
+                        parseCount(fields[index + 1]) : -1;
+
+                if (seconds < 1) {
+
+                    System.out.println(
+                            "ERROR: -interval expects a positive number of seconds!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+                }
+
+                intervalLatencies = new LatencyHistogram();
+                reportInterval = seconds * 1_000_000_000L;
+
+                index += 2;
+                continue;
+            }
+
+            blockOptions = true;
+
+            switch (option) {
+
+                case "-dsync":
+                    openOptions.add(StandardOpenOption.DSYNC);
+                    break;
+
+                case "-sync":
+                    openOptions.add(StandardOpenOption.SYNC);
+                    break;
+
+                case "-direct":
+                    openOptions.add(PageCache.DIRECT);
+                    break;
+
+                case "-dropcache":
+
+                    dropInterval = index + 1 < fields.length ?
+                            parseCount(fields[index + 1]) : -1;
+
+                    if (dropInterval < 1) {
+
+                        System.out.println(
+                                "ERROR: -dropcache expects a positive number of seconds!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    // Only root may drop the cache of the whole machine.
+                    if (!PageCache.canDrop()) {
+
+                        System.out.println(
+                                "ERROR: -dropcache needs to write " + PageCache.DROP_CACHES +
+                                        ", which drops the page cache of every process; run as root!"
+                        );
+
+                        return false;
+                    }
+
+                    index++;
+                    break;
+
+                case "-pattern":
+
+                    workload = index + 1 < fields.length ?
+                            WorkloadPattern.parse(fields[index + 1]) : null;
+
+                    if (workload == null) {
+
+                        System.out.println(
+                                "ERROR: -pattern expects " + WorkloadPattern.SPEC_MESSAGE + "!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    index++;
+                    break;
+
+                case "-block":
+                case "-offset":
+                case "-span":
+                case "-fsync":
+                case "-fdatasync":
+
+                    // The value follows the option, and is a size
+                    // in bytes but for the number of writes per sync.
+                    long value = index + 1 >= fields.length ? -1 :
+                            option.endsWith("sync") ?
+                                    parseCount(fields[index + 1]) : parseSize(fields[index + 1]);
+
+                    if (value < 0 || (value == 0 && !option.equals("-offset")) ||
+                            (option.equals("-block") && value > Integer.MAX_VALUE / 2)) {
+
+                        System.out.println(
+                                "ERROR: " + option + " expects a positive size!"
+                        );
+
+                        System.out.println(
+                                USAGE_MESSAGE
+                        );
+
+                        return false;
+                    }
+
+                    if (option.equals("-block")) {
+                        blockSize = (int) value;
+                    } else if (option.equals("-offset")) {
+                        startOffset = value;
+                    } else if (option.equals("-span")) {
+                        span = value;
+                        spanGiven = true;
+                    } else {
+                        syncInterval = value;
+                        syncMetadata = option.equals("-fsync");
+                    }
+
+                    index++;
+                    break;
+
+                default:
+
+                    System.out.println(
+                            "ERROR: Unknown option " + option + "!"
+                    );
+
+                    System.out.println(
+                            USAGE_MESSAGE
+                    );
+
+                    return false;
+            }
+
+            index++;
+        }
+
+        // Every option but the rate implies block writes.
+        if (blockOptions && blockSize == 0) {
+            blockSize = DEFAULT_BLOCK_SIZE;
+        }
+
+        // Writing out of order preallocates the whole span, which
+        // should not silently default to a gigabyte.
+        if (!workload.isSequential() && !spanGiven) {
+
+            System.out.println(
+                    "ERROR: -pattern needs -span, the size of the file written," +
+                            " for any pattern but sequential!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Block writes must stay aligned to the block size.
+        if (blockSize > 0 && (startOffset % blockSize != 0 || span < blockSize)) {
+
+            System.out.println(
+                    "ERROR: Offset must be a multiple of the block size," +
+                            " and the span at least one block!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        fields = Arrays.copyOfRange(fields, index, fields.length);
+
+        // Check that all expected fields are included.
+        if (fields.length != 3) {
+
+            // Print out an error message.
+            System.out.println(
+                    "ERROR: Did not provide correct number of arguments!"
+            );
+
+            // Print out usage message.
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        /*
+         *  Otherwise, the writing duration is first,
+         *  the sleep interval is second,
+         *  and the output filename is third.
+         */
+
+        // Attempt to parse the writing duration.
+        try {
+
+            // Compute the duration in milliseconds.
+            duration = Long.parseLong(
+                    fields[0]
+            ) * 1000;
+
+            // Check whether the writing duration is positive.
+            if (duration < 0) {
+
+                System.out.println(
+                        "ERROR: First argument is negative!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+        } catch (NumberFormatException exception) {
+
+            System.out.println(
+                    "ERROR: First argument is non-integer value!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Attempt to parse the sleep interval.
+        try {
+
+            // Parse the sleep interval.
+            sleepInterval = Integer.parseInt(
+                    fields[1]
+            );
+
+            // Check whether the sleep interval is negative.
+            if (sleepInterval < 0) {
+
+                System.out.println(
+                        "ERROR: Second argument is negative!"
+                );
+
+                System.out.println(
+                        USAGE_MESSAGE
+                );
+
+                return false;
+            }
+
+        } catch (NumberFormatException exception) {
+
+            System.out.println(
+                    "ERROR: Second argument is non-double value!"
+            );
+
+            System.out.println(
+                    USAGE_MESSAGE
+            );
+
+            return false;
+        }
+
+        // Retrieve the output filename.
+        outputFilename = fields[2];
+
+        // Parsed successfully.
+        return true;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *         Functions responsible for writing out to file.        *
+     *                                                               *
+     *****************************************************************/
+
+
+
+    /**
+     * Writes {@link #numWrites} 0's to {@link #outputFilename}.
+     */
+    void writeZeroes ()
+            throws IOException, InterruptedException
+    {
+
+        // Create the output file.
+        File outputFile = new File(
+                outputFilename
+        );
+
+        // Used to facilitate writing out to file.
+        FileOutputStream fileOutputStream = new FileOutputStream(
+                outputFile
+        );
+
+        // Used for writing to output file.
+        BufferedWriter bufferedWriter = new BufferedWriter(
+                new OutputStreamWriter(
+                        fileOutputStream
+                )
+        );
+
+        System.out.println(
+                String.format(
+                        "WRITING zeros out to file [%s] with [%d]ms of sleep between writes for [%d] seconds",
+                        outputFile.getAbsolutePath(),
+                        sleepInterval,
+                        duration / 1000
+                )
+        );
+
+        // Time stamp the start of the writing process.
+        long start = System.currentTimeMillis();
+        startTiming();
+
+        // Continue to write to file while the duration
+        // not been exceeded.
+        for (long timeElapsed = (System.currentTimeMillis() - start);
+             timeElapsed < duration;
+             timeElapsed = (System.currentTimeMillis() - start)) {
+
+            // Write 10 bytes to file.
+            long operationStart = System.nanoTime();
+            bufferedWriter.write("0");
+            bufferedWriter.newLine();
+            recordLatency(operationStart);
+
+            // Wait until the next write is due.
+            pace();
+
+            // Keep track of the number of writes.
+            numWrites += 1;
+        }
+
+        // Don't forget to close the buffered writer.
+        bufferedWriter.close();
+
+        // Print the number of times written and the size
+        // of the file.
+        printNumberOfBytesWritten(
+                outputFile.length()
+        );
+    }
+
+
+    /**
+     * Writes {@link #blockSize} byte blocks to {@link #outputFilename}
+     * through a {@link FileChannel}, starting at {@link #startOffset}
+     * and wrapping around after {@link #span} bytes, with
+     * {@link #sleepInterval} milliseconds between writes for
+     * {@link #duration} seconds.  Each block is written straight from
+     * a reused direct buffer, and synced every {@link #syncInterval}
+     * writes, so the device sees the writes as they are issued.
+     */
+    void writeBlocks ()
+            throws IOException, InterruptedException
+    {
+        if (!prepared && !prepare()) {
+            return;
+        }
+
+        try (
+                FileChannel channel = openChannel()
+        ) {
+
+            System.out.println(
+                    String.format(
+                            "WRITING [%d] byte blocks out to file [%s] from offset [%d] with [%d]ms of sleep between writes for [%d] seconds",
+                            blockSize,
+                            new File(outputFilename).getAbsolutePath(),
+                            startOffset,
+                            sleepInterval,
+                            duration / 1000
+                    )
+            );
+
+            // The block written over and over, which keeps the
+            // file readable line-by-line.
+            ByteBuffer block = alignedBuffer(blockSize);
+
+            while (block.hasRemaining()) {
+                block.put(block.remaining() == 1 ? (byte) '\n' : (byte) '0');
+            }
+
+            long end = startOffset + span - span % blockSize;
+
+            workload.start(end - startOffset, blockSize);
+
+            Thread dropper = dropInterval > 0 ?
+                    PageCache.dropEvery(dropInterval) : null;
+
+            // Time stamp the start of the writing process.
+            long start = System.nanoTime();
+            startTiming();
+            long deadline = start + duration * 1_000_000L;
+
+            try {
+
+                while (System.nanoTime() - deadline < 0) {
+
+                    // Write the whole block at its offset.
+                    long position = startOffset + workload.next();
+                    long operationStart = System.nanoTime();
+                    block.clear();
+
+                    while (block.hasRemaining()) {
+                        channel.write(block, position + block.position());
+                    }
+
+                    numWrites += 1;
+
+                    // A sync counts towards the latency of the
+                    // write it follows.
+                    if (syncInterval > 0 && numWrites % syncInterval == 0) {
+                        channel.force(syncMetadata);
+                    }
+
+                    recordLatency(operationStart);
+
+                    // Wait until the next write is due.
+                    pace();
+                }
+
+                // Sync whatever was written since the last sync.
+                if (syncInterval > 0) {
+                    channel.force(syncMetadata);
+                }
+
+            } finally {
+
+                // Stop dropping the page cache even if an operation failed.
+                if (dropper != null) {
+                    dropper.interrupt();
+                }
+            }
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            printNumberOfBytesWritten(
+                    numWrites * blockSize
+            );
+
+            System.out.println(
+                    String.format(
+                            "THROUGHPUT: [%.2f] MB/s, [%.0f] writes/s",
+                            numWrites * blockSize / seconds / 1000000.0,
+                            numWrites / seconds
+                    )
+            );
+        }
+    }
+
+
+    /**
+     * Checks the options against {@link #outputFilename}, and for
+     * patterns writing out of order, fills in the span, so that none
+     * of this is timed.  {@link WorkloadDriver} calls this on every
+     * worker before starting them together; otherwise the first
+     * {@link #writeBlocks()} does.
+     * @return True if the blocks can be written, false otherwise.
+     */
+    boolean prepare ()
+            throws IOException
+    {
+        if (blockSize == 0) {
+            return true;
+        }
+
+        // Direct writes must be whole file system blocks.
+        if (openOptions.contains(PageCache.DIRECT)) {
+
+            long alignment = PageCache.directAlignment(outputFilename);
+
+            if (blockSize % alignment != 0 ||
+                    startOffset % alignment != 0 ||
+                    !workload.isAligned(alignment)) {
+
+                System.out.println(
+                        "ERROR: -direct needs the block size, offset and stride to be" +
+                                " multiples of the [" + alignment + "] byte file system block!"
+                );
+
+                return false;
+            }
+        }
+
+        // Blocks written out of order must not land in holes,
+        // or the file system allocates them as it goes.
+        long end = startOffset + span - span % blockSize;
+
+        if (!workload.isSequential()) {
+
+            try (
+                    FileChannel channel = openChannel()
+            ) {
+
+                if (channel.size() < end) {
+                    preallocate(channel, end);
+                }
+            }
+        }
+
+        prepared = true;
+        return true;
+    }
+
+
+    /**
+     * Opens {@link #outputFilename} for writing, with any extra options.
+     */
+    private FileChannel openChannel ()
+            throws IOException
+    {
+        List<OpenOption> options = new ArrayList<>(openOptions);
+        options.add(StandardOpenOption.CREATE);
+        options.add(StandardOpenOption.WRITE);
+
+        return FileChannel.open(
+                Paths.get(outputFilename),
+                options.toArray(new OpenOption[0])
+        );
+    }
+
+
+    /**
+     * Fills the file with blocks from its current end up to the
+     * given end, then syncs it, so that the writes which follow
+     * overwrite allocated blocks and are not mixed with these.
+     */
+    private void preallocate (
+            FileChannel channel,
+            long end
+    )
+            throws IOException
+    {
+        ByteBuffer block = alignedBuffer(blockSize);
+
+        while (block.hasRemaining()) {
+            block.put(block.remaining() == 1 ? (byte) '\n' : (byte) '0');
+        }
+
+        // Stay block-aligned, as direct I/O needs.
+        long size = channel.size();
+        long position = Math.max(startOffset, size - size % blockSize);
+
+        System.out.println(
+                String.format(
+                        "PREALLOCATING [%d] bytes up to offset [%d]",
+                        end - position,
+                        end
+                )
+        );
+
+        for (; position < end; position += blockSize) {
+
+            block.clear();
+
+            while (block.hasRemaining()) {
+                channel.write(block, position + block.position());
+            }
+        }
+
+        channel.force(false);
+    }
+
+
+    /**
+     * Returns the latencies of the writes done so far.
+     */
+    LatencyHistogram latencies ()
+    {
+        return latencies;
+    }
+
+
+    /**
+     * Starts the schedule of {@link #scheduler}, if there is one,
+     * and the latency histograms.
+     */
+    private void startTiming ()
+    {
+        if (scheduler != null) {
+            scheduler.start();
+        }
+
+        latencies.reset();
+        lag = 0;
+
+        if (intervalLatencies != null) {
+
+            intervalLatencies.reset();
+            intervalStart = System.nanoTime();
+        }
+    }
+
+
+    /**
+     * Records the latency of the write started at the given nanoTime,
+     * printing an interval report if one is due.
+     */
+    private void recordLatency (
+            long operationStart
+    )
+    {
+        long now = System.nanoTime();
+        long latency = now - operationStart + lag;
+
+        latencies.record(latency);
+
+        if (intervalLatencies != null) {
+
+            intervalLatencies.record(latency);
+
+            if (now - intervalStart >= reportInterval) {
+
+                System.out.println(
+                        String.format(
+                                "INTERVAL: [%.0f] writes/s, ",
+                                intervalLatencies.count() / ((now - intervalStart) / 1e9)
+                        ) + intervalLatencies.summary()
+                );
+
+                intervalLatencies.reset();
+                intervalStart = now;
+            }
+        }
+    }
+
+
+    /**
+     * Waits until the next write is due: on the schedule of
+     * {@link #scheduler} if there is one, or after sleeping
+     * {@link #sleepInterval} milliseconds otherwise.
+     */
+    private void pace ()
+            throws InterruptedException
+    {
+        if (scheduler != null) {
+            lag = scheduler.awaitNext();
+        } else if (sleepInterval > 0) {
+            TimeUnit.MILLISECONDS.sleep(sleepInterval);
+        }
+    }
+
+
+    /**
+     * Writes to {@link #outputFilename} block by block if a block
+     * size was given, or 0's line-by-line otherwise.
+     */
+    void write ()
+            throws IOException, InterruptedException
+    {
+        if (blockSize > 0) {
+            writeBlocks();
+        } else {
+            writeZeroes();
+        }
+        System.out.println(
+                "LATENCY: " + latencies.summary()
+        );
+
+        // Report how well the schedule was kept.
+        if (scheduler != null) {
+            System.out.println(
+                    scheduler.summary()
+            );
+        }
+    }
+
+
+    /**
+     * Returns a direct buffer of the given capacity whose start
+     * is aligned to {@link #BUFFER_ALIGNMENT} bytes in memory.
+     */
+    static ByteBuffer alignedBuffer (
+            int capacity
+    )
+    {
+        return ByteBuffer.allocateDirect(capacity + BUFFER_ALIGNMENT)
+                .alignedSlice(BUFFER_ALIGNMENT)
+                .limit(capacity)
+                .slice();
+    }
+
+
+    /**
+     * Parses a number of bytes, which may end in K, M or G
+     * for powers of 1024, e.g. 4K.
+     * @return The number of bytes, or -1 if it is not valid.
+     */
+    static long parseSize (
+            String text
+    )
+    {
+        long multiplier = 1;
+
+        switch (text.isEmpty() ? ' ' : Character.toUpperCase(text.charAt(text.length() - 1))) {
+
+            case 'K':
+                multiplier = 1L << 10;
+                break;
+
+            case 'M':
+                multiplier = 1L << 20;
+                break;
+
+            case 'G':
+                multiplier = 1L << 30;
+                break;
+        }
+
+        if (multiplier > 1) {
+            text = text.substring(0, text.length() - 1);
+        }
+
+        try {
+
+            long value = Long.parseLong(text);
+
+            if (value < 0 || value > Long.MAX_VALUE / multiplier) {
+                return -1;
+            }
+
+            return value * multiplier;
+
+        } catch (NumberFormatException exception) {
+
+            return -1;
+        }
+    }
+
+
+    /**
+     * Parses a plain count, such as a number of threads or seconds,
+     * which unlike a size takes no K, M or G suffix.
+     * @return The count, or -1 if it is not valid.
+     */
+    static long parseCount (
+            String text
+    )
+    {
+        try {
+
+            return Math.max(Long.parseLong(text), -1);
+
+        } catch (NumberFormatException exception) {
+
+            return -1;
+        }
+    }
+
+
+    /**
+     * Prints out the number of bytes written with
+     * appropriate units (i.e. KB, MB, GB).
+     * Note that each write writes one byte.
+     */
+    void printNumberOfBytesWritten (
+            long lengthOfFile
+    )
+    {
+        // Save the number of bytes written.
+        String numberBytesWritten = "";
+
+        if (lengthOfFile < 1000) {
+
+            numberBytesWritten = lengthOfFile + "";
+        }
+
+        else if (lengthOfFile < 1000000) {
+
+            numberBytesWritten = String.format(
+                    "%.2f KB",
+                    lengthOfFile / 1000.0
+            );
+        }
+
+        else if (lengthOfFile < 1000000000) {
+
+            numberBytesWritten = String.format(
+                    "%.2f MB",
+                    lengthOfFile / 1000000.0
+            );
+        }
+
+        else {
+
+            numberBytesWritten = String.format(
+                    "%.2f GB",
+                    lengthOfFile / 1000000000.0
+            );
+        }
+
+        System.out.println(
+                "WROTE: " + numWrites + " times for total of " + numberBytesWritten
+        );
+    }
+
+
+    /**
+     * Returns the number of writes done so far.
+     */
+    long numWrites ()
+    {
+        return numWrites;
+    }
+
+
+    /**
+     * Returns the number of bytes written so far.
+     */
+    long numBytesWritten ()
+    {
+        if (blockSize > 0) {
+            return numWrites * blockSize;
+        }
+
+        // Each line-by-line write is a 0 and a line separator.
+        return numWrites * (1 + System.lineSeparator().length());
+    }
+
+
+    /**
+     * Writes 0's to the file {@link #outputFilename} with
+     * {@link #sleepInterval} milliseconds between each write for
+     * {@link #duration} seconds.
+     */
+    public static void main (
+            String args[]
+    )
+            throws IOException, InterruptedException
+    {
+        // Object for writing 0's out to a file.
+        Writer writer = new Writer();
+
+        if (writer.processInput(args)) {
+            System.out.println(
+                String.format(
+                        "write duration: [%d]s\n" +
+                                "sleep interval: [%d]ms\n" +
+                                "filename: [%s]",
+                        writer.duration / 1000,
+                        writer.sleepInterval,
+                        writer.outputFilename
+                )
+            );
+
+            writer.write();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package tracebuilder;
+
+import java.util.SplittableRandom;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following class samples ranks 1 through n   *
+ *      from a Zipf distribution, where rank k is drawn *
+ *      with probability proportional to 1 / k^theta.   *
+ *      It uses rejection-inversion sampling (Hormann   *
+ *      and Derflinger), which needs constant time and  *
+ *      memory no matter how large n is, so that ranks  *
+ *      can be drawn over every block of a disk.        *
+ ********************************************************/
+
+final class ZipfDistribution {
+
+
+    /* ***************************************************************
+     *                                                               *
+     *                       Global Variables                        *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Specifies the number of ranks.
+     */
+    private final long numRanks;
+
+
+    /**
+     * Specifies the exponent of the distribution.
+     */
+    private final double theta;
+
+
+    /**
+     * Specifies H(1.5) - 1, the upper end of the range sampled.
+     */
+    private final double hIntegralOne;
+
+
+    /**
+     * Specifies H(n + 0.5), the lower end of the range sampled.
+     */
+    private final double hIntegralNumRanks;
+
+
+    /**
+     * Specifies the width around each rank that is
+     * accepted without evaluating H.
+     */
+    private final double acceptWidth;
+
+
+    /**
+     * Specifies the mask of the smallest power of two
+     * no less than the number of ranks.
+     */
+    private final long scatterMask;
+
+
+    /**
+     * Specifies the shift mixing the high bits of a
+     * rank into its low bits when it is scattered.
+     */
+    private final int scatterShift;
+
+
+
+    /**
+     * Creates a distribution over the ranks 1 through numRanks
+     * with the given positive exponent.
+     */
+    ZipfDistribution (
+            long numRanks,
+            double theta
+    )
+    {
+        if (numRanks < 1 || !(theta > 0)) {
+            throw new IllegalArgumentException(
+                    "Zipf distribution needs at least one rank and a positive exponent"
+            );
+        }
+
+        this.numRanks = numRanks;
+        this.theta = theta;
+
+        hIntegralOne = hIntegral(1.5) - 1;
+        hIntegralNumRanks = hIntegral(numRanks + 0.5);
+        acceptWidth = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(numRanks - 1, 1));
+
+        scatterMask = -1L >>> (64 - bits);
+        scatterShift = bits / 2 + 1;
+    }
+
+
+
+    /* ***************************************************************
+     *                                                               *
+     *            Functions responsible for drawing ranks.           *
+     *                                                               *
+     *****************************************************************/
+
+
+    /**
+     * Returns the number of ranks.
+     */
+    long numRanks ()
+    {
+        return numRanks;
+    }
+
+
+    /**
+     * Draws a rank between 1 and {@link #numRanks}, where
+     * rank 1 is the most likely.
+     */
+    long sample (
+            SplittableRandom random
+    )
+    {
+        while (true) {
+
+            double u = hIntegralNumRanks +
+                    random.nextDouble() * (hIntegralOne - hIntegralNumRanks);
+
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+
+            if (k < 1) {
+                k = 1;
+            }
+
+            else if (k > numRanks) {
+                k = numRanks;
+            }
+
+            // Most draws are accepted without evaluating H.
+            if (k - x <= acceptWidth || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+
+    /**
+     * Maps the given rank to a position from 0 up to {@link #numRanks},
+     * different ranks always to different positions, so that the most
+     * likely ranks are not all next to each other.  Each step permutes
+     * the numbers below the power of two, so stepping until the number
+     * is below the number of ranks permutes those, in two steps on
+     * average.
+     */
+    long scatter (
+            long rank
+    )
+    {
+        long position = rank - 1;
+
+        do {
+
+            position = (position * 0x9E3779B97F4A7C15L + 0x632BE59BD9B4E019L) & scatterMask;
+            position ^= position >>> scatterShift;
+
+        } while (position >= numRanks);
+
+        return position;
+    }
+
+
+    /**
+     * Returns H(x), the integral of h from 1 to x, up to a constant.
+     */
+    private double hIntegral (
+            double x
+    )
+    {
+        double logX = Math.log(x);
+        return expm1OverX((1 - theta) * logX) * logX;
+    }
+
+
+    /**
+     * Returns h(x) = 1 / x^theta.
+     */
+    private double h (
+            double x
+    )
+    {
+        return Math.exp(-theta * Math.log(x));
+    }
+
+
+    /**
+     * Returns the inverse of {@link #hIntegral(double)}.
+     */
+    private double hIntegralInverse (
+            double x
+    )
+    {
+        double t = Math.max(x * (1 - theta), -1);
+        return Math.exp(log1pOverX(t) * x);
+    }
+
+
+    /**
+     * Returns log(1 + x) / x, which tends to 1 as x tends to 0.
+     */
+    private static double log1pOverX (
+            double x
+    )
+    {
+        if (Math.abs(x) > 1e-8) {
+            return Math.log1p(x) / x;
+        }
+
+        return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+
+    /**
+     * Returns (e^x - 1) / x, which tends to 1 as x tends to 0.
+     */
+    private static double expm1OverX (
+            double x
+    )
+    {
+        if (Math.abs(x) > 1e-8) {
+            return Math.expm1(x) / x;
+        }
+
+        return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
@@ -0,0 +1,95 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests write blkparse output as a  *
+ *      binary trace with {@link BinaryTraceWriter}     *
+ *      and read it back with                           *
+ *      {@link BinaryTraceReader}.                      *
+ ********************************************************/
+
+class BinaryTraceTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * Reading a binary trace back to CSV gives exactly the CSV lines
+     * of the I/O events, the only events a binary trace keeps.
+     */
+    @Test
+    void roundTripsEvents ()
+            throws Exception
+    {
+        roundTrip("trace.bin");
+    }
+
+
+    /**
+     * A gzipped binary trace reads back the same as a plain one.
+     */
+    @Test
+    void roundTripsGzippedEvents ()
+            throws Exception
+    {
+        roundTrip("trace.bin.gz");
+    }
+
+
+    /**
+     * Converts generated blkparse output to CSV and to the binary
+     * trace of the given name, then checks that the binary trace
+     * converted back to CSV matches the I/O events of the former.
+     */
+    private void roundTrip (
+            String binaryName
+    )
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+        Path binary = directory.resolve(binaryName);
+        Path reloaded = directory.resolve("reloaded.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "3", "20000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), trace.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                "-binary", blkparse.toString(), binary.toString()
+        });
+
+        BinaryTraceReader.main(new String[] {
+                binary.toString(), reloaded.toString()
+        });
+
+        // I/O events are the lines with a sector count.
+        List<String> expected = Files.readAllLines(trace).stream()
+                .filter(line -> !line.endsWith(",") && line.split(",").length == 8)
+                .collect(Collectors.toList());
+
+        List<String> actual = Files.readAllLines(reloaded);
+
+        assertTrue(expected.size() > 10_000, "events: " + expected.size());
+        assertEquals(expected, actual);
+    }
+}
@@ -0,0 +1,156 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests convert blkparse output     *
+ *      with the filter options of                      *
+ *      {@link BlkparseToCSV}, and check the kept lines *
+ *      against the same selection made by hand.        *
+ ********************************************************/
+
+class BlkparseFilterTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * Values of one option are alternatives, and different options
+     * must all match.
+     */
+    @Test
+    void matchesAnyValueOfEveryOption ()
+            throws Exception
+    {
+        checkFilter(
+                new String[] {
+                        "-action", "Q", "-action", "D",
+                        "-rbws", "R", "-rbws", "WS",
+                        "-process", "fio", "-process", "java"
+                },
+                fields -> Set.of("Q", "D").contains(fields[5]) &&
+                        Set.of("R", "WS").contains(fields[6]) &&
+                        Set.of("[fio]", "[java]").contains(fields[10])
+        );
+    }
+
+
+    /**
+     * Devices and pids select lines the same way.
+     */
+    @Test
+    void matchesDeviceAndPid ()
+            throws Exception
+    {
+        checkFilter(
+                new String[] {
+                        "-device", "259,1",
+                        "-pid", "2505", "-pid", "40266", "-pid", "0"
+                },
+                fields -> fields[0].equals("259,1") &&
+                        Set.of("2505", "40266", "0").contains(fields[4])
+        );
+    }
+
+
+    /**
+     * An rbws has to match exactly, and lines which are not
+     * I/O events are dropped by any filter.
+     */
+    @Test
+    void matchesRbwsExactly ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+
+        Files.write(blkparse, List.of(
+                "259,1    0        1     0.000003547 40266  Q   R 853874592 + 16 [java]",
+                "259,1    0        2     0.000005318 42551  Q  RA 1261014608 + 32 [fio]",
+                "259,1    6        3     0.000085955 41577  P   N [postgres]",
+                "259,1    1        4     0.000012999 48456  D   R 643153400 + 32 [fio]",
+                "CPU0 (259,1):",
+                " Reads Queued:           2,       48KiB"
+        ));
+
+        BlkparseToCSV.main(new String[] {
+                "-rbws", "R", "-rbws", "N", blkparse.toString(), trace.toString()
+        });
+
+        assertEquals(
+                List.of(
+                        "259,1,1,0.000003547,40266,R,853874592,16",
+                        "259,1,4,0.000012999,48456,R,643153400,32"
+                ),
+                Files.readAllLines(trace)
+        );
+    }
+
+
+    /**
+     * Converts generated blkparse output with and without the given
+     * filter options, and checks that the filtered CSV holds exactly
+     * the lines whose blkparse fields the given condition accepts.
+     */
+    private void checkFilter (
+            String[] options,
+            Predicate<String[]> condition
+    )
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+        Path filtered = directory.resolve("filtered.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "11", "20000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), trace.toString()
+        });
+
+        String[] arguments = new String[options.length + 2];
+        System.arraycopy(options, 0, arguments, 0, options.length);
+        arguments[options.length] = blkparse.toString();
+        arguments[options.length + 1] = filtered.toString();
+
+        BlkparseToCSV.main(arguments);
+
+        // Each line of the unfiltered CSV comes from the same line
+        // of the input, so select the lines to keep by their input.
+        List<String> lines = Files.readAllLines(blkparse);
+        List<String> csv = Files.readAllLines(trace);
+        List<String> expected = new ArrayList<>();
+
+        assertEquals(lines.size(), csv.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+
+            String[] fields = lines.get(i).trim().split(" +");
+
+            if (fields.length == 11 && fields[8].equals("+") && condition.test(fields)) {
+                expected.add(csv.get(i));
+            }
+        }
+
+        assertTrue(expected.size() > 100, "kept: " + expected.size());
+        assertEquals(expected, Files.readAllLines(filtered));
+    }
+}
@@ -0,0 +1,117 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests generate blkparse output    *
+ *      with {@link BlkparseGenerator}, and check that  *
+ *      it depends on the seed alone and keeps to the   *
+ *      options given.                                  *
+ ********************************************************/
+
+class BlkparseGeneratorTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * The same seed generates the same lines on any number of
+     * threads, for every offset pattern, and another seed does not.
+     */
+    @Test
+    void dependsOnSeedAlone ()
+            throws Exception
+    {
+        for (String pattern : new String[] { "uniform", "sequential", "zipf" }) {
+
+            byte[] single = generate("-seed", "21", "-lba", pattern, "-threads", "1", "50000");
+            byte[] parallel = generate("-seed", "21", "-lba", pattern, "-threads", "4", "50000");
+            byte[] other = generate("-seed", "22", "-lba", pattern, "-threads", "4", "50000");
+
+            assertArrayEquals(single, parallel, pattern);
+            assertFalse(Arrays.equals(single, other), pattern);
+        }
+    }
+
+
+    /**
+     * Every line is numbered in turn and keeps to the actions, rbws,
+     * sizes, device and sectors asked for, with zipf offsets aligned.
+     */
+    @Test
+    void keepsToOptions ()
+            throws Exception
+    {
+        generate(
+                "-seed", "23", "-threads", "3",
+                "-actions", "Q=2,C=1", "-rbws", "R=1,WS=1", "-sizes", "8=3,256=1",
+                "-lba", "zipf", "-sectors", "1048576", "-device", "8,16",
+                "20000"
+        );
+
+        List<String> lines = Files.readAllLines(directory.resolve("blkparse.txt"));
+        int numQueued = 0;
+
+        assertEquals(20000, lines.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+
+            String[] fields = lines.get(i).trim().split(" +");
+            long offset = Long.parseLong(fields[7]);
+            long size = Long.parseLong(fields[9]);
+
+            assertEquals("8,16", fields[0]);
+            assertEquals(i + 1, Long.parseLong(fields[2]), lines.get(i));
+            assertTrue(Set.of("Q", "C").contains(fields[5]), lines.get(i));
+            assertTrue(Set.of("R", "WS").contains(fields[6]), lines.get(i));
+            assertTrue(size == 8 || size == 256, lines.get(i));
+            assertEquals("+", fields[8]);
+            assertTrue(offset >= 0 && offset < 1048576, lines.get(i));
+            assertEquals(0, offset % 8, lines.get(i));
+
+            if (fields[5].equals("Q")) {
+                numQueued++;
+            }
+        }
+
+        assertEquals(2.0 / 3, numQueued / 20000.0, 0.02);
+    }
+
+
+    /**
+     * Runs the generator with the given arguments, the last of which
+     * is the number of lines, into blkparse.txt.
+     * @return The lines generated.
+     */
+    private byte[] generate (
+            String... arguments
+    )
+            throws Exception
+    {
+        Path output = directory.resolve("blkparse.txt");
+
+        String[] withOutput = Arrays.copyOf(arguments, arguments.length + 1);
+        withOutput[arguments.length] = output.toString();
+
+        BlkparseGenerator.main(withOutput);
+
+        return Files.readAllBytes(output);
+    }
+}
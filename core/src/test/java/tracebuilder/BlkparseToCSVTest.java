@@ -0,0 +1,205 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests convert blkparse output     *
+ *      with {@link BlkparseToCSV} in each of its       *
+ *      modes, and check that every mode writes the     *
+ *      same CSV.                                       *
+ ********************************************************/
+
+class BlkparseToCSVTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * Converting from a named pipe, as with <(blkparse ...), gives
+     * the same CSV as converting the same output from a file.
+     */
+    @Test
+    void convertsFromPipe ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path expected = directory.resolve("expected.csv");
+        Path pipe = directory.resolve("blkparse.fifo");
+        Path actual = directory.resolve("actual.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "7", "10000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), expected.toString()
+        });
+
+        assumeTrue(
+                makeFifo(pipe),
+                "mkfifo is not available"
+        );
+
+        // Feed the pipe as blkparse would, while it is converted.
+        CompletableFuture<Void> feeder = CompletableFuture.runAsync(
+                () -> {
+
+                    try (
+                            OutputStream output = Files.newOutputStream(pipe)
+                    ) {
+
+                        Files.copy(blkparse, output);
+
+                    } catch (IOException exception) {
+
+                        throw new RuntimeException(exception);
+                    }
+                }
+        );
+
+        BlkparseToCSV.main(new String[] {
+                pipe.toString(), actual.toString()
+        });
+
+        feeder.get();
+
+        byte[] expectedBytes = Files.readAllBytes(expected);
+
+        assertTrue(expectedBytes.length > 0);
+        assertArrayEquals(expectedBytes, Files.readAllBytes(actual));
+    }
+
+
+    /**
+     * Converting memory-mapped, or on several threads, gives byte
+     * for byte the CSV the original line-by-line converter gives,
+     * summary lines included.
+     */
+    @Test
+    void parallelMatchesLegacy ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path legacy = directory.resolve("legacy.csv");
+        Path mapped = directory.resolve("mapped.csv");
+        Path parallel = directory.resolve("parallel.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "3", "-trailer", "300000", blkparse.toString()
+        });
+
+        // Several chunks of the parallel conversion.
+        assertTrue(Files.size(blkparse) > 16 * 1024 * 1024);
+
+        BlkparseToCSV.main(new String[] {
+                "-legacy", blkparse.toString(), legacy.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), mapped.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                "-threads", "4", blkparse.toString(), parallel.toString()
+        });
+
+        byte[] expectedBytes = Files.readAllBytes(legacy);
+
+        assertArrayEquals(expectedBytes, Files.readAllBytes(mapped));
+        assertArrayEquals(expectedBytes, Files.readAllBytes(parallel));
+    }
+
+
+    /**
+     * Following a file as blkparse appends to it, stopping partway
+     * through a line and resuming from the checkpoint, gives the
+     * same CSV as converting the finished file, with no line
+     * written twice or dropped.
+     */
+    @Test
+    void followResumesFromCheckpoint ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path expected = directory.resolve("expected.csv");
+        Path live = directory.resolve("live.txt");
+        Path actual = directory.resolve("actual.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "9", "20000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), expected.toString()
+        });
+
+        // Cut the input in the middle of a line.
+        byte[] bytes = Files.readAllBytes(blkparse);
+        int cut = bytes.length / 2;
+
+        while (bytes[cut - 1] == '\n') {
+            cut++;
+        }
+
+        Files.write(live, Arrays.copyOf(bytes, cut));
+
+        BlkparseToCSV.main(new String[] {
+                "-follow", "-idle", "1", live.toString(), actual.toString()
+        });
+
+        assertTrue(Files.exists(directory.resolve("actual.csv.checkpoint")));
+
+        Files.write(
+                live,
+                Arrays.copyOfRange(bytes, cut, bytes.length),
+                StandardOpenOption.APPEND
+        );
+
+        BlkparseToCSV.main(new String[] {
+                "-follow", "-idle", "1", live.toString(), actual.toString()
+        });
+
+        assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual));
+    }
+
+
+    /**
+     * Makes a named pipe at the given path.
+     * @return True if it was made, false otherwise.
+     */
+    private static boolean makeFifo (
+            Path path
+    )
+            throws InterruptedException
+    {
+        try {
+
+            return new ProcessBuilder("mkfifo", path.toString())
+                    .inheritIO()
+                    .start()
+                    .waitFor() == 0;
+
+        } catch (IOException exception) {
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests write gzipped CSV through   *
+ *      {@link GzipBlockChannel}, and check that it is  *
+ *      made of one gzip member per block and reads     *
+ *      back as the plain CSV.                          *
+ ********************************************************/
+
+class GzipBlockChannelTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * Gzipped output has a complete, checksummed member for every
+     * {@link GzipBlockChannel#BLOCK_SIZE} bytes of CSV, and both
+     * {@link GZIPInputStream} and gunzip read it as the plain CSV.
+     */
+    @Test
+    void writesMultiMemberGzip ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path plain = directory.resolve("trace.csv");
+        Path gzipped = directory.resolve("trace.csv.gz");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "13", "100000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), plain.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), gzipped.toString()
+        });
+
+        byte[] expected = Files.readAllBytes(plain);
+        byte[] compressed = Files.readAllBytes(gzipped);
+
+        assertTrue(expected.length > 2 * GzipBlockChannel.BLOCK_SIZE);
+
+        int numMembers = checkMembers(compressed, expected);
+        int minMembers = (expected.length - 1) / GzipBlockChannel.BLOCK_SIZE + 1;
+
+        assertTrue(numMembers >= minMembers, "members: " + numMembers);
+
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(gzipped))) {
+            assertArrayEquals(expected, input.readAllBytes());
+        }
+
+        assertArrayEquals(expected, gunzip(gzipped));
+    }
+
+
+    /**
+     * Inflates the gzip members of the given file one at a time,
+     * checking each member's CRC and length and that together they
+     * inflate to the given bytes.
+     * @return The number of members.
+     */
+    private static int checkMembers (
+            byte[] compressed,
+            byte[] expected
+    )
+            throws Exception
+    {
+        Inflater inflater = new Inflater(true);
+        byte[] member = new byte[GzipBlockChannel.BLOCK_SIZE];
+
+        int position = 0;
+        int inflated = 0;
+        int numMembers = 0;
+
+        while (position < compressed.length) {
+
+            // Magic number, deflate and no flags, then a fixed header.
+            assertEquals(0x1f, compressed[position] & 0xff);
+            assertEquals(0x8b, compressed[position + 1] & 0xff);
+            assertEquals(8, compressed[position + 2]);
+            assertEquals(0, compressed[position + 3]);
+
+            inflater.reset();
+            inflater.setInput(compressed, position + 10, compressed.length - position - 10);
+
+            int length = 0;
+
+            while (!inflater.finished()) {
+
+                int read = inflater.inflate(member, length, member.length - length);
+                assertTrue(read > 0 || inflater.finished(), "truncated member");
+                length += read;
+            }
+
+            position = compressed.length - inflater.getRemaining();
+
+            CRC32 crc = new CRC32();
+            crc.update(member, 0, length);
+
+            assertEquals((int) crc.getValue(), readInt(compressed, position));
+            assertEquals(length, readInt(compressed, position + 4));
+            assertArrayEquals(
+                    Arrays.copyOfRange(expected, inflated, inflated + length),
+                    Arrays.copyOf(member, length)
+            );
+
+            position += 8;
+            inflated += length;
+            numMembers++;
+        }
+
+        assertEquals(expected.length, inflated);
+
+        return numMembers;
+    }
+
+
+    /**
+     * Returns the little-endian int at the given position.
+     */
+    private static int readInt (
+            byte[] bytes,
+            int position
+    )
+    {
+        return (bytes[position] & 0xff) |
+                (bytes[position + 1] & 0xff) << 8 |
+                (bytes[position + 2] & 0xff) << 16 |
+                (bytes[position + 3] & 0xff) << 24;
+    }
+
+
+    /**
+     * Returns the given file decompressed by gunzip,
+     * skipping the test if gunzip is not available.
+     */
+    private static byte[] gunzip (
+            Path file
+    )
+            throws InterruptedException
+    {
+        try {
+
+            Process process = new ProcessBuilder("gunzip", "-c", file.toString())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+
+            byte[] output = process.getInputStream().readAllBytes();
+
+            assertEquals(0, process.waitFor());
+
+            return output;
+
+        } catch (IOException exception) {
+
+            assumeTrue(false, "gunzip is not available");
+            return null;
+        }
+    }
+}
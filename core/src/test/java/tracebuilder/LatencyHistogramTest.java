@@ -0,0 +1,119 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests record known latencies in   *
+ *      a {@link LatencyHistogram} and check the        *
+ *      percentiles and statistics it reports.          *
+ ********************************************************/
+
+class LatencyHistogramTest {
+
+
+    /**
+     * Specifies the relative error allowed of a percentile,
+     * the width of a bucket.
+     */
+    private static final double PRECISION = 1.0 / 128;
+
+
+    /**
+     * Percentiles of the latencies 1 to a million are within a bucket
+     * of the exact ones, and never below them.
+     */
+    @Test
+    void findsPercentilesWithinPrecision ()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        for (long nanos = 1; nanos <= 1_000_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        for (double percentile : new double[] { 1, 10, 50, 90, 99, 99.9, 99.99, 100 }) {
+
+            long exact = (long) Math.ceil(percentile / 100 * 1_000_000);
+            long value = histogram.valueAtPercentile(percentile);
+
+            assertTrue(value >= exact, percentile + ": " + value);
+            assertTrue(value <= exact * (1 + PRECISION), percentile + ": " + value);
+        }
+
+        assertEquals(1_000_000, histogram.count());
+        assertEquals(1, histogram.min());
+        assertEquals(1_000_000, histogram.max());
+        assertEquals(500_000.5, histogram.mean(), 1e-9);
+        assertEquals(1_000_000, histogram.valueAtPercentile(100));
+    }
+
+
+    /**
+     * Small latencies and latencies of minutes are kept as precisely.
+     */
+    @Test
+    void keepsPrecisionAtEveryScale ()
+    {
+        long[] latencies = {
+                0, 1, 255, 256, 1_000, 123_456_789, 600_000_000_000L, Long.MAX_VALUE / 2
+        };
+
+        for (long nanos : latencies) {
+
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(nanos);
+            histogram.record(nanos + 1);
+
+            long value = histogram.valueAtPercentile(50);
+
+            assertTrue(value >= nanos, nanos + ": " + value);
+            assertTrue(value <= nanos + nanos * PRECISION, nanos + ": " + value);
+        }
+    }
+
+
+    /**
+     * Merging histograms counts the latencies of both, and
+     * negative latencies count as 0.
+     */
+    @Test
+    void mergesHistograms ()
+    {
+        LatencyHistogram low = new LatencyHistogram();
+        LatencyHistogram high = new LatencyHistogram();
+        LatencyHistogram all = new LatencyHistogram();
+
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+
+            (nanos <= 5_000 ? low : high).record(nanos * 1000);
+            all.record(nanos * 1000);
+        }
+
+        low.record(-5);
+        all.record(0);
+
+        low.merge(high);
+
+        assertEquals(all.count(), low.count());
+        assertEquals(0, low.min());
+        assertEquals(10_000_000, low.max());
+        assertEquals(all.mean(), low.mean(), 1e-9);
+
+        for (double percentile : new double[] { 0, 25, 50, 75, 99, 100 }) {
+            assertEquals(all.valueAtPercentile(percentile), low.valueAtPercentile(percentile));
+        }
+
+        low.reset();
+
+        assertEquals(0, low.count());
+        assertEquals(0, low.min());
+        assertEquals(0, low.max());
+        assertEquals(0, low.valueAtPercentile(50));
+    }
+}
@@ -0,0 +1,81 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests check the curve of          *
+ *      {@link MissRatioCurve} against LRU caches       *
+ *      simulated by {@link CacheSimulator}.            *
+ ********************************************************/
+
+class MissRatioCurveTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * Without sampling, the miss ratio at every cache size is
+     * exactly that of an LRU cache of that size.
+     */
+    @Test
+    void matchesSimulatedLru ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+        Path curve = directory.resolve("curve.csv");
+        Path simulated = directory.resolve("simulated.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "11", "-lba", "zipf", "-sectors", "1048576", "50000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), trace.toString()
+        });
+
+        MissRatioCurve.main(new String[] {
+                trace.toString(), curve.toString()
+        });
+
+        CacheSimulator.main(new String[] {
+                "-policies", "lru", "-sizes", "4K,64K,256K,1M,4M", trace.toString(), simulated.toString()
+        });
+
+        // cache size (in bytes),cache size (in blocks),miss ratio
+        Map<String, Double> missRatios = new HashMap<>();
+
+        for (String line : Files.readAllLines(curve)) {
+
+            String[] fields = line.split(",");
+            missRatios.put(fields[0], Double.parseDouble(fields[2]));
+        }
+
+        // policy,cache size (in bytes),cache size (in blocks),accesses,hits,hit ratio
+        List<String> lines = Files.readAllLines(simulated);
+
+        assertEquals(5, lines.size());
+
+        for (String line : lines) {
+
+            String[] fields = line.split(",");
+            double expected = 1 - Double.parseDouble(fields[4]) / Double.parseDouble(fields[3]);
+
+            assertEquals(expected, missRatios.getOrDefault(fields[1], 0.0), 1e-6, line);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests pace operations with        *
+ *      {@link RateScheduler} and check when they are   *
+ *      released.  A deadline is never met early, so    *
+ *      elapsed times are checked exactly from below    *
+ *      and loosely from above, for slow machines.      *
+ ********************************************************/
+
+class RateSchedulerTest {
+
+
+    /**
+     * Specifies how late a schedule may finish
+     * on a busy machine, in nanoseconds.
+     */
+    private static final long SLACK_NANOS = 150_000_000L;
+
+
+    /**
+     * Operations at a fixed rate are spaced by one over the rate.
+     */
+    @Test
+    void keepsFixedRate ()
+    {
+        RateScheduler scheduler = RateScheduler.fixed(1000);
+
+        long elapsed = run(scheduler, 200);
+
+        assertTrue(elapsed >= 200_000_000L, "elapsed: " + elapsed);
+        assertTrue(elapsed < 200_000_000L + SLACK_NANOS, "elapsed: " + elapsed);
+    }
+
+
+    /**
+     * Deadlines are counted from the start of the schedule, so the
+     * operations after a stall are released late and at once until
+     * they catch up, and the schedule still ends on time.
+     */
+    @Test
+    void catchesUpAfterStall ()
+            throws InterruptedException
+    {
+        RateScheduler scheduler = RateScheduler.fixed(100);
+
+        long start = System.nanoTime();
+        scheduler.start();
+
+        Thread.sleep(55);
+
+        // The operations due at 10, 20, 30, 40 and 50 ms are overdue.
+        long firstLag = scheduler.awaitNext();
+
+        for (int i = 1; i < 10; i++) {
+            scheduler.awaitNext();
+        }
+
+        long elapsed = System.nanoTime() - start;
+
+        assertTrue(firstLag >= 40_000_000L, "lag: " + firstLag);
+        assertTrue(scheduler.numLate() >= 5, "late: " + scheduler.numLate());
+        assertTrue(scheduler.maxLagNanos() >= firstLag);
+        assertTrue(elapsed >= 100_000_000L, "elapsed: " + elapsed);
+        assertTrue(elapsed < 100_000_000L + SLACK_NANOS, "elapsed: " + elapsed);
+    }
+
+
+    /**
+     * Bursts add their idle periods to the schedule: at 1000 per
+     * second in bursts of 10 ms, the 20th operation after the first
+     * is due after 20 ms of bursts and two idle periods of 40 ms.
+     */
+    @Test
+    void idlesBetweenBursts ()
+    {
+        RateScheduler scheduler = RateScheduler.burst(1000, 10, 40);
+
+        long elapsed = run(scheduler, 20);
+
+        assertTrue(elapsed >= 100_000_000L, "elapsed: " + elapsed);
+        assertTrue(elapsed < 100_000_000L + SLACK_NANOS, "elapsed: " + elapsed);
+    }
+
+
+    /**
+     * Poisson arrivals average the given rate.
+     */
+    @Test
+    void averagesPoissonRate ()
+    {
+        RateScheduler scheduler = RateScheduler.poisson(10_000, 42);
+
+        long elapsed = run(scheduler, 2000);
+
+        assertTrue(elapsed >= 160_000_000L, "elapsed: " + elapsed);
+        assertTrue(elapsed < 240_000_000L + SLACK_NANOS, "elapsed: " + elapsed);
+    }
+
+
+    /**
+     * Every documented schedule parses, and malformed ones do not.
+     */
+    @Test
+    void parsesSchedules ()
+    {
+        assertNotNull(RateScheduler.parse("500"));
+        assertNotNull(RateScheduler.parse("2.5"));
+        assertNotNull(RateScheduler.parse("poisson:500"));
+        assertNotNull(RateScheduler.parse("poisson:500:7"));
+        assertNotNull(RateScheduler.parse("burst:500:10:0"));
+
+        assertNull(RateScheduler.parse("0"));
+        assertNull(RateScheduler.parse("-5"));
+        assertNull(RateScheduler.parse("NaN"));
+        assertNull(RateScheduler.parse("Infinity"));
+        assertNull(RateScheduler.parse("fast"));
+        assertNull(RateScheduler.parse("poisson:500:7:1"));
+        assertNull(RateScheduler.parse("burst:500:10"));
+        assertNull(RateScheduler.parse("burst:500:0:10"));
+        assertNull(RateScheduler.parse("burst:500:10:-1"));
+        assertNull(RateScheduler.parse("steady:500"));
+    }
+
+
+    /**
+     * A deadline that has passed is not waited for.
+     */
+    @Test
+    void returnsLagOfPassedDeadline ()
+    {
+        long deadline = System.nanoTime() - 1_000_000L;
+
+        assertTrue(RateScheduler.awaitDeadline(deadline) >= 1_000_000L);
+        assertEquals(0, RateScheduler.awaitDeadline(System.nanoTime() + 1_000_000L));
+    }
+
+
+    /**
+     * Starts the given schedule and waits for the given number of
+     * operations after the first, which is due at once.
+     * @return The time taken in nanoseconds.
+     */
+    private static long run (
+            RateScheduler scheduler,
+            int numOperations
+    )
+    {
+        long start = System.nanoTime();
+        scheduler.start();
+
+        for (int i = 0; i < numOperations; i++) {
+            scheduler.awaitNext();
+        }
+
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,147 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests join the events of          *
+ *      handwritten I/Os with {@link RequestLifecycle}, *
+ *      and check the times worked out for each.        *
+ ********************************************************/
+
+class RequestLifecycleTest {
+
+
+    /**
+     * Specifies the blkparse output of five I/Os: a plain one, a back
+     * merge, a front merge, a requeue and one queued before the trace.
+     */
+    private static final List<String> BLKPARSE = List.of(
+            "259,1    0        1     1.000000000    10  Q   R 1000 + 8 [fio]",
+            "259,1    0        2     1.000100000    10  D   R 1000 + 8 [fio]",
+            "259,1    0        3     1.000600000     0  C   R 1000 + 8 [0]",
+            "259,1    0        4     2.000000000    11  Q   W 2000 + 8 [fio]",
+            "259,1    0        5     2.000010000    11  Q   W 2008 + 8 [fio]",
+            "259,1    0        6     2.000010000    11  M   W 2008 + 8 [fio]",
+            "259,1    0        7     2.000200000    11  D   W 2000 + 16 [fio]",
+            "259,1    0        8     2.001000000     0  C   W 2000 + 16 [0]",
+            "259,1    0        9     3.000000000    12  Q   R 3008 + 8 [fio]",
+            "259,1    0       10     3.000010000    12  Q   R 3000 + 8 [fio]",
+            "259,1    0       11     3.000010000    12  F   R 3000 + 8 [fio]",
+            "259,1    0       12     3.000300000    12  D   R 3000 + 16 [fio]",
+            "259,1    0       13     3.000400000     0  C   R 3000 + 16 [0]",
+            "259,1    0       14     4.000000000    13  Q  WS 4000 + 8 [fio]",
+            "259,1    0       15     4.000100000    13  D  WS 4000 + 8 [fio]",
+            "259,1    0       16     4.000200000    13  R  WS 4000 + 8 [fio]",
+            "259,1    0       17     4.000500000    13  D  WS 4000 + 8 [fio]",
+            "259,1    0       18     4.000700000     0  C  WS 4000 + 8 [0]",
+            "259,1    0       19     5.000000000    14  D   R 5000 + 8 [fio]",
+            "259,1    0       20     5.000300000     0  C   R 5000 + 8 [0]"
+    );
+
+
+    /**
+     * Specifies the I/Os joined from {@link #BLKPARSE}.
+     */
+    private static final List<String> EXPECTED = List.of(
+            "259,1,1000,8,R,10,1.000000000,100000,500000,600000,0,0",
+            "259,1,2000,16,W,11,2.000000000,200000,800000,1000000,1,0",
+            "259,1,3000,16,R,12,3.000000000,300000,100000,400000,1,0",
+            "259,1,4000,8,WS,13,4.000000000,500000,200000,700000,0,1",
+            "259,1,5000,8,R,14,5.000000000,-1,300000,-1,0,0"
+    );
+
+
+    @TempDir
+    Path directory;
+
+
+    private Path blkparse;
+    private Path output;
+
+
+    @BeforeEach
+    void writeBlkparse ()
+            throws Exception
+    {
+        blkparse = directory.resolve("blkparse.txt");
+        output = directory.resolve("lifecycle.csv");
+
+        Files.write(blkparse, BLKPARSE);
+    }
+
+
+    /**
+     * Blkparse output is joined directly.
+     */
+    @Test
+    void joinsBlkparseOutput ()
+            throws Exception
+    {
+        RequestLifecycle.main(new String[] {
+                blkparse.toString(), output.toString()
+        });
+
+        assertEquals(EXPECTED, Files.readAllLines(output));
+    }
+
+
+    /**
+     * A binary trace of the same output is joined the same way.
+     */
+    @Test
+    void joinsBinaryTrace ()
+            throws Exception
+    {
+        Path trace = directory.resolve("trace.bin");
+
+        BlkparseToCSV.main(new String[] {
+                "-binary", blkparse.toString(), trace.toString()
+        });
+
+        RequestLifecycle.main(new String[] {
+                trace.toString(), output.toString()
+        });
+
+        assertEquals(EXPECTED, Files.readAllLines(output));
+    }
+
+
+    /**
+     * With room for a single I/O in flight, the second I/O queued
+     * abandons the first, whose later events are left unmatched.
+     */
+    @Test
+    void abandonsOldestWhenFull ()
+            throws Exception
+    {
+        Files.write(blkparse, List.of(
+                "259,1    0        1     1.000000000    10  Q   R 1000 + 8 [fio]",
+                "259,1    0        2     1.000100000    11  Q   R 2000 + 8 [fio]",
+                "259,1    0        3     1.000200000    10  D   R 1000 + 8 [fio]",
+                "259,1    0        4     1.000300000    11  D   R 2000 + 8 [fio]",
+                "259,1    0        5     1.000400000     0  C   R 2000 + 8 [0]"
+        ));
+
+        RequestLifecycle.main(new String[] {
+                "-inflight", "1", blkparse.toString(), output.toString()
+        });
+
+        // The dispatch of the first I/O makes it look queued before
+        // the trace, and abandons the second in turn.
+        assertEquals(
+                List.of("259,1,2000,8,R,11,1.000300000,-1,100000,-1,0,0"),
+                Files.readAllLines(output)
+        );
+    }
+}
@@ -0,0 +1,160 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests query a binary trace with   *
+ *      {@link TraceQuery}, and check the events found  *
+ *      through its {@link TraceIndex} against a scan   *
+ *      of every event.                                 *
+ ********************************************************/
+
+class TraceQueryTest {
+
+
+    /**
+     * Specifies the sector range queried, which
+     * cuts through the middle of the generated offsets.
+     */
+    private static final long START_SECTOR = 500_000_000L;
+    private static final long END_SECTOR = 900_000_000L;
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * A query of a trace indexed by BlkparseToCSV -index finds
+     * exactly the events within the time and sector ranges.
+     */
+    @Test
+    void findsEventsInRange ()
+            throws Exception
+    {
+        Path trace = writeTrace(true);
+
+        checkQuery(trace, new String[0], (byte) 0);
+    }
+
+
+    /**
+     * A trace without an index is indexed first, with the given
+     * number of records per zone, and the action is matched too.
+     */
+    @Test
+    void indexesThenFindsEventsInRange ()
+            throws Exception
+    {
+        Path trace = writeTrace(false);
+
+        checkQuery(trace, new String[] { "-zone", "100", "-action", "Q" }, (byte) 'Q');
+
+        assertTrue(Files.exists(directory.resolve("trace.bin" + TraceIndex.SUFFIX)));
+    }
+
+
+    /**
+     * Converts generated blkparse output to a binary trace,
+     * indexing it as well if asked to.
+     */
+    private Path writeTrace (
+            boolean index
+    )
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.bin");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "17", "100000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(index
+                ? new String[] { "-binary", "-index", blkparse.toString(), trace.toString() }
+                : new String[] { "-binary", blkparse.toString(), trace.toString() }
+        );
+
+        return trace;
+    }
+
+
+    /**
+     * Queries the middle third of the given trace's time span and the
+     * sectors from {@link #START_SECTOR} up to {@link #END_SECTOR},
+     * with the given further options, and compares the CSV written
+     * with the events a scan of the whole trace matches.
+     */
+    private void checkQuery (
+            Path trace,
+            String[] options,
+            byte action
+    )
+            throws Exception
+    {
+        Path result = directory.resolve("result.csv");
+
+        // Find the time span of the trace.
+        long firstTimestamp = Long.MAX_VALUE;
+        long lastTimestamp = Long.MIN_VALUE;
+
+        try (BinaryTraceReader reader = new BinaryTraceReader(trace.toString())) {
+
+            while (reader.next()) {
+                firstTimestamp = Math.min(firstTimestamp, reader.timestamp());
+                lastTimestamp = Math.max(lastTimestamp, reader.timestamp());
+            }
+        }
+
+        long third = (lastTimestamp - firstTimestamp) / 3;
+        long startTimestamp = (firstTimestamp + third) / 1000 * 1000;
+        long endTimestamp = (lastTimestamp - third) / 1000 * 1000;
+
+        // Scan for the matching events.
+        List<String> expected = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+
+        try (BinaryTraceReader reader = new BinaryTraceReader(trace.toString())) {
+
+            while (reader.next()) {
+
+                if (reader.timestamp() >= startTimestamp &&
+                        reader.timestamp() < endTimestamp &&
+                        reader.offset() < END_SECTOR &&
+                        reader.offset() + Math.max(reader.size(), 1) > START_SECTOR &&
+                        (action == 0 || reader.action() == action)) {
+
+                    line.setLength(0);
+                    BinaryTraceReader.appendLine(line, reader);
+                    expected.add(line.toString());
+                }
+            }
+        }
+
+        String[] arguments = new String[options.length + 6];
+        System.arraycopy(options, 0, arguments, 0, options.length);
+        arguments[options.length] = "-time";
+        arguments[options.length + 1] = (startTimestamp / 1e9) + "," + (endTimestamp / 1e9);
+        arguments[options.length + 2] = "-lba";
+        arguments[options.length + 3] = START_SECTOR + "," + END_SECTOR;
+        arguments[options.length + 4] = trace.toString();
+        arguments[options.length + 5] = result.toString();
+
+        TraceQuery.main(arguments);
+
+        assertTrue(expected.size() > 100, "matches: " + expected.size());
+        assertEquals(expected, Files.readAllLines(result));
+    }
+}
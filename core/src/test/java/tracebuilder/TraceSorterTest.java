@@ -0,0 +1,150 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests sort shuffled traces with   *
+ *      {@link TraceSorter}, in memory and spilled to   *
+ *      disk in runs, and check the order against a     *
+ *      stable sort of the same events.                 *
+ ********************************************************/
+
+class TraceSorterTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * A trace fitting in memory comes out in order.
+     */
+    @Test
+    void sortsInMemory ()
+            throws Exception
+    {
+        checkSort(new String[0], "sorted.csv");
+    }
+
+
+    /**
+     * A trace spilled in many runs and merged on several threads
+     * comes out in the same order.
+     */
+    @Test
+    void sortsInRuns ()
+            throws Exception
+    {
+        checkSort(new String[] { "-memory", "64K", "-threads", "4" }, "sorted.csv");
+    }
+
+
+    /**
+     * A trace sorted into the binary format reads
+     * back in the same order.
+     */
+    @Test
+    void sortsToBinary ()
+            throws Exception
+    {
+        checkSort(new String[] { "-memory", "64K", "-binary" }, "sorted.bin");
+    }
+
+
+    /**
+     * Shuffles the I/O events of a generated trace, with copies of
+     * some of them which differ only in offset, sorts it with the
+     * given options into the given file, and checks that the events
+     * come out ordered by timestamp then sequence, ties in the order
+     * of the input.
+     */
+    private void checkSort (
+            String[] options,
+            String outputName
+    )
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+        Path shuffled = directory.resolve("shuffled.csv");
+        Path output = directory.resolve(outputName);
+        Path sorted = directory.resolve("sorted.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "19", "20000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                "-events", blkparse.toString(), trace.toString()
+        });
+
+        List<String> lines = new ArrayList<>(Files.readAllLines(trace));
+        Random random = new Random(19);
+
+        Collections.shuffle(lines, random);
+
+        // Add events tied with others, both before and after them.
+        for (int i = 0; i < 100; i++) {
+
+            String[] fields = lines.get(random.nextInt(lines.size())).split(",");
+            fields[6] = Long.toString(i);
+
+            lines.add(random.nextInt(lines.size()), String.join(",", fields));
+        }
+
+        Files.write(shuffled, lines);
+
+        String[] arguments = new String[options.length + 2];
+        System.arraycopy(options, 0, arguments, 0, options.length);
+        arguments[options.length] = shuffled.toString();
+        arguments[options.length + 1] = output.toString();
+
+        TraceSorter.main(arguments);
+
+        if (!output.equals(sorted)) {
+
+            BinaryTraceReader.main(new String[] {
+                    output.toString(), sorted.toString()
+            });
+        }
+
+        // List.sort is stable, so ties stay in the order of the input.
+        List<String> expected = lines.stream()
+                .sorted(Comparator
+                        .comparingLong(TraceSorterTest::timestamp)
+                        .thenComparingLong(line -> Long.parseLong(line.split(",")[2])))
+                .collect(Collectors.toList());
+
+        assertTrue(expected.size() > 10_000, "events: " + expected.size());
+        assertEquals(expected, Files.readAllLines(sorted));
+    }
+
+
+    /**
+     * Returns the timestamp of the given CSV line in nanoseconds.
+     */
+    private static long timestamp (
+            String line
+    )
+    {
+        String[] seconds = line.split(",")[3].split("\\.");
+
+        return Long.parseLong(seconds[0]) * 1_000_000_000L + Long.parseLong(seconds[1]);
+    }
+}
@@ -0,0 +1,87 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests load blkparse output into   *
+ *      a {@link TraceStore} and iterate over it        *
+ *      through {@link TraceCursor}.                    *
+ ********************************************************/
+
+class TraceStoreTest {
+
+
+    @TempDir
+    Path directory;
+
+
+    /**
+     * A million events take {@link TraceStore#BYTES_PER_EVENT} bytes
+     * each, give or take the end of the last chunk, and come back in
+     * the order of the input, as the CSV of the same input has them.
+     */
+    @Test
+    void loadsMillionEventsInOrder ()
+            throws Exception
+    {
+        Path blkparse = directory.resolve("blkparse.txt");
+        Path trace = directory.resolve("trace.csv");
+
+        BlkparseGenerator.main(new String[] {
+                "-seed", "5", "1000000", blkparse.toString()
+        });
+
+        BlkparseToCSV.main(new String[] {
+                blkparse.toString(), trace.toString()
+        });
+
+        TraceStore store = BlkparseToCSV.parseToStore(blkparse.toString());
+        long minFootprint = store.size() * TraceStore.BYTES_PER_EVENT;
+
+        assertTrue(store.size() > 900_000, "events: " + store.size());
+        assertTrue(store.footprint() >= minFootprint);
+        assertTrue(store.footprint() < minFootprint + (long) TraceStore.CHUNK_SIZE * TraceStore.BYTES_PER_EVENT);
+
+        long numEvents = 0;
+
+        try (
+                TraceCursor cursor = TraceCursor.open(blkparse.toString());
+                TraceCursor expected = new CsvTraceReader(trace.toString())
+        ) {
+
+            assertInstanceOf(TraceStore.Cursor.class, cursor);
+
+            while (expected.next()) {
+
+                assertTrue(cursor.next());
+
+                assertEquals(expected.major(), cursor.major());
+                assertEquals(expected.minor(), cursor.minor());
+                assertEquals(expected.sequence(), cursor.sequence());
+                assertEquals(expected.timestamp(), cursor.timestamp());
+                assertEquals(expected.pid(), cursor.pid());
+                assertEquals(expected.rbws(), cursor.rbws());
+                assertEquals(expected.offset(), cursor.offset());
+                assertEquals(expected.size(), cursor.size());
+                assertTrue(cursor.action() != 0);
+
+                numEvents++;
+            }
+
+            assertFalse(cursor.next());
+        }
+
+        assertEquals(store.size(), numEvents);
+    }
+}
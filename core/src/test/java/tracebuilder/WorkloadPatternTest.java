@@ -0,0 +1,192 @@
+package tracebuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.BitSet;
+
+import org.junit.jupiter.api.Test;
+
+/********************************************************
+ * Purpose: Research Under Professor Berger             *
+ * Description:                                         *
+ *                                                      *
+ *      The following tests draw offsets from every     *
+ *      {@link WorkloadPattern} and check that each     *
+ *      block falls within the span, and that the       *
+ *      zipf ranks are scattered by a permutation.      *
+ ********************************************************/
+
+class WorkloadPatternTest {
+
+
+    /**
+     * Specifies a pattern of each kind, with a fixed seed.
+     */
+    private static final String[] SPECS = {
+            "sequential",
+            "strided:64K",
+            "strided:5000",
+            "uniform:1",
+            "zipf:0.99:2",
+            "zipf:1.2:3",
+            "hotcold:0.2:0.8:4",
+            "shift:1M:100:5",
+            "shift:1G:10:6"
+    };
+
+
+    /**
+     * Specifies the spans drawn over, including ones which are not
+     * a whole number of blocks and one of a single block.
+     */
+    private static final long[] SPANS = {
+            4096, 4096 * 3 + 1, 1 << 20, 1000 * 4096 + 123, 10L << 30
+    };
+
+
+    /**
+     * Every block of every pattern fits within the span, and is
+     * aligned to the block size when the pattern says so.
+     */
+    @Test
+    void staysWithinSpan ()
+    {
+        for (String spec : SPECS) {
+
+            for (long span : SPANS) {
+
+                for (int blockSize : new int[] { 512, 4096 }) {
+
+                    WorkloadPattern pattern = WorkloadPattern.parse(spec);
+                    assertNotNull(pattern, spec);
+
+                    pattern.start(span, blockSize);
+                    boolean aligned = pattern.isAligned(blockSize);
+
+                    for (int i = 0; i < 20_000; i++) {
+
+                        long offset = pattern.next();
+                        String where = spec + " over " + span + " in " + blockSize + ": " + offset;
+
+                        assertTrue(offset >= 0 && offset + blockSize <= span, where);
+                        assertTrue(!aligned || offset % blockSize == 0, where);
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * A sequential pattern issues every block in order, then
+     * starts over, and a stride not a multiple of the
+     * block size is not aligned.
+     */
+    @Test
+    void issuesBlocksInOrder ()
+    {
+        WorkloadPattern pattern = WorkloadPattern.parse("sequential");
+        pattern.start(4096 * 3 + 1, 4096);
+
+        assertTrue(pattern.isSequential());
+
+        for (long expected : new long[] { 0, 4096, 8192, 0, 4096 }) {
+            assertEquals(expected, pattern.next());
+        }
+
+        assertFalse(WorkloadPattern.parse("strided:5000").isAligned(4096));
+        assertFalse(WorkloadPattern.parse("strided:64K").isSequential());
+    }
+
+
+    /**
+     * Scattering the ranks of a zipf distribution maps them onto
+     * every position exactly once, whatever the number of ranks.
+     */
+    @Test
+    void scattersRanksByPermutation ()
+    {
+        for (long numRanks = 1; numRanks <= 1100; numRanks++) {
+            checkPermutation(numRanks);
+        }
+
+        checkPermutation((1 << 20) + 3);
+        checkPermutation(1 << 20);
+    }
+
+
+    /**
+     * The hot fraction of the span receives the given
+     * fraction of the blocks.
+     */
+    @Test
+    void favoursHotBlocks ()
+    {
+        WorkloadPattern pattern = WorkloadPattern.parse("hotcold:0.2:0.8:7");
+        pattern.start(1000 * 4096, 4096);
+
+        int numHot = 0;
+
+        for (int i = 0; i < 100_000; i++) {
+
+            if (pattern.next() < 200 * 4096) {
+                numHot++;
+            }
+        }
+
+        assertEquals(0.8, numHot / 100_000.0, 0.01);
+    }
+
+
+    /**
+     * Malformed patterns do not parse, and a span too small
+     * for a block is rejected.
+     */
+    @Test
+    void rejectsInvalidPatterns ()
+    {
+        for (String spec : new String[] {
+                "random", "sequential:1", "strided", "strided:0", "uniform:1:2",
+                "zipf", "zipf:0", "zipf:-1", "hotcold:0:0.5", "hotcold:1:0.5",
+                "hotcold:0.2:1.5", "shift:0:10", "shift:1M:0", "shift:1M"
+        }) {
+            assertNull(WorkloadPattern.parse(spec), spec);
+        }
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> WorkloadPattern.parse("uniform:1").start(511, 512)
+        );
+    }
+
+
+    /**
+     * Checks that {@link ZipfDistribution#scatter(long)} maps
+     * the ranks 1 to the given number onto distinct positions
+     * from 0 up to it.
+     */
+    private static void checkPermutation (
+            long numRanks
+    )
+    {
+        ZipfDistribution zipf = new ZipfDistribution(numRanks, 0.99);
+        BitSet seen = new BitSet();
+
+        for (long rank = 1; rank <= numRanks; rank++) {
+
+            long position = zipf.scatter(rank);
+
+            assertTrue(position >= 0 && position < numRanks, numRanks + ": " + position);
+            assertFalse(seen.get((int) position), numRanks + ": " + position);
+
+            seen.set((int) position);
+        }
+
+        assertEquals(numRanks, seen.cardinality());
+    }
+}